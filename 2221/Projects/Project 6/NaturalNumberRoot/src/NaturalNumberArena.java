@@ -0,0 +1,104 @@
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+
+/**
+ * Pool of scratch {@code NaturalNumber}s handed out and given back in
+ * last-in-first-out order, so a recursive computation reuses the same few
+ * numbers instead of creating new ones at every step.
+ *
+ * <p>
+ * A computation of nesting depth d holds at most O(d) scratch numbers at a
+ * time, so that is all the arena ever creates, however many steps there are.
+ * An arena can be {@code reset} between computations and reused.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class NaturalNumberArena {
+
+    /**
+     * Initial number of slots.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Scratch numbers created so far; those at indexes below {@code inUse}
+     * are handed out.
+     */
+    private NaturalNumber[] pool;
+
+    /**
+     * Number of scratch numbers created so far.
+     */
+    private int created;
+
+    /**
+     * Number of scratch numbers currently handed out.
+     */
+    private int inUse;
+
+    /**
+     * No-argument constructor.
+     */
+    public NaturalNumberArena() {
+        this.pool = new NaturalNumber[INITIAL_CAPACITY];
+        this.created = 0;
+        this.inUse = 0;
+    }
+
+    /**
+     * Hands out a scratch number, creating one only if all those created so
+     * far are in use.
+     *
+     * @return a scratch number
+     * @ensures take = 0
+     */
+    public NaturalNumber take() {
+        if (this.inUse == this.created) {
+            if (this.created == this.pool.length) {
+                NaturalNumber[] bigger = new NaturalNumber[2 * this.created];
+                System.arraycopy(this.pool, 0, bigger, 0, this.created);
+                this.pool = bigger;
+            }
+            this.pool[this.created] = new NaturalNumber2();
+            this.created++;
+        }
+        NaturalNumber n = this.pool[this.inUse];
+        this.inUse++;
+        n.clear();
+        return n;
+    }
+
+    /**
+     * Gives back the scratch number most recently handed out and not yet given
+     * back.
+     *
+     * @param n
+     *            the scratch number
+     * @requires [n is the scratch number most recently handed out and not yet
+     *           given back]
+     */
+    public void release(NaturalNumber n) {
+        assert this.inUse > 0 && this.pool[this.inUse - 1] == n : ""
+                + "Violation of: n is the most recently taken number";
+
+        this.inUse--;
+    }
+
+    /**
+     * Gives back every scratch number handed out, keeping them for reuse.
+     */
+    public void reset() {
+        this.inUse = 0;
+    }
+
+    /**
+     * Reports the number of scratch numbers this arena has created.
+     *
+     * @return the number of scratch numbers created
+     */
+    public int created() {
+        return this.created;
+    }
+
+}
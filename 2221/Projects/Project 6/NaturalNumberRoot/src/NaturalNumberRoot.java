@@ -1,3 +1,5 @@
+import java.util.Random;
+
 import components.naturalnumber.NaturalNumber;
 import components.naturalnumber.NaturalNumber2;
 import components.simplewriter.SimpleWriter;
@@ -5,13 +7,45 @@ import components.simplewriter.SimpleWriter1L;
 
 /**
  * Program with implementation of {@code NaturalNumber} secondary operation
- * {@code root} implemented as static method.
+ * {@code root} implemented as static method, by bisection ({@code root}) and
+ * by Newton iteration ({@code rootNewton}).
  *
  * @author Ryan Shaffer
  *
  */
 public final class NaturalNumberRoot {
 
+    /**
+     * Number of decimal digits of the benchmark inputs.
+     */
+    private static final int BENCHMARK_DIGITS = 1000;
+
+    /**
+     * Number of decimal digits of the inputs on which the two modes are
+     * compared; bisection is too slow to run on {@code BENCHMARK_DIGITS}.
+     */
+    private static final int COMPARISON_DIGITS = 100;
+
+    /**
+     * Roots taken in the benchmark.
+     */
+    private static final int[] BENCHMARK_ROOTS = { 2, 3, 5, 15 };
+
+    /**
+     * Number of timed root extractions per benchmark case.
+     */
+    private static final int BENCHMARK_REPS = 20;
+
+    /**
+     * Seed of the benchmark inputs, so runs are comparable.
+     */
+    private static final long SEED = 2221L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
     /**
      * Private constructor so this utility class cannot be instantiated.
      */
@@ -30,29 +64,46 @@ public final class NaturalNumberRoot {
      * @ensures n ^ (r) <= #n < (n + 1) ^ (r)
      */
     public static void root(NaturalNumber n, int r) {
+        root(n, r, new NaturalNumberArena());
+    }
+
+    /**
+     * Updates {@code n} to the {@code r}-th root of its incoming value, taking
+     * its scratch numbers from {@code arena}. A caller that keeps one arena
+     * per thread and passes it to every call creates no numbers after the
+     * first call.
+     *
+     * @param n
+     *            the number whose root to compute
+     * @param r
+     *            root
+     * @param arena
+     *            the arena to take scratch numbers from
+     * @updates n
+     * @requires r >= 2
+     * @ensures n ^ (r) <= #n < (n + 1) ^ (r)
+     */
+    public static void root(NaturalNumber n, int r, NaturalNumberArena arena) {
         assert n != null : "Violation of: n is  not null";
         assert r >= 2 : "Violation of: r >= 2";
+        assert arena != null : "Violation of: arena is not null";
+
+        // Constants and scratch numbers, reused by every step
+        NaturalNumber one = arena.take();
+        one.setFromInt(1);
+        NaturalNumber two = arena.take();
+        two.setFromInt(2);
+        NaturalNumber guess = arena.take();
+        NaturalNumber power = arena.take();
+        NaturalNumber difference = arena.take();
 
         // Initialize upper bound, grab value from n, and add 1
-        NaturalNumber tooHigh = new NaturalNumber2();
+        NaturalNumber tooHigh = arena.take();
         tooHigh.copyFrom(n);
         tooHigh.increment();
 
         // Initialize lower bound as 0
-        NaturalNumber lowEnough = new NaturalNumber2(0);
-
-        // Initialize guess
-        NaturalNumber guess = new NaturalNumber2();
-
-        // Used for taking root
-        NaturalNumber power = new NaturalNumber2();
-
-        // Used for the difference between bounds
-        NaturalNumber difference = new NaturalNumber2();
-
-        // Initialize 1 and 2 to be used for computations
-        NaturalNumber one = new NaturalNumber2(1);
-        NaturalNumber two = new NaturalNumber2(2);
+        NaturalNumber lowEnough = arena.take();
 
         // Calculate difference for comparison
         difference.copyFrom(tooHigh);
@@ -81,20 +132,132 @@ public final class NaturalNumberRoot {
             difference.subtract(lowEnough);
         }
 
-        // Change n to closest integer root
+        // Change n to closest integer root; n need not be of the arena's
+        // type, so copy rather than transfer
         n.copyFrom(lowEnough);
 
+        arena.release(lowEnough);
+        arena.release(tooHigh);
+        arena.release(difference);
+        arena.release(power);
+        arena.release(guess);
+        arena.release(two);
+        arena.release(one);
     }
 
     /**
-     * Main method.
+     * Updates {@code n} to the {@code r}-th root of its incoming value, using
+     * integer Newton iteration.
      *
-     * @param args
-     *            the command line arguments
+     * @param n
+     *            the number whose root to compute
+     * @param r
+     *            root
+     * @updates n
+     * @requires r >= 2
+     * @ensures n ^ (r) <= #n < (n + 1) ^ (r)
      */
-    public static void main(String[] args) {
-        SimpleWriter out = new SimpleWriter1L();
+    public static void rootNewton(NaturalNumber n, int r) {
+        rootNewton(n, r, new NaturalNumberArena());
+    }
+
+    /**
+     * Updates {@code n} to the {@code r}-th root of its incoming value, using
+     * integer Newton iteration and taking its scratch numbers from
+     * {@code arena}.
+     *
+     * <p>
+     * The estimate starts at 2^ceil(b / r), where b >= the bit length of
+     * {@code n} is computed from its number of decimal digits, so it is no
+     * smaller than the root. From there x := ((r - 1) * x + n / x^(r - 1)) / r
+     * decreases monotonically and converges quadratically, stopping at the
+     * first step that does not decrease x.
+     *
+     * @param n
+     *            the number whose root to compute
+     * @param r
+     *            root
+     * @param arena
+     *            the arena to take scratch numbers from
+     * @updates n
+     * @requires r >= 2
+     * @ensures n ^ (r) <= #n < (n + 1) ^ (r)
+     */
+    public static void rootNewton(NaturalNumber n, int r,
+            NaturalNumberArena arena) {
+        assert n != null : "Violation of: n is not null";
+        assert r >= 2 : "Violation of: r >= 2";
+        assert arena != null : "Violation of: arena is not null";
+
+        NaturalNumber one = arena.take();
+        one.setFromInt(1);
+        if (n.compareTo(one) > 0) {
+            /*
+             * log2(10) < 3.4, so n < 10^digits <= 2^bits
+             */
+            final int bitsPerTenDigits = 34;
+            final int ten = 10;
+            int digits = n.toString().length();
+            int bits = (digits * bitsPerTenDigits + ten - 1) / ten;
+
+            NaturalNumber estimate = arena.take();
+            estimate.setFromInt(2);
+            estimate.power((bits + r - 1) / r);
+
+            NaturalNumber rMinusOne = arena.take();
+            rMinusOne.setFromInt(r - 1);
+            NaturalNumber rootIndex = arena.take();
+            rootIndex.setFromInt(r);
+
+            // Scratch numbers reused by every step
+            NaturalNumber next = arena.take();
+            NaturalNumber quotient = arena.take();
+
+            boolean decreasing = true;
+            while (decreasing) {
+                // next = x^(r - 1), then quotient = n / x^(r - 1)
+                next.copyFrom(estimate);
+                next.power(r - 1);
+                quotient.copyFrom(n);
+                quotient.divide(next);
+
+                // next = ((r - 1) * x + quotient) / r
+                next.copyFrom(estimate);
+                next.multiply(rMinusOne);
+                next.add(quotient);
+                next.divide(rootIndex);
 
+                decreasing = next.compareTo(estimate) < 0;
+                if (decreasing) {
+                    estimate.transferFrom(next);
+                }
+            }
+
+            n.copyFrom(estimate);
+
+            arena.release(quotient);
+            arena.release(next);
+            arena.release(rootIndex);
+            arena.release(rMinusOne);
+            arena.release(estimate);
+        }
+        arena.release(one);
+    }
+
+    /**
+     * Runs the regression table through {@code root} or {@code rootNewton}
+     * and reports each result to {@code out}.
+     *
+     * @param out
+     *            the output stream
+     * @param newton
+     *            whether to use {@code rootNewton} instead of {@code root}
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [results of the table]
+     */
+    private static void runTable(SimpleWriter out, boolean newton) {
+        NaturalNumberArena arena = new NaturalNumberArena();
         final String[] numbers = { "0", "1", "13", "1024", "189943527", "0",
                 "1", "13", "4096", "189943527", "0", "1", "13", "1024",
                 "189943527", "82", "82", "82", "82", "82", "9", "27", "81",
@@ -113,7 +276,11 @@ public final class NaturalNumberRoot {
         for (int i = 0; i < numbers.length; i++) {
             NaturalNumber n = new NaturalNumber2(numbers[i]);
             NaturalNumber r = new NaturalNumber2(results[i]);
-            root(n, roots[i]);
+            if (newton) {
+                rootNewton(n, roots[i], arena);
+            } else {
+                root(n, roots[i], arena);
+            }
             if (n.equals(r)) {
                 out.println("Test " + (i + 1) + " passed: root(" + numbers[i]
                         + ", " + roots[i] + ") = " + results[i]);
@@ -123,6 +290,106 @@ public final class NaturalNumberRoot {
                         + results[i] + "> but was <" + n + ">");
             }
         }
+    }
+
+    /**
+     * Returns a random number with exactly {@code digits} decimal digits.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param digits
+     *            the number of digits
+     * @return the random number
+     * @requires digits > 0
+     */
+    private static NaturalNumber randomNumber(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char) ('1' + rnd.nextInt(NaturalNumber.RADIX - 1)));
+        for (int i = 1; i < digits; i++) {
+            sb.append((char) ('0' + rnd.nextInt(NaturalNumber.RADIX)));
+        }
+        return new NaturalNumber2(sb.toString());
+    }
+
+    /**
+     * Times {@code BENCHMARK_REPS} root extractions of random numbers with
+     * {@code digits} digits for each root in {@code BENCHMARK_ROOTS}, checks
+     * every result, and reports the times to {@code out}.
+     *
+     * @param out
+     *            the output stream
+     * @param digits
+     *            the number of digits of the inputs
+     * @param newton
+     *            whether to use {@code rootNewton} instead of {@code root}
+     * @updates out.content
+     * @requires out.is_open and digits > 0
+     * @ensures out.content = #out.content * [timing report]
+     */
+    private static void benchmark(SimpleWriter out, int digits,
+            boolean newton) {
+        Random rnd = new Random(SEED);
+        NaturalNumber n = new NaturalNumber2();
+        NaturalNumber check = new NaturalNumber2();
+        NaturalNumberArena arena = new NaturalNumberArena();
+        for (int r : BENCHMARK_ROOTS) {
+            long elapsed = 0;
+            boolean correct = true;
+            for (int i = 0; i < BENCHMARK_REPS; i++) {
+                NaturalNumber original = randomNumber(rnd, digits);
+                n.copyFrom(original);
+                long start = System.nanoTime();
+                if (newton) {
+                    rootNewton(n, r, arena);
+                } else {
+                    root(n, r, arena);
+                }
+                elapsed += System.nanoTime() - start;
+
+                // Check n^r <= #n < (n + 1)^r
+                check.copyFrom(n);
+                check.power(r);
+                correct = correct && check.compareTo(original) <= 0;
+                check.copyFrom(n);
+                check.increment();
+                check.power(r);
+                correct = correct && check.compareTo(original) > 0;
+            }
+            String mode = "bisection";
+            if (newton) {
+                mode = "Newton";
+            }
+            out.print(digits + "-digit root(n, " + r + "), " + mode + ": "
+                    + String.format("%.2f",
+                            elapsed / NANOS_PER_MILLI / BENCHMARK_REPS)
+                    + " ms each");
+            if (correct) {
+                out.println();
+            } else {
+                out.println(" *** WRONG RESULT ***");
+            }
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        out.println("Bisection:");
+        runTable(out, false);
+        out.println();
+        out.println("Newton iteration:");
+        runTable(out, true);
+
+        out.println();
+        benchmark(out, COMPARISON_DIGITS, false);
+        benchmark(out, COMPARISON_DIGITS, true);
+        benchmark(out, BENCHMARK_DIGITS, true);
 
         out.close();
     }
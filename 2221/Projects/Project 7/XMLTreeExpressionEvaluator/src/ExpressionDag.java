@@ -0,0 +1,587 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.utilities.Reporter;
+import components.xmltree.XMLTree;
+
+/**
+ * XML arithmetic expression converted into a directed acyclic graph in which
+ * structurally identical subtrees are one node ("hash-consing"), with
+ * iterative evaluators for {@code int} and {@code NaturalNumber}.
+ *
+ * <p>
+ * The {@code XMLTree} is read once, in post-order, with an explicit stack, so
+ * arbitrarily deep expressions cannot overflow the call stack. Each node's
+ * label is interned to an {@code ExpressionOperator} as it is read, and each
+ * node is looked up by its operator and operand node numbers (or, for a
+ * number, by its value) before a new node is made. Nodes are numbered in
+ * post-order, so operands always come before their operators and evaluation
+ * is a single loop over the node numbers that computes each distinct subtree
+ * exactly once.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionDag {
+
+    /**
+     * Initial capacity of the node arrays and of the stacks.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Number of bits used for each operand node number in a lookup key.
+     */
+    private static final int NODE_BITS = 30;
+
+    /**
+     * Largest number of distinct nodes, so node numbers fit in a key.
+     */
+    private static final int MAX_NODES = 1 << NODE_BITS;
+
+    /**
+     * Node kinds.
+     */
+    private static final ExpressionOperator[] OPERATORS = ExpressionOperator
+            .values();
+
+    /**
+     * Operator of each node, by ordinal.
+     */
+    private byte[] operators;
+
+    /**
+     * First operand of each operator node; unused for numbers.
+     */
+    private int[] lefts;
+
+    /**
+     * Second operand of each operator node; unused for numbers.
+     */
+    private int[] rights;
+
+    /**
+     * Value of each number node; null for operators.
+     */
+    private String[] numbers;
+
+    /**
+     * Number of distinct nodes.
+     */
+    private int size;
+
+    /**
+     * Number of nodes of the {@code XMLTree} read.
+     */
+    private int treeSize;
+
+    /**
+     * Node number of the whole expression.
+     */
+    private int root;
+
+    /**
+     * Returns the key identifying the operator node with the given operator
+     * and operands.
+     *
+     * @param op
+     *            the operator
+     * @param left
+     *            the first operand
+     * @param right
+     *            the second operand
+     * @return the lookup key
+     */
+    private static long key(int op, int left, int right) {
+        return ((long) op << (2 * NODE_BITS)) | ((long) left << NODE_BITS)
+                | right;
+    }
+
+    /**
+     * Adds a node, with room for more if needed, and returns its number.
+     *
+     * @param op
+     *            the operator
+     * @param left
+     *            the first operand
+     * @param right
+     *            the second operand
+     * @param number
+     *            the value, for a number node
+     * @return the number of the new node
+     */
+    private int addNode(ExpressionOperator op, int left, int right,
+            String number) {
+        if (this.size == this.operators.length) {
+            int capacity = 2 * this.size;
+            byte[] newOperators = new byte[capacity];
+            int[] newLefts = new int[capacity];
+            int[] newRights = new int[capacity];
+            String[] newNumbers = new String[capacity];
+            System.arraycopy(this.operators, 0, newOperators, 0, this.size);
+            System.arraycopy(this.lefts, 0, newLefts, 0, this.size);
+            System.arraycopy(this.rights, 0, newRights, 0, this.size);
+            System.arraycopy(this.numbers, 0, newNumbers, 0, this.size);
+            this.operators = newOperators;
+            this.lefts = newLefts;
+            this.rights = newRights;
+            this.numbers = newNumbers;
+        }
+        if (this.size == MAX_NODES) {
+            Reporter.fatalErrorToConsole(
+                    "Expression has too many distinct subexpressions.");
+        }
+        this.operators[this.size] = (byte) op.ordinal();
+        this.lefts[this.size] = left;
+        this.rights[this.size] = right;
+        this.numbers[this.size] = number;
+        this.size++;
+        return this.size - 1;
+    }
+
+    /**
+     * Constructor from {@code XMLTree}.
+     *
+     * @param exp
+     *            the {@code XMLTree} representing the expression
+     * @requires <pre>
+     * [exp is a subtree of a well-formed XML arithmetic expression]  and
+     *  [the label of the root of exp is not "expression"]
+     * </pre>
+     */
+    public ExpressionDag(XMLTree exp) {
+        assert exp != null : "Violation of: exp is not null";
+
+        this.operators = new byte[INITIAL_CAPACITY];
+        this.lefts = new int[INITIAL_CAPACITY];
+        this.rights = new int[INITIAL_CAPACITY];
+        this.numbers = new String[INITIAL_CAPACITY];
+        this.size = 0;
+        this.treeSize = 0;
+
+        Map<String, Integer> numberNodes = new HashMap<String, Integer>();
+        Map<Long, Integer> operatorNodes = new HashMap<Long, Integer>();
+
+        /*
+         * Post-order walk: a tree node is pushed once to be expanded and, if
+         * it is an operator, once more (with its operator) to be finished
+         * after its operands, whose node numbers are then on top of the
+         * operand stack.
+         */
+        XMLTree[] pending = new XMLTree[INITIAL_CAPACITY];
+        ExpressionOperator[] finishing;
+        finishing = new ExpressionOperator[INITIAL_CAPACITY];
+        int pendingTop = 0;
+        int[] operands = new int[INITIAL_CAPACITY];
+        int operandTop = 0;
+
+        pending[pendingTop] = exp;
+        pendingTop++;
+        while (pendingTop > 0) {
+            pendingTop--;
+            XMLTree node = pending[pendingTop];
+            ExpressionOperator op = finishing[pendingTop];
+            pending[pendingTop] = null;
+            finishing[pendingTop] = null;
+            if (op != null) {
+                // Operands done: find or make the operator node
+                operandTop -= 2;
+                int left = operands[operandTop];
+                int right = operands[operandTop + 1];
+                Long k = key(op.ordinal(), left, right);
+                Integer id = operatorNodes.get(k);
+                if (id == null) {
+                    id = this.addNode(op, left, right, null);
+                    operatorNodes.put(k, id);
+                }
+                operands[operandTop] = id;
+                operandTop++;
+            } else {
+                this.treeSize++;
+                op = ExpressionOperator.fromLabel(node.label());
+                if (op == null) {
+                    Reporter.fatalErrorToConsole(
+                            "Unknown operator " + node.label() + ".");
+                }
+                if (operandTop + 2 > operands.length) {
+                    int[] bigger = new int[2 * operands.length];
+                    System.arraycopy(operands, 0, bigger, 0, operandTop);
+                    operands = bigger;
+                }
+                if (op == ExpressionOperator.NUMBER) {
+                    String value = node.attributeValue("value");
+                    Integer id = numberNodes.get(value);
+                    if (id == null) {
+                        id = this.addNode(op, 0, 0, value);
+                        numberNodes.put(value, id);
+                    }
+                    operands[operandTop] = id;
+                    operandTop++;
+                } else {
+                    if (pendingTop + 3 > pending.length) {
+                        XMLTree[] biggerPending = new XMLTree[2
+                                * pending.length];
+                        ExpressionOperator[] biggerFinishing;
+                        biggerFinishing = new ExpressionOperator[2
+                                * pending.length];
+                        System.arraycopy(pending, 0, biggerPending, 0,
+                                pendingTop);
+                        System.arraycopy(finishing, 0, biggerFinishing, 0,
+                                pendingTop);
+                        pending = biggerPending;
+                        finishing = biggerFinishing;
+                    }
+                    pending[pendingTop] = node;
+                    finishing[pendingTop] = op;
+                    pending[pendingTop + 1] = node.child(1);
+                    pending[pendingTop + 2] = node.child(0);
+                    pendingTop += 3;
+                }
+            }
+        }
+        this.root = operands[0];
+    }
+
+    /**
+     * Reports the number of distinct nodes of {@code this}.
+     *
+     * @return the number of distinct subexpressions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the number of nodes of the {@code XMLTree} {@code this} was
+     * made from.
+     *
+     * @return the number of tree nodes
+     */
+    public int treeSize() {
+        return this.treeSize;
+    }
+
+    /**
+     * Reports the node number of the whole expression.
+     *
+     * @return the root node number
+     */
+    public int root() {
+        return this.root;
+    }
+
+    /**
+     * Reports the operator of node {@code id}.
+     *
+     * @param id
+     *            the node number
+     * @return the operator of the node
+     * @requires 0 <= id < size()
+     */
+    public ExpressionOperator operator(int id) {
+        assert 0 <= id && id < this.size : "Violation of: 0 <= id < size()";
+
+        return OPERATORS[this.operators[id]];
+    }
+
+    /**
+     * Reports the first operand of operator node {@code id}.
+     *
+     * @param id
+     *            the node number
+     * @return the node number of the first operand, less than {@code id}
+     * @requires 0 <= id < size() and operator(id) /= NUMBER
+     */
+    public int left(int id) {
+        assert 0 <= id && id < this.size : "Violation of: 0 <= id < size()";
+
+        return this.lefts[id];
+    }
+
+    /**
+     * Reports the second operand of operator node {@code id}.
+     *
+     * @param id
+     *            the node number
+     * @return the node number of the second operand, less than {@code id}
+     * @requires 0 <= id < size() and operator(id) /= NUMBER
+     */
+    public int right(int id) {
+        assert 0 <= id && id < this.size : "Violation of: 0 <= id < size()";
+
+        return this.rights[id];
+    }
+
+    /**
+     * Reports the value of number node {@code id}.
+     *
+     * @param id
+     *            the node number
+     * @return the {@code value} attribute of the number
+     * @requires 0 <= id < size() and operator(id) = NUMBER
+     */
+    public String number(int id) {
+        assert 0 <= id && id < this.size : "Violation of: 0 <= id < size()";
+
+        return this.numbers[id];
+    }
+
+    /**
+     * Evaluates {@code this} as an expression of {@code int}, with the same
+     * arithmetic as {@code XMLTreeIntExpressionEvaluator}.
+     *
+     * @return the value of the expression
+     */
+    public int evaluateInt() {
+        int[] values = new int[this.root + 1];
+        for (int id = 0; id <= this.root; id++) {
+            int a = values[this.lefts[id]];
+            int b = values[this.rights[id]];
+            int value;
+            if (this.operators[id] == ExpressionOperator.NUMBER.ordinal()) {
+                value = Integer.parseInt(this.numbers[id]);
+            } else {
+                value = apply(OPERATORS[this.operators[id]], a, b);
+            }
+            values[id] = value;
+        }
+        return values[this.root];
+    }
+
+    /**
+     * Returns the value of binary operator {@code op} applied to {@code a} and
+     * {@code b}, with the arithmetic of {@code XMLTreeIntExpressionEvaluator}.
+     *
+     * @param op
+     *            the operator
+     * @param a
+     *            the first operand
+     * @param b
+     *            the second operand
+     * @return [a op b]
+     * @requires op /= NUMBER
+     * @ensures apply = [a op b]
+     */
+    static int apply(ExpressionOperator op, int a, int b) {
+        int value = 0;
+        switch (op) {
+            case PLUS:
+                value = a + b;
+                break;
+            case MINUS:
+                value = a - b;
+                break;
+            case TIMES:
+                value = a * b;
+                break;
+            case DIVIDE:
+                if (b == 0) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot divide by 0. Terminating.");
+                }
+                value = a / b;
+                break;
+            case MOD:
+                if (b == 0) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot divide by 0. Terminating.");
+                }
+                value = a % b;
+                break;
+            case POWER:
+                value = (int) Math.pow(a, b);
+                break;
+            case ROOT:
+                value = (int) Math.pow(a, 1.0 / b);
+                break;
+            default:
+                break;
+        }
+        return value;
+    }
+
+    /**
+     * Reports whether node {@code id} is a {@code MOD} whose first operand is
+     * a {@code POWER}, so it can be computed without computing the power.
+     *
+     * @param id
+     *            the node number
+     * @return whether node {@code id} is a modular power
+     * @requires 0 <= id < size()
+     */
+    private boolean isModOfPower(int id) {
+        return this.operators[id] == ExpressionOperator.MOD.ordinal()
+                && this.operators[this.lefts[id]] == ExpressionOperator.POWER
+                        .ordinal();
+    }
+
+    /**
+     * Records that one use of node {@code id} is done, and recycles its value
+     * once none is left.
+     *
+     * @param id
+     *            the node number
+     * @param uses
+     *            the number of uses left of each node
+     * @param values
+     *            the value of each node computed and still in use
+     * @param free
+     *            the recycled numbers
+     * @updates uses, values, free
+     */
+    private static void used(int id, int[] uses, NaturalNumber[] values,
+            Deque<NaturalNumber> free) {
+        uses[id]--;
+        if (uses[id] == 0) {
+            free.push(values[id]);
+            values[id] = null;
+        }
+    }
+
+    /**
+     * Evaluates {@code this} as an expression of {@code NaturalNumber}, with
+     * the same arithmetic as {@code XMLTreeNNExpressionEvaluator}.
+     *
+     * <p>
+     * Only the nodes the result depends on are computed: a {@code POWER} node
+     * that is only the first operand of {@code MOD} nodes is never computed,
+     * because those take the power modulo their second operand directly. Each
+     * node's value is recycled as soon as its last user has been computed, so
+     * the numbers held at a time are bounded by the width of the expression,
+     * not its size.
+     *
+     * @param result
+     *            the number to hold the value of the expression
+     * @replaces result
+     * @ensures result = [the value of the expression]
+     */
+    public void evaluate(NaturalNumber result) {
+        assert result != null : "Violation of: result is not null";
+
+        /*
+         * Count the uses of each node by the nodes that are computed, root
+         * first.
+         */
+        int[] uses = new int[this.root + 1];
+        uses[this.root] = 1;
+        for (int id = this.root; id >= 0; id--) {
+            if (uses[id] > 0
+                    && this.operators[id] != ExpressionOperator.NUMBER
+                            .ordinal()) {
+                int left = this.lefts[id];
+                if (this.isModOfPower(id)) {
+                    uses[this.lefts[left]]++;
+                    uses[this.rights[left]]++;
+                } else {
+                    uses[left]++;
+                }
+                uses[this.rights[id]]++;
+            }
+        }
+
+        NaturalNumberArena arena = new NaturalNumberArena();
+        NaturalNumber[] values = new NaturalNumber[this.root + 1];
+        Deque<NaturalNumber> free = new ArrayDeque<NaturalNumber>();
+        for (int id = 0; id <= this.root; id++) {
+            if (uses[id] > 0) {
+                NaturalNumber value = free.poll();
+                if (value == null) {
+                    value = new NaturalNumber2();
+                }
+                ExpressionOperator op = OPERATORS[this.operators[id]];
+                if (op == ExpressionOperator.NUMBER) {
+                    value.setFromString(this.numbers[id]);
+                } else {
+                    int left = this.lefts[id];
+                    int right = this.rights[id];
+                    if (this.isModOfPower(id)) {
+                        int base = this.lefts[left];
+                        int exponent = this.rights[left];
+                        if (values[right].isZero()) {
+                            Reporter.fatalErrorToConsole(
+                                    "Cannot divide by 0. Terminating.");
+                        }
+                        value.copyFrom(values[base]);
+                        NaturalNumberPowers.modPow(value, values[exponent],
+                                values[right], arena);
+                        used(base, uses, values, free);
+                        used(exponent, uses, values, free);
+                    } else {
+                        value.copyFrom(values[left]);
+                        apply(op, value, values[right], arena);
+                        used(left, uses, values, free);
+                    }
+                    used(right, uses, values, free);
+                }
+                values[id] = value;
+            }
+        }
+        result.copyFrom(values[this.root]);
+    }
+
+    /**
+     * Applies binary operator {@code op} to {@code a} and {@code b}, leaving
+     * the result in {@code a}.
+     *
+     * @param op
+     *            the operator
+     * @param a
+     *            the first operand
+     * @param b
+     *            the second operand
+     * @param arena
+     *            the source of scratch numbers
+     * @updates a
+     * @requires op /= NUMBER
+     * @ensures a = [#a op b]
+     */
+    static void apply(ExpressionOperator op, NaturalNumber a,
+            NaturalNumber b, NaturalNumberArena arena) {
+        switch (op) {
+            case PLUS:
+                a.add(b);
+                break;
+            case MINUS:
+                if (b.compareTo(a) > 0) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot have num greater than this. Terminating.");
+                }
+                a.subtract(b);
+                break;
+            case TIMES:
+                a.multiply(b);
+                break;
+            case DIVIDE:
+                if (b.isZero()) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot divide by 0. Terminating.");
+                }
+                a.divide(b);
+                break;
+            case MOD:
+                if (b.isZero()) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot divide by 0. Terminating.");
+                }
+                a.copyFrom(a.divide(b));
+                break;
+            case POWER:
+                if (b.canConvertToInt()) {
+                    a.power(b.toInt());
+                } else {
+                    NaturalNumberPowers.power(a, b, arena);
+                }
+                break;
+            case ROOT:
+                a.root(b.toInt());
+                break;
+            default:
+                break;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Node kinds of XML arithmetic expressions, so each node's label is matched
+ * against the operator names once, when it is read, instead of with a chain of
+ * {@code equalsIgnoreCase} tests every time it is evaluated.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public enum ExpressionOperator {
+
+    /**
+     * A number, given by the {@code value} attribute of the node.
+     */
+    NUMBER,
+
+    /**
+     * Sum of the two operands.
+     */
+    PLUS,
+
+    /**
+     * Difference of the two operands.
+     */
+    MINUS,
+
+    /**
+     * Product of the two operands.
+     */
+    TIMES,
+
+    /**
+     * Quotient of the two operands.
+     */
+    DIVIDE,
+
+    /**
+     * Remainder of the first operand divided by the second.
+     */
+    MOD,
+
+    /**
+     * First operand raised to the power of the second.
+     */
+    POWER,
+
+    /**
+     * Root, of the degree given by the second operand, of the first operand.
+     */
+    ROOT;
+
+    /**
+     * Node kinds by lower-case label.
+     */
+    private static final Map<String, ExpressionOperator> BY_LABEL;
+
+    static {
+        BY_LABEL = new HashMap<String, ExpressionOperator>();
+        for (ExpressionOperator op : values()) {
+            BY_LABEL.put(op.name().toLowerCase(), op);
+        }
+    }
+
+    /**
+     * Returns the node kind with the given label, ignoring case.
+     *
+     * @param label
+     *            the label of an expression node
+     * @return the node kind, or null if {@code label} names none
+     */
+    public static ExpressionOperator fromLabel(String label) {
+        assert label != null : "Violation of: label is not null";
+
+        ExpressionOperator op = BY_LABEL.get(label);
+        if (op == null) {
+            op = BY_LABEL.get(label.toLowerCase());
+        }
+        return op;
+    }
+
+}
@@ -0,0 +1,493 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.utilities.Reporter;
+import components.xmltree.XMLTree;
+
+/**
+ * XML arithmetic expression compiled into a postfix program for a stack
+ * machine, so an expression read once can be evaluated any number of times
+ * without walking the {@code XMLTree} again.
+ *
+ * <p>
+ * Each instruction is one {@code int}: its low {@code OPCODE_BITS} bits are
+ * the opcode and the rest its operand. Opcode {@code NUMBER} pushes the
+ * constant whose index in the constant pool is its operand; the other
+ * {@code ExpressionOperator}s pop two values and push the result; and
+ * {@code MOD_POW} pops a base, an exponent and a modulus and pushes the
+ * modular power, so a {@code mod} of a {@code power} never computes the whole
+ * power. The largest stack the program needs is worked out when it is
+ * compiled, so evaluation allocates nothing once the stack exists.
+ *
+ * <p>
+ * A program can be saved to a text file and loaded back, so compiled
+ * expressions can be kept between runs. An {@code ExpressionProgram} keeps
+ * its evaluation stack between calls and is not safe to use from several
+ * threads at once.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionProgram {
+
+    /**
+     * Number of low bits of an instruction holding its opcode.
+     */
+    private static final int OPCODE_BITS = 4;
+
+    /**
+     * Mask of the opcode bits of an instruction.
+     */
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    /**
+     * Opcode of a modular power: (base, exponent, modulus) to base^exponent
+     * mod modulus.
+     */
+    private static final int MOD_POW = ExpressionOperator.values().length;
+
+    /**
+     * Opcode of {@code NUMBER}, pushing a constant.
+     */
+    private static final int PUSH = ExpressionOperator.NUMBER.ordinal();
+
+    /**
+     * Node kinds, by opcode.
+     */
+    private static final ExpressionOperator[] OPERATORS = ExpressionOperator
+            .values();
+
+    /**
+     * First line of a saved program, with the version of the file format.
+     */
+    private static final String HEADER = "expression-program 1";
+
+    /**
+     * Initial capacity of the code and of the stacks used while compiling.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Instructions.
+     */
+    private final int[] code;
+
+    /**
+     * Constant pool: the distinct values of the {@code number} nodes.
+     */
+    private final String[] constants;
+
+    /**
+     * Largest number of values on the stack during evaluation.
+     */
+    private final int maxStack;
+
+    /**
+     * Constant pool as {@code int}s, made the first time it is needed.
+     */
+    private int[] intConstants;
+
+    /**
+     * Evaluation stack of {@code int}s, kept between evaluations.
+     */
+    private int[] intStack;
+
+    /**
+     * Constant pool as {@code NaturalNumber}s, made the first time it is
+     * needed.
+     */
+    private NaturalNumber[] nnConstants;
+
+    /**
+     * Evaluation stack of {@code NaturalNumber}s, kept between evaluations.
+     */
+    private NaturalNumber[] nnStack;
+
+    /**
+     * Source of scratch numbers for powers.
+     */
+    private final NaturalNumberArena arena;
+
+    /**
+     * Constructor from the parts of a program.
+     *
+     * @param code
+     *            the instructions
+     * @param constants
+     *            the constant pool
+     * @param maxStack
+     *            the largest number of values on the stack
+     */
+    private ExpressionProgram(int[] code, String[] constants, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.arena = new NaturalNumberArena();
+    }
+
+    /**
+     * Returns the instruction with the given opcode and operand.
+     *
+     * @param opcode
+     *            the opcode
+     * @param operand
+     *            the operand
+     * @return the instruction
+     */
+    private static int instruction(int opcode, int operand) {
+        return (operand << OPCODE_BITS) | opcode;
+    }
+
+    /**
+     * Compiles the given expression.
+     *
+     * <p>
+     * The {@code XMLTree} is walked in post-order with an explicit stack, so
+     * arbitrarily deep expressions can be compiled.
+     *
+     * @param exp
+     *            the {@code XMLTree} representing the expression
+     * @return the compiled program
+     * @requires <pre>
+     * [exp is a subtree of a well-formed XML arithmetic expression]  and
+     *  [the label of the root of exp is not "expression"]
+     * </pre>
+     * @ensures [compile evaluates to the value of exp]
+     */
+    public static ExpressionProgram compile(XMLTree exp) {
+        assert exp != null : "Violation of: exp is not null";
+
+        int[] code = new int[INITIAL_CAPACITY];
+        int length = 0;
+        Map<String, Integer> constantIndexes = new HashMap<String, Integer>();
+        int depth = 0;
+        int maxStack = 0;
+
+        /*
+         * A tree node is pushed once to be expanded and, if it is an
+         * operator, once more (with its opcode) to be emitted after its
+         * operands; -1 marks a node still to be expanded.
+         */
+        XMLTree[] pending = new XMLTree[INITIAL_CAPACITY];
+        int[] emitting = new int[INITIAL_CAPACITY];
+        int top = 0;
+        pending[top] = exp;
+        emitting[top] = -1;
+        top++;
+        while (top > 0) {
+            top--;
+            XMLTree node = pending[top];
+            int opcode = emitting[top];
+            pending[top] = null;
+            if (length == code.length) {
+                int[] bigger = new int[2 * length];
+                System.arraycopy(code, 0, bigger, 0, length);
+                code = bigger;
+            }
+            if (opcode >= 0) {
+                code[length] = instruction(opcode, 0);
+                length++;
+                if (opcode == MOD_POW) {
+                    depth -= 2;
+                } else {
+                    depth--;
+                }
+            } else {
+                ExpressionOperator op = ExpressionOperator
+                        .fromLabel(node.label());
+                if (op == null) {
+                    Reporter.fatalErrorToConsole(
+                            "Unknown operator " + node.label() + ".");
+                }
+                if (top + 4 > pending.length) {
+                    XMLTree[] biggerPending = new XMLTree[2 * pending.length];
+                    int[] biggerEmitting = new int[2 * pending.length];
+                    System.arraycopy(pending, 0, biggerPending, 0, top);
+                    System.arraycopy(emitting, 0, biggerEmitting, 0, top);
+                    pending = biggerPending;
+                    emitting = biggerEmitting;
+                }
+                if (op == ExpressionOperator.NUMBER) {
+                    String value = node.attributeValue("value");
+                    Integer index = constantIndexes.get(value);
+                    if (index == null) {
+                        index = constantIndexes.size();
+                        constantIndexes.put(value, index);
+                    }
+                    code[length] = instruction(PUSH, index);
+                    length++;
+                    depth++;
+                    maxStack = Math.max(maxStack, depth);
+                } else if (op == ExpressionOperator.MOD
+                        && ExpressionOperator.fromLabel(node.child(0)
+                                .label()) == ExpressionOperator.POWER) {
+                    // Operands in order base, exponent, modulus
+                    XMLTree power = node.child(0);
+                    pending[top] = node;
+                    emitting[top] = MOD_POW;
+                    pending[top + 1] = node.child(1);
+                    emitting[top + 1] = -1;
+                    pending[top + 2] = power.child(1);
+                    emitting[top + 2] = -1;
+                    pending[top + 3] = power.child(0);
+                    emitting[top + 3] = -1;
+                    top += 4;
+                } else {
+                    pending[top] = node;
+                    emitting[top] = op.ordinal();
+                    pending[top + 1] = node.child(1);
+                    emitting[top + 1] = -1;
+                    pending[top + 2] = node.child(0);
+                    emitting[top + 2] = -1;
+                    top += 3;
+                }
+            }
+        }
+
+        int[] program = new int[length];
+        System.arraycopy(code, 0, program, 0, length);
+        String[] constants = new String[constantIndexes.size()];
+        for (Map.Entry<String, Integer> e : constantIndexes.entrySet()) {
+            constants[e.getValue()] = e.getKey();
+        }
+        return new ExpressionProgram(program, constants, maxStack);
+    }
+
+    /**
+     * Reports the number of instructions of {@code this}.
+     *
+     * @return the length of the program
+     */
+    public int length() {
+        return this.code.length;
+    }
+
+    /**
+     * Reports the number of constants of {@code this}.
+     *
+     * @return the size of the constant pool
+     */
+    public int constants() {
+        return this.constants.length;
+    }
+
+    /**
+     * Reports the largest number of values on the stack while {@code this}
+     * runs.
+     *
+     * @return the stack size needed
+     */
+    public int maxStack() {
+        return this.maxStack;
+    }
+
+    /**
+     * Evaluates {@code this} as an expression of {@code int}, with the same
+     * arithmetic as {@code XMLTreeIntExpressionEvaluator}.
+     *
+     * @return the value of the expression
+     */
+    public int evaluateInt() {
+        if (this.intConstants == null) {
+            this.intConstants = new int[this.constants.length];
+            for (int i = 0; i < this.constants.length; i++) {
+                this.intConstants[i] = Integer.parseInt(this.constants[i]);
+            }
+            this.intStack = new int[this.maxStack];
+        }
+        int[] stack = this.intStack;
+        int top = 0;
+        for (int instruction : this.code) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == PUSH) {
+                stack[top] = this.intConstants[instruction >>> OPCODE_BITS];
+                top++;
+            } else if (opcode == MOD_POW) {
+                top -= 2;
+                int power = ExpressionDag.apply(ExpressionOperator.POWER,
+                        stack[top - 1], stack[top]);
+                stack[top - 1] = ExpressionDag.apply(ExpressionOperator.MOD,
+                        power, stack[top + 1]);
+            } else {
+                top--;
+                stack[top - 1] = ExpressionDag.apply(OPERATORS[opcode],
+                        stack[top - 1], stack[top]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates {@code this} as an expression of {@code NaturalNumber}, with
+     * the same arithmetic as {@code XMLTreeNNExpressionEvaluator}.
+     *
+     * @param result
+     *            the number to hold the value of the expression
+     * @replaces result
+     * @ensures result = [the value of the expression]
+     */
+    public void evaluate(NaturalNumber result) {
+        assert result != null : "Violation of: result is not null";
+
+        if (this.nnConstants == null) {
+            this.nnConstants = new NaturalNumber[this.constants.length];
+            for (int i = 0; i < this.constants.length; i++) {
+                this.nnConstants[i] = new NaturalNumber2(this.constants[i]);
+            }
+            this.nnStack = new NaturalNumber[this.maxStack];
+            for (int i = 0; i < this.maxStack; i++) {
+                this.nnStack[i] = new NaturalNumber2();
+            }
+        }
+        NaturalNumber[] stack = this.nnStack;
+        int top = 0;
+        for (int instruction : this.code) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == PUSH) {
+                stack[top].copyFrom(
+                        this.nnConstants[instruction >>> OPCODE_BITS]);
+                top++;
+            } else if (opcode == MOD_POW) {
+                top -= 2;
+                if (stack[top + 1].isZero()) {
+                    Reporter.fatalErrorToConsole(
+                            "Cannot divide by 0. Terminating.");
+                }
+                NaturalNumberPowers.modPow(stack[top - 1], stack[top],
+                        stack[top + 1], this.arena);
+            } else {
+                top--;
+                ExpressionDag.apply(OPERATORS[opcode], stack[top - 1],
+                        stack[top], this.arena);
+            }
+        }
+        result.copyFrom(stack[0]);
+    }
+
+    /**
+     * Saves {@code this} to the given file.
+     *
+     * <p>
+     * The file holds {@code HEADER}, the largest stack size, the number of
+     * constants followed by one constant per line, and the number of
+     * instructions followed by one instruction per line.
+     *
+     * @param fileName
+     *            the name of the file
+     * @ensures [fileName holds this, as read by load]
+     */
+    public void save(String fileName) {
+        assert fileName != null : "Violation of: fileName is not null";
+
+        SimpleWriter out = new SimpleWriter1L(fileName);
+        out.println(HEADER);
+        out.println(this.maxStack);
+        out.println(this.constants.length);
+        for (String constant : this.constants) {
+            out.println(constant);
+        }
+        out.println(this.code.length);
+        for (int instruction : this.code) {
+            out.println(instruction);
+        }
+        out.close();
+    }
+
+    /**
+     * Reads the next line of {@code in} as a number from 0 to {@code limit},
+     * reporting a fatal error if it is not one.
+     *
+     * @param in
+     *            the input stream
+     * @param limit
+     *            the largest count allowed
+     * @return the number read
+     * @updates in
+     * @requires in.is_open
+     * @ensures [nextNumber is the next line of #in, read as an integer]
+     */
+    private static int nextNumber(SimpleReader in, int limit) {
+        int count = -1;
+        if (!in.atEOS()) {
+            try {
+                count = Integer.parseInt(in.nextLine().trim());
+            } catch (NumberFormatException e) {
+                count = -1;
+            }
+        }
+        if (count < 0 || count > limit) {
+            Reporter.fatalErrorToConsole("Malformed expression program.");
+        }
+        return count;
+    }
+
+    /**
+     * Loads the program saved in the given file.
+     *
+     * <p>
+     * The program is checked as it is read, so that evaluating it cannot go
+     * wrong: every opcode must be known, every constant index in the pool,
+     * the stack must never run out of operands, its largest size must be the
+     * one recorded, and exactly one value must be left at the end. A file
+     * that fails any of these checks is reported as a fatal error.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the program
+     * @requires [fileName was written by save]
+     * @ensures [load is the program saved in fileName]
+     */
+    public static ExpressionProgram load(String fileName) {
+        assert fileName != null : "Violation of: fileName is not null";
+
+        SimpleReader in = new SimpleReader1L(fileName);
+        if (in.atEOS() || !in.nextLine().equals(HEADER)) {
+            Reporter.fatalErrorToConsole(
+                    "Not an expression program: " + fileName);
+        }
+        int maxStack = nextNumber(in, Integer.MAX_VALUE);
+        String[] constants = new String[nextNumber(in, Integer.MAX_VALUE)];
+        for (int i = 0; i < constants.length; i++) {
+            if (in.atEOS()) {
+                Reporter.fatalErrorToConsole("Malformed expression program.");
+            }
+            constants[i] = in.nextLine();
+        }
+        int[] code = new int[nextNumber(in, Integer.MAX_VALUE)];
+        int depth = 0;
+        int deepest = 0;
+        for (int i = 0; i < code.length; i++) {
+            code[i] = nextNumber(in, Integer.MAX_VALUE);
+            int opcode = code[i] & OPCODE_MASK;
+            if (opcode == PUSH) {
+                if ((code[i] >>> OPCODE_BITS) >= constants.length) {
+                    Reporter.fatalErrorToConsole(
+                            "Malformed expression program.");
+                }
+                depth++;
+            } else if (opcode == MOD_POW) {
+                depth -= 2;
+            } else if (opcode < MOD_POW) {
+                depth--;
+            } else {
+                depth = 0;
+            }
+            if (depth < 1 || depth > maxStack) {
+                Reporter.fatalErrorToConsole("Malformed expression program.");
+            }
+            deepest = Math.max(deepest, depth);
+        }
+        in.close();
+        if (depth != 1 || deepest != maxStack) {
+            Reporter.fatalErrorToConsole("Malformed expression program.");
+        }
+        return new ExpressionProgram(code, constants, maxStack);
+    }
+
+}
@@ -0,0 +1,361 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.xmltree.XMLTree;
+import components.xmltree.XMLTree1;
+
+/**
+ * Program to compare the recursive evaluators with {@code ExpressionDag} and
+ * {@code ExpressionProgram} on generated expressions of {@code TREE_NODES}
+ * nodes.
+ *
+ * <p>
+ * The random expression uses few distinct numbers, so many of its small
+ * subtrees repeat and are computed only once by {@code ExpressionDag}. The
+ * deep expression is a chain of {@code DEEP_CHAIN} nested {@code plus}es,
+ * deep enough to overflow the call stack of the recursive evaluators. The
+ * wide expression is a sum of {@code PRODUCTS} big products, whose operands
+ * {@code ParallelExpressionEvaluator} evaluates on several cores.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionTimingMain {
+
+    /**
+     * Number of nodes of the random expression.
+     */
+    private static final int TREE_NODES = 1_000_000;
+
+    /**
+     * Number of nested operators of the deep expression.
+     */
+    private static final int DEEP_CHAIN = 200_000;
+
+    /**
+     * Number of products summed by the wide expression.
+     */
+    private static final int PRODUCTS = 4096;
+
+    /**
+     * Number of digits of each factor of the wide expression.
+     */
+    private static final int FACTOR_DIGITS = 400;
+
+    /**
+     * Number of distinct numbers in the random expression.
+     */
+    private static final int DISTINCT_NUMBERS = 10;
+
+    /**
+     * Modulus used by the {@code mod} nodes of the random expression.
+     */
+    private static final String MODULUS = "1000003";
+
+    /**
+     * Seed of the random expression, so runs are comparable.
+     */
+    private static final long SEED = 2221L;
+
+    /**
+     * Number of times each compiled program is run.
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Stack size of the thread reading expression files.
+     */
+    private static final long LOADER_STACK_BYTES = 1L << 30;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ExpressionTimingMain() {
+    }
+
+    /**
+     * Appends a {@code number} node to {@code xml}.
+     *
+     * @param xml
+     *            the XML text
+     * @param value
+     *            the value of the number
+     * @updates xml
+     * @ensures xml = #xml * [number node with the given value]
+     */
+    private static void appendNumber(StringBuilder xml, String value) {
+        xml.append("<number value=\"").append(value).append("\"/>");
+    }
+
+    /**
+     * Appends a random expression of exactly {@code size} nodes to
+     * {@code xml}: a {@code plus} of two random subexpressions, a
+     * {@code times} by a one-digit number, or a {@code mod} by
+     * {@code MODULUS}, so the values stay small for both {@code int} and
+     * {@code NaturalNumber}.
+     *
+     * @param xml
+     *            the XML text
+     * @param size
+     *            the number of nodes
+     * @param rnd
+     *            the source of randomness
+     * @updates xml
+     * @requires size > 0
+     * @ensures xml = #xml * [random expression of size nodes]
+     */
+    private static void appendRandom(StringBuilder xml, int size,
+            Random rnd) {
+        if (size < 3) {
+            appendNumber(xml, Integer.toString(rnd.nextInt(DISTINCT_NUMBERS)));
+        } else {
+            final int kinds = 4;
+            int kind = rnd.nextInt(kinds);
+            if (kind < 2) {
+                int left = 1 + rnd.nextInt(size - 2);
+                xml.append("<plus>");
+                appendRandom(xml, left, rnd);
+                appendRandom(xml, size - 1 - left, rnd);
+                xml.append("</plus>");
+            } else if (kind == 2) {
+                xml.append("<times>");
+                appendRandom(xml, size - 2, rnd);
+                appendNumber(xml, Integer.toString(1 + rnd.nextInt(9)));
+                xml.append("</times>");
+            } else {
+                xml.append("<mod>");
+                appendRandom(xml, size - 2, rnd);
+                appendNumber(xml, MODULUS);
+                xml.append("</mod>");
+            }
+        }
+    }
+
+    /**
+     * Appends a balanced sum of {@code count} products of two random
+     * {@code FACTOR_DIGITS}-digit numbers to {@code xml}.
+     *
+     * @param xml
+     *            the XML text
+     * @param count
+     *            the number of products
+     * @param rnd
+     *            the source of randomness
+     * @updates xml
+     * @requires count > 0
+     * @ensures xml = #xml * [sum of count random products]
+     */
+    private static void appendSumOfProducts(StringBuilder xml, int count,
+            Random rnd) {
+        if (count == 1) {
+            xml.append("<times>");
+            for (int k = 0; k < 2; k++) {
+                StringBuilder digits = new StringBuilder();
+                digits.append(1 + rnd.nextInt(9));
+                for (int i = 1; i < FACTOR_DIGITS; i++) {
+                    digits.append(rnd.nextInt(10));
+                }
+                appendNumber(xml, digits.toString());
+            }
+            xml.append("</times>");
+        } else {
+            xml.append("<plus>");
+            appendSumOfProducts(xml, count / 2, rnd);
+            appendSumOfProducts(xml, count - count / 2, rnd);
+            xml.append("</plus>");
+        }
+    }
+
+    /**
+     * Writes {@code body} as an expression file and reads it back. Reading is
+     * done on a thread with a stack of {@code LOADER_STACK_BYTES}, in case
+     * {@code XMLTree1} itself reads deeply nested elements recursively.
+     *
+     * @param body
+     *            the XML text of the expression
+     * @return the {@code XMLTree} of the expression file
+     * @throws IOException
+     *             if the temporary file cannot be created
+     * @throws InterruptedException
+     *             if interrupted while waiting for the file to be read
+     */
+    private static XMLTree load(CharSequence body)
+            throws IOException, InterruptedException {
+        final File file = File.createTempFile("expression", ".xml");
+        file.deleteOnExit();
+        SimpleWriter xml = new SimpleWriter1L(file.getPath());
+        xml.print("<expression>");
+        xml.print(body.toString());
+        xml.println("</expression>");
+        xml.close();
+
+        final XMLTree[] tree = new XMLTree[1];
+        Thread loader = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                tree[0] = new XMLTree1(file.getPath());
+            }
+        }, "loader", LOADER_STACK_BYTES);
+        loader.start();
+        loader.join();
+        return tree[0];
+    }
+
+    /**
+     * Reports the time since {@code start} to {@code out}.
+     *
+     * @param out
+     *            the output stream
+     * @param what
+     *            the name of what was timed
+     * @param start
+     *            the value of {@code System.nanoTime()} at the start
+     * @param value
+     *            the value computed
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [timing report]
+     */
+    private static void report(SimpleWriter out, String what, long start,
+            Object value) {
+        double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        out.println(String.format("  %-28s %9.1f ms  = %s", what, millis,
+                value));
+    }
+
+    /**
+     * Times both evaluators on the expression {@code exp} and reports the
+     * results to {@code out}.
+     *
+     * @param out
+     *            the output stream
+     * @param exp
+     *            the expression, below its {@code expression} node
+     * @throws IOException
+     *             if a temporary program file cannot be created
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [timing report]
+     */
+    private static void time(SimpleWriter out, XMLTree exp)
+            throws IOException {
+        long start = System.nanoTime();
+        ExpressionDag dag = new ExpressionDag(exp);
+        report(out, "ExpressionDag build", start,
+                dag.treeSize() + " tree nodes, " + dag.size() + " distinct");
+
+        start = System.nanoTime();
+        int intValue = dag.evaluateInt();
+        report(out, "ExpressionDag int", start, intValue);
+
+        NaturalNumber nnValue = new NaturalNumber2();
+        start = System.nanoTime();
+        dag.evaluate(nnValue);
+        report(out, "ExpressionDag NaturalNumber", start, nnValue);
+
+        start = System.nanoTime();
+        ExpressionProgram program = ExpressionProgram.compile(exp);
+        report(out, "ExpressionProgram compile", start,
+                program.length() + " instructions, " + program.constants()
+                        + " constants");
+
+        File file = File.createTempFile("expression", ".program");
+        file.deleteOnExit();
+        start = System.nanoTime();
+        program.save(file.getPath());
+        program = ExpressionProgram.load(file.getPath());
+        report(out, "ExpressionProgram save+load", start,
+                file.length() + " bytes");
+
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            intValue = program.evaluateInt();
+        }
+        report(out, "ExpressionProgram int x" + RUNS, start, intValue);
+
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            program.evaluate(nnValue);
+        }
+        report(out, "ExpressionProgram NN x" + RUNS, start, nnValue);
+
+        try {
+            start = System.nanoTime();
+            intValue = XMLTreeIntExpressionEvaluator.evaluate(exp);
+            report(out, "recursive int", start, intValue);
+
+            start = System.nanoTime();
+            XMLTreeNNExpressionEvaluator.evaluate(exp, nnValue,
+                    new NaturalNumberArena());
+            report(out, "recursive NaturalNumber", start, nnValue);
+        } catch (StackOverflowError e) {
+            out.println("  recursive evaluators: stack overflow");
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     * @throws IOException
+     *             if a temporary expression file cannot be created
+     * @throws InterruptedException
+     *             if interrupted while an expression file is read
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        SimpleWriter out = new SimpleWriter1L();
+
+        StringBuilder xml = new StringBuilder();
+        appendRandom(xml, TREE_NODES, new Random(SEED));
+        XMLTree random = load(xml);
+        out.println("Random expression of " + TREE_NODES + " nodes "
+                + "(run without -ea for meaningful numbers):");
+        time(out, random.child(0));
+
+        xml = new StringBuilder();
+        for (int i = 0; i < DEEP_CHAIN; i++) {
+            xml.append("<plus>");
+            appendNumber(xml, "1");
+        }
+        appendNumber(xml, "0");
+        for (int i = 0; i < DEEP_CHAIN; i++) {
+            xml.append("</plus>");
+        }
+        XMLTree deep = load(xml);
+        out.println("Chain of " + DEEP_CHAIN + " nested plus nodes:");
+        time(out, deep.child(0));
+
+        xml = new StringBuilder();
+        appendSumOfProducts(xml, PRODUCTS, new Random(SEED));
+        XMLTree wide = load(xml).child(0);
+        out.println("Sum of " + PRODUCTS + " products of " + FACTOR_DIGITS
+                + "-digit numbers, on "
+                + Runtime.getRuntime().availableProcessors() + " cores:");
+        NaturalNumber sequential = new NaturalNumber2();
+        long start = System.nanoTime();
+        XMLTreeNNExpressionEvaluator.evaluate(wide, sequential,
+                new NaturalNumberArena());
+        report(out, "recursive NaturalNumber", start,
+                sequential.toString().length() + " digits");
+        NaturalNumber parallel = new NaturalNumber2();
+        start = System.nanoTime();
+        ParallelExpressionEvaluator.evaluate(wide, parallel);
+        report(out, "parallel NaturalNumber", start,
+                "same value: " + parallel.equals(sequential));
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,127 @@
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Utility class with powers of {@code NaturalNumber}s for exponents that may
+ * exceed {@code Integer.MAX_VALUE}, by left-to-right binary exponentiation.
+ *
+ * <p>
+ * Every number used, even the constant 2, comes from the caller's
+ * {@code NaturalNumberArena}: a restores-mode argument may still be changed
+ * for the duration of a call, so no number is shared between calls, and
+ * calls with different arenas can run concurrently.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class NaturalNumberPowers {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private NaturalNumberPowers() {
+    }
+
+    /**
+     * Returns the binary digits of {@code p}, most significant first.
+     *
+     * @param p
+     *            the number to convert
+     * @param arena
+     *            the source of scratch numbers
+     * @return the binary depiction of p, without leading zeros
+     * @ensures [binaryDigits is the binary depiction of p]
+     */
+    private static String binaryDigits(NaturalNumber p,
+            NaturalNumberArena arena) {
+        NaturalNumber q = arena.take();
+        NaturalNumber two = arena.take();
+        q.copyFrom(p);
+        two.setFromInt(2);
+        StringBuilder bits = new StringBuilder();
+        while (!q.isZero()) {
+            bits.append(q.divide(two).toString());
+        }
+        arena.release(two);
+        arena.release(q);
+        return bits.reverse().toString();
+    }
+
+    /**
+     * Raises {@code n} to the power {@code p}.
+     *
+     * @param n
+     *            the base
+     * @param p
+     *            the exponent
+     * @param arena
+     *            the source of scratch numbers
+     * @updates n
+     * @ensures n = #n ^ (p)
+     */
+    public static void power(NaturalNumber n, NaturalNumber p,
+            NaturalNumberArena arena) {
+        assert n != null : "Violation of: n is not null";
+        assert p != null : "Violation of: p is not null";
+        assert arena != null : "Violation of: arena is not null";
+
+        String bits = binaryDigits(p, arena);
+        NaturalNumber base = arena.take();
+        NaturalNumber square = arena.take();
+        base.copyFrom(n);
+        n.setFromInt(1);
+        for (int i = 0; i < bits.length(); i++) {
+            square.copyFrom(n);
+            n.multiply(square);
+            if (bits.charAt(i) == '1') {
+                n.multiply(base);
+            }
+        }
+        arena.release(square);
+        arena.release(base);
+    }
+
+    /**
+     * Replaces {@code n} by {@code n} raised to the power {@code p}, modulo
+     * {@code m}, reducing modulo {@code m} after every multiplication so no
+     * intermediate result grows beyond m^2.
+     *
+     * @param n
+     *            the base
+     * @param p
+     *            the exponent
+     * @param m
+     *            the modulus
+     * @param arena
+     *            the source of scratch numbers
+     * @updates n
+     * @requires m > 0
+     * @ensures n = (#n ^ (p)) mod m
+     */
+    public static void modPow(NaturalNumber n, NaturalNumber p,
+            NaturalNumber m, NaturalNumberArena arena) {
+        assert n != null : "Violation of: n is not null";
+        assert p != null : "Violation of: p is not null";
+        assert m != null : "Violation of: m is not null";
+        assert arena != null : "Violation of: arena is not null";
+        assert !m.isZero() : "Violation of: m > 0";
+
+        String bits = binaryDigits(p, arena);
+        NaturalNumber base = arena.take();
+        NaturalNumber square = arena.take();
+        base.copyFrom(n.divide(m));
+        n.setFromInt(1);
+        n.copyFrom(n.divide(m));
+        for (int i = 0; i < bits.length(); i++) {
+            square.copyFrom(n);
+            n.multiply(square);
+            n.copyFrom(n.divide(m));
+            if (bits.charAt(i) == '1') {
+                n.multiply(base);
+                n.copyFrom(n.divide(m));
+            }
+        }
+        arena.release(square);
+        arena.release(base);
+    }
+
+}
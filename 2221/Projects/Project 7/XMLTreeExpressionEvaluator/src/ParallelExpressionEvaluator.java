@@ -0,0 +1,669 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import components.naturalnumber.NaturalNumber;
+import components.utilities.Reporter;
+import components.xmltree.XMLTree;
+
+/**
+ * Evaluator of XML expressions of {@code NaturalNumber} that evaluates
+ * independent operands in parallel, with fork-join tasks, once they have at
+ * least a threshold number of nodes.
+ *
+ * <p>
+ * The result, and the error reported if any, are the same as those of
+ * {@code XMLTreeNNExpressionEvaluator}. Tasks never report errors themselves:
+ * each error is recorded with its position in the post-order in which the
+ * sequential evaluator would meet it, and only the earliest is reported, once
+ * the evaluation is done. As soon as an error is known, no subexpression that
+ * comes after it is started, operands still pending are skipped, and tasks
+ * evaluating them are cancelled, so like the sequential evaluator this one
+ * stops at the first error instead of finishing the rest of the expression.
+ *
+ * <p>
+ * Each task walks its subexpression with an explicit stack, and evaluates the
+ * largest operand of each operator itself, forking only the others, so tasks
+ * nest at most log2(n / threshold) deep and arbitrarily deep expressions can
+ * be evaluated. Operator labels are read with {@code ExpressionOperator}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ParallelExpressionEvaluator {
+
+    /**
+     * Default smallest number of nodes of an operand evaluated by its own
+     * task.
+     */
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    /**
+     * Initial capacity of the stack used by {@code measure}.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Message of a divide or mod by 0.
+     */
+    private static final String DIVIDE_BY_ZERO = ""
+            + "Cannot divide by 0. Terminating.";
+
+    /**
+     * Message of a subtraction of a greater number.
+     */
+    private static final String UNDERFLOW = ""
+            + "Cannot have num greater than this. Terminating.";
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ParallelExpressionEvaluator() {
+    }
+
+    /**
+     * State shared by all the tasks of one evaluation: the shape of the
+     * expression and the earliest error found so far.
+     *
+     * <p>
+     * A node with pre-order index i at depth d, of s nodes, is the first
+     * node of its subexpression to finish at post-order position i - d, and
+     * finishes itself at position i - d + s - 1; an error found at a node is
+     * at the node's own finishing position.
+     */
+    private static final class Evaluation {
+
+        /**
+         * Number of nodes of each subexpression, by pre-order index.
+         */
+        private final int[] sizes;
+
+        /**
+         * Smallest number of nodes of an operand evaluated by its own task.
+         */
+        private final int threshold;
+
+        /**
+         * Post-order position of the earliest error found, or
+         * {@code Integer.MAX_VALUE} if none has been.
+         */
+        private volatile int errorAt;
+
+        /**
+         * Message of the earliest error found, or null if none has been.
+         */
+        private String error;
+
+        /**
+         * Constructor.
+         *
+         * @param sizes
+         *            the number of nodes of each subexpression
+         * @param threshold
+         *            the smallest operand evaluated by its own task
+         */
+        private Evaluation(int[] sizes, int threshold) {
+            this.sizes = sizes;
+            this.threshold = threshold;
+            this.errorAt = Integer.MAX_VALUE;
+            this.error = null;
+        }
+
+        /**
+         * Reports whether an error is known before post-order position
+         * {@code position}, so nothing from there on needs evaluating.
+         *
+         * @param position
+         *            the post-order position
+         * @return whether an earlier error has been found
+         */
+        private boolean isAfterError(int position) {
+            return position > this.errorAt;
+        }
+
+        /**
+         * Records an error, if it is earlier than any found so far.
+         *
+         * @param position
+         *            the post-order position of the error
+         * @param message
+         *            the message of the error
+         */
+        private synchronized void fail(int position, String message) {
+            if (position < this.errorAt) {
+                this.error = message;
+                this.errorAt = position;
+            }
+        }
+
+        /**
+         * Reports the earliest error found.
+         *
+         * @return the message of the error, or null if none has been found
+         */
+        private synchronized String error() {
+            return this.error;
+        }
+
+    }
+
+    /**
+     * Task evaluating one subexpression into a number of its own, so that it
+     * can be cancelled, even while it runs, without touching any number its
+     * parent still uses.
+     */
+    private static final class EvaluationTask extends RecursiveTask<Boolean> {
+
+        /**
+         * Serialization version, as required of {@code RecursiveTask}s.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The evaluation this task is part of.
+         */
+        private final Evaluation evaluation;
+
+        /**
+         * The subexpression.
+         */
+        private final XMLTree exp;
+
+        /**
+         * Pre-order index of the root of {@code exp} in the whole expression.
+         */
+        private final int index;
+
+        /**
+         * Depth of the root of {@code exp} in the whole expression.
+         */
+        private final int depth;
+
+        /**
+         * The number to hold the value of {@code exp}.
+         */
+        private final NaturalNumber value;
+
+        /**
+         * Constructor.
+         *
+         * @param evaluation
+         *            the evaluation this task is part of
+         * @param exp
+         *            the subexpression
+         * @param index
+         *            the pre-order index of exp
+         * @param depth
+         *            the depth of exp
+         * @param value
+         *            the number to hold the value of exp
+         */
+        EvaluationTask(Evaluation evaluation, XMLTree exp, int index,
+                int depth, NaturalNumber value) {
+            this.evaluation = evaluation;
+            this.exp = exp;
+            this.index = index;
+            this.depth = depth;
+            this.value = value;
+        }
+
+        @Override
+        protected Boolean compute() {
+            return evaluate(this.evaluation, this.exp, this.index, this.depth,
+                    this.value, new NaturalNumberArena());
+        }
+
+    }
+
+    /**
+     * Operator node of a task's walk whose operands are being evaluated.
+     */
+    private static final class Frame {
+
+        /**
+         * The operator.
+         */
+        private final ExpressionOperator op;
+
+        /**
+         * Whether the node is a {@code mod} of a {@code power}, whose
+         * operands are the base, exponent, and modulus.
+         */
+        private final boolean modPow;
+
+        /**
+         * Post-order position at which the node finishes.
+         */
+        private final int position;
+
+        /**
+         * The numbers to hold the values of the operands; the first is the
+         * number to hold the value of the node, the others are from the
+         * arena.
+         */
+        private final NaturalNumber[] values;
+
+        /**
+         * Post-order position of the first node of each operand.
+         */
+        private final int[] starts;
+
+        /**
+         * Task evaluating each operand, or null for those evaluated inline.
+         */
+        private final EvaluationTask[] tasks;
+
+        /**
+         * Constructor.
+         *
+         * @param op
+         *            the operator
+         * @param modPow
+         *            whether the node is a mod of a power
+         * @param position
+         *            the post-order position of the node
+         * @param values
+         *            the numbers to hold the values of the operands
+         * @param starts
+         *            the post-order position of the first node of each
+         *            operand
+         * @param tasks
+         *            the task evaluating each operand, or null
+         */
+        private Frame(ExpressionOperator op, boolean modPow, int position,
+                NaturalNumber[] values, int[] starts, EvaluationTask[] tasks) {
+            this.op = op;
+            this.modPow = modPow;
+            this.position = position;
+            this.values = values;
+            this.starts = starts;
+            this.tasks = tasks;
+        }
+
+    }
+
+    /**
+     * Subexpression of a task's walk still to be evaluated.
+     */
+    private static final class Pending {
+
+        /**
+         * The subexpression.
+         */
+        private final XMLTree exp;
+
+        /**
+         * Pre-order index of the root of {@code exp}.
+         */
+        private final int index;
+
+        /**
+         * Depth of the root of {@code exp}.
+         */
+        private final int depth;
+
+        /**
+         * The number to hold the value of {@code exp}.
+         */
+        private final NaturalNumber value;
+
+        /**
+         * Operator node finished, once its operands are, when this is not a
+         * subexpression to evaluate.
+         */
+        private final Frame frame;
+
+        /**
+         * Constructor of a subexpression to evaluate.
+         *
+         * @param exp
+         *            the subexpression
+         * @param index
+         *            the pre-order index of exp
+         * @param depth
+         *            the depth of exp
+         * @param value
+         *            the number to hold the value of exp
+         */
+        private Pending(XMLTree exp, int index, int depth,
+                NaturalNumber value) {
+            this.exp = exp;
+            this.index = index;
+            this.depth = depth;
+            this.value = value;
+            this.frame = null;
+        }
+
+        /**
+         * Constructor of an operator node to finish.
+         *
+         * @param frame
+         *            the operator node
+         */
+        private Pending(Frame frame) {
+            this.exp = null;
+            this.index = 0;
+            this.depth = 0;
+            this.value = null;
+            this.frame = frame;
+        }
+
+    }
+
+    /**
+     * Returns the number of nodes of {@code exp} and of each of its
+     * subexpressions, by pre-order index. The tree is walked with an explicit
+     * stack, so arbitrarily deep expressions can be measured.
+     *
+     * @param exp
+     *            the expression
+     * @return the sizes of the subexpressions of exp, in pre-order
+     */
+    private static int[] measure(XMLTree exp) {
+        int[] sizes = new int[INITIAL_CAPACITY];
+        int count = 0;
+        /*
+         * Each node on the stack is recorded with its pre-order index and the
+         * number of its children visited so far; every node counted since a
+         * node was pushed is one of its descendants.
+         */
+        XMLTree[] nodes = new XMLTree[INITIAL_CAPACITY];
+        int[] indexes = new int[INITIAL_CAPACITY];
+        int[] visited = new int[INITIAL_CAPACITY];
+        int top = 0;
+        XMLTree next = exp;
+        while (next != null || top > 0) {
+            if (next != null) {
+                if (count == sizes.length) {
+                    int[] bigger = new int[2 * count];
+                    System.arraycopy(sizes, 0, bigger, 0, count);
+                    sizes = bigger;
+                }
+                if (top == nodes.length) {
+                    XMLTree[] biggerNodes = new XMLTree[2 * top];
+                    int[] biggerIndexes = new int[2 * top];
+                    int[] biggerVisited = new int[2 * top];
+                    System.arraycopy(nodes, 0, biggerNodes, 0, top);
+                    System.arraycopy(indexes, 0, biggerIndexes, 0, top);
+                    System.arraycopy(visited, 0, biggerVisited, 0, top);
+                    nodes = biggerNodes;
+                    indexes = biggerIndexes;
+                    visited = biggerVisited;
+                }
+                nodes[top] = next;
+                indexes[top] = count;
+                visited[top] = 0;
+                top++;
+                count++;
+                next = null;
+            } else if (visited[top - 1] < nodes[top - 1].numberOfChildren()) {
+                next = nodes[top - 1].child(visited[top - 1]);
+                visited[top - 1]++;
+            } else {
+                top--;
+                sizes[indexes[top]] = count - indexes[top];
+                nodes[top] = null;
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Starts evaluating subexpression {@code p}: a number is set at once,
+     * while an operator has its operands forked or pushed onto
+     * {@code pending}, above the operator itself.
+     *
+     * @param evaluation
+     *            the evaluation
+     * @param p
+     *            the subexpression
+     * @param pending
+     *            the rest of the walk
+     * @param arena
+     *            the source of scratch numbers
+     * @return false if {@code p} will have no value, because an earlier error
+     *         is known or its label is not an operator
+     * @updates pending, arena
+     */
+    private static boolean expand(Evaluation evaluation, Pending p,
+            Deque<Pending> pending, NaturalNumberArena arena) {
+        int start = p.index - p.depth;
+        boolean computed = !evaluation.isAfterError(start);
+        if (computed) {
+            String label = p.exp.label();
+            ExpressionOperator op = ExpressionOperator.fromLabel(label);
+            if (op == null) {
+                evaluation.fail(start, "Unknown operator " + label + ".");
+                computed = false;
+            } else if (op == ExpressionOperator.NUMBER) {
+                p.value.setFromString(p.exp.attributeValue("value"));
+            } else {
+                int[] sizes = evaluation.sizes;
+                boolean modPow = op == ExpressionOperator.MOD
+                        && ExpressionOperator.fromLabel(p.exp.child(0)
+                                .label()) == ExpressionOperator.POWER;
+                XMLTree[] operands;
+                int[] indexes;
+                int[] depths;
+                NaturalNumber[] values;
+                if (modPow) {
+                    XMLTree power = p.exp.child(0);
+                    int baseIndex = p.index + 2;
+                    int exponentIndex = baseIndex + sizes[baseIndex];
+                    int modulusIndex = p.index + 1 + sizes[p.index + 1];
+                    operands = new XMLTree[] { power.child(0), power.child(1),
+                        p.exp.child(1) };
+                    indexes = new int[] { baseIndex, exponentIndex,
+                        modulusIndex };
+                    depths = new int[] { p.depth + 2, p.depth + 2,
+                        p.depth + 1 };
+                    NaturalNumber exponent = arena.take();
+                    NaturalNumber modulus = arena.take();
+                    values = new NaturalNumber[] { p.value, exponent,
+                        modulus };
+                } else {
+                    int leftIndex = p.index + 1;
+                    int rightIndex = leftIndex + sizes[leftIndex];
+                    operands = new XMLTree[] { p.exp.child(0),
+                        p.exp.child(1) };
+                    indexes = new int[] { leftIndex, rightIndex };
+                    depths = new int[] { p.depth + 1, p.depth + 1 };
+                    values = new NaturalNumber[] { p.value, arena.take() };
+                }
+                int largest = 0;
+                int[] starts = new int[operands.length];
+                for (int i = 0; i < operands.length; i++) {
+                    starts[i] = indexes[i] - depths[i];
+                    if (sizes[indexes[i]] > sizes[indexes[largest]]) {
+                        largest = i;
+                    }
+                }
+                EvaluationTask[] tasks = new EvaluationTask[operands.length];
+                for (int i = 0; i < operands.length; i++) {
+                    if (i != largest
+                            && sizes[indexes[i]] >= evaluation.threshold) {
+                        tasks[i] = new EvaluationTask(evaluation, operands[i],
+                                indexes[i], depths[i],
+                                values[i].newInstance());
+                        tasks[i].fork();
+                    }
+                }
+                pending.push(new Pending(new Frame(op, modPow,
+                        start + sizes[p.index] - 1, values, starts, tasks)));
+                for (int i = operands.length - 1; i >= 0; i--) {
+                    if (tasks[i] == null) {
+                        pending.push(new Pending(operands[i], indexes[i],
+                                depths[i], values[i]));
+                    }
+                }
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Finishes operator node {@code f} once its inline operands are done:
+     * collects the values of its forked operands, cancelling those that come
+     * after a known error, applies the operator if every operand has a value,
+     * and gives its scratch numbers back to {@code arena}.
+     *
+     * @param evaluation
+     *            the evaluation
+     * @param f
+     *            the operator node
+     * @param operandsComputed
+     *            whether every inline operand has a value
+     * @param arena
+     *            the source of scratch numbers
+     * @return whether the node has a value
+     * @updates arena
+     */
+    private static boolean finish(Evaluation evaluation, Frame f,
+            boolean operandsComputed, NaturalNumberArena arena) {
+        boolean computed = operandsComputed;
+        // Join the last task forked first, so it can run on this thread
+        for (int i = f.tasks.length - 1; i >= 0; i--) {
+            EvaluationTask task = f.tasks[i];
+            if (task != null) {
+                if (evaluation.isAfterError(f.starts[i])) {
+                    task.cancel(false);
+                    computed = false;
+                } else if (task.join()) {
+                    f.values[i].transferFrom(task.value);
+                } else {
+                    computed = false;
+                }
+            }
+        }
+        if (computed) {
+            NaturalNumber result = f.values[0];
+            String error = null;
+            if (f.modPow) {
+                if (f.values[2].isZero()) {
+                    error = DIVIDE_BY_ZERO;
+                } else {
+                    NaturalNumberPowers.modPow(result, f.values[1],
+                            f.values[2], arena);
+                }
+            } else {
+                NaturalNumber right = f.values[1];
+                if (f.op == ExpressionOperator.MINUS
+                        && right.compareTo(result) > 0) {
+                    error = UNDERFLOW;
+                } else if ((f.op == ExpressionOperator.DIVIDE
+                        || f.op == ExpressionOperator.MOD)
+                        && right.isZero()) {
+                    error = DIVIDE_BY_ZERO;
+                } else {
+                    ExpressionDag.apply(f.op, result, right, arena);
+                }
+            }
+            if (error != null) {
+                evaluation.fail(f.position, error);
+                computed = false;
+            }
+        }
+        for (int i = f.values.length - 1; i > 0; i--) {
+            arena.release(f.values[i]);
+        }
+        return computed;
+    }
+
+    /**
+     * Evaluates the given subexpression into {@code result}, walking it with
+     * an explicit stack and recording any error in {@code evaluation} instead
+     * of reporting it.
+     *
+     * <p>
+     * Once an operand has no value, the operands after it are skipped and
+     * every operator still open only collects or cancels its forked tasks
+     * and gives back its scratch numbers.
+     *
+     * @param evaluation
+     *            the evaluation
+     * @param exp
+     *            the subexpression
+     * @param index
+     *            the pre-order index of exp
+     * @param depth
+     *            the depth of exp
+     * @param result
+     *            the number to hold the value of the subexpression
+     * @param arena
+     *            the source of scratch numbers
+     * @return whether the subexpression has a value; if not, an error at or
+     *         before it has been recorded
+     * @replaces result
+     * @ensures result = [the value of the subexpression, if it has one]
+     */
+    private static boolean evaluate(Evaluation evaluation, XMLTree exp,
+            int index, int depth, NaturalNumber result,
+            NaturalNumberArena arena) {
+        Deque<Pending> pending = new ArrayDeque<Pending>();
+        pending.push(new Pending(exp, index, depth, result));
+        boolean computed = true;
+        while (!pending.isEmpty()) {
+            Pending p = pending.pop();
+            if (p.frame != null) {
+                computed = finish(evaluation, p.frame, computed, arena);
+            } else if (computed) {
+                computed = expand(evaluation, p, pending, arena);
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Evaluates the given expression into {@code result}, evaluating operands
+     * of at least {@code threshold} nodes in parallel.
+     *
+     * @param exp
+     *            the {@code XMLTree} representing the expression
+     * @param result
+     *            the number to hold the value of the expression
+     * @param threshold
+     *            the smallest operand evaluated by its own task
+     * @replaces result
+     * @requires <pre>
+     * [exp is a subtree of a well-formed XML arithmetic expression]  and
+     *  [the label of the root of exp is not "expression"]  and
+     *  threshold > 0
+     * </pre>
+     * @ensures result = [the value of the expression]
+     */
+    public static void evaluate(XMLTree exp, NaturalNumber result,
+            int threshold) {
+        assert exp != null : "Violation of: exp is not null";
+        assert result != null : "Violation of: result is not null";
+        assert threshold > 0 : "Violation of: threshold > 0";
+
+        Evaluation evaluation = new Evaluation(measure(exp), threshold);
+        ForkJoinPool.commonPool()
+                .invoke(new EvaluationTask(evaluation, exp, 0, 0, result));
+        String error = evaluation.error();
+        if (error != null) {
+            Reporter.fatalErrorToConsole(error);
+        }
+    }
+
+    /**
+     * Evaluates the given expression into {@code result}, evaluating operands
+     * of at least {@code DEFAULT_THRESHOLD} nodes in parallel.
+     *
+     * @param exp
+     *            the {@code XMLTree} representing the expression
+     * @param result
+     *            the number to hold the value of the expression
+     * @replaces result
+     * @requires <pre>
+     * [exp is a subtree of a well-formed XML arithmetic expression]  and
+     *  [the label of the root of exp is not "expression"]
+     * </pre>
+     * @ensures result = [the value of the expression]
+     */
+    public static void evaluate(XMLTree exp, NaturalNumber result) {
+        evaluate(exp, result, DEFAULT_THRESHOLD);
+    }
+
+}
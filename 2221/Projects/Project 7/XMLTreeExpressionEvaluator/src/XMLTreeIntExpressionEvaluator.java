@@ -32,7 +32,7 @@ public final class XMLTreeIntExpressionEvaluator {
      * </pre>
      * @ensures evaluate = [the value of the expression]
      */
-    private static int evaluate(XMLTree exp) {
+    static int evaluate(XMLTree exp) {
         assert exp != null : "Violation of: exp is not null";
 
         // Array to hold first nodes
@@ -95,7 +95,7 @@ public final class XMLTreeIntExpressionEvaluator {
         String file = in.nextLine();
         while (!file.equals("")) {
             XMLTree exp = new XMLTree1(file);
-            out.println(evaluate(exp.child(0)));
+            out.println(new ExpressionDag(exp.child(0)).evaluateInt());
             out.print("Enter the name of an expression XML file: ");
             file = in.nextLine();
         }
@@ -23,79 +23,93 @@ public final class XMLTreeNNExpressionEvaluator {
     }
 
     /**
-     * Evaluate the given expression.
+     * Evaluates the given expression into {@code result}.
+     *
+     * <p>
+     * The left operand of every operator is evaluated directly into
+     * {@code result} and the right one into a scratch number from
+     * {@code arena}, given back as soon as the operator is applied, so the
+     * evaluation holds O(depth of exp) scratch numbers at a time and never
+     * converts a subresult to a {@code String} and back.
      *
      * @param exp
      *            the {@code XMLTree} representing the expression
-     * @return the value of the expression
+     * @param result
+     *            the number to hold the value of the expression
+     * @param arena
+     *            the source of scratch numbers
+     * @replaces result
      * @requires <pre>
      * [exp is a subtree of a well-formed XML arithmetic expression]  and
      *  [the label of the root of exp is not "expression"]
      * </pre>
-     * @ensures evaluate = [the value of the expression]
+     * @ensures result = [the value of the expression]
      */
-    private static NaturalNumber evaluate(XMLTree exp) {
+    static void evaluate(XMLTree exp, NaturalNumber result,
+            NaturalNumberArena arena) {
         assert exp != null : "Violation of: exp is not null";
         assert exp
                 .label() != "expression" : "Violation of: root label is not expression";
 
-        // Hold top of tree
-        NaturalNumber num1 = new NaturalNumber2();
-        NaturalNumber num2 = new NaturalNumber2();
-
-        // Look at children of tree, evaluate subtrees with operators first,
-        // then do original operation.
-        if (exp.numberOfChildren() > 0) {
-            if (!exp.child(0).label().equalsIgnoreCase("NUMBER")
-                    && !exp.child(1).label().equalsIgnoreCase("NUMBER")) {
-                String s = evaluate(exp.child(0)).toString();
-                num1.setFromString(s);
-                s = evaluate(exp.child(1)).toString();
-                num2.setFromString(s);
-            } else if (!exp.child(0).label().equalsIgnoreCase("NUMBER")
-                    && exp.child(1).label().equalsIgnoreCase("NUMBER")) {
-                String s = evaluate(exp.child(0)).toString();
-                num1.setFromString(s);
-                String value = exp.child(1).attributeValue("value");
-                num2.setFromString(value);
-            } else {
-                String value = exp.child(0).attributeValue("value");
-                num1.setFromString(value);
-                value = exp.child(1).attributeValue("value");
-                num2.setFromString(value);
+        if (exp.label().equalsIgnoreCase("NUMBER")) {
+            result.setFromString(exp.attributeValue("value"));
+        } else if (exp.label().equalsIgnoreCase("MOD")
+                && exp.child(0).label().equalsIgnoreCase("POWER")) {
+            // Reduce every intermediate power instead of computing the
+            // whole power first
+            XMLTree power = exp.child(0);
+            NaturalNumber exponent = arena.take();
+            NaturalNumber modulus = arena.take();
+            evaluate(power.child(0), result, arena);
+            evaluate(power.child(1), exponent, arena);
+            evaluate(exp.child(1), modulus, arena);
+            if (modulus.isZero()) {
+                Reporter.fatalErrorToConsole(
+                        "Cannot divide by 0. Terminating.");
             }
+            NaturalNumberPowers.modPow(result, exponent, modulus, arena);
+            arena.release(modulus);
+            arena.release(exponent);
+        } else {
+            // Evaluate the operands, operators first, then do the operation
+            NaturalNumber right = arena.take();
+            evaluate(exp.child(0), result, arena);
+            evaluate(exp.child(1), right, arena);
 
             // Evaluate subtrees for operators
             if (exp.label().equalsIgnoreCase("PLUS")) {
-                num1.add(num2);
+                result.add(right);
             } else if (exp.label().equalsIgnoreCase("MINUS")) {
-                if (num2.compareTo(num1) > 0) {
+                if (right.compareTo(result) > 0) {
                     Reporter.fatalErrorToConsole(
                             "Cannot have num greater than this. Terminating.");
                 }
-                num1.subtract(num2);
+                result.subtract(right);
             } else if (exp.label().equalsIgnoreCase("TIMES")) {
-                num1.multiply(num2);
+                result.multiply(right);
             } else if (exp.label().equalsIgnoreCase("DIVIDE")) {
-                if (num2.isZero()) {
+                if (right.isZero()) {
                     Reporter.fatalErrorToConsole(
                             "Cannot divide by 0. Terminating.");
                 }
-                num1.divide(num2);
+                result.divide(right);
             } else if (exp.label().equalsIgnoreCase("MOD")) {
-                if (num2.isZero()) {
+                if (right.isZero()) {
                     Reporter.fatalErrorToConsole(
                             "Cannot divide by 0. Terminating.");
                 }
-                NaturalNumber temp2 = num1.divide(num2);
-                num1.copyFrom(temp2);
+                result.copyFrom(result.divide(right));
             } else if (exp.label().equalsIgnoreCase("POWER")) {
-                num1.power(num2.toInt());
+                if (right.canConvertToInt()) {
+                    result.power(right.toInt());
+                } else {
+                    NaturalNumberPowers.power(result, right, arena);
+                }
             } else if (exp.label().equalsIgnoreCase("ROOT")) {
-                num1.root(num2.toInt());
+                result.root(right.toInt());
             }
+            arena.release(right);
         }
-        return num1;
     }
 
     /**
@@ -108,11 +122,13 @@ public final class XMLTreeNNExpressionEvaluator {
         SimpleReader in = new SimpleReader1L();
         SimpleWriter out = new SimpleWriter1L();
 
+        NaturalNumber value = new NaturalNumber2();
         out.print("Enter the name of an expression XML file: ");
         String file = in.nextLine();
         while (!file.equals("")) {
             XMLTree exp = new XMLTree1(file);
-            out.println(evaluate(exp.child(0)));
+            new ExpressionDag(exp.child(0)).evaluate(value);
+            out.println(value);
             out.print("Enter the name of an expression XML file: ");
             file = in.nextLine();
         }
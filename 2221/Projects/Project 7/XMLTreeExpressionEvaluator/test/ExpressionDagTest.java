@@ -0,0 +1,271 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.xmltree.XMLTree;
+
+/**
+ * JUnit test fixture for {@code ExpressionDag}, checked against the recursive
+ * evaluators.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionDagTest {
+
+    /**
+     * Number of nested operators of the deep expression, more than the
+     * recursive evaluators can handle on a default stack.
+     */
+    private static final int DEEP_CHAIN = 100_000;
+
+    /**
+     * Number of random expressions compared with the recursive evaluators.
+     */
+    private static final int RANDOM_EXPRESSIONS = 300;
+
+    /**
+     * Reports the result of {@code ExpressionDag.evaluate} on {@code exp}.
+     *
+     * @param exp
+     *            the expression
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    private static String dagNN(XMLTree exp) {
+        String result;
+        try {
+            NaturalNumber value = new NaturalNumber2();
+            new ExpressionDag(exp).evaluate(value);
+            result = value.toString();
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Reports the result of {@code ExpressionDag.evaluateInt} on {@code exp}.
+     *
+     * @param exp
+     *            the expression
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    private static String dagInt(XMLTree exp) {
+        String result;
+        try {
+            result = Integer.toString(new ExpressionDag(exp).evaluateInt());
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Checks that both evaluators of {@code ExpressionDag} agree with the
+     * recursive ones on {@code body}. {@code XMLTreeIntExpressionEvaluator}
+     * reads numbers only as operands, so the root must be an operator.
+     *
+     * @param body
+     *            the XML text of the expression
+     * @requires [the root of body is not a number]
+     */
+    private static void assertSameAsRecursive(String body) {
+        XMLTree exp = ExpressionTrees.tree(body);
+        assertEquals(body, ExpressionTrees.recursiveNN(exp), dagNN(exp));
+        assertEquals(body, ExpressionTrees.recursiveInt(exp), dagInt(exp));
+    }
+
+    @Test
+    public void testEachOperator() {
+        String seven = ExpressionTrees.number(7);
+        String three = ExpressionTrees.number(3);
+        for (String label : new String[] { "plus", "minus", "times", "divide",
+            "mod", "power", "root" }) {
+            assertSameAsRecursive(ExpressionTrees.node(label, seven, three));
+        }
+    }
+
+    @Test
+    public void testNumberAlone() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.number(42));
+        assertEquals("42", dagNN(exp));
+        assertEquals("42", dagInt(exp));
+        assertEquals(ExpressionTrees.recursiveNN(exp), dagNN(exp));
+    }
+
+    @Test
+    public void testMixedCaseLabels() {
+        String body = ExpressionTrees.node("Times",
+                ExpressionTrees.node("PLUS", ExpressionTrees.number(2),
+                        ExpressionTrees.number(3)),
+                ExpressionTrees.number(4));
+        assertSameAsRecursive(body);
+        assertEquals("20", dagNN(ExpressionTrees.tree(body)));
+    }
+
+    @Test
+    public void testSharedSubtrees() {
+        String product = ExpressionTrees.node("times",
+                ExpressionTrees.number(3), ExpressionTrees.number(4));
+        String sum = ExpressionTrees.node("plus", product, product);
+        String body = ExpressionTrees.node("times", sum, sum);
+        XMLTree exp = ExpressionTrees.tree(body);
+        ExpressionDag dag = new ExpressionDag(exp);
+        /*
+         * 3, 4, the product, the sum, and the root: 5 distinct nodes for the
+         * 15 of the tree.
+         */
+        assertEquals(15, dag.treeSize());
+        assertEquals(5, dag.size());
+        assertEquals(ExpressionOperator.TIMES, dag.operator(dag.root()));
+        assertEquals(dag.left(dag.root()), dag.right(dag.root()));
+        assertEquals(576, dag.evaluateInt());
+        assertSameAsRecursive(body);
+    }
+
+    @Test
+    public void testNodesNumberedInPostOrder() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.node("minus",
+                ExpressionTrees.node("plus", ExpressionTrees.number(5),
+                        ExpressionTrees.number(6)),
+                ExpressionTrees.number(5)));
+        ExpressionDag dag = new ExpressionDag(exp);
+        assertEquals(4, dag.size());
+        for (int id = 0; id < dag.size(); id++) {
+            if (dag.operator(id) != ExpressionOperator.NUMBER) {
+                assertTrue(dag.left(id) < id);
+                assertTrue(dag.right(id) < id);
+            }
+        }
+        assertEquals("5", dag.number(dag.right(dag.root())));
+        assertEquals(dag.left(dag.left(dag.root())), dag.right(dag.root()));
+    }
+
+    @Test
+    public void testDeepChain() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.chain("plus",
+                DEEP_CHAIN, ExpressionTrees.number(0),
+                ExpressionTrees.number(1)));
+        ExpressionDag dag = new ExpressionDag(exp);
+        assertEquals(2 * DEEP_CHAIN + 1, dag.treeSize());
+        assertEquals(DEEP_CHAIN + 2, dag.size());
+        assertEquals(DEEP_CHAIN, dag.evaluateInt());
+        NaturalNumber value = new NaturalNumber2();
+        dag.evaluate(value);
+        assertEquals(Integer.toString(DEEP_CHAIN), value.toString());
+    }
+
+    @Test
+    public void testModOfPower() {
+        final String base = "123456789";
+        final String exponent = "98765432109876543210";
+        final String modulus = "1000000007";
+        String body = ExpressionTrees.node("mod",
+                ExpressionTrees.node("power", ExpressionTrees.number(base),
+                        ExpressionTrees.number(exponent)),
+                ExpressionTrees.number(modulus));
+        XMLTree exp = ExpressionTrees.tree(body);
+        String expected = new BigInteger(base)
+                .modPow(new BigInteger(exponent), new BigInteger(modulus))
+                .toString();
+        assertEquals(expected, dagNN(exp));
+        assertEquals(expected, ExpressionTrees.recursiveNN(exp));
+    }
+
+    @Test
+    public void testPowerSharedWithModOfPower() {
+        /*
+         * The power is both the first operand of the mod, where it is never
+         * computed, and an operand of the sum, where it is.
+         */
+        String power = ExpressionTrees.node("power",
+                ExpressionTrees.number(12), ExpressionTrees.number(5));
+        String body = ExpressionTrees.node("plus", power,
+                ExpressionTrees.node("mod", power, ExpressionTrees.number(7)));
+        assertSameAsRecursive(body);
+        long p = 12L * 12 * 12 * 12 * 12;
+        assertEquals(Long.toString(p + p % 7),
+                dagNN(ExpressionTrees.tree(body)));
+    }
+
+    @Test
+    public void testDivideByZero() {
+        String zero = ExpressionTrees.node("minus", ExpressionTrees.number(4),
+                ExpressionTrees.number(4));
+        String body = ExpressionTrees.node("divide", ExpressionTrees.number(9),
+                zero);
+        assertSameAsRecursive(body);
+        assertTrue(dagNN(ExpressionTrees.tree(body)).startsWith("error: "));
+    }
+
+    @Test
+    public void testModByZero() {
+        String body = ExpressionTrees.node("mod", ExpressionTrees.number(9),
+                ExpressionTrees.number(0));
+        assertSameAsRecursive(body);
+        assertTrue(dagInt(ExpressionTrees.tree(body)).startsWith("error: "));
+    }
+
+    @Test
+    public void testModOfPowerByZero() {
+        String body = ExpressionTrees.node("mod",
+                ExpressionTrees.node("power", ExpressionTrees.number(2),
+                        ExpressionTrees.number(100)),
+                ExpressionTrees.number(0));
+        XMLTree exp = ExpressionTrees.tree(body);
+        assertTrue(dagNN(exp).startsWith("error: "));
+        assertEquals(ExpressionTrees.recursiveNN(exp), dagNN(exp));
+    }
+
+    @Test
+    public void testSubtractLarger() {
+        String body = ExpressionTrees.node("minus", ExpressionTrees.number(3),
+                ExpressionTrees.number(5));
+        XMLTree exp = ExpressionTrees.tree(body);
+        assertTrue(dagNN(exp).startsWith("error: "));
+        assertEquals(ExpressionTrees.recursiveNN(exp), dagNN(exp));
+        assertEquals("-2", dagInt(exp));
+    }
+
+    @Test
+    public void testFirstErrorReported() {
+        /*
+         * The subtraction comes first in post-order, so its error is the one
+         * reported, as by the recursive evaluator.
+         */
+        String body = ExpressionTrees.node("plus",
+                ExpressionTrees.node("minus", ExpressionTrees.number(1),
+                        ExpressionTrees.number(2)),
+                ExpressionTrees.node("divide", ExpressionTrees.number(1),
+                        ExpressionTrees.number(0)));
+        XMLTree exp = ExpressionTrees.tree(body);
+        assertEquals(ExpressionTrees.recursiveNN(exp), dagNN(exp));
+    }
+
+    @Test
+    public void testUnknownOperator() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.node("plus",
+                ExpressionTrees.number(1), ExpressionTrees.node("xor",
+                        ExpressionTrees.number(1), ExpressionTrees.number(2))));
+        String result = dagNN(exp);
+        assertTrue(result, result.startsWith("error: "));
+        assertTrue(result, result.contains("xor"));
+    }
+
+    @Test
+    public void testRandomAgainstRecursive() {
+        final int maxSize = 60;
+        Random rnd = new Random(1);
+        for (int i = 0; i < RANDOM_EXPRESSIONS; i++) {
+            assertSameAsRecursive(
+                    ExpressionTrees.random(rnd, 3 + rnd.nextInt(maxSize)));
+        }
+    }
+
+}
@@ -0,0 +1,397 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.xmltree.XMLTree;
+
+/**
+ * JUnit test fixture for {@code ExpressionProgram}: compiled programs checked
+ * against the recursive evaluators, saved programs loaded back, and malformed
+ * program files rejected by {@code load}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionProgramTest {
+
+    /**
+     * Number of nested operators of the deep expression, more than the
+     * recursive evaluators can handle on a default stack.
+     */
+    private static final int DEEP_CHAIN = 100_000;
+
+    /**
+     * Number of random expressions compared with the recursive evaluators.
+     */
+    private static final int RANDOM_EXPRESSIONS = 300;
+
+    /**
+     * First line of a saved program.
+     */
+    private static final String HEADER = "expression-program 1";
+
+    /**
+     * Opcode pushing a constant.
+     */
+    private static final int PUSH = ExpressionOperator.NUMBER.ordinal();
+
+    /**
+     * Opcode of {@code plus}.
+     */
+    private static final int PLUS = ExpressionOperator.PLUS.ordinal();
+
+    /**
+     * Opcode of a modular power.
+     */
+    private static final int MOD_POW = ExpressionOperator.values().length;
+
+    /**
+     * Number of low bits of an instruction holding its opcode.
+     */
+    private static final int OPCODE_BITS = 4;
+
+    /**
+     * Reports the result of {@code evaluate} on {@code p}.
+     *
+     * @param p
+     *            the program
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    private static String runNN(ExpressionProgram p) {
+        String result;
+        try {
+            NaturalNumber value = new NaturalNumber2();
+            p.evaluate(value);
+            result = value.toString();
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Reports the result of {@code evaluateInt} on {@code p}.
+     *
+     * @param p
+     *            the program
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    private static String runInt(ExpressionProgram p) {
+        String result;
+        try {
+            result = Integer.toString(p.evaluateInt());
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the program compiled from {@code body}, and the same
+     * program saved and loaded back, agree with the recursive evaluators.
+     *
+     * @param body
+     *            the XML text of the expression
+     * @requires [the root of body is not a number]
+     */
+    private static void assertSameAsRecursive(String body) {
+        XMLTree exp = ExpressionTrees.tree(body);
+        String nn = ExpressionTrees.recursiveNN(exp);
+        String in = ExpressionTrees.recursiveInt(exp);
+        ExpressionProgram p = ExpressionProgram.compile(exp);
+        assertEquals(body, nn, runNN(p));
+        assertEquals(body, in, runInt(p));
+        ExpressionProgram q = saveAndLoad(p);
+        assertEquals(body, nn, runNN(q));
+        assertEquals(body, in, runInt(q));
+    }
+
+    /**
+     * Saves {@code p} to a temporary file and loads it back.
+     *
+     * @param p
+     *            the program
+     * @return the program loaded
+     */
+    private static ExpressionProgram saveAndLoad(ExpressionProgram p) {
+        String file = ExpressionTrees.tempFile(".txt");
+        p.save(file);
+        ExpressionProgram q = ExpressionProgram.load(file);
+        assertEquals(p.length(), q.length());
+        assertEquals(p.constants(), q.constants());
+        assertEquals(p.maxStack(), q.maxStack());
+        return q;
+    }
+
+    /**
+     * Returns the instruction with the given opcode and operand.
+     *
+     * @param opcode
+     *            the opcode
+     * @param operand
+     *            the operand
+     * @return the instruction
+     */
+    private static int instruction(int opcode, int operand) {
+        return (operand << OPCODE_BITS) | opcode;
+    }
+
+    /**
+     * Writes a program file with the given parts and returns its name.
+     *
+     * @param maxStack
+     *            the largest stack size recorded
+     * @param constants
+     *            the constant pool
+     * @param code
+     *            the instructions
+     * @return the file name
+     */
+    private static String programFile(int maxStack, String[] constants,
+            int... code) {
+        String file = ExpressionTrees.tempFile(".txt");
+        SimpleWriter out = new SimpleWriter1L(file);
+        out.println(HEADER);
+        out.println(maxStack);
+        out.println(constants.length);
+        for (String constant : constants) {
+            out.println(constant);
+        }
+        out.println(code.length);
+        for (int i : code) {
+            out.println(i);
+        }
+        out.close();
+        return file;
+    }
+
+    @Test
+    public void testEachOperator() {
+        String seven = ExpressionTrees.number(7);
+        String three = ExpressionTrees.number(3);
+        for (String label : new String[] { "plus", "minus", "times", "divide",
+            "mod", "power", "root" }) {
+            assertSameAsRecursive(ExpressionTrees.node(label, seven, three));
+        }
+    }
+
+    @Test
+    public void testNumberAlone() {
+        ExpressionProgram p = ExpressionProgram
+                .compile(ExpressionTrees.tree(ExpressionTrees.number(42)));
+        assertEquals(1, p.length());
+        assertEquals(1, p.maxStack());
+        assertEquals("42", runNN(p));
+        assertEquals("42", runInt(p));
+        assertEquals("42", runNN(saveAndLoad(p)));
+    }
+
+    @Test
+    public void testSharedConstants() {
+        String product = ExpressionTrees.node("times",
+                ExpressionTrees.number(3), ExpressionTrees.number(4));
+        String body = ExpressionTrees.node("plus", product, product);
+        ExpressionProgram p = ExpressionProgram
+                .compile(ExpressionTrees.tree(body));
+        assertEquals(7, p.length());
+        assertEquals(2, p.constants());
+        assertEquals(3, p.maxStack());
+        assertEquals(24, p.evaluateInt());
+        assertSameAsRecursive(body);
+    }
+
+    @Test
+    public void testModOfPowerIsOneInstruction() {
+        final String base = "123456789";
+        final String exponent = "98765432109876543210";
+        final String modulus = "1000000007";
+        /*
+         * Mixed-case labels must be recognized as a mod of a power too.
+         */
+        String body = ExpressionTrees.node("Mod",
+                ExpressionTrees.node("POWER", ExpressionTrees.number(base),
+                        ExpressionTrees.number(exponent)),
+                ExpressionTrees.number(modulus));
+        ExpressionProgram p = ExpressionProgram
+                .compile(ExpressionTrees.tree(body));
+        assertEquals(4, p.length());
+        assertEquals(3, p.maxStack());
+        String expected = new BigInteger(base)
+                .modPow(new BigInteger(exponent), new BigInteger(modulus))
+                .toString();
+        assertEquals(expected, runNN(p));
+        assertEquals(expected, runNN(saveAndLoad(p)));
+    }
+
+    @Test
+    public void testModOfPowerByZero() {
+        String body = ExpressionTrees.node("mod",
+                ExpressionTrees.node("power", ExpressionTrees.number(2),
+                        ExpressionTrees.number(100)),
+                ExpressionTrees.number(0));
+        XMLTree exp = ExpressionTrees.tree(body);
+        ExpressionProgram p = ExpressionProgram.compile(exp);
+        assertTrue(runNN(p).startsWith("error: "));
+        assertEquals(ExpressionTrees.recursiveNN(exp), runNN(p));
+    }
+
+    @Test
+    public void testErrors() {
+        assertSameAsRecursive(ExpressionTrees.node("divide",
+                ExpressionTrees.number(9), ExpressionTrees.number(0)));
+        assertSameAsRecursive(ExpressionTrees.node("mod",
+                ExpressionTrees.number(9), ExpressionTrees.number(0)));
+        assertSameAsRecursive(ExpressionTrees.node("minus",
+                ExpressionTrees.number(3), ExpressionTrees.number(5)));
+    }
+
+    @Test
+    public void testEvaluateAgain() {
+        ExpressionProgram p = ExpressionProgram.compile(ExpressionTrees
+                .tree(ExpressionTrees.node("times",
+                        ExpressionTrees.node("plus", ExpressionTrees.number(2),
+                                ExpressionTrees.number(3)),
+                        ExpressionTrees.number(4))));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("20", runNN(p));
+            assertEquals(20, p.evaluateInt());
+        }
+    }
+
+    @Test
+    public void testDeepChain() {
+        ExpressionProgram p = ExpressionProgram.compile(ExpressionTrees
+                .tree(ExpressionTrees.chain("plus", DEEP_CHAIN,
+                        ExpressionTrees.number(0),
+                        ExpressionTrees.number(1))));
+        assertEquals(2 * DEEP_CHAIN + 1, p.length());
+        assertEquals(2, p.maxStack());
+        assertEquals(DEEP_CHAIN, p.evaluateInt());
+        ExpressionProgram q = saveAndLoad(p);
+        assertEquals(Integer.toString(DEEP_CHAIN), runNN(q));
+    }
+
+    @Test
+    public void testRandomAgainstRecursive() {
+        final int maxSize = 60;
+        Random rnd = new Random(2);
+        for (int i = 0; i < RANDOM_EXPRESSIONS; i++) {
+            assertSameAsRecursive(
+                    ExpressionTrees.random(rnd, 3 + rnd.nextInt(maxSize)));
+        }
+    }
+
+    @Test
+    public void testLoadHandWritten() {
+        ExpressionProgram p = ExpressionProgram.load(programFile(2,
+                new String[] { "40", "2" }, instruction(PUSH, 0),
+                instruction(PUSH, 1), instruction(PLUS, 0)));
+        assertEquals("42", runNN(p));
+        assertEquals(42, p.evaluateInt());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadBadHeader() {
+        String file = ExpressionTrees.tempFile(".txt");
+        SimpleWriter out = new SimpleWriter1L(file);
+        out.println("expression-program 2");
+        out.println(1);
+        out.println(1);
+        out.println("7");
+        out.println(1);
+        out.println(instruction(PUSH, 0));
+        out.close();
+        ExpressionProgram.load(file);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadBadOpcode() {
+        ExpressionProgram.load(programFile(2, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PUSH, 0),
+                instruction(MOD_POW + 1, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadStackUnderflow() {
+        /*
+         * The plus runs out of operands, although the program as a whole
+         * pushes one value more than it pops.
+         */
+        ExpressionProgram.load(programFile(2, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PLUS, 0),
+                instruction(PUSH, 0), instruction(PUSH, 0),
+                instruction(PLUS, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadModPowUnderflow() {
+        ExpressionProgram.load(programFile(2, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PUSH, 0),
+                instruction(MOD_POW, 0), instruction(PUSH, 0),
+                instruction(PUSH, 0), instruction(PLUS, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadStackOverflow() {
+        ExpressionProgram.load(programFile(1, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PUSH, 0),
+                instruction(PLUS, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadMaxStackTooLarge() {
+        ExpressionProgram.load(programFile(Integer.MAX_VALUE,
+                new String[] { "1" }, instruction(PUSH, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadBadConstantIndex() {
+        ExpressionProgram.load(programFile(2, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PUSH, 1),
+                instruction(PLUS, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadTwoValuesLeft() {
+        ExpressionProgram.load(programFile(2, new String[] { "1" },
+                instruction(PUSH, 0), instruction(PUSH, 0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadEmptyProgram() {
+        ExpressionProgram.load(programFile(0, new String[] {}));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadTruncated() {
+        String file = ExpressionTrees.tempFile(".txt");
+        SimpleWriter out = new SimpleWriter1L(file);
+        out.println(HEADER);
+        out.println(2);
+        out.println(1);
+        out.println("1");
+        out.println(3);
+        out.println(instruction(PUSH, 0));
+        out.close();
+        ExpressionProgram.load(file);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLoadNotANumber() {
+        String file = ExpressionTrees.tempFile(".txt");
+        SimpleWriter out = new SimpleWriter1L(file);
+        out.println(HEADER);
+        out.println("two");
+        out.close();
+        ExpressionProgram.load(file);
+    }
+
+}
@@ -0,0 +1,237 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.xmltree.XMLTree;
+import components.xmltree.XMLTree1;
+
+/**
+ * Builders of XML arithmetic expressions for the test fixtures of the
+ * expression engines, and the results of the recursive evaluators on them, as
+ * the reference the engines are checked against.
+ *
+ * <p>
+ * A result is reported as the value of the expression or, if evaluation stops
+ * with a fatal error, as "error: " followed by the message of the error, so
+ * that both values and error messages can be compared with
+ * {@code assertEquals}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+final class ExpressionTrees {
+
+    /**
+     * Stack size of the thread reading expression files.
+     */
+    private static final long LOADER_STACK_BYTES = 1L << 30;
+
+    /**
+     * Operator labels used by {@code random}.
+     */
+    private static final String[] RANDOM_OPERATORS = { "plus", "minus",
+        "times", "divide", "mod", "power" };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ExpressionTrees() {
+    }
+
+    /**
+     * Returns the XML text of a {@code number} node.
+     *
+     * @param value
+     *            the value of the number
+     * @return the XML text
+     */
+    static String number(String value) {
+        return "<number value=\"" + value + "\"/>";
+    }
+
+    /**
+     * Returns the XML text of a {@code number} node.
+     *
+     * @param value
+     *            the value of the number
+     * @return the XML text
+     * @requires value >= 0
+     */
+    static String number(int value) {
+        return number(Integer.toString(value));
+    }
+
+    /**
+     * Returns the XML text of an operator node.
+     *
+     * @param label
+     *            the label of the operator
+     * @param left
+     *            the XML text of the first operand
+     * @param right
+     *            the XML text of the second operand
+     * @return the XML text
+     */
+    static String node(String label, String left, String right) {
+        return "<" + label + ">" + left + right + "</" + label + ">";
+    }
+
+    /**
+     * Returns the XML text of {@code depth} nested {@code label} nodes, each
+     * the first operand of the next: first op last op last ... op last.
+     *
+     * @param label
+     *            the label of the operators
+     * @param depth
+     *            the number of operators
+     * @param first
+     *            the XML text of the innermost first operand
+     * @param last
+     *            the XML text of every second operand
+     * @return the XML text
+     * @requires depth >= 0
+     */
+    static String chain(String label, int depth, String first, String last) {
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            xml.append('<').append(label).append('>');
+        }
+        xml.append(first);
+        for (int i = 0; i < depth; i++) {
+            xml.append(last).append("</").append(label).append('>');
+        }
+        return xml.toString();
+    }
+
+    /**
+     * Returns the XML text of a random expression of about {@code size}
+     * nodes over the numbers 0 to 9, so that it repeats small subtrees and
+     * may divide by zero or subtract a larger number; exponents are at most
+     * 3.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param size
+     *            the approximate number of nodes
+     * @return the XML text
+     * @ensures [the root of random is an operator iff size >= 3]
+     */
+    static String random(Random rnd, int size) {
+        final int digits = 10;
+        final int maxExponent = 4;
+        String xml;
+        if (size < 3) {
+            xml = number(rnd.nextInt(digits));
+        } else {
+            String label = RANDOM_OPERATORS[rnd
+                    .nextInt(RANDOM_OPERATORS.length)];
+            if (label.equals("power")) {
+                xml = node(label, random(rnd, size - 2),
+                        number(rnd.nextInt(maxExponent)));
+            } else {
+                int left = 1 + rnd.nextInt(size - 2);
+                xml = node(label, random(rnd, left),
+                        random(rnd, size - 1 - left));
+            }
+        }
+        return xml;
+    }
+
+    /**
+     * Returns the name of a new, empty temporary file, deleted when the tests
+     * end.
+     *
+     * @param suffix
+     *            the suffix of the file name
+     * @return the file name
+     */
+    static String tempFile(String suffix) {
+        File file;
+        try {
+            file = File.createTempFile("expression", suffix);
+        } catch (IOException e) {
+            throw new AssertionError("Cannot create temporary file", e);
+        }
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    /**
+     * Writes {@code body} as an expression file, reads it back, and returns
+     * the expression under its {@code expression} root. Reading is done on a
+     * thread with a stack of {@code LOADER_STACK_BYTES}, in case
+     * {@code XMLTree1} itself reads deeply nested elements recursively.
+     *
+     * @param body
+     *            the XML text of the expression
+     * @return the {@code XMLTree} of the expression
+     */
+    static XMLTree tree(String body) {
+        final String file = tempFile(".xml");
+        SimpleWriter xml = new SimpleWriter1L(file);
+        xml.print("<expression>");
+        xml.print(body);
+        xml.println("</expression>");
+        xml.close();
+
+        final XMLTree[] tree = new XMLTree[1];
+        Thread loader = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                tree[0] = new XMLTree1(file);
+            }
+        }, "loader", LOADER_STACK_BYTES);
+        loader.start();
+        try {
+            loader.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError("Interrupted reading expression", e);
+        }
+        return tree[0].child(0);
+    }
+
+    /**
+     * Reports the result of {@code XMLTreeNNExpressionEvaluator} on
+     * {@code exp}.
+     *
+     * @param exp
+     *            the expression
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    static String recursiveNN(XMLTree exp) {
+        String result;
+        try {
+            NaturalNumber value = new NaturalNumber2();
+            XMLTreeNNExpressionEvaluator.evaluate(exp, value,
+                    new NaturalNumberArena());
+            result = value.toString();
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Reports the result of {@code XMLTreeIntExpressionEvaluator} on
+     * {@code exp}.
+     *
+     * @param exp
+     *            the expression
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    static String recursiveInt(XMLTree exp) {
+        String result;
+        try {
+            result = Integer.toString(XMLTreeIntExpressionEvaluator
+                    .evaluate(exp));
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,271 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.xmltree.XMLTree;
+
+/**
+ * JUnit test fixture for {@code ParallelExpressionEvaluator}, checked against
+ * {@code XMLTreeNNExpressionEvaluator}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ParallelExpressionEvaluatorTest {
+
+    /**
+     * Thresholds tried on every expression: every operand forked, most
+     * forked, some forked, and the default.
+     */
+    private static final int[] THRESHOLDS = { 1, 2, 5,
+        ParallelExpressionEvaluator.DEFAULT_THRESHOLD };
+
+    /**
+     * Number of nested operators of the deep expression, more than the
+     * recursive evaluators can handle on a default stack.
+     */
+    private static final int DEEP_CHAIN = 100_000;
+
+    /**
+     * Number of random expressions compared with the recursive evaluator.
+     */
+    private static final int RANDOM_EXPRESSIONS = 300;
+
+    /**
+     * Reports the result of {@code ParallelExpressionEvaluator.evaluate} on
+     * {@code exp}.
+     *
+     * @param exp
+     *            the expression
+     * @param threshold
+     *            the smallest operand evaluated by its own task
+     * @return the value, or "error: " and the message of the fatal error
+     */
+    private static String parallel(XMLTree exp, int threshold) {
+        String result;
+        try {
+            NaturalNumber value = new NaturalNumber2();
+            ParallelExpressionEvaluator.evaluate(exp, value, threshold);
+            result = value.toString();
+        } catch (RuntimeException e) {
+            result = "error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the parallel evaluator agrees with the recursive one on
+     * {@code body}, at every threshold of {@code THRESHOLDS}.
+     *
+     * @param body
+     *            the XML text of the expression
+     * @return the result of the recursive evaluator
+     */
+    private static String assertSameAsRecursive(String body) {
+        XMLTree exp = ExpressionTrees.tree(body);
+        String expected = ExpressionTrees.recursiveNN(exp);
+        for (int threshold : THRESHOLDS) {
+            assertEquals(body + " at " + threshold, expected,
+                    parallel(exp, threshold));
+        }
+        return expected;
+    }
+
+    @Test
+    public void testEachOperator() {
+        String seven = ExpressionTrees.number(7);
+        String three = ExpressionTrees.number(3);
+        for (String label : new String[] { "plus", "minus", "times", "divide",
+            "mod", "power", "root" }) {
+            assertSameAsRecursive(ExpressionTrees.node(label, seven, three));
+        }
+    }
+
+    @Test
+    public void testNumberAlone() {
+        assertEquals("42", assertSameAsRecursive(ExpressionTrees.number(42)));
+    }
+
+    @Test
+    public void testMixedCaseLabels() {
+        String body = ExpressionTrees.node("Times",
+                ExpressionTrees.node("PLUS", ExpressionTrees.number(2),
+                        ExpressionTrees.number(3)),
+                ExpressionTrees.number(4));
+        assertEquals("20", assertSameAsRecursive(body));
+    }
+
+    @Test
+    public void testModOfPower() {
+        String body = ExpressionTrees.node("Mod",
+                ExpressionTrees.node("POWER", ExpressionTrees.number(7),
+                        ExpressionTrees.node("plus", ExpressionTrees.number(2),
+                                ExpressionTrees.number(3))),
+                ExpressionTrees.number(10));
+        assertEquals("7", assertSameAsRecursive(body));
+    }
+
+    @Test
+    public void testDivideByZero() {
+        String zero = ExpressionTrees.node("minus", ExpressionTrees.number(4),
+                ExpressionTrees.number(4));
+        String body = ExpressionTrees.node("divide", ExpressionTrees.number(9),
+                zero);
+        assertTrue(assertSameAsRecursive(body).startsWith("error: "));
+    }
+
+    @Test
+    public void testModByZero() {
+        String body = ExpressionTrees.node("mod", ExpressionTrees.number(9),
+                ExpressionTrees.number(0));
+        assertTrue(assertSameAsRecursive(body).startsWith("error: "));
+    }
+
+    @Test
+    public void testModOfPowerByZero() {
+        String body = ExpressionTrees.node("mod",
+                ExpressionTrees.node("power", ExpressionTrees.number(2),
+                        ExpressionTrees.number(100)),
+                ExpressionTrees.number(0));
+        assertTrue(assertSameAsRecursive(body).startsWith("error: "));
+    }
+
+    @Test
+    public void testSubtractLarger() {
+        String body = ExpressionTrees.node("minus", ExpressionTrees.number(3),
+                ExpressionTrees.number(5));
+        assertTrue(assertSameAsRecursive(body).startsWith("error: "));
+    }
+
+    @Test
+    public void testFirstErrorReported() {
+        /*
+         * Both operands fail; the subtraction comes first in post-order, so
+         * its error is the one reported, whichever task finds its error first.
+         */
+        String body = ExpressionTrees.node("plus",
+                ExpressionTrees.node("minus", ExpressionTrees.number(1),
+                        ExpressionTrees.number(2)),
+                ExpressionTrees.node("divide", ExpressionTrees.number(1),
+                        ExpressionTrees.number(0)));
+        String result = assertSameAsRecursive(body);
+        assertTrue(result, result.startsWith("error: "));
+        assertTrue(result, result.endsWith("Cannot have num greater than this."
+                + " Terminating."));
+    }
+
+    @Test
+    public void testStopsAtFirstError() {
+        /*
+         * The failed division comes first in post-order, and is the larger
+         * operand, so it is evaluated inline while the costly powers after it
+         * may be forked; each power takes long enough that evaluating all of
+         * them would take minutes, so the evaluation must stop at the
+         * division.
+         */
+        final int failureSize = 10_000;
+        final int powers = 2_000;
+        String failure = ExpressionTrees.node("divide",
+                ExpressionTrees.chain("plus", failureSize,
+                        ExpressionTrees.number(0), ExpressionTrees.number(1)),
+                ExpressionTrees.number(0));
+        String costly = ExpressionTrees.chain("plus", powers,
+                ExpressionTrees.number(0),
+                ExpressionTrees.node("power", ExpressionTrees.number(3),
+                        ExpressionTrees.number(20_000)));
+        XMLTree exp = ExpressionTrees
+                .tree(ExpressionTrees.node("plus", failure, costly));
+        for (int threshold : THRESHOLDS) {
+            String result = parallel(exp, threshold);
+            assertTrue(result, result.startsWith("error: "));
+            assertTrue(result,
+                    result.endsWith("Cannot divide by 0. Terminating."));
+        }
+    }
+
+    @Test
+    public void testUnknownOperator() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.node("plus",
+                ExpressionTrees.number(1), ExpressionTrees.node("xor",
+                        ExpressionTrees.number(1), ExpressionTrees.number(2))));
+        for (int threshold : THRESHOLDS) {
+            String result = parallel(exp, threshold);
+            assertTrue(result, result.startsWith("error: "));
+            assertTrue(result, result.contains("xor"));
+        }
+    }
+
+    @Test
+    public void testDeepChain() {
+        XMLTree exp = ExpressionTrees.tree(ExpressionTrees.chain("plus",
+                DEEP_CHAIN, ExpressionTrees.number(0),
+                ExpressionTrees.number(1)));
+        for (int threshold : THRESHOLDS) {
+            assertEquals(Integer.toString(DEEP_CHAIN),
+                    parallel(exp, threshold));
+        }
+    }
+
+    @Test
+    public void testDeepRightChain() {
+        /*
+         * Each sum's second operand is the rest of the chain, so the operand
+         * evaluated inline is the second one.
+         */
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < DEEP_CHAIN; i++) {
+            body.append("<plus>").append(ExpressionTrees.number(1));
+        }
+        body.append(ExpressionTrees.number(0));
+        for (int i = 0; i < DEEP_CHAIN; i++) {
+            body.append("</plus>");
+        }
+        XMLTree exp = ExpressionTrees.tree(body.toString());
+        for (int threshold : THRESHOLDS) {
+            assertEquals(Integer.toString(DEEP_CHAIN),
+                    parallel(exp, threshold));
+        }
+    }
+
+    @Test
+    public void testWideSumOfProducts() {
+        final int products = 1000;
+        String[] terms = new String[products];
+        long expected = 0;
+        for (int i = 0; i < products; i++) {
+            terms[i] = ExpressionTrees.node("times", ExpressionTrees.number(i),
+                    ExpressionTrees.number(i + 1));
+            expected += (long) i * (i + 1);
+        }
+        // Pair the terms up into a balanced tree of sums
+        int count = products;
+        while (count > 1) {
+            int half = (count + 1) / 2;
+            for (int i = 0; i < count / 2; i++) {
+                terms[i] = ExpressionTrees.node("plus", terms[2 * i],
+                        terms[2 * i + 1]);
+            }
+            if (count % 2 == 1) {
+                terms[half - 1] = terms[count - 1];
+            }
+            count = half;
+        }
+        assertEquals(Long.toString(expected), assertSameAsRecursive(terms[0]));
+    }
+
+    @Test
+    public void testRandomAgainstRecursive() {
+        final int maxSize = 60;
+        Random rnd = new Random(1);
+        for (int i = 0; i < RANDOM_EXPRESSIONS; i++) {
+            assertSameAsRecursive(
+                    ExpressionTrees.random(rnd, 1 + rnd.nextInt(maxSize)));
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Abstract syntax tree of an expression parsed by a {@code PrattParser}, kept
+ * so the expression can be evaluated again without parsing it again.
+ *
+ * <p>
+ * Nodes are numbered in the order the parser makes them, which is postfix
+ * order: the operands of a node always have smaller numbers than the node,
+ * and the last node is the root. So {@code evaluate} is a single loop over
+ * the node numbers, however deeply the expression is nested.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionAst {
+
+    /**
+     * Initial capacity of the node arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Operator symbol of each node; {@code '\0'} for a number.
+     */
+    private char[] symbols;
+
+    /**
+     * Value of each number node.
+     */
+    private long[] numbers;
+
+    /**
+     * Operation of each binary operator node.
+     */
+    private LongBinaryOperator[] binaries;
+
+    /**
+     * Operation of each prefix operator node.
+     */
+    private LongUnaryOperator[] prefixes;
+
+    /**
+     * First, or only, operand of each operator node.
+     */
+    private int[] lefts;
+
+    /**
+     * Second operand of each binary operator node.
+     */
+    private int[] rights;
+
+    /**
+     * Number of nodes.
+     */
+    private int size;
+
+    /**
+     * No-argument constructor, for a tree with no nodes; used by
+     * {@code PrattParser}.
+     */
+    ExpressionAst() {
+        this.symbols = new char[INITIAL_CAPACITY];
+        this.numbers = new long[INITIAL_CAPACITY];
+        this.binaries = new LongBinaryOperator[INITIAL_CAPACITY];
+        this.prefixes = new LongUnaryOperator[INITIAL_CAPACITY];
+        this.lefts = new int[INITIAL_CAPACITY];
+        this.rights = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Makes room for one more node and returns its number.
+     *
+     * @return the number of the new node
+     */
+    private int newNode() {
+        if (this.size == this.symbols.length) {
+            int capacity = 2 * this.size;
+            char[] newSymbols = new char[capacity];
+            long[] newNumbers = new long[capacity];
+            LongBinaryOperator[] newBinaries = new LongBinaryOperator[capacity];
+            LongUnaryOperator[] newPrefixes = new LongUnaryOperator[capacity];
+            int[] newLefts = new int[capacity];
+            int[] newRights = new int[capacity];
+            System.arraycopy(this.symbols, 0, newSymbols, 0, this.size);
+            System.arraycopy(this.numbers, 0, newNumbers, 0, this.size);
+            System.arraycopy(this.binaries, 0, newBinaries, 0, this.size);
+            System.arraycopy(this.prefixes, 0, newPrefixes, 0, this.size);
+            System.arraycopy(this.lefts, 0, newLefts, 0, this.size);
+            System.arraycopy(this.rights, 0, newRights, 0, this.size);
+            this.symbols = newSymbols;
+            this.numbers = newNumbers;
+            this.binaries = newBinaries;
+            this.prefixes = newPrefixes;
+            this.lefts = newLefts;
+            this.rights = newRights;
+        }
+        this.size++;
+        return this.size - 1;
+    }
+
+    /**
+     * Adds a number node.
+     *
+     * @param value
+     *            the number
+     * @return the number of the new node
+     * @updates this
+     */
+    int addNumber(long value) {
+        int node = this.newNode();
+        this.numbers[node] = value;
+        return node;
+    }
+
+    /**
+     * Adds a prefix operator node.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @param operation
+     *            the operation
+     * @param operand
+     *            the node number of the operand
+     * @return the number of the new node
+     * @updates this
+     * @requires 0 <= operand < |this|
+     */
+    int addPrefix(char symbol, LongUnaryOperator operation, int operand) {
+        int node = this.newNode();
+        this.symbols[node] = symbol;
+        this.prefixes[node] = operation;
+        this.lefts[node] = operand;
+        return node;
+    }
+
+    /**
+     * Adds a binary operator node.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @param operation
+     *            the operation
+     * @param left
+     *            the node number of the first operand
+     * @param right
+     *            the node number of the second operand
+     * @return the number of the new node
+     * @updates this
+     * @requires 0 <= left < |this| and 0 <= right < |this|
+     */
+    int addBinary(char symbol, LongBinaryOperator operation, int left,
+            int right) {
+        int node = this.newNode();
+        this.symbols[node] = symbol;
+        this.binaries[node] = operation;
+        this.lefts[node] = left;
+        this.rights[node] = right;
+        return node;
+    }
+
+    /**
+     * Reports the number of nodes of {@code this}.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Evaluates {@code this} and returns its value.
+     *
+     * @return the value of the expression
+     * @throws ArithmeticException
+     *             if an operation throws it
+     * @requires |this| > 0
+     */
+    public long evaluate() {
+        assert this.size > 0 : "Violation of: |this| > 0";
+
+        long[] values = new long[this.size];
+        for (int node = 0; node < this.size; node++) {
+            if (this.binaries[node] != null) {
+                values[node] = this.binaries[node].applyAsLong(
+                        values[this.lefts[node]], values[this.rights[node]]);
+            } else if (this.prefixes[node] != null) {
+                values[node] = this.prefixes[node]
+                        .applyAsLong(values[this.lefts[node]]);
+            } else {
+                values[node] = this.numbers[node];
+            }
+        }
+        return values[this.size - 1];
+    }
+
+    /**
+     * Returns the fully parenthesized form of {@code this}, with every
+     * operator application in parentheses.
+     *
+     * @return the parenthesized expression
+     */
+    @Override
+    public String toString() {
+        String[] texts = new String[this.size];
+        for (int node = 0; node < this.size; node++) {
+            if (this.binaries[node] != null) {
+                texts[node] = "(" + texts[this.lefts[node]]
+                        + this.symbols[node] + texts[this.rights[node]] + ")";
+            } else if (this.prefixes[node] != null) {
+                texts[node] = "(" + this.symbols[node]
+                        + texts[this.lefts[node]] + ")";
+            } else {
+                texts[node] = Long.toString(this.numbers[node]);
+            }
+        }
+        String text = "";
+        if (this.size > 0) {
+            text = texts[this.size - 1];
+        }
+        return text;
+    }
+
+}
@@ -0,0 +1,293 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to evaluate a file of expressions, one per line, into a file of
+ * their values, one per line in the same order.
+ *
+ * <p>
+ * The input is streamed in chunks of {@code CHUNK_LINES} lines, which are
+ * evaluated on a pool of one worker per processor, at most
+ * {@code CHUNKS_PER_WORKER} chunks per worker in flight at a time, so memory
+ * use does not depend on the size of the file. Results are written in input
+ * order through a buffered writer. A line that is not an expression, or whose
+ * value does not fit in a {@code long}, gets an {@code error} line instead of
+ * stopping the batch.
+ *
+ * <p>
+ * Lines are evaluated by a {@code PrattParser} over
+ * {@code OperatorTable.basic()}, which accepts the same expressions as
+ * {@code ExpressionEvaluator.valueOfLine} and computes the same values, but
+ * keeps pending operators on explicit stacks instead of call frames, so no
+ * line is nested too deeply to evaluate.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionBatchEvaluator {
+
+    /**
+     * Number of lines evaluated by one task.
+     */
+    private static final int CHUNK_LINES = 4096;
+
+    /**
+     * Number of chunks in flight per worker.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /**
+     * Size of the input and output buffers, in characters.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * The operators of the expressions, shared by the parsers of all workers.
+     */
+    private static final OperatorTable OPERATORS = OperatorTable.basic();
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ExpressionBatchEvaluator() {
+    }
+
+    /**
+     * Results of evaluating one chunk of lines.
+     */
+    private static final class Chunk {
+
+        /**
+         * Result line of each input line.
+         */
+        private final String[] results;
+
+        /**
+         * Number of lines that got an error.
+         */
+        private final int errors;
+
+        /**
+         * Constructor.
+         *
+         * @param results
+         *            the result lines
+         * @param errors
+         *            the number of error lines
+         */
+        Chunk(String[] results, int errors) {
+            this.results = results;
+            this.errors = errors;
+        }
+
+    }
+
+    /**
+     * Evaluates {@code lines}, the lines of the input starting at line number
+     * {@code first}.
+     *
+     * @param lines
+     *            the input lines
+     * @param count
+     *            the number of lines used in {@code lines}
+     * @param first
+     *            the line number of {@code lines[0]}, counting from 1
+     * @return the result of each line
+     * @ensures <pre>
+     * [evaluate.results[i] is the value of lines[i], or an error line naming
+     *  line first + i]
+     * </pre>
+     */
+    private static Chunk evaluate(String[] lines, int count, long first) {
+        PrattParser parser = new PrattParser(OPERATORS);
+        String[] results = new String[count];
+        int errors = 0;
+        for (int i = 0; i < count; i++) {
+            try {
+                results[i] = Long.toString(parser.valueOf(lines[i]));
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                results[i] = "error: line " + (first + i) + ": "
+                        + e.getMessage();
+                errors++;
+            }
+        }
+        return new Chunk(results, errors);
+    }
+
+    /**
+     * Submits the evaluation of {@code count} lines starting at line number
+     * {@code first} to {@code pool}.
+     *
+     * @param pool
+     *            the workers
+     * @param lines
+     *            the input lines, no longer used by the caller
+     * @param count
+     *            the number of lines used in {@code lines}
+     * @param first
+     *            the line number of {@code lines[0]}, counting from 1
+     * @return the pending result of the chunk
+     */
+    private static Future<Chunk> submit(ExecutorService pool,
+            final String[] lines, final int count, final long first) {
+        return pool.submit(new Callable<Chunk>() {
+            @Override
+            public Chunk call() {
+                return evaluate(lines, count, first);
+            }
+        });
+    }
+
+    /**
+     * Waits for the oldest chunk in flight and writes its results.
+     *
+     * @param inFlight
+     *            the chunks in flight, oldest first
+     * @param output
+     *            the output file
+     * @return the number of error lines of the chunk written
+     * @throws IOException
+     *             if the output cannot be written, the wait is interrupted,
+     *             or the chunk failed other than on one of its lines
+     * @updates inFlight, output
+     * @requires inFlight /= <>
+     */
+    private static int writeOldest(Queue<Future<Chunk>> inFlight,
+            BufferedWriter output) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = inFlight.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Evaluation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Evaluation of a chunk failed", e.getCause());
+        }
+        for (String result : chunk.results) {
+            output.write(result);
+            output.newLine();
+        }
+        return chunk.errors;
+    }
+
+    /**
+     * Evaluates every line of the file {@code inputName} and writes their
+     * values, in order, to the file {@code outputName}.
+     *
+     * @param inputName
+     *            the name of the file of expressions
+     * @param outputName
+     *            the name of the file of values
+     * @param workers
+     *            the number of worker threads
+     * @return {number of lines, number of error lines}
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @requires workers > 0
+     * @ensures [outputName holds the value of, or an error line for, each
+     *          line of inputName, in order]
+     */
+    public static long[] evaluateFile(String inputName, String outputName,
+            int workers) throws IOException {
+        assert inputName != null : "Violation of: inputName is not null";
+        assert outputName != null : "Violation of: outputName is not null";
+        assert workers > 0 : "Violation of: workers > 0";
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Queue<Future<Chunk>> inFlight = new ArrayDeque<Future<Chunk>>();
+        long lineCount = 0;
+        long errorCount = 0;
+        try (BufferedReader input = new BufferedReader(
+                new FileReader(inputName), BUFFER_SIZE);
+                BufferedWriter output = new BufferedWriter(
+                        new FileWriter(outputName), BUFFER_SIZE)) {
+            String[] lines = new String[CHUNK_LINES];
+            int count = 0;
+            String line = input.readLine();
+            while (line != null) {
+                lines[count] = line;
+                count++;
+                if (count == CHUNK_LINES) {
+                    if (inFlight.size() == CHUNKS_PER_WORKER * workers) {
+                        errorCount += writeOldest(inFlight, output);
+                    }
+                    inFlight.add(submit(pool, lines, count, lineCount + 1));
+                    lineCount += count;
+                    lines = new String[CHUNK_LINES];
+                    count = 0;
+                }
+                line = input.readLine();
+            }
+            if (count > 0) {
+                inFlight.add(submit(pool, lines, count, lineCount + 1));
+                lineCount += count;
+            }
+            while (!inFlight.isEmpty()) {
+                errorCount += writeOldest(inFlight, output);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new long[] { lineCount, errorCount };
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: the input and output file names,
+     *            which are asked for if missing
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+
+        String inputName;
+        String outputName;
+        if (args.length >= 2) {
+            inputName = args[0];
+            outputName = args[1];
+        } else {
+            out.print("Enter the name of a file of expressions: ");
+            inputName = in.nextLine();
+            out.print("Enter the name of the output file: ");
+            outputName = in.nextLine();
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        long[] counts = evaluateFile(inputName, outputName, workers);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        out.println(counts[0] + " expressions, " + counts[1] + " errors, in "
+                + String.format("%.2f", seconds) + " s on " + workers
+                + " workers ("
+                + String.format("%.0f", counts[0] / seconds)
+                + " expressions/s)");
+
+        in.close();
+        out.close();
+    }
+
+}
@@ -23,6 +23,235 @@ public final class ExpressionEvaluator {
     private ExpressionEvaluator() {
     }
 
+    /**
+     * Recursive-descent evaluator that reads a {@code CharSequence} through an
+     * index instead of deleting what it has read, so it never moves the
+     * characters after the cursor and evaluates an n-character expression in
+     * O(n) time, with {@code long} arithmetic.
+     *
+     * <p>
+     * Spaces and tabs are skipped wherever they are, as {@code main} does by
+     * removing them, and the end of the input reads as {@code END}. A
+     * character that cannot come next throws an
+     * {@code IllegalArgumentException} naming its column.
+     */
+    private static final class Cursor {
+
+        /**
+         * Character read at the end of the input.
+         */
+        private static final char END = '\0';
+
+        /**
+         * The characters being read; never changed.
+         */
+        private final CharSequence source;
+
+        /**
+         * Whether arithmetic overflow is reported instead of wrapping around.
+         */
+        private final boolean checked;
+
+        /**
+         * Index of the next character to read.
+         */
+        private int position;
+
+        /**
+         * Constructor.
+         *
+         * @param source
+         *            the characters to read
+         * @param checked
+         *            whether to report arithmetic overflow
+         */
+        Cursor(CharSequence source, boolean checked) {
+            this.source = source;
+            this.checked = checked;
+            this.position = 0;
+        }
+
+        /**
+         * Skips spaces and tabs and returns the next character, without
+         * reading it.
+         *
+         * @return the next character, or {@code END} at the end of the input
+         * @updates this.position
+         * @ensures <pre>
+         * [this.position is at the first character at or after
+         *   #this.position that is not a space or tab]  and
+         * peek = [the character at this.position, or END if there is none]
+         * </pre>
+         */
+        char peek() {
+            int length = this.source.length();
+            while (this.position < length
+                    && (this.source.charAt(this.position) == ' '
+                            || this.source.charAt(this.position) == '\t')) {
+                this.position++;
+            }
+            char c = END;
+            if (this.position < length) {
+                c = this.source.charAt(this.position);
+            }
+            return c;
+        }
+
+        /**
+         * Returns the exception reporting that {@code expected} was expected
+         * at the current position.
+         *
+         * @param expected
+         *            what was expected
+         * @return the exception to throw
+         */
+        IllegalArgumentException unexpected(String expected) {
+            char c = this.peek();
+            String found = "end of input";
+            if (c != END) {
+                found = "'" + c + "'";
+            }
+            return new IllegalArgumentException("column "
+                    + (this.position + 1) + ": expected " + expected
+                    + " but found " + found);
+        }
+
+        /**
+         * Evaluates a digit sequence and returns its value.
+         *
+         * @return value of the digit sequence
+         * @updates this.position
+         * @requires <pre>
+         * [a digit-seq string starts at this.position]
+         * </pre>
+         * @ensures <pre>
+         * valueOfDigitSeq = [value of the longest digit-seq string at
+         *   #this.position]  and
+         * this.position = [index just past that string]
+         * </pre>
+         */
+        long valueOfDigitSeq() {
+            long value = 0;
+            char c = this.peek();
+            if (c < '0' || '9' < c) {
+                throw this.unexpected("a digit or '('");
+            }
+            do {
+                int digit = c - '0';
+                if (this.checked) {
+                    value = Math.addExact(Math.multiplyExact(value, RADIX),
+                            digit);
+                } else {
+                    value = value * RADIX + digit;
+                }
+                this.position++;
+                c = this.peek();
+            } while ('0' <= c && c <= '9');
+            return value;
+        }
+
+        /**
+         * Evaluates a factor and returns its value.
+         *
+         * @return value of the factor
+         * @updates this.position
+         * @requires [a factor string starts at this.position, as for
+         *           valueOfFactor]
+         * @ensures <pre>
+         * valueOfFactor = [value of the longest factor string at
+         *   #this.position]  and
+         * this.position = [index just past that string]
+         * </pre>
+         */
+        long valueOfFactor() {
+            long value;
+            if (this.peek() == '(') {
+                this.position++;
+                value = this.valueOfExpr();
+                if (this.peek() != ')') {
+                    throw this.unexpected("')'");
+                }
+                this.position++;
+            } else {
+                value = this.valueOfDigitSeq();
+            }
+            return value;
+        }
+
+        /**
+         * Evaluates a term and returns its value.
+         *
+         * @return value of the term
+         * @updates this.position
+         * @requires [a term string starts at this.position, as for
+         *           valueOfTerm]
+         * @ensures <pre>
+         * valueOfTerm = [value of the longest term string at
+         *   #this.position]  and
+         * this.position = [index just past that string]
+         * </pre>
+         */
+        long valueOfTerm() {
+            long value = this.valueOfFactor();
+            char op = this.peek();
+            while (op == '*' || op == '/') {
+                this.position++;
+                long factor = this.valueOfFactor();
+                if (op == '*') {
+                    if (this.checked) {
+                        value = Math.multiplyExact(value, factor);
+                    } else {
+                        value *= factor;
+                    }
+                } else if (this.checked && factor == -1) {
+                    value = Math.negateExact(value);
+                } else {
+                    value /= factor;
+                }
+                op = this.peek();
+            }
+            return value;
+        }
+
+        /**
+         * Evaluates an expression and returns its value.
+         *
+         * @return value of the expression
+         * @updates this.position
+         * @requires [an expr string starts at this.position, as for
+         *           valueOfExpr]
+         * @ensures <pre>
+         * valueOfExpr = [value of the longest expr string at
+         *   #this.position]  and
+         * this.position = [index just past that string]
+         * </pre>
+         */
+        long valueOfExpr() {
+            long value = this.valueOfTerm();
+            char op = this.peek();
+            while (op == '+' || op == '-') {
+                this.position++;
+                long term = this.valueOfTerm();
+                if (op == '+') {
+                    if (this.checked) {
+                        value = Math.addExact(value, term);
+                    } else {
+                        value += term;
+                    }
+                } else {
+                    if (this.checked) {
+                        value = Math.subtractExact(value, term);
+                    } else {
+                        value -= term;
+                    }
+                }
+                op = this.peek();
+            }
+            return value;
+        }
+
+    }
+
     /**
      * Evaluates a digit and returns its value.
      *
@@ -166,6 +395,62 @@ public final class ExpressionEvaluator {
         return value;
     }
 
+    /**
+     * Evaluates the expression at the start of {@code source} with
+     * {@code long} arithmetic and returns its value. Unlike
+     * {@code valueOfExpr(StringBuilder)}, {@code source} is read in place and
+     * left unchanged.
+     *
+     * @param source
+     *            the {@code CharSequence} that starts with an expr string
+     * @param checked
+     *            whether to throw on arithmetic overflow instead of wrapping
+     *            around
+     * @return value of the expression
+     * @throws ArithmeticException
+     *             if the expression divides by 0 or, when {@code checked},
+     *             a value does not fit in a {@code long}
+     * @requires <pre>
+     * [an expr string is a proper prefix of source, and the longest
+     * such, s, concatenated with the character following s, is not a prefix
+     * of any expr string]
+     * </pre>
+     * @ensures <pre>
+     * valueOfExpr =
+     *   [value of longest expr string at start of source]
+     * </pre>
+     */
+    public static long valueOfExpr(CharSequence source, boolean checked) {
+        assert source != null : "Violation of: source is not null";
+        return new Cursor(source, checked).valueOfExpr();
+    }
+
+    /**
+     * Evaluates {@code line}, which must be a whole expression, with checked
+     * {@code long} arithmetic and returns its value. Spaces and tabs are
+     * ignored.
+     *
+     * @param line
+     *            the expression
+     * @return value of the expression
+     * @throws IllegalArgumentException
+     *             if {@code line} is not an expr string, naming the column of
+     *             the first character that cannot be part of one
+     * @throws ArithmeticException
+     *             if the expression divides by 0 or a value does not fit in a
+     *             {@code long}
+     * @ensures valueOfLine = [value of the expr string line]
+     */
+    public static long valueOfLine(CharSequence line) {
+        assert line != null : "Violation of: line is not null";
+        Cursor cursor = new Cursor(line, true);
+        long value = cursor.valueOfExpr();
+        if (cursor.peek() != Cursor.END) {
+            throw cursor.unexpected("an operator");
+        }
+        return value;
+    }
+
     /**
      * Main method.
      *
@@ -182,8 +467,7 @@ public final class ExpressionEvaluator {
              * Parse and evaluate the expression after removing all white space
              * (spaces and tabs) from the user input.
              */
-            int value = valueOfExpr(
-                    new StringBuilder(source.replaceAll("[ \t]", "")));
+            long value = valueOfExpr(source.replaceAll("[ \t]", ""), true);
             out.println(
                     source.substring(0, source.length() - 1) + " = " + value);
             out.print("Enter an expression followed by !: ");
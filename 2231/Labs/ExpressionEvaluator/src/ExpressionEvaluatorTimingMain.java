@@ -0,0 +1,131 @@
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the running time of the {@code StringBuilder} and the
+ * {@code CharSequence} versions of {@code ExpressionEvaluator.valueOfExpr}
+ * on generated expressions of growing length.
+ *
+ * <p>
+ * The generated expressions use only {@code +}, {@code -}, {@code *} and
+ * parentheses, so the {@code int} value of the first is the {@code long}
+ * value of the second cut down to 32 bits, which is checked.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionEvaluatorTimingMain {
+
+    /**
+     * Length of the longest expression, 1 MB.
+     */
+    private static final int MAX_LENGTH = 1 << 20;
+
+    /**
+     * Length of the longest expression also given to the
+     * {@code StringBuilder} version, which takes quadratic time.
+     */
+    private static final int MAX_QUADRATIC_LENGTH = 1 << 17;
+
+    /**
+     * Deepest nesting of parentheses generated.
+     */
+    private static final int MAX_NESTING = 20;
+
+    /**
+     * Seed of the random expressions, so runs are comparable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ExpressionEvaluatorTimingMain() {
+    }
+
+    /**
+     * Appends a random expression of at least {@code length} characters to
+     * {@code exp}.
+     *
+     * @param exp
+     *            the expression text
+     * @param length
+     *            the smallest number of characters to append
+     * @param nesting
+     *            the number of enclosing parentheses
+     * @param rnd
+     *            the source of randomness
+     * @updates exp
+     * @ensures exp = #exp * [random expression of at least length
+     *          characters]
+     */
+    private static void appendExpression(StringBuilder exp, int length,
+            int nesting, Random rnd) {
+        final String operators = "+-*";
+        final int maxNumber = 1000;
+        final int parenthesesOdds = 8;
+        int end = exp.length() + length;
+        boolean first = true;
+        while (first || exp.length() < end) {
+            if (!first) {
+                exp.append(operators.charAt(rnd.nextInt(operators.length())));
+            }
+            first = false;
+            int rest = end - exp.length();
+            if (nesting < MAX_NESTING && rest > 2
+                    && rnd.nextInt(parenthesesOdds) == 0) {
+                exp.append('(');
+                appendExpression(exp, rnd.nextInt(rest / 2 + 1), nesting + 1,
+                        rnd);
+                exp.append(')');
+            } else {
+                exp.append(rnd.nextInt(maxNumber));
+            }
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        Random rnd = new Random(SEED);
+        out.println(String.format("%10s %16s %16s %8s", "length",
+                "StringBuilder", "CharSequence", "agree"));
+        for (int length = 1 << 10; length <= MAX_LENGTH; length *= 2) {
+            StringBuilder exp = new StringBuilder();
+            appendExpression(exp, length, 0, rnd);
+            exp.append('!');
+            String text = exp.toString();
+
+            long start = System.nanoTime();
+            long value = ExpressionEvaluator.valueOfExpr(text, false);
+            double cursorMillis = (System.nanoTime() - start)
+                    / NANOS_PER_MILLI;
+
+            String quadratic = "-";
+            String agree = "-";
+            if (length <= MAX_QUADRATIC_LENGTH) {
+                start = System.nanoTime();
+                int intValue = ExpressionEvaluator.valueOfExpr(exp);
+                quadratic = String.format("%.1f ms",
+                        (System.nanoTime() - start) / NANOS_PER_MILLI);
+                agree = Boolean.toString(intValue == (int) value);
+            }
+            out.println(String.format("%10d %16s %13.1f ms %8s",
+                    text.length(), quadratic, cursorMillis, agree));
+        }
+        out.close();
+    }
+
+}
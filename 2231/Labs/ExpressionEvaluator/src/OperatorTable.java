@@ -0,0 +1,333 @@
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Table of the operators known to a {@code PrattParser}: for each operator
+ * symbol, its precedence, its associativity and the operation it performs.
+ *
+ * <p>
+ * Symbols are single ASCII characters other than digits, parentheses, spaces
+ * and tabs, and are looked up by indexing arrays with the character, so no
+ * lookup allocates. A symbol can be both a prefix and a binary operator, as
+ * {@code -} is in the {@code standard} table; the parser tells them apart by
+ * position.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class OperatorTable {
+
+    /**
+     * Number of ASCII characters, the possible symbols.
+     */
+    private static final int SYMBOLS = 128;
+
+    /**
+     * Precedence of {@code +} and {@code -} in the standard table.
+     */
+    public static final int ADDITIVE = 10;
+
+    /**
+     * Precedence of {@code *}, {@code /} and {@code %} in the standard table.
+     */
+    public static final int MULTIPLICATIVE = 20;
+
+    /**
+     * Precedence of unary {@code -} in the standard table.
+     */
+    public static final int UNARY = 30;
+
+    /**
+     * Precedence of {@code ^} in the standard table.
+     */
+    public static final int EXPONENT = 40;
+
+    /**
+     * Precedence of each binary operator, by symbol; 0 for none.
+     */
+    private final int[] binaryPrecedence = new int[SYMBOLS];
+
+    /**
+     * Whether each binary operator is right-associative, by symbol.
+     */
+    private final boolean[] rightAssociative = new boolean[SYMBOLS];
+
+    /**
+     * Operation of each binary operator, by symbol.
+     */
+    private final LongBinaryOperator[] binary = new LongBinaryOperator[SYMBOLS];
+
+    /**
+     * Precedence of each prefix operator, by symbol; 0 for none.
+     */
+    private final int[] prefixPrecedence = new int[SYMBOLS];
+
+    /**
+     * Operation of each prefix operator, by symbol.
+     */
+    private final LongUnaryOperator[] prefix = new LongUnaryOperator[SYMBOLS];
+
+    /**
+     * Checked arithmetic of one standard operator.
+     */
+    private static final class Arithmetic
+            implements LongBinaryOperator, LongUnaryOperator {
+
+        /**
+         * The operator symbol.
+         */
+        private final char symbol;
+
+        /**
+         * Constructor.
+         *
+         * @param symbol
+         *            the operator symbol
+         */
+        Arithmetic(char symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns {@code base} raised to {@code exponent}, by repeated
+         * squaring.
+         *
+         * @param base
+         *            the base
+         * @param exponent
+         *            the exponent
+         * @return base ^ exponent
+         * @throws ArithmeticException
+         *             if exponent < 0 or the power does not fit in a
+         *             {@code long}
+         */
+        private static long power(long base, long exponent) {
+            if (exponent < 0) {
+                throw new ArithmeticException("negative exponent");
+            }
+            long result = 1;
+            long square = base;
+            long e = exponent;
+            while (e > 0) {
+                if ((e & 1) == 1) {
+                    result = Math.multiplyExact(result, square);
+                }
+                e >>= 1;
+                if (e > 0) {
+                    square = Math.multiplyExact(square, square);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long applyAsLong(long left, long right) {
+            long value;
+            switch (this.symbol) {
+                case '+':
+                    value = Math.addExact(left, right);
+                    break;
+                case '-':
+                    value = Math.subtractExact(left, right);
+                    break;
+                case '*':
+                    value = Math.multiplyExact(left, right);
+                    break;
+                case '/':
+                    if (right == -1) {
+                        value = Math.negateExact(left);
+                    } else {
+                        value = left / right;
+                    }
+                    break;
+                case '%':
+                    value = left % right;
+                    break;
+                default:
+                    value = power(left, right);
+                    break;
+            }
+            return value;
+        }
+
+        @Override
+        public long applyAsLong(long operand) {
+            return Math.negateExact(operand);
+        }
+
+    }
+
+    /**
+     * No-argument constructor, for a table with no operators.
+     */
+    public OperatorTable() {
+    }
+
+    /**
+     * Returns the table of {@code + - * /}, the operators of the
+     * {@code ExpressionEvaluator} grammar, left-associative with the usual
+     * precedences and overflow-checked {@code long} arithmetic that throws
+     * {@code ArithmeticException}, as {@code ExpressionEvaluator.valueOfLine}
+     * computes them.
+     *
+     * @return the table of the four basic operators
+     */
+    public static OperatorTable basic() {
+        OperatorTable table = new OperatorTable();
+        final String additive = "+-";
+        final String multiplicative = "*/";
+        for (char c : additive.toCharArray()) {
+            table.addBinary(c, ADDITIVE, false, new Arithmetic(c));
+        }
+        for (char c : multiplicative.toCharArray()) {
+            table.addBinary(c, MULTIPLICATIVE, false, new Arithmetic(c));
+        }
+        return table;
+    }
+
+    /**
+     * Returns the table of {@code + - * / % ^} and unary {@code -}, with the
+     * usual precedences, {@code ^} right-associative and the rest
+     * left-associative, and overflow-checked {@code long} arithmetic that
+     * throws {@code ArithmeticException}.
+     *
+     * @return the standard table
+     */
+    public static OperatorTable standard() {
+        OperatorTable table = basic();
+        table.addBinary('%', MULTIPLICATIVE, false, new Arithmetic('%'));
+        table.addBinary('^', EXPONENT, true, new Arithmetic('^'));
+        table.addPrefix('-', UNARY, new Arithmetic('-'));
+        return table;
+    }
+
+    /**
+     * Reports whether {@code symbol} can name an operator.
+     *
+     * @param symbol
+     *            the character
+     * @return whether symbol is an ASCII character other than a digit,
+     *         parenthesis, space or tab
+     */
+    private static boolean isSymbol(char symbol) {
+        return symbol < SYMBOLS && !('0' <= symbol && symbol <= '9')
+                && symbol != '(' && symbol != ')' && symbol != ' '
+                && symbol != '\t' && symbol != '\0';
+    }
+
+    /**
+     * Adds, or replaces, the binary operator {@code symbol}.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @param precedence
+     *            the precedence; higher binds tighter
+     * @param isRightAssociative
+     *            whether a op b op c means a op (b op c)
+     * @param operation
+     *            the operation
+     * @updates this
+     * @requires [symbol can name an operator] and precedence > 0
+     * @ensures [this has binary operator symbol with the given properties]
+     */
+    public void addBinary(char symbol, int precedence,
+            boolean isRightAssociative, LongBinaryOperator operation) {
+        assert isSymbol(symbol) : "Violation of: symbol can name an operator";
+        assert precedence > 0 : "Violation of: precedence > 0";
+        assert operation != null : "Violation of: operation is not null";
+
+        this.binaryPrecedence[symbol] = precedence;
+        this.rightAssociative[symbol] = isRightAssociative;
+        this.binary[symbol] = operation;
+    }
+
+    /**
+     * Adds, or replaces, the prefix operator {@code symbol}.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @param precedence
+     *            the precedence; higher binds tighter
+     * @param operation
+     *            the operation
+     * @updates this
+     * @requires [symbol can name an operator] and precedence > 0
+     * @ensures [this has prefix operator symbol with the given properties]
+     */
+    public void addPrefix(char symbol, int precedence,
+            LongUnaryOperator operation) {
+        assert isSymbol(symbol) : "Violation of: symbol can name an operator";
+        assert precedence > 0 : "Violation of: precedence > 0";
+        assert operation != null : "Violation of: operation is not null";
+
+        this.prefixPrecedence[symbol] = precedence;
+        this.prefix[symbol] = operation;
+    }
+
+    /**
+     * Reports the precedence of binary operator {@code symbol}.
+     *
+     * @param symbol
+     *            the character
+     * @return the precedence, or 0 if symbol is not a binary operator
+     */
+    int binaryPrecedence(char symbol) {
+        int precedence = 0;
+        if (symbol < SYMBOLS) {
+            precedence = this.binaryPrecedence[symbol];
+        }
+        return precedence;
+    }
+
+    /**
+     * Reports whether binary operator {@code symbol} is right-associative.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @return whether symbol is right-associative
+     * @requires binaryPrecedence(symbol) > 0
+     */
+    boolean isRightAssociative(char symbol) {
+        return this.rightAssociative[symbol];
+    }
+
+    /**
+     * Reports the operation of binary operator {@code symbol}.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @return the operation
+     * @requires binaryPrecedence(symbol) > 0
+     */
+    LongBinaryOperator binary(char symbol) {
+        return this.binary[symbol];
+    }
+
+    /**
+     * Reports the precedence of prefix operator {@code symbol}.
+     *
+     * @param symbol
+     *            the character
+     * @return the precedence, or 0 if symbol is not a prefix operator
+     */
+    int prefixPrecedence(char symbol) {
+        int precedence = 0;
+        if (symbol < SYMBOLS) {
+            precedence = this.prefixPrecedence[symbol];
+        }
+        return precedence;
+    }
+
+    /**
+     * Reports the operation of prefix operator {@code symbol}.
+     *
+     * @param symbol
+     *            the operator symbol
+     * @return the operation
+     * @requires prefixPrecedence(symbol) > 0
+     */
+    LongUnaryOperator prefix(char symbol) {
+        return this.prefix[symbol];
+    }
+
+}
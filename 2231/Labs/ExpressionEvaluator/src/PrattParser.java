@@ -0,0 +1,402 @@
+/**
+ * Table-driven operator-precedence (Pratt) parser of expressions over the
+ * operators of an {@code OperatorTable}, numbers and parentheses, which either
+ * evaluates an expression directly or builds its {@code ExpressionAst}.
+ *
+ * <p>
+ * Unlike the one-method-per-precedence-level grammar of
+ * {@code ExpressionEvaluator}, the parser is a single loop: pending operators
+ * and their operands are kept on explicit stacks, and an operator is applied
+ * as soon as the next operator binds less tightly than it, so neither the
+ * number of precedence levels nor the nesting depth of the expression costs
+ * call frames. Spaces and tabs are ignored.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class PrattParser {
+
+    /**
+     * Character read at the end of the input.
+     */
+    private static final char END = '\0';
+
+    /**
+     * Marker, on the operator stack, of an open parenthesis.
+     */
+    private static final int OPEN = 0;
+
+    /**
+     * Marker, on the operator stack, of a prefix operator.
+     */
+    private static final int PREFIX = 1;
+
+    /**
+     * Marker, on the operator stack, of a binary operator.
+     */
+    private static final int BINARY = 2;
+
+    /**
+     * Initial capacity of the stacks.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Base used in number representation.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * The operators known.
+     */
+    private final OperatorTable table;
+
+    /**
+     * The characters being parsed.
+     */
+    private CharSequence source;
+
+    /**
+     * Index of the next character to read.
+     */
+    private int position;
+
+    /**
+     * Kind of each pending operator: {@code OPEN}, {@code PREFIX} or
+     * {@code BINARY}.
+     */
+    private int[] kinds;
+
+    /**
+     * Symbol of each pending operator.
+     */
+    private char[] symbols;
+
+    /**
+     * Precedence of each pending operator; 0 for {@code OPEN}.
+     */
+    private int[] precedences;
+
+    /**
+     * Number of pending operators.
+     */
+    private int operatorTop;
+
+    /**
+     * Pending operands: values, or node numbers when building a tree.
+     */
+    private long[] operands;
+
+    /**
+     * Number of pending operands.
+     */
+    private int operandTop;
+
+    /**
+     * Tree being built, or null when evaluating directly.
+     */
+    private ExpressionAst ast;
+
+    /**
+     * Constructor.
+     *
+     * @param table
+     *            the operators known
+     */
+    public PrattParser(OperatorTable table) {
+        assert table != null : "Violation of: table is not null";
+
+        this.table = table;
+        this.kinds = new int[INITIAL_CAPACITY];
+        this.symbols = new char[INITIAL_CAPACITY];
+        this.precedences = new int[INITIAL_CAPACITY];
+        this.operands = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Constructor for the {@code OperatorTable.standard()} operators.
+     */
+    public PrattParser() {
+        this(OperatorTable.standard());
+    }
+
+    /**
+     * Skips spaces and tabs and returns the next character, without reading
+     * it.
+     *
+     * @return the next character, or {@code END} at the end of the input
+     */
+    private char peek() {
+        int length = this.source.length();
+        while (this.position < length
+                && (this.source.charAt(this.position) == ' '
+                        || this.source.charAt(this.position) == '\t')) {
+            this.position++;
+        }
+        char c = END;
+        if (this.position < length) {
+            c = this.source.charAt(this.position);
+        }
+        return c;
+    }
+
+    /**
+     * Returns the exception reporting that {@code expected} was expected at
+     * the current position.
+     *
+     * @param expected
+     *            what was expected
+     * @return the exception to throw
+     */
+    private IllegalArgumentException unexpected(String expected) {
+        char c = this.peek();
+        String found = "end of input";
+        if (c != END) {
+            found = "'" + c + "'";
+        }
+        return new IllegalArgumentException("column " + (this.position + 1)
+                + ": expected " + expected + " but found " + found);
+    }
+
+    /**
+     * Pushes an operand.
+     *
+     * @param operand
+     *            the value or node number
+     * @updates this.operands, this.operandTop
+     */
+    private void pushOperand(long operand) {
+        if (this.operandTop == this.operands.length) {
+            long[] bigger = new long[2 * this.operandTop];
+            System.arraycopy(this.operands, 0, bigger, 0, this.operandTop);
+            this.operands = bigger;
+        }
+        this.operands[this.operandTop] = operand;
+        this.operandTop++;
+    }
+
+    /**
+     * Pushes a pending operator.
+     *
+     * @param kind
+     *            {@code OPEN}, {@code PREFIX} or {@code BINARY}
+     * @param symbol
+     *            the operator symbol
+     * @param precedence
+     *            the precedence
+     * @updates this.kinds, this.symbols, this.precedences, this.operatorTop
+     */
+    private void pushOperator(int kind, char symbol, int precedence) {
+        if (this.operatorTop == this.kinds.length) {
+            int capacity = 2 * this.operatorTop;
+            int[] newKinds = new int[capacity];
+            char[] newSymbols = new char[capacity];
+            int[] newPrecedences = new int[capacity];
+            System.arraycopy(this.kinds, 0, newKinds, 0, this.operatorTop);
+            System.arraycopy(this.symbols, 0, newSymbols, 0, this.operatorTop);
+            System.arraycopy(this.precedences, 0, newPrecedences, 0,
+                    this.operatorTop);
+            this.kinds = newKinds;
+            this.symbols = newSymbols;
+            this.precedences = newPrecedences;
+        }
+        this.kinds[this.operatorTop] = kind;
+        this.symbols[this.operatorTop] = symbol;
+        this.precedences[this.operatorTop] = precedence;
+        this.operatorTop++;
+    }
+
+    /**
+     * Applies the pending operator on top of the stack to its operands, or
+     * adds its node to the tree.
+     *
+     * @updates this.operatorTop, this.operands, this.operandTop, this.ast
+     * @requires [the top pending operator is PREFIX or BINARY]
+     */
+    private void reduce() {
+        this.operatorTop--;
+        char symbol = this.symbols[this.operatorTop];
+        if (this.kinds[this.operatorTop] == PREFIX) {
+            long operand = this.operands[this.operandTop - 1];
+            if (this.ast == null) {
+                this.operands[this.operandTop - 1] = this.table.prefix(symbol)
+                        .applyAsLong(operand);
+            } else {
+                this.operands[this.operandTop - 1] = this.ast.addPrefix(symbol,
+                        this.table.prefix(symbol), (int) operand);
+            }
+        } else {
+            this.operandTop--;
+            long left = this.operands[this.operandTop - 1];
+            long right = this.operands[this.operandTop];
+            if (this.ast == null) {
+                this.operands[this.operandTop - 1] = this.table.binary(symbol)
+                        .applyAsLong(left, right);
+            } else {
+                this.operands[this.operandTop - 1] = this.ast.addBinary(symbol,
+                        this.table.binary(symbol), (int) left, (int) right);
+            }
+        }
+    }
+
+    /**
+     * Reports whether the pending operator on top of the stack must be
+     * applied before a binary operator of the given precedence and
+     * associativity is pushed.
+     *
+     * @param precedence
+     *            the precedence of the new operator
+     * @param rightAssociative
+     *            whether the new operator is right-associative
+     * @return whether the top pending operator binds tighter
+     */
+    private boolean topBindsTighter(int precedence, boolean rightAssociative) {
+        boolean tighter = false;
+        if (this.operatorTop > 0 && this.kinds[this.operatorTop - 1] != OPEN) {
+            int top = this.precedences[this.operatorTop - 1];
+            tighter = top > precedence
+                    || (top == precedence && !rightAssociative);
+        }
+        return tighter;
+    }
+
+    /**
+     * Reads a number.
+     *
+     * @return the value of the number
+     * @throws ArithmeticException
+     *             if the number does not fit in a {@code long}
+     * @updates this.position
+     * @requires [a digit is next]
+     */
+    private long number() {
+        long value = 0;
+        char c = this.peek();
+        do {
+            value = Math.addExact(Math.multiplyExact(value, RADIX), c - '0');
+            this.position++;
+            c = this.peek();
+        } while ('0' <= c && c <= '9');
+        return value;
+    }
+
+    /**
+     * Parses {@code source} and returns its value, or the node number of its
+     * root in {@code this.ast} if that is not null.
+     *
+     * @param text
+     *            the expression
+     * @return the value, or root node number, of the expression
+     * @throws IllegalArgumentException
+     *             if {@code text} is not an expression, naming the column of
+     *             the first character that cannot be part of one
+     * @throws ArithmeticException
+     *             if an operation throws it while evaluating directly
+     */
+    private long run(CharSequence text) {
+        this.source = text;
+        this.position = 0;
+        this.operatorTop = 0;
+        this.operandTop = 0;
+        boolean expectOperand = true;
+        boolean done = false;
+        while (!done) {
+            char c = this.peek();
+            if (expectOperand) {
+                if ('0' <= c && c <= '9') {
+                    long value = this.number();
+                    if (this.ast == null) {
+                        this.pushOperand(value);
+                    } else {
+                        this.pushOperand(this.ast.addNumber(value));
+                    }
+                    expectOperand = false;
+                } else if (c == '(') {
+                    this.pushOperator(OPEN, c, 0);
+                    this.position++;
+                } else if (this.table.prefixPrecedence(c) > 0) {
+                    this.pushOperator(PREFIX, c,
+                            this.table.prefixPrecedence(c));
+                    this.position++;
+                } else {
+                    throw this.unexpected("a number, '(' or prefix operator");
+                }
+            } else if (this.table.binaryPrecedence(c) > 0) {
+                int precedence = this.table.binaryPrecedence(c);
+                boolean right = this.table.isRightAssociative(c);
+                while (this.topBindsTighter(precedence, right)) {
+                    this.reduce();
+                }
+                this.pushOperator(BINARY, c, precedence);
+                this.position++;
+                expectOperand = true;
+            } else if (c == ')' || c == END) {
+                while (this.operatorTop > 0
+                        && this.kinds[this.operatorTop - 1] != OPEN) {
+                    this.reduce();
+                }
+                if (c == ')') {
+                    if (this.operatorTop == 0) {
+                        throw this.unexpected("an operator or end of input");
+                    }
+                    this.operatorTop--;
+                    this.position++;
+                } else if (this.operatorTop > 0) {
+                    throw this.unexpected("an operator or ')'");
+                } else {
+                    done = true;
+                }
+            } else {
+                throw this.unexpected("an operator");
+            }
+        }
+        this.source = null;
+        return this.operands[0];
+    }
+
+    /**
+     * Evaluates the expression {@code text} and returns its value.
+     *
+     * @param text
+     *            the expression
+     * @return the value of the expression
+     * @throws IllegalArgumentException
+     *             if {@code text} is not an expression, naming the column of
+     *             the first character that cannot be part of one
+     * @throws ArithmeticException
+     *             if an operation throws it
+     * @ensures valueOf = [value of the expression text]
+     */
+    public long valueOf(CharSequence text) {
+        assert text != null : "Violation of: text is not null";
+
+        this.ast = null;
+        return this.run(text);
+    }
+
+    /**
+     * Parses the expression {@code text} into a tree that can be evaluated
+     * any number of times.
+     *
+     * @param text
+     *            the expression
+     * @return the tree of the expression
+     * @throws IllegalArgumentException
+     *             if {@code text} is not an expression, naming the column of
+     *             the first character that cannot be part of one
+     * @ensures parse = [tree of the expression text]
+     */
+    public ExpressionAst parse(CharSequence text) {
+        assert text != null : "Violation of: text is not null";
+
+        ExpressionAst tree = new ExpressionAst();
+        this.ast = tree;
+        try {
+            this.run(text);
+        } finally {
+            this.ast = null;
+        }
+        return tree;
+    }
+
+}
@@ -0,0 +1,185 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code ExpressionBatchEvaluator}'s
+ * {@code evaluateFile} static method.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ExpressionBatchEvaluatorTest {
+
+    /**
+     * Nesting depth of a line too deep for the recursive
+     * {@code ExpressionEvaluator}.
+     */
+    private static final int DEEP = 100_000;
+
+    /**
+     * Number of lines of the long input, more than one chunk.
+     */
+    private static final int LINES = 10_000;
+
+    /**
+     * Writes {@code lines} to a new temporary file, evaluates it with
+     * {@code workers} workers and returns the output lines.
+     *
+     * @param lines
+     *            the input lines
+     * @param workers
+     *            the number of worker threads
+     * @param counts
+     *            {number of lines, number of error lines} of the batch
+     * @return the output lines
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @replaces counts
+     */
+    private static List<String> evaluate(List<String> lines, int workers,
+            long[] counts) throws IOException {
+        File input = File.createTempFile("expressions", ".txt");
+        File output = File.createTempFile("values", ".txt");
+        input.deleteOnExit();
+        output.deleteOnExit();
+        Files.write(input.toPath(), lines, StandardCharsets.UTF_8);
+        long[] result = ExpressionBatchEvaluator.evaluateFile(input.getPath(),
+                output.getPath(), workers);
+        counts[0] = result[0];
+        counts[1] = result[1];
+        return Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns an expression nested {@code depth} parentheses deep.
+     *
+     * @param depth
+     *            the number of parentheses
+     * @return the expression
+     */
+    private static String nested(int depth) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            text.append('(');
+        }
+        text.append('1');
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the result line {@code ExpressionEvaluator.valueOfLine} gives
+     * {@code line}, with "error" in place of any error message, which the
+     * batch words its own way.
+     *
+     * @param line
+     *            the expression
+     * @return the value of line, or "error"
+     */
+    private static String valueOfLine(String line) {
+        String result;
+        try {
+            result = Long.toString(ExpressionEvaluator.valueOfLine(line));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            result = "error";
+        }
+        return result;
+    }
+
+    @Test
+    public void testBadLinesInTheMiddle() throws IOException {
+        List<String> lines = new ArrayList<String>();
+        lines.add("1 + 2");
+        lines.add(nested(DEEP));
+        lines.add("2 *");
+        lines.add("1 / 0");
+        lines.add(nested(DEEP).substring(1));
+        lines.add("(2 + 3) * 4");
+        long[] counts = new long[2];
+        List<String> values = evaluate(lines, 2, counts);
+        assertEquals(6, values.size());
+        assertEquals("3", values.get(0));
+        assertEquals("1", values.get(1));
+        assertTrue(values.get(2), values.get(2).startsWith("error: line 3:"));
+        assertTrue(values.get(3), values.get(3).startsWith("error: line 4:"));
+        assertTrue(values.get(4), values.get(4).startsWith("error: line 5:"));
+        assertEquals("20", values.get(5));
+        assertEquals(6, counts[0]);
+        assertEquals(3, counts[1]);
+    }
+
+    @Test
+    public void testSameAsValueOfLine() throws IOException {
+        List<String> lines = new ArrayList<String>();
+        lines.add("281/7/2-1-5*(15-(14-1))+((1))+20");
+        lines.add(" (2 + 3)\t* 4 ");
+        lines.add("10 - 2 - 3");
+        lines.add("7 / 2 * 2");
+        lines.add("9223372036854775807");
+        lines.add("9223372036854775807 + 1");
+        lines.add("9223372036854775808");
+        lines.add("0 - 9223372036854775807 - 1");
+        lines.add("(0 - 9223372036854775807 - 1) / (0 - 1)");
+        lines.add("3037000500 * 3037000500");
+        lines.add("1/(2-2)");
+        lines.add("7 % 4");
+        lines.add("2 ^ 3");
+        lines.add("-1");
+        lines.add("2 * -1");
+        lines.add("2+x");
+        lines.add("()");
+        lines.add("");
+        long[] counts = new long[2];
+        List<String> values = evaluate(lines, 2, counts);
+        assertEquals(lines.size(), values.size());
+        long errors = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String expected = valueOfLine(lines.get(i));
+            if (expected.equals("error")) {
+                assertTrue(lines.get(i) + " gave " + values.get(i), values
+                        .get(i).startsWith("error: line " + (i + 1) + ":"));
+                errors++;
+            } else {
+                assertEquals(lines.get(i), expected, values.get(i));
+            }
+        }
+        assertEquals(lines.size(), counts[0]);
+        assertEquals(errors, counts[1]);
+    }
+
+    @Test
+    public void testManyChunksInOrder() throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < LINES; i++) {
+            if (i == LINES / 2) {
+                lines.add(nested(DEEP) + ")");
+            } else {
+                lines.add(i + " + 1");
+            }
+        }
+        long[] counts = new long[2];
+        List<String> values = evaluate(lines, 4, counts);
+        assertEquals(LINES, values.size());
+        for (int i = 0; i < LINES; i++) {
+            if (i == LINES / 2) {
+                assertTrue(values.get(i).startsWith("error: line " + (i + 1)));
+            } else {
+                assertEquals(Integer.toString(i + 1), values.get(i));
+            }
+        }
+        assertEquals(LINES, counts[0]);
+        assertEquals(1, counts[1]);
+    }
+
+}
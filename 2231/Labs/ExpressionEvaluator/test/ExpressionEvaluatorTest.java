@@ -20,4 +20,74 @@ public final class ExpressionEvaluatorTest {
         assertEquals("=30!", exp.toString());
     }
 
+    @Test
+    public void testExampleCharSequence() {
+        String exp = "281/7/2-1-5*(15-(14-1))+((1))+20=30!";
+        long value = ExpressionEvaluator.valueOfExpr(exp, true);
+        assertEquals(30, value);
+    }
+
+    @Test
+    public void testCharSequenceLeavesSourceUnchanged() {
+        StringBuilder exp = new StringBuilder("(2+3)*4!");
+        long value = ExpressionEvaluator.valueOfExpr(exp, false);
+        assertEquals(20, value);
+        assertEquals("(2+3)*4!", exp.toString());
+    }
+
+    @Test
+    public void testLongBeyondInt() {
+        long value = ExpressionEvaluator.valueOfExpr("3000000000*3-1!", true);
+        assertEquals(8999999999L, value);
+    }
+
+    @Test
+    public void testUncheckedWrapsAround() {
+        long value = ExpressionEvaluator
+                .valueOfExpr("9223372036854775807+1!", false);
+        assertEquals(Long.MIN_VALUE, value);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testCheckedOverflow() {
+        ExpressionEvaluator.valueOfExpr("9223372036854775807+1!", true);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testCheckedLiteralOverflow() {
+        ExpressionEvaluator.valueOfExpr("9223372036854775808!", true);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testCheckedDivideOverflow() {
+        ExpressionEvaluator.valueOfExpr(
+                "(0-9223372036854775807-1)/(0-1)!", true);
+    }
+
+    @Test
+    public void testLineWithBlanks() {
+        long value = ExpressionEvaluator.valueOfLine(" (2 + 3)\t* 4 ");
+        assertEquals(20, value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineTrailingCharacters() {
+        ExpressionEvaluator.valueOfLine("2+3)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineMissingParenthesis() {
+        ExpressionEvaluator.valueOfLine("(2+3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineNotANumber() {
+        ExpressionEvaluator.valueOfLine("2+x");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testLineDivideByZero() {
+        ExpressionEvaluator.valueOfLine("1/(2-2)");
+    }
+
 }
@@ -0,0 +1,153 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.function.LongBinaryOperator;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code PrattParser}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class PrattParserTest {
+
+    @Test
+    public void testExample() {
+        long value = new PrattParser()
+                .valueOf("281/7/2-1-5*(15-(14-1))+((1))+20");
+        assertEquals(30, value);
+    }
+
+    @Test
+    public void testPrecedence() {
+        ExpressionAst ast = new PrattParser().parse("1+2*3^2%5");
+        assertEquals("(1+((2*(3^2))%5))", ast.toString());
+        assertEquals(4, ast.evaluate());
+    }
+
+    @Test
+    public void testPowerIsRightAssociative() {
+        ExpressionAst ast = new PrattParser().parse("2^3^2");
+        assertEquals("(2^(3^2))", ast.toString());
+        assertEquals(512, ast.evaluate());
+    }
+
+    @Test
+    public void testMinusIsLeftAssociative() {
+        assertEquals(-4, new PrattParser().valueOf("1-2-3"));
+    }
+
+    @Test
+    public void testUnaryMinus() {
+        ExpressionAst ast = new PrattParser().parse("-2^2 + 3*-(4-1) - --1");
+        assertEquals("(((-(2^2))+(3*(-(4-1))))-(-(-1)))", ast.toString());
+        assertEquals(-14, ast.evaluate());
+    }
+
+    @Test
+    public void testAstEvaluatedRepeatedly() {
+        ExpressionAst ast = new PrattParser().parse("(7 % 4) ^ (1 + 1)");
+        assertEquals(9, ast.evaluate());
+        assertEquals(9, ast.evaluate());
+        assertEquals(7, ast.size());
+    }
+
+    @Test
+    public void testDeepNesting() {
+        final int depth = 100000;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            text.append("(1+");
+        }
+        text.append('0');
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+        PrattParser parser = new PrattParser();
+        assertEquals(depth, parser.valueOf(text));
+        assertEquals(depth, parser.parse(text).evaluate());
+    }
+
+    @Test
+    public void testCustomOperator() {
+        OperatorTable table = OperatorTable.standard();
+        table.addBinary('&', OperatorTable.ADDITIVE - 1, false,
+                new LongBinaryOperator() {
+                    @Override
+                    public long applyAsLong(long left, long right) {
+                        return Math.max(left, right);
+                    }
+                });
+        assertEquals(7, new PrattParser(table).valueOf("2*3 & 1+6 & 4"));
+    }
+
+    @Test
+    public void testBasicTable() {
+        PrattParser parser = new PrattParser(OperatorTable.basic());
+        assertEquals(30, parser.valueOf("281/7/2-1-5*(15-(14-1))+((1))+20"));
+        assertEquals(5, parser.valueOf("10 - 2 - 3"));
+        assertEquals(6, parser.valueOf("7 / 2 * 2"));
+    }
+
+    @Test
+    public void testBasicTableDeepNesting() {
+        final int depth = 100000;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            text.append('(');
+        }
+        text.append('1');
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+        assertEquals(1, new PrattParser(OperatorTable.basic()).valueOf(text));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBasicTableHasNoMod() {
+        new PrattParser(OperatorTable.basic()).valueOf("7 % 4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBasicTableHasNoPower() {
+        new PrattParser(OperatorTable.basic()).valueOf("2 ^ 3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBasicTableHasNoUnaryMinus() {
+        new PrattParser(OperatorTable.basic()).valueOf("2 * -1");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testBasicTableOverflow() {
+        new PrattParser(OperatorTable.basic())
+                .valueOf("3037000500 * 3037000500");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingOperand() {
+        new PrattParser().valueOf("2*");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnbalancedOpen() {
+        new PrattParser().valueOf("(2+3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnbalancedClose() {
+        new PrattParser().valueOf("2+3)");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflow() {
+        new PrattParser().valueOf("2^63");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testNegativeExponent() {
+        new PrattParser().parse("2^-1").evaluate();
+    }
+
+}
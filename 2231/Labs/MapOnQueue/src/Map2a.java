@@ -0,0 +1,438 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as parallel arrays of keys and values in insertion
+ * order, plus an open-addressing hash index into those arrays once the map
+ * holds more than {@code SMALL_LIMIT} pairs, with implementations of primary
+ * methods.
+ *
+ * <p>
+ * Unlike {@code Map2}, lookups never reorder the representation: a small map
+ * is searched with a linear scan of at most {@code SMALL_LIMIT} keys, and a
+ * larger one with a linear-probing hash index, so {@code hasKey},
+ * {@code value}, and {@code remove} are O(1) expected, and {@code add} and
+ * {@code removeAny} are O(1) amortized. Iteration and {@code removeAny} follow
+ * insertion order, oldest first. Removed pairs leave null "tombstones" in the
+ * arrays, which are squeezed out when the arrays are next rebuilt.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * 0 <= $this.head <= $this.used <= |$this.keys| = |$this.values|  and
+ * [$this.keys[i] is null iff $this.values[i] is null, for all i]  and
+ * [$this.keys[i] is null for i < $this.head and $this.used <= i]  and
+ * $this.size = [number of non-null entries of $this.keys]  and
+ * [the non-null entries of $this.keys are distinct]  and
+ * ($this.index is null  or
+ *  [$this.index is a linear-probing table, of power-of-two length at least
+ *   2 * |$this.keys|, holding i + 1 for each non-null $this.keys[i] and
+ *   DELETED for each slot vacated since it was built])
+ * </pre>
+ * @correspondence <pre>
+ * this = {(k, v) : for some i ($this.keys[i] = k is not null and
+ *                              $this.values[i] = v)}
+ * </pre>
+ */
+public class Map2a<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest number of pairs searched by linear scan, without a hash index.
+     */
+    private static final int SMALL_LIMIT = 8;
+
+    /**
+     * Marker in {@code $this.index} for a vacated slot.
+     */
+    private static final int DELETED = -1;
+
+    /**
+     * Keys, in insertion order; removed keys are null.
+     */
+    private Object[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private Object[] values;
+
+    /**
+     * Index of the first possibly non-null entry of {@code keys}.
+     */
+    private int head;
+
+    /**
+     * Number of entries of {@code keys} used so far, including tombstones.
+     */
+    private int used;
+
+    /**
+     * Number of pairs, i.e., size = |this|.
+     */
+    private int size;
+
+    /**
+     * Hash index into {@code keys}, or null while the map is small.
+     */
+    private int[] index;
+
+    /**
+     * Returns the first probe position in {@code $this.index} for {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return the home position of {@code key}
+     * @requires $this.index is not null
+     */
+    private int home(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return h & (this.index.length - 1);
+    }
+
+    /**
+     * Returns the position in {@code keys} of {@code key}, or -1 if absent.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the array index of {@code key}, or -1
+     */
+    private int find(Object key) {
+        int result = -1;
+        if (this.index == null) {
+            int i = this.head;
+            while (result < 0 && i < this.used) {
+                if (key.equals(this.keys[i])) {
+                    result = i;
+                }
+                i++;
+            }
+        } else {
+            int p = this.findProbe(key);
+            if (p >= 0) {
+                result = this.index[p] - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position in {@code $this.index} that refers to {@code key},
+     * or -1 if absent.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the probe position of {@code key}, or -1
+     * @requires $this.index is not null
+     */
+    private int findProbe(Object key) {
+        int mask = this.index.length - 1;
+        int p = this.home(key);
+        int result = -1;
+        while (result < 0 && this.index[p] != 0) {
+            int slot = this.index[p] - 1;
+            if (slot >= 0 && key.equals(this.keys[slot])) {
+                result = p;
+            } else {
+                p = (p + 1) & mask;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records in {@code $this.index} that {@code $this.keys[slot]} holds a
+     * key.
+     *
+     * @param slot
+     *            the array index of the key
+     * @updates $this.index
+     * @requires $this.index is not null and $this.keys[slot] is not null
+     */
+    private void indexSlot(int slot) {
+        int mask = this.index.length - 1;
+        int p = this.home(this.keys[slot]);
+        while (this.index[p] > 0) {
+            p = (p + 1) & mask;
+        }
+        this.index[p] = slot + 1;
+    }
+
+    /**
+     * Moves the pairs to fresh arrays with room for at least {@code |this|}
+     * more, dropping tombstones, and rebuilds the hash index if {@code this} is
+     * not small.
+     *
+     * @updates $this
+     * @ensures this = #this  and  $this.head = 0  and  $this.used = |this|
+     */
+    private void rebuild() {
+        int capacity = Math.max(SMALL_LIMIT, 2 * this.size);
+        Object[] newKeys = new Object[capacity];
+        Object[] newValues = new Object[capacity];
+        int j = 0;
+        for (int i = this.head; i < this.used; i++) {
+            if (this.keys[i] != null) {
+                newKeys[j] = this.keys[i];
+                newValues[j] = this.values[i];
+                j++;
+            }
+        }
+        this.keys = newKeys;
+        this.values = newValues;
+        this.head = 0;
+        this.used = j;
+        this.index = null;
+        if (this.size > SMALL_LIMIT) {
+            this.index = new int[Integer.highestOneBit(capacity) * 4];
+            for (int i = 0; i < this.used; i++) {
+                this.indexSlot(i);
+            }
+        }
+    }
+
+    /**
+     * Removes the pair at position {@code slot} and returns it.
+     *
+     * @param slot
+     *            the array index of the pair
+     * @param probe
+     *            the position in {@code $this.index} referring to
+     *            {@code slot}, or -1 if there is no index
+     * @return the removed pair
+     * @updates $this
+     * @requires $this.keys[slot] is not null
+     */
+    @SuppressWarnings("unchecked")
+    private Pair<K, V> removeAt(int slot, int probe) {
+        /*
+         * These casts cannot fail since only keys of type K and values of type
+         * V are ever stored in the arrays.
+         */
+        Pair<K, V> p = new SimplePair<K, V>((K) this.keys[slot],
+                (V) this.values[slot]);
+        this.keys[slot] = null;
+        this.values[slot] = null;
+        if (probe >= 0) {
+            this.index[probe] = DELETED;
+        }
+        this.size--;
+        while (this.head < this.used && this.keys[this.head] == null) {
+            this.head++;
+        }
+        return p;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.keys = new Object[SMALL_LIMIT];
+        this.values = new Object[SMALL_LIMIT];
+        this.head = 0;
+        this.used = 0;
+        this.size = 0;
+        this.index = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map2a() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map2a<?, ?> : ""
+                + "Violation of: source is of dynamic type Map2a<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map2a<?,?>,
+         * and the ?,? must be K,V or the call would not have compiled.
+         */
+        Map2a<K, V> localSource = (Map2a<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.head = localSource.head;
+        this.used = localSource.used;
+        this.size = localSource.size;
+        this.index = localSource.index;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.used == this.keys.length) {
+            this.rebuild();
+        }
+        this.keys[this.used] = key;
+        this.values[this.used] = value;
+        this.used++;
+        this.size++;
+        if (this.index != null) {
+            this.indexSlot(this.used - 1);
+        } else if (this.size > SMALL_LIMIT) {
+            this.rebuild();
+        }
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int slot;
+        int probe = -1;
+        if (this.index == null) {
+            slot = this.find(key);
+        } else {
+            probe = this.findProbe(key);
+            slot = this.index[probe] - 1;
+        }
+        return this.removeAt(slot, probe);
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int probe = -1;
+        if (this.index != null) {
+            probe = this.findProbe(this.keys[this.head]);
+        }
+        return this.removeAt(this.head, probe);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        /*
+         * This cast cannot fail since only values of type V are ever stored in
+         * the array.
+         */
+        return (V) this.values[this.find(key)];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map2aIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map2a}.
+     */
+    private final class Map2aIterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Array index of the next pair to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Map2aIterator() {
+            this.current = Map2a.this.head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Map2a.this.used;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            /*
+             * These casts cannot fail since only keys of type K and values of
+             * type V are ever stored in the arrays.
+             */
+            Pair<K, V> p = new SimplePair<K, V>(
+                    (K) Map2a.this.keys[this.current],
+                    (V) Map2a.this.values[this.current]);
+            this.current++;
+            while (this.current < Map2a.this.used
+                    && Map2a.this.keys[this.current] == null) {
+                this.current++;
+            }
+            return p;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
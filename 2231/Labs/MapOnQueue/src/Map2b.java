@@ -0,0 +1,448 @@
+import java.lang.reflect.Constructor;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a self-organizing list of pairs, kept in
+ * parallel arrays, with implementations of primary methods and counters of
+ * the search depth of every lookup.
+ *
+ * <p>
+ * Each successful {@code hasKey}, {@code value}, or {@code remove} search
+ * reorganizes the list according to the chosen {@link Heuristic}: either the
+ * found pair moves to the front (as {@code Map2} does as a side effect), or
+ * it swaps places with the pair just ahead of it. Every search records how
+ * many keys it compared, so {@code averageSearchDepth} shows whether the
+ * access pattern has enough locality for the heuristic to pay off. The
+ * statistics describe the pairs they were gathered on: {@code clear} resets
+ * them, and {@code transferFrom} moves them along with the pairs.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * 0 <= $this.size <= |$this.keys| = |$this.values|  and
+ * [$this.keys[i] and $this.values[i] are not null for i < $this.size and
+ *  null otherwise]  and
+ * [$this.keys[0, $this.size) are distinct]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(k, v) : for some i < $this.size ($this.keys[i] = k and
+ *                                          $this.values[i] = v)}
+ * </pre>
+ */
+public class Map2b<K, V> extends MapSecondary<K, V> {
+
+    /**
+     * Self-organizing heuristics applied after a successful search.
+     */
+    public enum Heuristic {
+        /**
+         * Move the found pair to the front of the list.
+         */
+        MOVE_TO_FRONT,
+
+        /**
+         * Swap the found pair with its predecessor in the list.
+         */
+        TRANSPOSE
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Heuristic applied after each successful search.
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * Keys, front of the list first.
+     */
+    private Object[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private Object[] values;
+
+    /**
+     * Number of pairs, i.e., size = |this|.
+     */
+    private int size;
+
+    /**
+     * Number of searches since the statistics were last reset.
+     */
+    private long searches;
+
+    /**
+     * Total number of keys compared by those searches.
+     */
+    private long totalDepth;
+
+    /**
+     * Number of those searches that found their key.
+     */
+    private long hits;
+
+    /**
+     * Searches for {@code key}, records the search depth, and, if found,
+     * reorganizes the list and returns the new position of {@code key}.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the position of {@code key} after reorganizing, or -1 if absent
+     * @updates $this
+     * @ensures <pre>
+     * this = #this  and
+     * [$this.keys[0, $this.size) is #$this.keys[0, $this.size) reorganized by
+     *  $this.heuristic around key]
+     * </pre>
+     */
+    private int search(Object key) {
+        int i = 0;
+        while (i < this.size && !key.equals(this.keys[i])) {
+            i++;
+        }
+        this.searches++;
+        int result = -1;
+        if (i < this.size) {
+            this.hits++;
+            this.totalDepth += i + 1;
+            if (i > 0) {
+                Object k = this.keys[i];
+                Object v = this.values[i];
+                if (this.heuristic == Heuristic.MOVE_TO_FRONT) {
+                    System.arraycopy(this.keys, 0, this.keys, 1, i);
+                    System.arraycopy(this.values, 0, this.values, 1, i);
+                    result = 0;
+                } else {
+                    this.keys[i] = this.keys[i - 1];
+                    this.values[i] = this.values[i - 1];
+                    result = i - 1;
+                }
+                this.keys[result] = k;
+                this.values[result] = v;
+            } else {
+                result = 0;
+            }
+        } else {
+            this.totalDepth += this.size;
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code key} is absent from {@code this}, without
+     * recording a search or reorganizing the list; meant to be called only
+     * from an assert, so that its linear scan costs nothing when assertions
+     * are off.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return true iff {@code key} is not in DOMAIN(this)
+     */
+    private boolean absent(Object key) {
+        int i = 0;
+        while (i < this.size && !key.equals(this.keys[i])) {
+            i++;
+        }
+        return i == this.size;
+    }
+
+    /**
+     * Removes the pair at position {@code i} and returns it.
+     *
+     * @param i
+     *            the position of the pair
+     * @return the removed pair
+     * @updates $this
+     * @requires 0 <= i < $this.size
+     */
+    @SuppressWarnings("unchecked")
+    private Pair<K, V> removeAt(int i) {
+        /*
+         * These casts cannot fail since only keys of type K and values of type
+         * V are ever stored in the arrays.
+         */
+        Pair<K, V> p = new SimplePair<K, V>((K) this.keys[i],
+                (V) this.values[i]);
+        int tail = this.size - i - 1;
+        System.arraycopy(this.keys, i + 1, this.keys, i, tail);
+        System.arraycopy(this.values, i + 1, this.values, i, tail);
+        this.size--;
+        this.keys[this.size] = null;
+        this.values[this.size] = null;
+        return p;
+    }
+
+    /**
+     * Creator of initial representation, with the search statistics reset.
+     */
+    private void createNewRep() {
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.size = 0;
+        this.resetStatistics();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; uses {@code Heuristic.MOVE_TO_FRONT}.
+     */
+    public Map2b() {
+        this(Heuristic.MOVE_TO_FRONT);
+    }
+
+    /**
+     * Constructor from self-organizing heuristic.
+     *
+     * @param heuristic
+     *            the heuristic applied after each successful search
+     */
+    public Map2b(Heuristic heuristic) {
+        assert heuristic != null : "Violation of: heuristic is not null";
+
+        this.heuristic = heuristic;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(Heuristic.class);
+            return (Map<K, V>) c.newInstance(this.heuristic);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map2b<?, ?> : ""
+                + "Violation of: source is of dynamic type Map2b<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map2b<?,?>,
+         * and the ?,? must be K,V or the call would not have compiled.
+         */
+        Map2b<K, V> localSource = (Map2b<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.size = localSource.size;
+        this.searches = localSource.searches;
+        this.totalDepth = localSource.totalDepth;
+        this.hits = localSource.hits;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        assert this.absent(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.size == this.keys.length) {
+            Object[] newKeys = new Object[2 * this.size];
+            Object[] newValues = new Object[2 * this.size];
+            System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+            System.arraycopy(this.values, 0, newValues, 0, this.size);
+            this.keys = newKeys;
+            this.values = newValues;
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.size++;
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.search(key);
+        assert i >= 0 : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeAt(i);
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.removeAt(this.size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.search(key);
+        assert i >= 0 : "Violation of: key is in DOMAIN(this)";
+
+        /*
+         * This cast cannot fail since only values of type V are ever stored in
+         * the array.
+         */
+        return (V) this.values[i];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.search(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map2bIterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the heuristic used by {@code this}.
+     *
+     * @return the self-organizing heuristic
+     */
+    public final Heuristic heuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * Reports the number of {@code hasKey}, {@code value}, and {@code remove}
+     * searches since the statistics were last reset.
+     *
+     * @return the number of searches
+     */
+    public final long searches() {
+        return this.searches;
+    }
+
+    /**
+     * Reports the number of those searches that found their key.
+     *
+     * @return the number of successful searches
+     */
+    public final long hits() {
+        return this.hits;
+    }
+
+    /**
+     * Reports the mean number of keys compared per search since the
+     * statistics were last reset, or 0 if there were none.
+     *
+     * @return the average search depth
+     */
+    public final double averageSearchDepth() {
+        double average = 0;
+        if (this.searches > 0) {
+            average = (double) this.totalDepth / this.searches;
+        }
+        return average;
+    }
+
+    /**
+     * Resets the search statistics to zero.
+     */
+    public final void resetStatistics() {
+        this.searches = 0;
+        this.totalDepth = 0;
+        this.hits = 0;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map2b}.
+     */
+    private final class Map2bIterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Position of the next pair to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Map2bIterator() {
+            this.current = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Map2b.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            /*
+             * These casts cannot fail since only keys of type K and values of
+             * type V are ever stored in the arrays.
+             */
+            Pair<K, V> p = new SimplePair<K, V>(
+                    (K) Map2b.this.keys[this.current],
+                    (V) Map2b.this.values[this.current]);
+            this.current++;
+            return p;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,296 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map2a}.
+ */
+public class Map2aTest extends MapTest {
+
+    /**
+     * Number of keys, well past the point where {@code Map2a} switches from a
+     * linear scan to its hash index, and enough to rebuild it several times.
+     */
+    private static final int KEYS = 100;
+
+    /**
+     * Number of random operations in {@code testRandomAgainstReference}.
+     */
+    private static final int OPERATIONS = 5000;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map2a<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Returns the keys "k0", "k1", ..., "k{n-1}".
+     *
+     * @param n
+     *            the number of keys
+     * @return the keys
+     */
+    private static List<String> keys(int n) {
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < n; i++) {
+            keys.add("k" + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the 2^{@code n} keys made of {@code n} pieces, each "Aa" or
+     * "BB"; since "Aa" and "BB" have the same hash code, so do all of these.
+     *
+     * @param n
+     *            the number of pieces per key
+     * @return the keys
+     */
+    private static List<String> collidingKeys(int n) {
+        List<String> keys = new ArrayList<String>();
+        for (int bits = 0; bits < (1 << n); bits++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                if ((bits & (1 << i)) == 0) {
+                    sb.append("Aa");
+                } else {
+                    sb.append("BB");
+                }
+            }
+            keys.add(sb.toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Checks that {@code m} has the same size as {@code ref}, and that
+     * {@code hasKey} and {@code value} agree with {@code ref} on every key
+     * among {@code candidates}.
+     *
+     * @param ref
+     *            the expected map
+     * @param m
+     *            the map under test
+     * @param candidates
+     *            keys that may or may not be in {@code ref}
+     */
+    private static void assertSameMap(Map<String, String> ref,
+            Map<String, String> m, List<String> candidates) {
+        assertEquals(ref.size(), m.size());
+        for (String k : candidates) {
+            assertEquals(k, ref.hasKey(k), m.hasKey(k));
+            if (ref.hasKey(k)) {
+                assertEquals(k, ref.value(k), m.value(k));
+            }
+        }
+        assertEquals(ref, m);
+    }
+
+    /**
+     * Test add one key at a time past the switch to the hash index.
+     */
+    @Test
+    public final void testAddPastSmallLimit() {
+        List<String> all = keys(KEYS);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+
+        for (String k : all) {
+            m.add(k, "v" + k);
+            mExpected.add(k, "v" + k);
+            assertSameMap(mExpected, m, all);
+        }
+    }
+
+    /**
+     * Test remove half of the keys of a large map and add them back with new
+     * values, so that the index holds vacated slots when they are re-added.
+     */
+    @Test
+    public final void testRemoveAndAddAgain() {
+        List<String> all = keys(KEYS);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (String k : all) {
+            m.add(k, "v" + k);
+            mExpected.add(k, "v" + k);
+        }
+
+        for (int i = 0; i < KEYS; i += 2) {
+            Map.Pair<String, String> p = m.remove(all.get(i));
+            mExpected.remove(all.get(i));
+            assertEquals(all.get(i), p.key());
+            assertEquals("v" + all.get(i), p.value());
+        }
+        assertSameMap(mExpected, m, all);
+        for (int i = 0; i < KEYS; i += 2) {
+            m.add(all.get(i), "w" + all.get(i));
+            mExpected.add(all.get(i), "w" + all.get(i));
+        }
+
+        assertSameMap(mExpected, m, all);
+    }
+
+    /**
+     * Test keys that all share one hash code, removing from the middle of
+     * their probe run and adding them back.
+     */
+    @Test
+    public final void testCollidingKeys() {
+        final int pieces = 5;
+        List<String> all = collidingKeys(pieces);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (String k : all) {
+            m.add(k, k.toLowerCase());
+            mExpected.add(k, k.toLowerCase());
+        }
+        assertSameMap(mExpected, m, all);
+
+        for (int i = 1; i < all.size(); i += 3) {
+            m.remove(all.get(i));
+            mExpected.remove(all.get(i));
+        }
+        assertSameMap(mExpected, m, all);
+        for (int i = 1; i < all.size(); i += 3) {
+            m.add(all.get(i), all.get(i));
+            mExpected.add(all.get(i), all.get(i));
+        }
+
+        assertSameMap(mExpected, m, all);
+    }
+
+    /**
+     * Test that removeAny keeps insertion order, oldest first, through the
+     * rebuilds caused by adding after removes.
+     */
+    @Test
+    public final void testRemoveAnyAfterRebuild() {
+        List<String> all = keys(KEYS);
+        Map<String, String> m = this.constructorTest();
+        for (int i = 0; i < KEYS / 2; i++) {
+            m.add(all.get(i), "v" + i);
+        }
+        for (int i = 0; i < KEYS / 2; i += 3) {
+            m.remove(all.get(i));
+        }
+        for (int i = KEYS / 2; i < KEYS; i++) {
+            m.add(all.get(i), "v" + i);
+        }
+
+        int expectedSize = m.size();
+        for (int i = 0; i < KEYS; i++) {
+            if (i >= KEYS / 2 || i % 3 != 0) {
+                Map.Pair<String, String> p = m.removeAny();
+                expectedSize--;
+                assertEquals(all.get(i), p.key());
+                assertEquals("v" + i, p.value());
+                assertEquals(expectedSize, m.size());
+                assertEquals(false, m.hasKey(all.get(i)));
+            }
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Test shrink a large map below the switch threshold with removeAny and
+     * grow it past the threshold again.
+     */
+    @Test
+    public final void testShrinkAndGrowAgain() {
+        List<String> all = keys(KEYS);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (int i = 0; i < KEYS / 2; i++) {
+            m.add(all.get(i), "v" + i);
+            mExpected.add(all.get(i), "v" + i);
+        }
+
+        while (m.size() > 2) {
+            Map.Pair<String, String> p = m.removeAny();
+            Map.Pair<String, String> q = mExpected.remove(p.key());
+            assertEquals(q.value(), p.value());
+        }
+        assertSameMap(mExpected, m, all);
+        for (int i = KEYS / 2; i < KEYS; i++) {
+            m.add(all.get(i), "v" + i);
+            mExpected.add(all.get(i), "v" + i);
+        }
+
+        assertSameMap(mExpected, m, all);
+    }
+
+    /**
+     * Test clear and transferFrom on a map with a hash index.
+     */
+    @Test
+    public final void testClearAndTransferFromLarge() {
+        List<String> all = keys(KEYS);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+        for (String k : all) {
+            m.add(k, "v" + k);
+            mExpected.add(k, "v" + k);
+        }
+        m.remove(all.get(0));
+        mExpected.remove(all.get(0));
+
+        Map<String, String> n = m.newInstance();
+        n.transferFrom(m);
+        assertSameMap(mExpected, n, all);
+        assertEquals(0, m.size());
+        m.add(all.get(1), "again");
+        assertEquals("again", m.value(all.get(1)));
+        assertEquals(1, m.size());
+        n.clear();
+
+        assertEquals(0, n.size());
+        assertEquals(false, n.hasKey(all.get(1)));
+    }
+
+    /**
+     * Test a seeded random mix of add, remove and removeAny against
+     * {@code Map1L}.
+     */
+    @Test
+    public final void testRandomAgainstReference() {
+        final int keyCount = 40;
+        List<String> all = keys(keyCount);
+        Random random = new Random(1);
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            String k = all.get(random.nextInt(keyCount));
+            if (!mExpected.hasKey(k)) {
+                m.add(k, "v" + i);
+                mExpected.add(k, "v" + i);
+            } else if (random.nextInt(4) == 0) {
+                Map.Pair<String, String> p = m.removeAny();
+                Map.Pair<String, String> q = mExpected.remove(p.key());
+                assertEquals(q.value(), p.value());
+            } else {
+                Map.Pair<String, String> p = m.remove(k);
+                Map.Pair<String, String> q = mExpected.remove(k);
+                assertEquals(q.value(), p.value());
+            }
+            assertEquals(mExpected.size(), m.size());
+            assertEquals(k, mExpected.hasKey(k), m.hasKey(k));
+        }
+
+        assertSameMap(mExpected, m, all);
+    }
+
+}
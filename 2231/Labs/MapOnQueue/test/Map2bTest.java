@@ -0,0 +1,183 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map2b}.
+ */
+public class Map2bTest extends MapTest {
+
+    /**
+     * Tolerance for comparing averages.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map2b<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Creates a {@code Map2b} with keys "a", "b", "c" (in that list order)
+     * mapped to "1", "2", "3".
+     *
+     * @param h
+     *            the heuristic
+     * @return the map
+     */
+    private static Map2b<String, String> abc(Map2b.Heuristic h) {
+        Map2b<String, String> m = new Map2b<String, String>(h);
+        m.add("a", "1");
+        m.add("b", "2");
+        m.add("c", "3");
+        return m;
+    }
+
+    /**
+     * Returns the keys of {@code m} in iteration order, concatenated.
+     *
+     * @param m
+     *            the map
+     * @return the keys of {@code m} in iteration order
+     */
+    private static String order(Map<String, String> m) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Pair<String, String> p : m) {
+            sb.append(p.key());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test move-to-front reorganization and depth counting.
+     */
+    @Test
+    public final void testMoveToFrontStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.MOVE_TO_FRONT);
+
+        String v = m.value("c");
+        boolean found = m.hasKey("c");
+
+        assertEquals("3", v);
+        assertEquals(true, found);
+        assertEquals("cab", order(m));
+        assertEquals(2, m.searches());
+        assertEquals(2, m.hits());
+        assertEquals(2.0, m.averageSearchDepth(), EPSILON);
+    }
+
+    /**
+     * Test transpose reorganization and depth counting.
+     */
+    @Test
+    public final void testTransposeStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.TRANSPOSE);
+
+        String v = m.value("c");
+        String orderAfterOne = order(m);
+        boolean found = m.hasKey("c");
+
+        assertEquals("3", v);
+        assertEquals(true, found);
+        assertEquals("acb", orderAfterOne);
+        assertEquals("cab", order(m));
+        assertEquals(2, m.searches());
+        assertEquals(2.5, m.averageSearchDepth(), EPSILON);
+    }
+
+    /**
+     * Test that a miss counts the whole list and reorganizes nothing.
+     */
+    @Test
+    public final void testMissStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.MOVE_TO_FRONT);
+
+        boolean found = m.hasKey("z");
+
+        assertEquals(false, found);
+        assertEquals("abc", order(m));
+        assertEquals(1, m.searches());
+        assertEquals(0, m.hits());
+        assertEquals(3.0, m.averageSearchDepth(), EPSILON);
+    }
+
+    /**
+     * Test resetStatistics.
+     */
+    @Test
+    public final void testResetStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.TRANSPOSE);
+        m.hasKey("b");
+
+        m.resetStatistics();
+
+        assertEquals(0, m.searches());
+        assertEquals(0, m.hits());
+        assertEquals(0.0, m.averageSearchDepth(), EPSILON);
+        assertEquals(Map2b.Heuristic.TRANSPOSE, m.heuristic());
+    }
+
+    /**
+     * Test that add, which only checks its precondition, is not counted as a
+     * search.
+     */
+    @Test
+    public final void testAddNotCounted() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.MOVE_TO_FRONT);
+
+        m.add("d", "4");
+
+        assertEquals(0, m.searches());
+        assertEquals(0.0, m.averageSearchDepth(), EPSILON);
+        assertEquals("abcd", order(m));
+    }
+
+    /**
+     * Test that clear resets the statistics.
+     */
+    @Test
+    public final void testClearResetsStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.MOVE_TO_FRONT);
+        m.hasKey("c");
+        m.hasKey("z");
+
+        m.clear();
+
+        assertEquals(0, m.size());
+        assertEquals(0, m.searches());
+        assertEquals(0, m.hits());
+        assertEquals(0.0, m.averageSearchDepth(), EPSILON);
+    }
+
+    /**
+     * Test that transferFrom moves the statistics along with the pairs.
+     */
+    @Test
+    public final void testTransferFromMovesStatistics() {
+        Map2b<String, String> m = abc(Map2b.Heuristic.TRANSPOSE);
+        m.hasKey("c");
+        m.hasKey("z");
+        Map2b<String, String> n = new Map2b<String, String>(
+                Map2b.Heuristic.TRANSPOSE);
+        n.hasKey("a");
+
+        n.transferFrom(m);
+
+        assertEquals(3, n.size());
+        assertEquals(2, n.searches());
+        assertEquals(1, n.hits());
+        assertEquals(3.0, n.averageSearchDepth(), EPSILON);
+        assertEquals(0, m.size());
+        assertEquals(0, m.searches());
+        assertEquals(0.0, m.averageSearchDepth(), EPSILON);
+    }
+
+}
@@ -0,0 +1,683 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import components.map.Map;
+import components.program.Program;
+import components.program.Program.Instruction;
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+import components.statement.Statement;
+import components.statement.StatementKernel.Condition;
+import components.utilities.Reporter;
+
+/**
+ * Generator of the same code as {@code Program1GeneratedCode1.generatedCode}
+ * that keeps the code of every body it generates, so that compiling an edited
+ * program only generates again the instructions that changed and the
+ * instructions calling them.
+ *
+ * <p>
+ * The code of a body is kept as a fragment whose jump targets are relative to
+ * the start of the fragment, together with the key of the body: the tokens of
+ * its {@code Statement} tree in prefix order, in which each call of a
+ * user-defined instruction stands for the fragment of that instruction.
+ * Fragments are looked up by a 64-bit hash of the key, but a fragment found is
+ * only used if its tokens are equal to those of the body and its callees are
+ * the very fragments the body's calls resolve to, so a hash collision costs a
+ * regeneration and never wrong code. Since callees are resolved, and so
+ * checked, before their callers, a fragment is reused exactly when neither its
+ * body nor the body of an instruction it calls directly or indirectly has
+ * changed. A call of an instruction is compiled by copying its fragment and
+ * adding the position it is copied to to its jump targets. At most
+ * {@code MAX_FRAGMENTS} fragments are kept, the least recently used being
+ * dropped first.
+ *
+ * <p>
+ * Keys are not kept from one call of {@code generatedCode} to the next: a
+ * {@code Statement} cannot tell whether it changed without being walked, so
+ * every compilation walks each body reachable from the main body once, in
+ * time linear in its size, to build its key. Only the bodies whose fragments
+ * are not kept are then generated.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class IncrementalCodeGenerator {
+
+    /**
+     * Maximum number of fragments kept.
+     */
+    private static final int MAX_FRAGMENTS = 4096;
+
+    /**
+     * Initial capacity of a fragment being generated.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Offset basis of the hash, from 64-bit FNV-1a.
+     */
+    private static final long HASH_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * Prime multiplier of the hash, from 64-bit FNV-1a.
+     */
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    /**
+     * Multiplier spreading each hashed value over 64 bits.
+     */
+    private static final long SPREAD = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Hashed tag of a block.
+     */
+    private static final int BLOCK_TAG = 1;
+
+    /**
+     * Hashed tag of an if statement.
+     */
+    private static final int IF_TAG = 2;
+
+    /**
+     * Hashed tag of an if-else statement.
+     */
+    private static final int IF_ELSE_TAG = 3;
+
+    /**
+     * Hashed tag of a while statement.
+     */
+    private static final int WHILE_TAG = 4;
+
+    /**
+     * Hashed tag of a call of a primitive instruction.
+     */
+    private static final int PRIMITIVE_TAG = 5;
+
+    /**
+     * Hashed tag of a call of a user-defined instruction.
+     */
+    private static final int USER_TAG = 6;
+
+    /**
+     * Hashed tag of a main program body.
+     */
+    private static final int MAIN_TAG = 7;
+
+    /**
+     * Conditional jump byte code of each {@code Condition}, by ordinal.
+     */
+    private static final int[] JUMPS = new int[Condition.values().length];
+
+    static {
+        for (Condition c : Condition.values()) {
+            JUMPS[c.ordinal()] = Instruction.valueOf("JUMP_IF_NOT_" + c.name())
+                    .byteCode();
+        }
+    }
+
+    /**
+     * Kept fragments, by hash of their keys, least recently used first.
+     */
+    private final LinkedHashMap<Long, Fragment> fragments;
+
+    /**
+     * Number of fragments found kept since {@code this} was constructed.
+     */
+    private long hits;
+
+    /**
+     * Number of fragments generated since {@code this} was constructed.
+     */
+    private long misses;
+
+    /**
+     * Code or key being generated, grown as needed.
+     */
+    private static final class Code {
+
+        /**
+         * The byte codes, or tokens; only the first {@code length} are used.
+         */
+        private int[] codes = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of byte codes, or tokens.
+         */
+        private int length = 0;
+
+        /**
+         * Makes room for {@code more} byte codes, or tokens.
+         *
+         * @param more
+         *            the number of byte codes, or tokens, to be added
+         */
+        private void reserve(int more) {
+            if (this.length + more > this.codes.length) {
+                int[] bigger = new int[Math.max(this.length + more,
+                        2 * this.codes.length)];
+                System.arraycopy(this.codes, 0, bigger, 0, this.length);
+                this.codes = bigger;
+            }
+        }
+
+        /**
+         * Adds {@code code} at the end.
+         *
+         * @param code
+         *            the byte code, or token
+         */
+        void add(int code) {
+            this.reserve(1);
+            this.codes[this.length] = code;
+            this.length++;
+        }
+
+        /**
+         * Adds a copy of {@code fragment} at the end, with its jump targets
+         * moved to where it is copied.
+         *
+         * @param fragment
+         *            the fragment, with jump targets relative to its start
+         */
+        void addRelocated(int[] fragment) {
+            this.reserve(fragment.length);
+            int base = this.length;
+            System.arraycopy(fragment, 0, this.codes, base, fragment.length);
+            int i = 0;
+            while (i < fragment.length) {
+                if (fragment[i] >= Instruction.JUMP.byteCode()) {
+                    i++;
+                    this.codes[base + i] += base;
+                }
+                i++;
+            }
+            this.length += fragment.length;
+        }
+
+    }
+
+    /**
+     * Kept code of a body, with the key it was generated from.
+     */
+    private static final class Fragment {
+
+        /**
+         * Hash of the key.
+         */
+        private final long hash;
+
+        /**
+         * Tokens of the body, in pairs of a tag and a value; the value of
+         * {@code USER_TAG} is an index in {@code callees}.
+         */
+        private final int[] tokens;
+
+        /**
+         * Fragment of each user-defined instruction called, in the order the
+         * calls appear.
+         */
+        private final Fragment[] callees;
+
+        /**
+         * The byte codes of the body, with jump targets relative to its start.
+         */
+        private final int[] codes;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            the hash of the key
+         * @param tokens
+         *            the tokens of the body
+         * @param callees
+         *            the fragments of the instructions called
+         * @param codes
+         *            the byte codes of the body
+         */
+        Fragment(long hash, int[] tokens, Fragment[] callees, int[] codes) {
+            this.hash = hash;
+            this.tokens = tokens;
+            this.callees = callees;
+            this.codes = codes;
+        }
+
+    }
+
+    /**
+     * State of one call of {@code generatedCode}.
+     */
+    private static final class Compilation {
+
+        /**
+         * The instructions of the program, not including those being
+         * resolved.
+         */
+        private final Map<String, Statement> context;
+
+        /**
+         * Fragments of the instructions resolved so far, by name.
+         */
+        private final java.util.Map<String, Fragment> resolved;
+
+        /**
+         * Instructions being resolved.
+         */
+        private final Set<String> active;
+
+        /**
+         * First error found, or null if none has been; it is reported once the
+         * program has been put back together.
+         */
+        private String error;
+
+        /**
+         * Constructor.
+         *
+         * @param context
+         *            the instructions of the program
+         */
+        Compilation(Map<String, Statement> context) {
+            this.context = context;
+            this.resolved = new HashMap<String, Fragment>();
+            this.active = new HashSet<String>();
+            this.error = null;
+        }
+
+    }
+
+    /**
+     * No-argument constructor, for a generator keeping no fragments.
+     */
+    public IncrementalCodeGenerator() {
+        final float loadFactor = 0.75f;
+        this.fragments = new LinkedHashMap<Long, Fragment>(16, loadFactor,
+                true) {
+
+            /**
+             * Serial version, unused.
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    java.util.Map.Entry<Long, Fragment> eldest) {
+                return this.size() > MAX_FRAGMENTS;
+            }
+
+        };
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Returns {@code hash} combined with {@code value}.
+     *
+     * @param hash
+     *            the hash so far
+     * @param value
+     *            the value hashed next
+     * @return the combined hash
+     */
+    private static long mix(long hash, long value) {
+        long spread = value * SPREAD;
+        return (hash ^ (spread ^ (spread >>> Integer.SIZE))) * HASH_PRIME;
+    }
+
+    /**
+     * Returns the byte code of primitive instruction {@code name}, or -1 if
+     * {@code name} is not a primitive instruction.
+     *
+     * @param name
+     *            the name of the instruction
+     * @return the byte code of name, or -1
+     */
+    private static int primitiveCode(String name) {
+        int code = -1;
+        switch (name) {
+            case "move":
+                code = Instruction.MOVE.byteCode();
+                break;
+            case "turnleft":
+                code = Instruction.TURNLEFT.byteCode();
+                break;
+            case "turnright":
+                code = Instruction.TURNRIGHT.byteCode();
+                break;
+            case "infect":
+                code = Instruction.INFECT.byteCode();
+                break;
+            case "skip":
+                code = Instruction.SKIP.byteCode();
+                break;
+            default:
+                break;
+        }
+        return code;
+    }
+
+
+    /**
+     * Returns the fragment of instruction {@code name}, resolving it, and the
+     * instructions it calls, if it is not resolved yet.
+     *
+     * @param name
+     *            the name of the instruction
+     * @param c
+     *            the compilation
+     * @return the fragment of name, or null if an error has been found
+     * @updates this, c
+     * @ensures <pre>
+     * if [name is defined in c.context and calls no instruction that is
+     *     neither primitive nor defined in c.context, nor itself] then
+     *  fragmentOf = [fragment of the body of name] and
+     *  c.resolved = #c.resolved union {(name, fragmentOf)}
+     * else
+     *  c.error = [the first error found]
+     * </pre>
+     */
+    private Fragment fragmentOf(String name, Compilation c) {
+        Fragment fragment = c.resolved.get(name);
+        if (fragment == null && c.error == null) {
+            if (!c.active.add(name)) {
+                c.error = "Recursive instruction " + name + ".";
+            } else if (!c.context.hasKey(name)) {
+                c.error = "Invalid instruction.";
+            } else {
+                Map.Pair<String, Statement> pair = c.context.remove(name);
+                try {
+                    fragment = this.fragment(pair.value(), new Code(), c);
+                } finally {
+                    c.context.add(pair.key(), pair.value());
+                }
+                c.active.remove(name);
+                if (fragment != null) {
+                    c.resolved.put(name, fragment);
+                }
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * Appends the tokens of {@code s} to {@code tokens}, resolving the
+     * instructions it calls and appending their fragments to {@code callees}.
+     * Each token is a pair of a tag and a value, and nested statements follow
+     * the statement containing them, so the tokens of different trees differ.
+     *
+     * @param s
+     *            the statement
+     * @param c
+     *            the compilation
+     * @param tokens
+     *            the key being built
+     * @param callees
+     *            the fragments of the instructions called so far
+     * @updates this, c, tokens, callees
+     */
+    private void addTokens(Statement s, Compilation c, Code tokens,
+            List<Fragment> callees) {
+        switch (s.kind()) {
+            case BLOCK: {
+                tokens.add(BLOCK_TAG);
+                tokens.add(s.lengthOfBlock());
+                for (int i = 0; i < s.lengthOfBlock(); i++) {
+                    Statement ns = s.removeFromBlock(i);
+                    this.addTokens(ns, c, tokens, callees);
+                    s.addToBlock(i, ns);
+                }
+                break;
+            }
+            case IF: {
+                Statement b = s.newInstance();
+                Condition cond = s.disassembleIf(b);
+                tokens.add(IF_TAG);
+                tokens.add(cond.ordinal());
+                this.addTokens(b, c, tokens, callees);
+                s.assembleIf(cond, b);
+                break;
+            }
+            case IF_ELSE: {
+                Statement s1 = s.newInstance();
+                Statement s2 = s.newInstance();
+                Condition cond = s.disassembleIfElse(s1, s2);
+                tokens.add(IF_ELSE_TAG);
+                tokens.add(cond.ordinal());
+                this.addTokens(s1, c, tokens, callees);
+                this.addTokens(s2, c, tokens, callees);
+                s.assembleIfElse(cond, s1, s2);
+                break;
+            }
+            case WHILE: {
+                Statement b = s.newInstance();
+                Condition cond = s.disassembleWhile(b);
+                tokens.add(WHILE_TAG);
+                tokens.add(cond.ordinal());
+                this.addTokens(b, c, tokens, callees);
+                s.assembleWhile(cond, b);
+                break;
+            }
+            case CALL: {
+                String instr = s.disassembleCall();
+                int code = primitiveCode(instr);
+                if (code >= 0) {
+                    tokens.add(PRIMITIVE_TAG);
+                    tokens.add(code);
+                } else {
+                    tokens.add(USER_TAG);
+                    tokens.add(callees.size());
+                    callees.add(this.fragmentOf(instr, c));
+                }
+                s.assembleCall(instr);
+                break;
+            }
+            default: {
+                // this will never happen...
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the fragment of {@code body}, whose key starts with
+     * {@code tokens}, generating it and keeping it if no fragment of the same
+     * key is kept.
+     *
+     * @param body
+     *            the body
+     * @param tokens
+     *            the tokens preceding those of body in its key
+     * @param c
+     *            the compilation
+     * @return the code of body, or null if an error has been found
+     * @updates this, tokens, c
+     */
+    private Fragment fragment(Statement body, Code tokens, Compilation c) {
+        List<Fragment> calls = new ArrayList<Fragment>();
+        this.addTokens(body, c, tokens, calls);
+        Fragment fragment = null;
+        if (c.error == null) {
+            int[] key = Arrays.copyOf(tokens.codes, tokens.length);
+            Fragment[] callees = calls.toArray(new Fragment[calls.size()]);
+            long hash = HASH_BASIS;
+            for (int i = 0; i < key.length; i += 2) {
+                hash = mix(hash, key[i]);
+                if (key[i] == USER_TAG) {
+                    hash = mix(hash, callees[key[i + 1]].hash);
+                } else {
+                    hash = mix(hash, key[i + 1]);
+                }
+            }
+            fragment = this.fragments.get(hash);
+            /*
+             * Callees are compared by identity: each was checked, or
+             * generated, when it was resolved
+             */
+            if (fragment != null && Arrays.equals(fragment.tokens, key)
+                    && Arrays.equals(fragment.callees, callees)) {
+                this.hits++;
+            } else {
+                this.misses++;
+                Code code = new Code();
+                generateCodeForStatement(body, c.resolved, code);
+                fragment = new Fragment(hash, key, callees,
+                        Arrays.copyOf(code.codes, code.length));
+                this.fragments.put(hash, fragment);
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * Generates the code of {@code s}, with jump targets relative to the
+     * start of {@code code}, and appends it at the end of {@code code}.
+     *
+     * @param s
+     *            the statement
+     * @param resolved
+     *            the fragments of all instructions called by s, by name
+     * @param code
+     *            the code being generated
+     * @updates code
+     */
+    private static void generateCodeForStatement(Statement s,
+            java.util.Map<String, Fragment> resolved, Code code) {
+        final int dummy = 0;
+
+        switch (s.kind()) {
+            case BLOCK: {
+                for (int i = 0; i < s.lengthOfBlock(); i++) {
+                    Statement ns = s.removeFromBlock(i);
+                    generateCodeForStatement(ns, resolved, code);
+                    s.addToBlock(i, ns);
+                }
+                break;
+            }
+            case IF: {
+                Statement b = s.newInstance();
+                Condition c = s.disassembleIf(b);
+                code.add(JUMPS[c.ordinal()]);
+                int jump = code.length;
+                code.add(dummy);
+                generateCodeForStatement(b, resolved, code);
+                code.codes[jump] = code.length;
+                s.assembleIf(c, b);
+                break;
+            }
+            case IF_ELSE: {
+                Statement s1 = s.newInstance();
+                Statement s2 = s.newInstance();
+                Condition c = s.disassembleIfElse(s1, s2);
+                code.add(JUMPS[c.ordinal()]);
+                int jump1 = code.length;
+                code.add(dummy);
+                generateCodeForStatement(s1, resolved, code);
+                code.add(Instruction.JUMP.byteCode());
+                int jump2 = code.length;
+                code.add(dummy);
+                code.codes[jump1] = code.length;
+                generateCodeForStatement(s2, resolved, code);
+                code.codes[jump2] = code.length;
+                s.assembleIfElse(c, s1, s2);
+                break;
+            }
+            case WHILE: {
+                Statement b = s.newInstance();
+                Condition c = s.disassembleWhile(b);
+                int k = code.length;
+                code.add(JUMPS[c.ordinal()]);
+                int jump = code.length;
+                code.add(dummy);
+                generateCodeForStatement(b, resolved, code);
+                code.add(Instruction.JUMP.byteCode());
+                code.add(k);
+                code.codes[jump] = code.length;
+                s.assembleWhile(c, b);
+                break;
+            }
+            case CALL: {
+                String instr = s.disassembleCall();
+                int primitive = primitiveCode(instr);
+                if (primitive >= 0) {
+                    code.add(primitive);
+                } else {
+                    code.addRelocated(resolved.get(instr).codes);
+                }
+                s.assembleCall(instr);
+                break;
+            }
+            default: {
+                // this will never happen...
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the code generated for {@code p}, which is the same as
+     * {@code p.generatedCode()}, generating only the bodies whose fragments
+     * are not kept.
+     *
+     * @param p
+     *            the program
+     * @return the compiled program
+     * @updates this
+     * @ensures <pre>
+     * if [all instructions called in p are either primitive or
+     *     defined in p]  and
+     *    [p does not include any calling cycles, i.e., recursion] then
+     *  generatedCode = [the sequence of virtual machine "byte codes"
+     *                   corresponding to p]
+     * else
+     *  [reports an appropriate error message to the console and terminates
+     *   client]
+     * </pre>
+     */
+    public Sequence<Integer> generatedCode(Program p) {
+        assert p != null : "Violation of: p is not null";
+
+        Map<String, Statement> context = p.newContext();
+        p.swapContext(context);
+        Statement body = p.newBody();
+        p.swapBody(body);
+        Compilation c = new Compilation(context);
+        Fragment main;
+        try {
+            Code tokens = new Code();
+            tokens.add(MAIN_TAG);
+            tokens.add(0);
+            main = this.fragment(body, tokens, c);
+        } finally {
+            p.swapContext(context);
+            p.swapBody(body);
+        }
+        if (c.error != null) {
+            Reporter.fatalErrorToConsole(c.error);
+        }
+
+        Sequence<Integer> cp = new Sequence1L<Integer>();
+        for (int code : main.codes) {
+            cp.add(cp.length(), code);
+        }
+        cp.add(cp.length(), Instruction.HALT.byteCode());
+        return cp;
+    }
+
+    /**
+     * Reports the number of fragments found kept and the number generated,
+     * since {@code this} was constructed.
+     *
+     * @return {hits, misses}
+     */
+    public long[] fragmentCounts() {
+        return new long[] { this.hits, this.misses };
+    }
+
+}
@@ -0,0 +1,44 @@
+import components.program.Program1;
+import components.sequence.Sequence;
+
+/**
+ * Layered implementation of secondary method {@code generatedCode} for
+ * {@code Program}, generating again, on each call, only the instructions
+ * changed since the last call and the instructions calling them.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class Program1GeneratedCode2 extends Program1 {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Generator keeping the code of the bodies compiled by {@code this}.
+     */
+    private final IncrementalCodeGenerator generator;
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Default constructor.
+     */
+    public Program1GeneratedCode2() {
+        super();
+        this.generator = new IncrementalCodeGenerator();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    @Override
+    public Sequence<Integer> generatedCode() {
+        return this.generator.generatedCode(this);
+    }
+
+}
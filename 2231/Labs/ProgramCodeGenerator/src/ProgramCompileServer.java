@@ -0,0 +1,446 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import components.map.Map;
+import components.program.Program;
+import components.program.Program1;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.sequence.Sequence;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.statement.Statement;
+import components.utilities.Tokenizer;
+
+/**
+ * Long-running BL compiler: reads requests from standard input, one per line,
+ * and compiles each BL program named into a {@code .bo} file, so that a batch
+ * of programs costs one JVM start-up and warm-up instead of one per program.
+ *
+ * <p>
+ * A request line is {@code program.bl} or {@code program.bl program.bo}; the
+ * output file name defaults to the program file name with {@code .bl}
+ * replaced by {@code .bo}. Each request gets one reply line, {@code ok} with
+ * the time taken by each stage, or {@code error} with the reason, and a bad
+ * program does not stop the server. Requests are read until the end of the
+ * input, so the server can be fed through a pipe or a named pipe.
+ *
+ * <p>
+ * Parsed instruction bodies, and main program bodies, are cached by their
+ * token text, so a body that has not changed since it was last compiled, in
+ * any program, is not parsed again. At most {@code MAX_CACHED_BODIES} bodies
+ * are kept, the least recently used being dropped first. Code is generated by
+ * an {@code IncrementalCodeGenerator}, so only the instructions that changed,
+ * and the instructions calling them, are generated again.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ProgramCompileServer {
+
+    /**
+     * Maximum number of parsed bodies kept.
+     */
+    private static final int MAX_CACHED_BODIES = 4096;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Names of the primitive instructions, which cannot be redefined.
+     */
+    private static final String[] PRIMITIVES = { "move", "turnleft",
+            "turnright", "infect", "skip" };
+
+    /**
+     * Parsed bodies, by token text, least recently used first.
+     */
+    private final LinkedHashMap<String, Statement> cache;
+
+    /**
+     * Number of bodies found in the cache since the server started.
+     */
+    private long hits;
+
+    /**
+     * Number of bodies looked up in the cache since the server started.
+     */
+    private long lookups;
+
+    /**
+     * Generator keeping the code of the bodies compiled so far.
+     */
+    private final IncrementalCodeGenerator generator;
+
+    /**
+     * No-argument constructor, for a server with an empty cache.
+     */
+    public ProgramCompileServer() {
+        final float loadFactor = 0.75f;
+        this.cache = new LinkedHashMap<String, Statement>(16, loadFactor,
+                true) {
+
+            /**
+             * Serial version, unused.
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    java.util.Map.Entry<String, Statement> eldest) {
+                return this.size() > MAX_CACHED_BODIES;
+            }
+
+        };
+        this.hits = 0;
+        this.lookups = 0;
+        this.generator = new IncrementalCodeGenerator();
+    }
+
+    /**
+     * Checks that {@code isOk} holds.
+     *
+     * @param isOk
+     *            the condition
+     * @param message
+     *            the error message if it does not
+     * @throws IllegalArgumentException
+     *             if {@code isOk} is false
+     */
+    private static void check(boolean isOk, String message) {
+        if (!isOk) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Reports whether {@code name} is the name of a primitive instruction.
+     *
+     * @param name
+     *            the name
+     * @return whether name is in PRIMITIVES
+     */
+    private static boolean isPrimitive(String name) {
+        boolean found = false;
+        for (String primitive : PRIMITIVES) {
+            found = found || primitive.equals(name);
+        }
+        return found;
+    }
+
+    /**
+     * Reports whether {@code name} can name a program or instruction: an
+     * identifier that is not a keyword, as {@code Program1.parse} requires.
+     *
+     * @param name
+     *            the name
+     * @return whether name is an identifier and not a keyword
+     */
+    private static boolean isName(String name) {
+        return Tokenizer.isIdentifier(name) && !Tokenizer.isKeyword(name);
+    }
+
+    /**
+     * Dequeues the tokens of a body ending with {@code END name} into
+     * {@code body}, followed by {@code Tokenizer.END_OF_INPUT}, and returns
+     * their text. The {@code END name} is dequeued but not kept. Since
+     * {@code name} is not a keyword, the {@code END IF} and {@code END WHILE}
+     * of statements in the body cannot be mistaken for it.
+     *
+     * @param tokens
+     *            the tokens of the program
+     * @param name
+     *            the name closing the body
+     * @param body
+     *            the tokens of the body
+     * @return the tokens of the body, separated by spaces
+     * @throws IllegalArgumentException
+     *             if the input ends before {@code END name}
+     * @updates tokens, body
+     * @requires isName(name)
+     */
+    private static String takeBody(Queue<String> tokens, String name,
+            Queue<String> body) {
+        StringBuilder text = new StringBuilder();
+        boolean done = false;
+        while (!done) {
+            String token = tokens.dequeue();
+            check(!token.equals(Tokenizer.END_OF_INPUT),
+                    "missing END " + name);
+            if (token.equals("END") && tokens.front().equals(name)) {
+                tokens.dequeue();
+                done = true;
+            } else {
+                body.enqueue(token);
+                text.append(token).append(' ');
+            }
+        }
+        body.enqueue(Tokenizer.END_OF_INPUT);
+        return text.toString();
+    }
+
+    /**
+     * Returns the parsed body whose tokens are {@code body}, taken from the
+     * cache if it is there.
+     *
+     * @param key
+     *            the token text of the body
+     * @param body
+     *            the tokens of the body
+     * @param p
+     *            a program, used to make a new body
+     * @return the parsed body, no longer in the cache
+     * @throws IllegalArgumentException
+     *             if {@code body} is not a block
+     * @updates this.cache, body
+     */
+    private Statement parseBody(String key, Queue<String> body, Program p) {
+        this.lookups++;
+        Statement block = this.cache.remove(key);
+        if (block != null) {
+            this.hits++;
+        } else {
+            block = p.newBody();
+            block.parseBlock(body);
+            check(body.front().equals(Tokenizer.END_OF_INPUT),
+                    "unexpected " + body.front());
+        }
+        return block;
+    }
+
+    /**
+     * Parses {@code tokens} into {@code p}, and records in {@code keys} the
+     * cache key of each instruction body and, last, of the main body.
+     *
+     * @param tokens
+     *            the tokens of the program
+     * @param p
+     *            the program
+     * @param names
+     *            the instruction names of p, in order
+     * @param keys
+     *            the cache keys of the bodies named in names, then of the
+     *            main body
+     * @throws IllegalArgumentException
+     *             if {@code tokens} is not a BL program
+     * @updates tokens, names, keys
+     * @replaces p
+     */
+    private void parse(Queue<String> tokens, Program p, List<String> names,
+            List<String> keys) {
+        check(tokens.dequeue().equals("PROGRAM"), "expected PROGRAM");
+        String programName = tokens.dequeue();
+        check(isName(programName), "bad program name " + programName);
+        check(tokens.dequeue().equals("IS"), "expected IS");
+        Map<String, Statement> context = p.newContext();
+        while (tokens.front().equals("INSTRUCTION")) {
+            tokens.dequeue();
+            String name = tokens.dequeue();
+            check(isName(name) && !isPrimitive(name),
+                    "bad instruction name " + name);
+            check(!context.hasKey(name), "duplicate instruction " + name);
+            check(tokens.dequeue().equals("IS"), "expected IS");
+            Queue<String> body = new Queue1L<String>();
+            String key = takeBody(tokens, name, body);
+            context.add(name, this.parseBody(key, body, p));
+            names.add(name);
+            keys.add(key);
+        }
+        check(tokens.dequeue().equals("BEGIN"), "expected BEGIN");
+        Queue<String> body = new Queue1L<String>();
+        String key = takeBody(tokens, programName, body);
+        Statement main = this.parseBody(key, body, p);
+        keys.add(key);
+        check(tokens.front().equals(Tokenizer.END_OF_INPUT),
+                "unexpected " + tokens.front() + " after END " + programName);
+        p.setName(programName);
+        p.swapContext(context);
+        p.swapBody(main);
+    }
+
+    /**
+     * Puts the bodies of {@code p} back into the cache.
+     *
+     * @param p
+     *            the program
+     * @param names
+     *            the instruction names of p, in order
+     * @param keys
+     *            the cache keys of the bodies named in names, then of the
+     *            main body
+     * @updates this.cache
+     * @clears p
+     */
+    private void release(Program p, List<String> names, List<String> keys) {
+        Map<String, Statement> context = p.newContext();
+        p.swapContext(context);
+        for (int i = 0; i < names.size(); i++) {
+            this.cache.put(keys.get(i), context.remove(names.get(i)).value());
+        }
+        Statement main = p.newBody();
+        p.swapBody(main);
+        this.cache.put(keys.get(names.size()), main);
+        p.clear();
+    }
+
+    /**
+     * Saves the given compiled program {@code cp} to the given output file.
+     *
+     * @param fileName
+     *            the name of the output file
+     * @param cp
+     *            the compiled program
+     * @ensures [cp is saved to file fileName prefixed by the length of cp]
+     */
+    private static void saveCompiledProgram(String fileName,
+            Sequence<Integer> cp) {
+        SimpleWriter out = new SimpleWriter1L(fileName);
+        out.println(cp.length());
+        for (Integer i : cp) {
+            out.println(i);
+        }
+        out.close();
+    }
+
+    /**
+     * Returns the milliseconds from {@code start} to {@code end}, formatted.
+     *
+     * @param start
+     *            the value of {@code System.nanoTime()} at the start
+     * @param end
+     *            the value of {@code System.nanoTime()} at the end
+     * @return the milliseconds, to one decimal place
+     */
+    private static String millis(long start, long end) {
+        return String.format("%.1f ms", (end - start) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Compiles the BL program in file {@code programName} into file
+     * {@code compiledName} and returns the reply line for it.
+     *
+     * @param programName
+     *            the name of the file of the BL program
+     * @param compiledName
+     *            the name of the file of the compiled program
+     * @return the reply line: {@code ok} and the time of each stage, or
+     *         {@code error} and the reason
+     * @updates this
+     * @ensures <pre>
+     * [if programName holds a valid BL program then compiledName holds its
+     *  compiled program]
+     * </pre>
+     */
+    public String compile(String programName, String compiledName) {
+        assert programName != null : "Violation of: programName is not null";
+        assert compiledName != null : "Violation of: compiledName is not null";
+
+        String reply;
+        if (!new File(programName).isFile()) {
+            reply = "error " + programName + ": no such file";
+        } else {
+            Program p = new Program1();
+            List<String> names = new ArrayList<String>();
+            List<String> keys = new ArrayList<String>();
+            long hitsBefore = this.hits;
+            long missesBefore = this.generator.fragmentCounts()[1];
+            try {
+                long start = System.nanoTime();
+                SimpleReader file = new SimpleReader1L(programName);
+                Queue<String> tokens = Tokenizer.tokens(file);
+                file.close();
+                long read = System.nanoTime();
+                this.parse(tokens, p, names, keys);
+                long parsed = System.nanoTime();
+                Sequence<Integer> cp = this.generator.generatedCode(p);
+                long generated = System.nanoTime();
+                this.release(p, names, keys);
+                saveCompiledProgram(compiledName, cp);
+                long written = System.nanoTime();
+                long misses = this.generator.fragmentCounts()[1]
+                        - missesBefore;
+                reply = "ok " + compiledName + ": " + cp.length()
+                        + " codes; read " + millis(start, read) + ", parse "
+                        + millis(read, parsed) + " (" + (this.hits - hitsBefore)
+                        + " of " + keys.size() + " bodies cached), generate "
+                        + millis(parsed, generated) + " (" + misses
+                        + " fragments generated), write "
+                        + millis(generated, written);
+            } catch (RuntimeException e) {
+                reply = "error " + programName + ": " + e.getMessage();
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * Returns the name of the compiled program file of BL program file
+     * {@code programName}.
+     *
+     * @param programName
+     *            the name of the file of the BL program
+     * @return programName with .bl replaced by, or followed by, .bo
+     */
+    public static String compiledName(String programName) {
+        assert programName != null : "Violation of: programName is not null";
+
+        String base = programName;
+        if (base.endsWith(".bl")) {
+            base = base.substring(0, base.length() - ".bl".length());
+        }
+        return base + ".bo";
+    }
+
+    /**
+     * Reports the number of bodies found in the cache and the number looked
+     * up, since {@code this} was constructed.
+     *
+     * @return {hits, lookups}
+     */
+    public long[] cacheCounts() {
+        return new long[] { this.hits, this.lookups };
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+
+        ProgramCompileServer server = new ProgramCompileServer();
+        int requests = 0;
+        int errors = 0;
+        while (!in.atEOS()) {
+            String[] words = in.nextLine().trim().split("\\s+");
+            if (words[0].length() > 0) {
+                String compiledName = compiledName(words[0]);
+                if (words.length > 1) {
+                    compiledName = words[1];
+                }
+                String reply = server.compile(words[0], compiledName);
+                if (reply.startsWith("error")) {
+                    errors++;
+                }
+                requests++;
+                out.println(reply);
+            }
+        }
+        long[] counts = server.cacheCounts();
+        out.println(requests + " programs, " + errors + " errors, "
+                + counts[0] + " of " + counts[1] + " bodies cached");
+
+        in.close();
+        out.close();
+    }
+
+}
@@ -0,0 +1,193 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.program.Program;
+import components.program.Program1;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.statement.Statement;
+
+/**
+ * JUnit test fixture for {@code IncrementalCodeGenerator}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class IncrementalCodeGeneratorTest {
+
+    /**
+     * Name of a file containing a valid BL program, whose main body calls
+     * InstrA but not InstrB.
+     */
+    private static final String FILE_NAME_1 = "data/TestProgram1.bl";
+
+    /**
+     * Returns the program in file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the program
+     */
+    private static Program load(String fileName) {
+        Program p = new Program1();
+        SimpleReader file = new SimpleReader1L(fileName);
+        p.parse(file);
+        file.close();
+        return p;
+    }
+
+    /**
+     * Replaces the body of instruction {@code name} of {@code p} with a call
+     * of primitive instruction {@code primitive}.
+     *
+     * @param p
+     *            the program
+     * @param name
+     *            the name of the instruction
+     * @param primitive
+     *            the name of the primitive instruction
+     * @updates p
+     * @requires name is defined in p
+     */
+    private static void edit(Program p, String name, String primitive) {
+        Statement body = p.newBody();
+        Statement call = body.newInstance();
+        call.assembleCall(primitive);
+        body.addToBlock(0, call);
+        Map<String, Statement> context = p.newContext();
+        p.swapContext(context);
+        context.remove(name);
+        context.add(name, body);
+        p.swapContext(context);
+    }
+
+    /**
+     * Returns the number of fragments generated by {@code generator} so far.
+     *
+     * @param generator
+     *            the generator
+     * @return the number of fragments generated
+     */
+    private static long misses(IncrementalCodeGenerator generator) {
+        return generator.fragmentCounts()[1];
+    }
+
+    @Test
+    public void testSameCodeAsReference() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        assertEquals(pRef.generatedCode(), generator.generatedCode(p));
+        assertEquals(pRef, p);
+        assertEquals(2, misses(generator));
+    }
+
+    @Test
+    public void testUnchangedProgramIsNotGenerated() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        generator.generatedCode(p);
+        long before = misses(generator);
+        assertEquals(pRef.generatedCode(), generator.generatedCode(p));
+        assertEquals(before, misses(generator));
+    }
+
+    @Test
+    public void testEditedCalleeRegeneratesCallers() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        generator.generatedCode(p);
+        long before = misses(generator);
+        edit(p, "InstrA", "infect");
+        edit(pRef, "InstrA", "infect");
+        assertEquals(pRef.generatedCode(), generator.generatedCode(p));
+        assertEquals(before + 2, misses(generator));
+    }
+
+    @Test
+    public void testEditedUncalledInstructionIsNotGenerated() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        generator.generatedCode(p);
+        long before = misses(generator);
+        edit(p, "InstrB", "infect");
+        edit(pRef, "InstrB", "infect");
+        assertEquals(pRef.generatedCode(), generator.generatedCode(p));
+        assertEquals(before, misses(generator));
+    }
+
+    /**
+     * Reports whether {@code generator} reports a fatal error compiling
+     * {@code p}.
+     *
+     * @param generator
+     *            the generator
+     * @param p
+     *            the program
+     * @return whether generatedCode failed
+     */
+    private static boolean fails(IncrementalCodeGenerator generator,
+            Program p) {
+        boolean failed = false;
+        try {
+            generator.generatedCode(p);
+        } catch (RuntimeException e) {
+            failed = true;
+        }
+        return failed;
+    }
+
+    @Test
+    public void testReloadedProgramIsNotGenerated() {
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        generator.generatedCode(load(FILE_NAME_1));
+        long before = misses(generator);
+        assertEquals(pRef.generatedCode(),
+                generator.generatedCode(load(FILE_NAME_1)));
+        assertEquals(before, misses(generator));
+    }
+
+    @Test
+    public void testUndefinedInstructionRestoresProgram() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        edit(p, "InstrA", "InstrC");
+        edit(pRef, "InstrA", "InstrC");
+        assertTrue(fails(generator, p));
+        assertEquals(pRef, p);
+    }
+
+    @Test
+    public void testRecursionRestoresProgram() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        generator.generatedCode(p);
+        edit(p, "InstrA", "InstrA");
+        edit(pRef, "InstrA", "InstrA");
+        assertTrue(fails(generator, p));
+        assertEquals(pRef, p);
+    }
+
+    @Test
+    public void testFixedProgramAfterError() {
+        Program p = load(FILE_NAME_1);
+        Program pRef = load(FILE_NAME_1);
+        IncrementalCodeGenerator generator = new IncrementalCodeGenerator();
+        edit(p, "InstrA", "InstrC");
+        assertTrue(fails(generator, p));
+        edit(p, "InstrA", "infect");
+        edit(pRef, "InstrA", "infect");
+        assertEquals(pRef.generatedCode(), generator.generatedCode(p));
+        assertEquals(pRef, p);
+    }
+
+}
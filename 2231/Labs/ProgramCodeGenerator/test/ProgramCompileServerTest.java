@@ -0,0 +1,203 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.program.Program;
+import components.program.Program1;
+import components.sequence.Sequence;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * JUnit test fixture for {@code ProgramCompileServer}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class ProgramCompileServerTest {
+
+    /**
+     * Name of a file containing a valid BL program.
+     */
+    private static final String FILE_NAME_1 = "data/TestProgram1.bl";
+
+    /**
+     * Name of a file containing a BL program calling an undefined instruction.
+     */
+    private static final String FILE_NAME_2 = "data/TestProgram2.bl";
+
+    /**
+     * Returns the compiled program in file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the length, then the byte codes, of the compiled program
+     */
+    private static String compiledProgram(String fileName) {
+        SimpleReader file = new SimpleReader1L(fileName);
+        StringBuilder text = new StringBuilder();
+        while (!file.atEOS()) {
+            text.append(file.nextLine()).append('\n');
+        }
+        file.close();
+        return text.toString();
+    }
+
+    /**
+     * Returns the reference compiled program of BL program file
+     * {@code fileName}, in the format of a {@code .bo} file.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the length, then the byte codes, of the compiled program
+     */
+    private static String expectedProgram(String fileName) {
+        Program p = new Program1();
+        SimpleReader file = new SimpleReader1L(fileName);
+        p.parse(file);
+        file.close();
+        Sequence<Integer> cp = p.generatedCode();
+        StringBuilder text = new StringBuilder();
+        text.append(cp.length()).append('\n');
+        for (Integer i : cp) {
+            text.append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes {@code program} to a new temporary {@code .bl} file and returns
+     * its name.
+     *
+     * @param program
+     *            the text of the program
+     * @return the name of the file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    private static String programFile(String program) throws IOException {
+        File file = File.createTempFile("program", ".bl");
+        file.deleteOnExit();
+        SimpleWriter out = new SimpleWriter1L(file.getPath());
+        out.println(program);
+        out.close();
+        return file.getPath();
+    }
+
+    /**
+     * Reports whether {@code Program1.parse} accepts the program in file
+     * {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return whether the library parser accepts the program
+     */
+    private static boolean libraryAccepts(String fileName) {
+        boolean accepted = true;
+        SimpleReader file = new SimpleReader1L(fileName);
+        try {
+            new Program1().parse(file);
+        } catch (RuntimeException e) {
+            accepted = false;
+        }
+        file.close();
+        return accepted;
+    }
+
+    /**
+     * Checks that the server rejects {@code program}, as the library parser
+     * does.
+     *
+     * @param program
+     *            the text of an invalid program
+     * @throws IOException
+     *             if a file cannot be created
+     */
+    private static void assertRejected(String program) throws IOException {
+        String fileName = programFile(program);
+        assertFalse(program, libraryAccepts(fileName));
+        File output = File.createTempFile("program", ".bo");
+        output.deleteOnExit();
+        String reply = new ProgramCompileServer().compile(fileName,
+                output.getPath());
+        assertTrue(reply, reply.startsWith("error "));
+    }
+
+    @Test
+    public void testCompiledName() {
+        assertEquals("data/a.bo",
+                ProgramCompileServer.compiledName("data/a.bl"));
+        assertEquals("a.txt.bo", ProgramCompileServer.compiledName("a.txt"));
+    }
+
+    @Test
+    public void testCompileTwiceUsesCache() throws IOException {
+        File output = File.createTempFile("program", ".bo");
+        output.deleteOnExit();
+        ProgramCompileServer server = new ProgramCompileServer();
+        String first = server.compile(FILE_NAME_1, output.getPath());
+        assertTrue(first, first.startsWith("ok "));
+        assertEquals(expectedProgram(FILE_NAME_1),
+                compiledProgram(output.getPath()));
+        long[] counts = server.cacheCounts();
+        assertEquals(0, counts[0]);
+        String second = server.compile(FILE_NAME_1, output.getPath());
+        assertTrue(second, second.startsWith("ok "));
+        assertEquals(expectedProgram(FILE_NAME_1),
+                compiledProgram(output.getPath()));
+        counts = server.cacheCounts();
+        assertEquals(counts[1] / 2, counts[0]);
+    }
+
+    @Test
+    public void testCompileErrorKeepsServing() throws IOException {
+        File output = File.createTempFile("program", ".bo");
+        output.deleteOnExit();
+        ProgramCompileServer server = new ProgramCompileServer();
+        String reply = server.compile(FILE_NAME_2, output.getPath());
+        assertTrue(reply, reply.startsWith("error "));
+        reply = server.compile("data/NoSuchProgram.bl", output.getPath());
+        assertTrue(reply, reply.startsWith("error "));
+        reply = server.compile(FILE_NAME_1, output.getPath());
+        assertTrue(reply, reply.startsWith("ok "));
+    }
+
+    @Test
+    public void testKeywordProgramNameRejected() throws IOException {
+        assertRejected("PROGRAM IF IS BEGIN move END IF");
+    }
+
+    @Test
+    public void testKeywordInstructionNameRejected() throws IOException {
+        assertRejected("PROGRAM P IS INSTRUCTION IF IS move END IF "
+                + "BEGIN IF END P");
+    }
+
+    @Test
+    public void testKeywordInstructionNameEndingBodyRejected()
+            throws IOException {
+        assertRejected("PROGRAM P IS INSTRUCTION WHILE IS "
+                + "WHILE true DO move END WHILE END WHILE "
+                + "BEGIN move END P");
+    }
+
+    @Test
+    public void testSimilarValidProgramAccepted() throws IOException {
+        String fileName = programFile("PROGRAM P IS INSTRUCTION Loop IS "
+                + "WHILE true DO move END WHILE END Loop BEGIN Loop END P");
+        assertTrue(libraryAccepts(fileName));
+        File output = File.createTempFile("program", ".bo");
+        output.deleteOnExit();
+        String reply = new ProgramCompileServer().compile(fileName,
+                output.getPath());
+        assertTrue(reply, reply.startsWith("ok "));
+    }
+
+}
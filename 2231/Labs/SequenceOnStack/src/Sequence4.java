@@ -0,0 +1,373 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a gap buffer, i.e., an array with a single
+ * run of unused slots (the "gap") sitting at the most recent edit position,
+ * with implementations of primary methods.
+ *
+ * <p>
+ * Moving the gap from one position to another is a single
+ * {@code System.arraycopy} of the entries in between, so {@code add} and
+ * {@code remove} at or next to the previous edit position are O(1) (amortized,
+ * for {@code add}), and in general cost O(distance from the previous edit
+ * position). Unlike {@code Sequence3}, no method is recursive.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+ * 0 < |$this.entries|  and
+ * [$this.entries[i] is null for gapStart <= i < gapEnd]  and
+ * [$this.entries[i] is not null for 0 <= i < gapStart and
+ *  gapEnd <= i < |$this.entries|]
+ * </pre>
+ * @correspondence <pre>
+ * this = [entries in $this.entries[0, $this.gapStart)] *
+ *        [entries in $this.entries[$this.gapEnd, |$this.entries|)]
+ * </pre>
+ */
+public class Sequence4<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the backing array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Backing array; the entries before and after the gap, in order.
+     */
+    private Object[] entries;
+
+    /**
+     * Index of the first unused slot, i.e., the number of entries before the
+     * gap.
+     */
+    private int gapStart;
+
+    /**
+     * Index of the first entry after the gap.
+     */
+    private int gapEnd;
+
+    /**
+     * Checks, in constant time, that the part of the convention repeated below
+     * holds for the current representation. The gap is one run of nulls
+     * between two runs of entries, so this checks the four slots where the
+     * runs meet: the first and last slots of the gap and the entry on either
+     * side of it. See {@code fullConventionHolds} for every slot.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+     * 0 < |$this.entries|  and
+     * [$this.entries[gapStart] and $this.entries[gapEnd - 1] are null,
+     *  if gapStart < gapEnd]  and
+     * [$this.entries[gapStart - 1] is not null, if 0 < gapStart]  and
+     * [$this.entries[gapEnd] is not null, if gapEnd < |$this.entries|]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.gapStart : "Violation of: 0 <= $this.gapStart";
+        assert this.gapStart <= this.gapEnd : ""
+                + "Violation of: $this.gapStart <= $this.gapEnd";
+        assert this.gapEnd <= this.entries.length : ""
+                + "Violation of: $this.gapEnd <= |$this.entries|";
+        assert 0 < this.entries.length : "Violation of: 0 < |$this.entries|";
+        assert this.gapStart == this.gapEnd
+                || (this.entries[this.gapStart] == null
+                        && this.entries[this.gapEnd - 1] == null) : ""
+                                + "Violation of: [slots in the gap are null]";
+        assert this.gapStart == 0
+                || this.entries[this.gapStart - 1] != null : ""
+                        + "Violation of: [slots outside the gap are not null]";
+        assert this.gapEnd == this.entries.length
+                || this.entries[this.gapEnd] != null : ""
+                        + "Violation of: [slots outside the gap are not null]";
+        return true;
+    }
+
+    /**
+     * Checks that the whole convention holds for the current representation,
+     * i.e., that the nulls of {@code $this.entries} are exactly the slots of
+     * the gap. Called only by the constructor, {@code clear} and
+     * {@code transferFrom}, which install a fresh or a whole other gap
+     * buffer. A scan after every {@code add} or {@code remove} would make
+     * edits next to the gap O(|$this.entries|) instead of O(1).
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+     * 0 < |$this.entries|  and
+     * [$this.entries[i] is null for gapStart <= i < gapEnd]  and
+     * [$this.entries[i] is not null for 0 <= i < gapStart and
+     *  gapEnd <= i < |$this.entries|]
+     * </pre>
+     */
+    private boolean fullConventionHolds() {
+        assert this.conventionHolds();
+        for (int i = 0; i < this.entries.length; i++) {
+            if (this.gapStart <= i && i < this.gapEnd) {
+                assert this.entries[i] == null : ""
+                        + "Violation of: [slots in the gap are null]";
+            } else {
+                assert this.entries[i] != null : ""
+                        + "Violation of: [slots outside the gap are not null]";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the gap so that exactly {@code pos} entries precede it, keeping
+     * the abstract value of {@code this} fixed.
+     *
+     * @param pos
+     *            desired new value of {@code $this.gapStart}
+     * @updates $this.entries, $this.gapStart, $this.gapEnd
+     * @requires 0 <= pos <= |this|
+     * @ensures $this.gapStart = pos
+     */
+    private void moveGap(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (pos < this.gapStart) {
+            /*
+             * Shift entries [pos, gapStart) to just before gapEnd.
+             */
+            int count = this.gapStart - pos;
+            int newGapEnd = this.gapEnd - count;
+            System.arraycopy(this.entries, pos, this.entries, newGapEnd,
+                    count);
+            /*
+             * Clear the vacated slots that are now inside the gap.
+             */
+            int clearTo = Math.min(this.gapStart, newGapEnd);
+            for (int i = pos; i < clearTo; i++) {
+                this.entries[i] = null;
+            }
+            this.gapStart = pos;
+            this.gapEnd = newGapEnd;
+        } else if (pos > this.gapStart) {
+            /*
+             * Shift entries [gapEnd, gapEnd + count) to just after gapStart.
+             */
+            int count = pos - this.gapStart;
+            System.arraycopy(this.entries, this.gapEnd, this.entries,
+                    this.gapStart, count);
+            int newGapEnd = this.gapEnd + count;
+            int clearFrom = Math.max(pos, this.gapEnd);
+            for (int i = clearFrom; i < newGapEnd; i++) {
+                this.entries[i] = null;
+            }
+            this.gapStart = pos;
+            this.gapEnd = newGapEnd;
+        }
+    }
+
+    /**
+     * Doubles the size of the backing array, keeping the abstract value of
+     * {@code this} and {@code $this.gapStart} fixed.
+     *
+     * @updates $this.entries, $this.gapEnd
+     * @ensures |$this.entries| = 2 * |#$this.entries|
+     */
+    private void grow() {
+        int oldCapacity = this.entries.length;
+        int tailLength = oldCapacity - this.gapEnd;
+        Object[] newEntries = new Object[2 * oldCapacity];
+        System.arraycopy(this.entries, 0, newEntries, 0, this.gapStart);
+        System.arraycopy(this.entries, this.gapEnd, newEntries,
+                newEntries.length - tailLength, tailLength);
+        this.entries = newEntries;
+        this.gapEnd = newEntries.length - tailLength;
+    }
+
+    /**
+     * Returns the entry at array index {@code i}.
+     *
+     * @param i
+     *            the array index
+     * @return the entry at {@code $this.entries[i]}
+     * @requires [$this.entries[i] is not in the gap]
+     */
+    @SuppressWarnings("unchecked")
+    private T entryAt(int i) {
+        /*
+         * This cast cannot fail since only values of type T are ever stored in
+         * the array.
+         */
+        return (T) this.entries[i];
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.gapStart = 0;
+        this.gapEnd = INITIAL_CAPACITY;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence4() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence4<?> : ""
+                + "Violation of: source is of dynamic type Sequence4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence4<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence4<T> localSource = (Sequence4<T>) source;
+        this.entries = localSource.entries;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+        assert this.fullConventionHolds();
+        assert localSource.fullConventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.moveGap(pos);
+        if (this.gapStart == this.gapEnd) {
+            this.grow();
+        }
+        this.entries[this.gapStart] = x;
+        this.gapStart++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        this.moveGap(pos);
+        T value = this.entryAt(this.gapEnd);
+        this.entries[this.gapEnd] = null;
+        this.gapEnd++;
+
+        assert this.conventionHolds();
+        return value;
+    }
+
+    @Override
+    public final int length() {
+
+        return this.entries.length - (this.gapEnd - this.gapStart);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence4}.
+     */
+    private final class Sequence4Iterator implements Iterator<T> {
+
+        /**
+         * Array index of the next entry to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence4Iterator() {
+            this.current = 0;
+            if (this.current == Sequence4.this.gapStart) {
+                this.current = Sequence4.this.gapEnd;
+            }
+            assert Sequence4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Sequence4.this.entries.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = Sequence4.this.entryAt(this.current);
+            this.current++;
+            if (this.current == Sequence4.this.gapStart) {
+                this.current = Sequence4.this.gapEnd;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
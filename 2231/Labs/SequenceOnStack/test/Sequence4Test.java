@@ -0,0 +1,188 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code Sequence4}.
+ *
+ * <p>
+ * The inherited test cases use at most three entries, which never fill the
+ * backing array or move the gap far; the cases below do both, and check
+ * every result against {@code Sequence1L}.
+ */
+public class Sequence4Test extends SequenceTest {
+
+    /**
+     * Number of entries, several times the initial capacity of 16 so that the
+     * backing array grows more than once.
+     */
+    private static final int ENTRIES = 100;
+
+    /**
+     * Number of random operations in {@code testRandomAgainstReference}.
+     */
+    private static final int OPERATIONS = 5000;
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new Sequence4<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Adds {@code x} at position {@code pos} of both {@code s} and
+     * {@code sExpected} and checks that they are still equal.
+     *
+     * @param s
+     *            the sequence under test
+     * @param sExpected
+     *            the reference sequence
+     * @param pos
+     *            the position
+     * @param x
+     *            the entry
+     * @updates s, sExpected
+     * @requires 0 <= pos <= |s| = |sExpected|
+     */
+    private static void add(Sequence<String> s, Sequence<String> sExpected,
+            int pos, String x) {
+        s.add(pos, x);
+        sExpected.add(pos, x);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Removes the entry at position {@code pos} of both {@code s} and
+     * {@code sExpected} and checks that the same entry was removed and that
+     * they are still equal.
+     *
+     * @param s
+     *            the sequence under test
+     * @param sExpected
+     *            the reference sequence
+     * @param pos
+     *            the position
+     * @updates s, sExpected
+     * @requires 0 <= pos < |s| = |sExpected|
+     */
+    private static void remove(Sequence<String> s, Sequence<String> sExpected,
+            int pos) {
+        assertEquals(sExpected.remove(pos), s.remove(pos));
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public void testAddAtBackPastCapacity() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ENTRIES; i++) {
+            add(s, sExpected, s.length(), "e" + i);
+        }
+        assertEquals(ENTRIES, s.length());
+    }
+
+    @Test
+    public void testAddAtFrontPastCapacity() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ENTRIES; i++) {
+            add(s, sExpected, 0, "e" + i);
+        }
+        assertEquals(ENTRIES, s.length());
+    }
+
+    @Test
+    public void testAddAtAlternatingEnds() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        /*
+         * Every add moves the gap across the whole sequence.
+         */
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i % 2 == 0) {
+                add(s, sExpected, 0, "e" + i);
+            } else {
+                add(s, sExpected, s.length(), "e" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveAtAlternatingEnds() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ENTRIES; i++) {
+            add(s, sExpected, s.length(), "e" + i);
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i % 2 == 0) {
+                remove(s, sExpected, 0);
+            } else {
+                remove(s, sExpected, s.length() - 1);
+            }
+        }
+        assertEquals(0, s.length());
+        add(s, sExpected, 0, "again");
+    }
+
+    @Test
+    public void testMiddleEditsMovingGapBothWays() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ENTRIES; i++) {
+            add(s, sExpected, s.length(), "e" + i);
+        }
+        /*
+         * Distances both shorter and longer than the gap, so that the shifted
+         * entries do and do not overlap the slots they leave.
+         */
+        final int[] positions = { 50, 10, 90, 11, 89, 45, 46, 44, 0, 99 };
+        for (int i = 0; i < positions.length; i++) {
+            remove(s, sExpected, positions[i] % s.length());
+            add(s, sExpected, positions[(i + 3) % positions.length]
+                    % (s.length() + 1), "m" + i);
+        }
+    }
+
+    @Test
+    public void testClearAndTransferFromAfterGrowth() {
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ENTRIES; i++) {
+            add(s, sExpected, i / 2, "e" + i);
+        }
+        Sequence<String> t = this.constructorTest();
+        t.transferFrom(s);
+        assertEquals(0, s.length());
+        assertEquals(sExpected, t);
+        add(s, this.constructorRef(), 0, "x");
+        t.clear();
+        assertEquals(this.constructorRef(), t);
+        add(t, this.constructorRef(), 0, "y");
+    }
+
+    @Test
+    public void testRandomAgainstReference() {
+        Random random = new Random(1);
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        for (int k = 0; k < OPERATIONS; k++) {
+            int choice = random.nextInt(3);
+            if (s.length() == 0 || choice < 2) {
+                add(s, sExpected, random.nextInt(s.length() + 1), "r" + k);
+            } else {
+                remove(s, sExpected, random.nextInt(s.length()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,405 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an array of elements in insertion order, plus an
+ * open-addressing hash index into that array once the set holds more than
+ * {@code SMALL_LIMIT} elements, with implementations of primary methods.
+ *
+ * <p>
+ * Unlike {@code Set2}, lookups never reorder the representation: a small set
+ * is searched with a linear scan of at most {@code SMALL_LIMIT} elements, and
+ * a larger one with a linear-probing hash index, so {@code contains} and
+ * {@code remove} are O(1) expected, and {@code add} and {@code removeAny} are
+ * O(1) amortized. Iteration and {@code removeAny} follow insertion order,
+ * oldest first. Removed elements leave null "tombstones" in the array, which
+ * are squeezed out when the array is next rebuilt.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * 0 <= $this.head <= $this.used <= |$this.elements|  and
+ * [$this.elements[i] is null for i < $this.head and $this.used <= i]  and
+ * $this.size = [number of non-null entries of $this.elements]  and
+ * [the non-null entries of $this.elements are distinct]  and
+ * ($this.index is null  or
+ *  [$this.index is a linear-probing table, of power-of-two length at least
+ *   2 * |$this.elements|, holding i + 1 for each non-null $this.elements[i]
+ *   and DELETED for each slot vacated since it was built])
+ * </pre>
+ * @correspondence <pre>
+ * this = {x : for some i ($this.elements[i] = x is not null)}
+ * </pre>
+ */
+public class Set2a<T> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest number of elements searched by linear scan, without a hash
+     * index.
+     */
+    private static final int SMALL_LIMIT = 8;
+
+    /**
+     * Marker in {@code $this.index} for a vacated slot.
+     */
+    private static final int DELETED = -1;
+
+    /**
+     * Elements, in insertion order; removed elements are null.
+     */
+    private Object[] elements;
+
+    /**
+     * Index of the first possibly non-null entry of {@code elements}.
+     */
+    private int head;
+
+    /**
+     * Number of entries of {@code elements} used so far, including tombstones.
+     */
+    private int used;
+
+    /**
+     * Number of elements, i.e., size = |this|.
+     */
+    private int size;
+
+    /**
+     * Hash index into {@code elements}, or null while the set is small.
+     */
+    private int[] index;
+
+    /**
+     * Returns the first probe position in {@code $this.index} for {@code x}.
+     *
+     * @param x
+     *            the element
+     * @return the home position of {@code x}
+     * @requires $this.index is not null
+     */
+    private int home(Object x) {
+        int h = x.hashCode();
+        h ^= h >>> 16;
+        return h & (this.index.length - 1);
+    }
+
+    /**
+     * Returns the position in {@code $this.index} that refers to {@code x}, or
+     * -1 if absent.
+     *
+     * @param x
+     *            the element to be searched for
+     * @return the probe position of {@code x}, or -1
+     * @requires $this.index is not null
+     */
+    private int findProbe(Object x) {
+        int mask = this.index.length - 1;
+        int p = this.home(x);
+        int result = -1;
+        while (result < 0 && this.index[p] != 0) {
+            int slot = this.index[p] - 1;
+            if (slot >= 0 && x.equals(this.elements[slot])) {
+                result = p;
+            } else {
+                p = (p + 1) & mask;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position in {@code elements} of {@code x}, or -1 if absent.
+     *
+     * @param x
+     *            the element to be searched for
+     * @return the array index of {@code x}, or -1
+     * @requires $this.index is null
+     */
+    private int scan(Object x) {
+        int result = -1;
+        int i = this.head;
+        while (result < 0 && i < this.used) {
+            if (x.equals(this.elements[i])) {
+                result = i;
+            }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Records in {@code $this.index} that {@code $this.elements[slot]} holds
+     * an element.
+     *
+     * @param slot
+     *            the array index of the element
+     * @updates $this.index
+     * @requires $this.index is not null and $this.elements[slot] is not null
+     */
+    private void indexSlot(int slot) {
+        int mask = this.index.length - 1;
+        int p = this.home(this.elements[slot]);
+        while (this.index[p] > 0) {
+            p = (p + 1) & mask;
+        }
+        this.index[p] = slot + 1;
+    }
+
+    /**
+     * Moves the elements to a fresh array with room for at least
+     * {@code |this|} more, dropping tombstones, and rebuilds the hash index if
+     * {@code this} is not small.
+     *
+     * @updates $this
+     * @ensures this = #this  and  $this.head = 0  and  $this.used = |this|
+     */
+    private void rebuild() {
+        int capacity = Math.max(SMALL_LIMIT, 2 * this.size);
+        Object[] newElements = new Object[capacity];
+        int j = 0;
+        for (int i = this.head; i < this.used; i++) {
+            if (this.elements[i] != null) {
+                newElements[j] = this.elements[i];
+                j++;
+            }
+        }
+        this.elements = newElements;
+        this.head = 0;
+        this.used = j;
+        this.index = null;
+        if (this.size > SMALL_LIMIT) {
+            this.index = new int[Integer.highestOneBit(capacity) * 4];
+            for (int i = 0; i < this.used; i++) {
+                this.indexSlot(i);
+            }
+        }
+    }
+
+    /**
+     * Removes the element at position {@code slot} and returns it.
+     *
+     * @param slot
+     *            the array index of the element
+     * @param probe
+     *            the position in {@code $this.index} referring to
+     *            {@code slot}, or -1 if there is no index
+     * @return the removed element
+     * @updates $this
+     * @requires $this.elements[slot] is not null
+     */
+    @SuppressWarnings("unchecked")
+    private T removeAt(int slot, int probe) {
+        /*
+         * This cast cannot fail since only values of type T are ever stored in
+         * the array.
+         */
+        T x = (T) this.elements[slot];
+        this.elements[slot] = null;
+        if (probe >= 0) {
+            this.index[probe] = DELETED;
+        }
+        this.size--;
+        while (this.head < this.used && this.elements[this.head] == null) {
+            this.head++;
+        }
+        return x;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.elements = new Object[SMALL_LIMIT];
+        this.head = 0;
+        this.used = 0;
+        this.size = 0;
+        this.index = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set2a() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set2a<?> : ""
+                + "Violation of: source is of dynamic type Set2a<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set2a<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set2a<T> localSource = (Set2a<T>) source;
+        this.elements = localSource.elements;
+        this.head = localSource.head;
+        this.used = localSource.used;
+        this.size = localSource.size;
+        this.index = localSource.index;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.used == this.elements.length) {
+            this.rebuild();
+        }
+        this.elements[this.used] = x;
+        this.used++;
+        this.size++;
+        if (this.index != null) {
+            this.indexSlot(this.used - 1);
+        } else if (this.size > SMALL_LIMIT) {
+            this.rebuild();
+        }
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        int slot;
+        int probe = -1;
+        if (this.index == null) {
+            slot = this.scan(x);
+        } else {
+            probe = this.findProbe(x);
+            slot = this.index[probe] - 1;
+        }
+        return this.removeAt(slot, probe);
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int probe = -1;
+        if (this.index != null) {
+            probe = this.findProbe(this.elements[this.head]);
+        }
+        return this.removeAt(this.head, probe);
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean found;
+        if (this.index == null) {
+            found = this.scan(x) >= 0;
+        } else {
+            found = this.findProbe(x) >= 0;
+        }
+        return found;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set2aIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set2a}.
+     */
+    private final class Set2aIterator implements Iterator<T> {
+
+        /**
+         * Array index of the next element to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set2aIterator() {
+            this.current = Set2a.this.head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Set2a.this.used;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            /*
+             * This cast cannot fail since only values of type T are ever
+             * stored in the array.
+             */
+            T x = (T) Set2a.this.elements[this.current];
+            this.current++;
+            while (this.current < Set2a.this.used
+                    && Set2a.this.elements[this.current] == null) {
+                this.current++;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,286 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set2a}.
+ */
+public class Set2aTest extends SetTest {
+
+    /**
+     * Number of elements, well past the point where {@code Set2a} switches
+     * from a linear scan to its hash index, and enough to rebuild it several
+     * times.
+     */
+    private static final int ELEMENTS = 100;
+
+    /**
+     * Number of random operations in {@code testRandomAgainstReference}.
+     */
+    private static final int OPERATIONS = 5000;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set2a<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Returns the elements "e0", "e1", ..., "e{n-1}".
+     *
+     * @param n
+     *            the number of elements
+     * @return the elements
+     */
+    private static List<String> elements(int n) {
+        List<String> elements = new ArrayList<String>();
+        for (int i = 0; i < n; i++) {
+            elements.add("e" + i);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns the 2^{@code n} elements made of {@code n} pieces, each "Aa" or
+     * "BB"; since "Aa" and "BB" have the same hash code, so do all of these.
+     *
+     * @param n
+     *            the number of pieces per element
+     * @return the elements
+     */
+    private static List<String> collidingElements(int n) {
+        List<String> elements = new ArrayList<String>();
+        for (int bits = 0; bits < (1 << n); bits++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                if ((bits & (1 << i)) == 0) {
+                    sb.append("Aa");
+                } else {
+                    sb.append("BB");
+                }
+            }
+            elements.add(sb.toString());
+        }
+        return elements;
+    }
+
+    /**
+     * Checks that {@code s} has the same size as {@code ref}, and that
+     * {@code contains} agrees with {@code ref} on every element among
+     * {@code candidates}.
+     *
+     * @param ref
+     *            the expected set
+     * @param s
+     *            the set under test
+     * @param candidates
+     *            elements that may or may not be in {@code ref}
+     */
+    private static void assertSameSet(Set<String> ref, Set<String> s,
+            List<String> candidates) {
+        assertEquals(ref.size(), s.size());
+        for (String x : candidates) {
+            assertEquals(x, ref.contains(x), s.contains(x));
+        }
+        assertEquals(ref, s);
+    }
+
+    /**
+     * Test add one element at a time past the switch to the hash index.
+     */
+    @Test
+    public final void testAddPastSmallLimit() {
+        List<String> all = elements(ELEMENTS);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+
+        for (String x : all) {
+            s.add(x);
+            sExpected.add(x);
+            assertSameSet(sExpected, s, all);
+        }
+    }
+
+    /**
+     * Test remove half of the elements of a large set and add them back, so
+     * that the index holds vacated slots when they are re-added.
+     */
+    @Test
+    public final void testRemoveAndAddAgain() {
+        List<String> all = elements(ELEMENTS);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+        for (String x : all) {
+            s.add(x);
+            sExpected.add(x);
+        }
+
+        for (int i = 0; i < ELEMENTS; i += 2) {
+            assertEquals(all.get(i), s.remove(all.get(i)));
+            sExpected.remove(all.get(i));
+        }
+        assertSameSet(sExpected, s, all);
+        for (int i = 0; i < ELEMENTS; i += 2) {
+            s.add(all.get(i));
+            sExpected.add(all.get(i));
+        }
+
+        assertSameSet(sExpected, s, all);
+    }
+
+    /**
+     * Test elements that all share one hash code, removing from the middle
+     * of their probe run and adding them back.
+     */
+    @Test
+    public final void testCollidingElements() {
+        final int pieces = 5;
+        List<String> all = collidingElements(pieces);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+        for (String x : all) {
+            s.add(x);
+            sExpected.add(x);
+        }
+        assertSameSet(sExpected, s, all);
+
+        for (int i = 1; i < all.size(); i += 3) {
+            s.remove(all.get(i));
+            sExpected.remove(all.get(i));
+        }
+        assertSameSet(sExpected, s, all);
+        for (int i = 1; i < all.size(); i += 3) {
+            s.add(all.get(i));
+            sExpected.add(all.get(i));
+        }
+
+        assertSameSet(sExpected, s, all);
+    }
+
+    /**
+     * Test that removeAny keeps insertion order, oldest first, through the
+     * rebuilds caused by adding after removes.
+     */
+    @Test
+    public final void testRemoveAnyAfterRebuild() {
+        List<String> all = elements(ELEMENTS);
+        Set<String> s = this.constructorTest();
+        for (int i = 0; i < ELEMENTS / 2; i++) {
+            s.add(all.get(i));
+        }
+        for (int i = 0; i < ELEMENTS / 2; i += 3) {
+            s.remove(all.get(i));
+        }
+        for (int i = ELEMENTS / 2; i < ELEMENTS; i++) {
+            s.add(all.get(i));
+        }
+
+        int expectedSize = s.size();
+        for (int i = 0; i < ELEMENTS; i++) {
+            if (i >= ELEMENTS / 2 || i % 3 != 0) {
+                assertEquals(all.get(i), s.removeAny());
+                expectedSize--;
+                assertEquals(expectedSize, s.size());
+                assertEquals(false, s.contains(all.get(i)));
+            }
+        }
+        assertEquals(0, s.size());
+    }
+
+    /**
+     * Test shrink a large set below the switch threshold with removeAny and
+     * grow it past the threshold again.
+     */
+    @Test
+    public final void testShrinkAndGrowAgain() {
+        List<String> all = elements(ELEMENTS);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+        for (int i = 0; i < ELEMENTS / 2; i++) {
+            s.add(all.get(i));
+            sExpected.add(all.get(i));
+        }
+
+        while (s.size() > 2) {
+            sExpected.remove(s.removeAny());
+        }
+        assertSameSet(sExpected, s, all);
+        for (int i = ELEMENTS / 2; i < ELEMENTS; i++) {
+            s.add(all.get(i));
+            sExpected.add(all.get(i));
+        }
+
+        assertSameSet(sExpected, s, all);
+    }
+
+    /**
+     * Test clear and transferFrom on a set with a hash index.
+     */
+    @Test
+    public final void testClearAndTransferFromLarge() {
+        List<String> all = elements(ELEMENTS);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+        for (String x : all) {
+            s.add(x);
+            sExpected.add(x);
+        }
+        s.remove(all.get(0));
+        sExpected.remove(all.get(0));
+
+        Set<String> t = s.newInstance();
+        t.transferFrom(s);
+        assertSameSet(sExpected, t, all);
+        assertEquals(0, s.size());
+        s.add(all.get(1));
+        assertEquals(true, s.contains(all.get(1)));
+        assertEquals(1, s.size());
+        t.clear();
+
+        assertEquals(0, t.size());
+        assertEquals(false, t.contains(all.get(1)));
+    }
+
+    /**
+     * Test a seeded random mix of add, remove and removeAny against
+     * {@code Set1L}.
+     */
+    @Test
+    public final void testRandomAgainstReference() {
+        final int elementCount = 40;
+        List<String> all = elements(elementCount);
+        Random random = new Random(1);
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            String x = all.get(random.nextInt(elementCount));
+            if (!sExpected.contains(x)) {
+                s.add(x);
+                sExpected.add(x);
+            } else if (random.nextInt(4) == 0) {
+                String y = s.removeAny();
+                assertEquals(y, sExpected.remove(y));
+            } else {
+                assertEquals(x, s.remove(x));
+                sExpected.remove(x);
+            }
+            assertEquals(sExpected.size(), s.size());
+            assertEquals(x, sExpected.contains(x), s.contains(x));
+        }
+
+        assertSameSet(sExpected, s, all);
+    }
+
+}
@@ -0,0 +1,366 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.queue.Queue;
+import components.stack.Stack;
+import components.stack.StackSecondary;
+
+/**
+ * {@code Stack} represented as a resizable array, with implementations of
+ * primary methods and of the bulk operations {@code pushAll} and
+ * {@code popInto}.
+ *
+ * <p>
+ * No object is allocated per {@code push}: the array doubles when full and
+ * halves when at most a quarter full, so {@code push} and {@code pop} are O(1)
+ * amortized, and {@code length} is O(1).
+ *
+ * @param <T>
+ *            type of Stack entries
+ * @convention <pre>
+ * 0 <= $this.length <= |$this.entries|  and
+ * INITIAL_CAPACITY <= |$this.entries|  and
+ * [$this.entries[i] is not null for 0 <= i < $this.length]  and
+ * [$this.entries[i] is null for $this.length <= i < |$this.entries|]
+ * </pre>
+ * @correspondence this = rev([entries in $this.entries[0, $this.length)])
+ */
+public class Stack3<T> extends StackSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial (and minimum) capacity of the backing array.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Backing array; the bottom of the stack is at index 0.
+     */
+    private Object[] entries;
+
+    /**
+     * Number of entries in use, i.e., length = |this|.
+     */
+    private int length;
+
+    /**
+     * Checks, in constant time, that the part of the convention repeated below
+     * holds for the current representation. Of the null-ness clauses only the
+     * slots on either side of {@code $this.length} are checked, since those
+     * are the only slots a kernel method can get wrong; see
+     * {@code fullConventionHolds} for the check of every slot.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.length <= |$this.entries|  and
+     * INITIAL_CAPACITY <= |$this.entries|  and
+     * [$this.entries[$this.length - 1] is not null, if 0 < $this.length]  and
+     * [$this.entries[$this.length] is null, if $this.length < |$this.entries|]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.length : "Violation of: 0 <= $this.length";
+        assert this.length <= this.entries.length : ""
+                + "Violation of: $this.length <= |$this.entries|";
+        assert INITIAL_CAPACITY <= this.entries.length : ""
+                + "Violation of: INITIAL_CAPACITY <= |$this.entries|";
+        assert this.length == 0 || this.entries[this.length - 1] != null : ""
+                + "Violation of: [slots in use are not null]";
+        assert this.length == this.entries.length
+                || this.entries[this.length] == null : ""
+                        + "Violation of: [unused slots are null]";
+        return true;
+    }
+
+    /**
+     * Checks that the whole convention holds for the current representation,
+     * i.e., that every slot below {@code $this.length} is in use and every
+     * slot above it is null. The constructor, {@code clear} and
+     * {@code transferFrom} call it on the array they install; {@code push}
+     * and {@code pop} only touch the slot at the top.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.length <= |$this.entries|  and
+     * INITIAL_CAPACITY <= |$this.entries|  and
+     * [$this.entries[i] is not null for 0 <= i < $this.length]  and
+     * [$this.entries[i] is null for $this.length <= i < |$this.entries|]
+     * </pre>
+     */
+    private boolean fullConventionHolds() {
+        assert this.conventionHolds();
+        for (int i = 0; i < this.entries.length; i++) {
+            if (i < this.length) {
+                assert this.entries[i] != null : ""
+                        + "Violation of: [slots in use are not null]";
+            } else {
+                assert this.entries[i] == null : ""
+                        + "Violation of: [unused slots are null]";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the backing array with one of the given capacity, keeping the
+     * abstract value of {@code this} fixed.
+     *
+     * @param capacity
+     *            the new capacity
+     * @updates $this.entries
+     * @requires $this.length <= capacity
+     * @ensures |$this.entries| = capacity
+     */
+    private void resize(int capacity) {
+        assert this.length <= capacity : ""
+                + "Violation of: $this.length <= capacity";
+
+        Object[] newEntries = new Object[capacity];
+        System.arraycopy(this.entries, 0, newEntries, 0, this.length);
+        this.entries = newEntries;
+    }
+
+    /**
+     * Returns the entry at array index {@code i}.
+     *
+     * @param i
+     *            the array index
+     * @return the entry at {@code $this.entries[i]}
+     * @requires 0 <= i < $this.length
+     */
+    @SuppressWarnings("unchecked")
+    private T entryAt(int i) {
+        /*
+         * This cast cannot fail since only values of type T are ever stored in
+         * the array.
+         */
+        return (T) this.entries[i];
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.length = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Stack3() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Stack<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Stack<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Stack3<?> : ""
+                + "Violation of: source is of dynamic type Stack3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Stack3<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Stack3<T> localSource = (Stack3<T>) source;
+        this.entries = localSource.entries;
+        this.length = localSource.length;
+        localSource.createNewRep();
+        assert this.fullConventionHolds();
+        assert localSource.fullConventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void push(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        if (this.length == this.entries.length) {
+            this.resize(2 * this.entries.length);
+        }
+        this.entries[this.length] = x;
+        this.length++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T pop() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        this.length--;
+        T returnData = this.entryAt(this.length);
+        this.entries[this.length] = null;
+        if (this.entries.length > INITIAL_CAPACITY
+                && this.length <= this.entries.length / 4) {
+            this.resize(this.entries.length / 2);
+        }
+
+        assert this.conventionHolds();
+        return returnData;
+    }
+
+    @Override
+    public final int length() {
+
+        assert this.conventionHolds();
+        return this.length;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Stack3Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Pushes all entries of {@code items}, in iteration order, onto
+     * {@code this}.
+     *
+     * @param items
+     *            the entries to push
+     * @updates this
+     * @requires [items does not contain null]
+     * @ensures this = rev([entries of items in iteration order]) * #this
+     */
+    public final void pushAll(Iterable<T> items) {
+        assert items != null : "Violation of: items is not null";
+        assert items != this : "Violation of: items is not this";
+
+        for (T x : items) {
+            assert x != null : "Violation of: items does not contain null";
+            if (this.length == this.entries.length) {
+                this.resize(2 * this.entries.length);
+            }
+            this.entries[this.length] = x;
+            this.length++;
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Pops the top {@code k} entries of {@code this} and enqueues them, in the
+     * order they are popped, at the back of {@code q}.
+     *
+     * @param q
+     *            the {@code Queue} receiving the popped entries
+     * @param k
+     *            the number of entries to pop
+     * @updates this, q
+     * @requires 0 <= k <= |this|
+     * @ensures <pre>
+     * #this = q[|#q|, |q|) * this  and
+     * q[0, |#q|) = #q  and  |q| = |#q| + k
+     * </pre>
+     */
+    public final void popInto(Queue<T> q, int k) {
+        assert q != null : "Violation of: q is not null";
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k <= this.length : "Violation of: k <= |this|";
+
+        int newLength = this.length - k;
+        for (int i = this.length - 1; i >= newLength; i--) {
+            q.enqueue(this.entryAt(i));
+            this.entries[i] = null;
+        }
+        this.length = newLength;
+        int capacity = this.entries.length;
+        while (capacity > INITIAL_CAPACITY && this.length <= capacity / 4) {
+            capacity = capacity / 2;
+        }
+        if (capacity != this.entries.length) {
+            this.resize(capacity);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Stack3}.
+     */
+    private final class Stack3Iterator implements Iterator<T> {
+
+        /**
+         * Array index of the next entry to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Stack3Iterator() {
+            this.current = Stack3.this.length - 1;
+            assert Stack3.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current >= 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = Stack3.this.entryAt(this.current);
+            this.current--;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
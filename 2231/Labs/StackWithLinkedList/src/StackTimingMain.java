@@ -0,0 +1,157 @@
+import java.lang.management.ManagementFactory;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * Program to compare push/pop throughput and allocation of {@code Stack1L},
+ * {@code Stack2}, and {@code Stack3}.
+ *
+ * <p>
+ * Each round pushes {@code DEPTH} entries and then pops them all, mimicking the
+ * call/return pattern of a recursive-descent parser or tree walk. Allocation
+ * is measured with the per-thread allocated-bytes counter of the HotSpot JVM,
+ * and is reported as unavailable elsewhere.
+ */
+public final class StackTimingMain {
+
+    /**
+     * Number of entries pushed (and then popped) per round.
+     */
+    private static final int DEPTH = 1_000;
+
+    /**
+     * Number of untimed rounds to let the JIT compiler settle.
+     */
+    private static final int WARMUP_ROUNDS = 2_000;
+
+    /**
+     * Number of timed rounds.
+     */
+    private static final int TIMED_ROUNDS = 10_000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private StackTimingMain() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the JVM does not report it.
+     *
+     * @return bytes allocated by the current thread, or -1
+     */
+    private static long allocatedBytes() {
+        long bytes = -1;
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean;
+            sunBean = (com.sun.management.ThreadMXBean) bean;
+            bytes = sunBean.getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return bytes;
+    }
+
+    /**
+     * Runs {@code rounds} rounds of {@code DEPTH} pushes followed by
+     * {@code DEPTH} pops on {@code s}.
+     *
+     * @param s
+     *            the stack to exercise
+     * @param rounds
+     *            the number of rounds
+     * @return a value depending on every popped entry, so the work cannot be
+     *         optimized away
+     * @updates s
+     * @requires s = <>
+     * @ensures s = <>
+     */
+    private static int runRounds(Stack<Integer> s, int rounds) {
+        assert s != null : "Violation of: s is not null";
+        assert s.length() == 0 : "Violation of: s = <>";
+
+        /*
+         * Boxed values are shared so the only allocation measured is the
+         * stack's own.
+         */
+        Integer value = Integer.valueOf(1);
+        int checksum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < DEPTH; i++) {
+                s.push(value);
+            }
+            for (int i = 0; i < DEPTH; i++) {
+                checksum += s.pop();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Times {@code TIMED_ROUNDS} rounds on a stack of the given name and
+     * reports the results to {@code out}.
+     *
+     * @param name
+     *            the name of the implementation
+     * @param s
+     *            an empty stack of the implementation under test
+     * @param out
+     *            the output stream
+     * @updates out.content
+     * @requires out.is_open and s = <>
+     * @ensures out.content = #out.content * [timing report for s]
+     */
+    private static void timeStack(String name, Stack<Integer> s,
+            SimpleWriter out) {
+        runRounds(s, WARMUP_ROUNDS);
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int checksum = runRounds(s, TIMED_ROUNDS);
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+
+        long operations = 2L * DEPTH * TIMED_ROUNDS;
+        double nanosPerOp = (double) elapsed / operations;
+        out.print(name + ": " + String.format("%.1f", elapsed / NANOS_PER_MILLI)
+                + " ms, " + String.format("%.2f", nanosPerOp) + " ns/op, ");
+        if (bytesBefore >= 0) {
+            double bytesPerPush = (double) (bytesAfter - bytesBefore)
+                    / ((long) DEPTH * TIMED_ROUNDS);
+            out.print(String.format("%.2f", bytesPerPush) + " bytes/push");
+        } else {
+            out.print("allocation unavailable");
+        }
+        out.println(" (checksum " + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        out.println("Push/pop " + DEPTH + " entries, " + TIMED_ROUNDS
+                + " rounds (run without -ea for meaningful numbers)");
+        timeStack("Stack1L", new Stack1L<Integer>(), out);
+        timeStack("Stack2 ", new Stack2<Integer>(), out);
+        timeStack("Stack3 ", new Stack3<Integer>(), out);
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * Customized JUnit test fixture for {@code Stack3}.
+ */
+public class Stack3Test extends StackTest {
+
+    @Override
+    protected final Stack<String> constructorTest() {
+        return new Stack3<String>();
+    }
+
+    @Override
+    protected final Stack<String> constructorRef() {
+        return new Stack1L<String>();
+    }
+
+    /**
+     * Test pushAll onto a non-empty stack.
+     */
+    @Test
+    public final void testPushAllNonEmpty() {
+        Stack3<String> s = new Stack3<String>();
+        s.push("a");
+        Queue<String> q = new Queue1L<String>();
+        q.enqueue("b");
+        q.enqueue("c");
+        Queue<String> qExpected = new Queue1L<String>();
+        qExpected.enqueue("b");
+        qExpected.enqueue("c");
+        Stack<String> sExpected = new Stack1L<String>();
+        sExpected.push("a");
+        sExpected.push("b");
+        sExpected.push("c");
+
+        s.pushAll(q);
+
+        assertEquals(sExpected, s);
+        assertEquals(qExpected, q);
+    }
+
+    /**
+     * Test pushAll past the initial capacity.
+     */
+    @Test
+    public final void testPushAllGrows() {
+        Stack3<String> s = new Stack3<String>();
+        Queue<String> q = new Queue1L<String>();
+        Stack<String> sExpected = new Stack1L<String>();
+        final int count = 100;
+        for (int i = 0; i < count; i++) {
+            q.enqueue(Integer.toString(i));
+            sExpected.push(Integer.toString(i));
+        }
+
+        s.pushAll(q);
+
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Test popInto with k = 0.
+     */
+    @Test
+    public final void testPopIntoZero() {
+        Stack3<String> s = new Stack3<String>();
+        s.push("a");
+        Queue<String> q = new Queue1L<String>();
+        Stack<String> sExpected = new Stack1L<String>();
+        sExpected.push("a");
+        Queue<String> qExpected = new Queue1L<String>();
+
+        s.popInto(q, 0);
+
+        assertEquals(sExpected, s);
+        assertEquals(qExpected, q);
+    }
+
+    /**
+     * Test popInto of part of the stack onto a non-empty queue.
+     */
+    @Test
+    public final void testPopIntoPartial() {
+        Stack3<String> s = new Stack3<String>();
+        s.push("a");
+        s.push("b");
+        s.push("c");
+        Queue<String> q = new Queue1L<String>();
+        q.enqueue("z");
+        Stack<String> sExpected = new Stack1L<String>();
+        sExpected.push("a");
+        Queue<String> qExpected = new Queue1L<String>();
+        qExpected.enqueue("z");
+        qExpected.enqueue("c");
+        qExpected.enqueue("b");
+
+        s.popInto(q, 2);
+
+        assertEquals(sExpected, s);
+        assertEquals(qExpected, q);
+    }
+
+    /**
+     * Test popInto of a large stack, which shrinks the backing array.
+     */
+    @Test
+    public final void testPopIntoAllShrinks() {
+        Stack3<String> s = new Stack3<String>();
+        Queue<String> qExpected = new Queue1L<String>();
+        final int count = 100;
+        for (int i = 0; i < count; i++) {
+            s.push(Integer.toString(i));
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            qExpected.enqueue(Integer.toString(i));
+        }
+        Queue<String> q = new Queue1L<String>();
+
+        s.popInto(q, count);
+
+        assertEquals(new Stack1L<String>(), s);
+        assertEquals(qExpected, q);
+        s.push("x");
+        assertEquals("x", s.pop());
+    }
+
+}
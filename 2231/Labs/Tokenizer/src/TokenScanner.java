@@ -0,0 +1,274 @@
+import components.simplereader.SimpleReader;
+
+/**
+ * Whitespace tokenizer engine: scans a {@code char[]} buffer once with a
+ * table-driven finite automaton and records each token as a pair of offsets
+ * into the buffer, so scanning allocates nothing per character or per token.
+ *
+ * <p>
+ * Characters are classified through a static 128-entry table, built once;
+ * characters outside ASCII are never separators. Token {@code String}s are
+ * only made when asked for with {@code token}.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class TokenScanner {
+
+    /**
+     * Definition of whitespace separators.
+     */
+    private static final String SEPARATORS = " \t\n\r";
+
+    /**
+     * Number of characters classified by {@code CHAR_CLASS}.
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * Character class of separators.
+     */
+    private static final int SEPARATOR = 0;
+
+    /**
+     * Character class of every other character.
+     */
+    private static final int WORD = 1;
+
+    /**
+     * Number of character classes.
+     */
+    private static final int CLASSES = 2;
+
+    /**
+     * Automaton state between tokens.
+     */
+    private static final int BETWEEN = 0;
+
+    /**
+     * Automaton state inside a token.
+     */
+    private static final int IN_TOKEN = 1;
+
+    /**
+     * Class of each ASCII character.
+     */
+    private static final byte[] CHAR_CLASS = new byte[ASCII];
+
+    /**
+     * Next state, by {@code state * CLASSES + class}.
+     */
+    private static final int[] NEXT = {
+            /* BETWEEN */ BETWEEN, IN_TOKEN,
+            /* IN_TOKEN */ BETWEEN, IN_TOKEN };
+
+    static {
+        for (int c = 0; c < ASCII; c++) {
+            CHAR_CLASS[c] = WORD;
+        }
+        for (int i = 0; i < SEPARATORS.length(); i++) {
+            CHAR_CLASS[SEPARATORS.charAt(i)] = SEPARATOR;
+        }
+    }
+
+    /**
+     * Initial capacity of the buffer and of the offset arrays.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The characters scanned.
+     */
+    private final char[] buffer;
+
+    /**
+     * Offset of the first character of each token.
+     */
+    private int[] starts;
+
+    /**
+     * Offset just past the last character of each token.
+     */
+    private int[] ends;
+
+    /**
+     * Number of tokens.
+     */
+    private int count;
+
+    /**
+     * Returns the class of {@code c}.
+     *
+     * @param c
+     *            the character
+     * @return SEPARATOR or WORD
+     */
+    private static int classOf(char c) {
+        int cls = WORD;
+        if (c < ASCII) {
+            cls = CHAR_CLASS[c];
+        }
+        return cls;
+    }
+
+    /**
+     * Reports whether {@code c} is a separator.
+     *
+     * @param c
+     *            the character
+     * @return whether c is in SEPARATORS
+     */
+    public static boolean isSeparator(char c) {
+        return classOf(c) == SEPARATOR;
+    }
+
+    /**
+     * Records the token {@code [start, end)}.
+     *
+     * @param start
+     *            the offset of the first character
+     * @param end
+     *            the offset just past the last character
+     */
+    private void addToken(int start, int end) {
+        if (this.count == this.starts.length) {
+            int[] newStarts = new int[2 * this.count];
+            int[] newEnds = new int[2 * this.count];
+            System.arraycopy(this.starts, 0, newStarts, 0, this.count);
+            System.arraycopy(this.ends, 0, newEnds, 0, this.count);
+            this.starts = newStarts;
+            this.ends = newEnds;
+        }
+        this.starts[this.count] = start;
+        this.ends[this.count] = end;
+        this.count++;
+    }
+
+    /**
+     * Constructor scanning the first {@code length} characters of
+     * {@code buffer}, which is not copied and must not change afterwards.
+     *
+     * @param buffer
+     *            the characters to scan
+     * @param length
+     *            the number of characters to scan
+     * @requires 0 <= length <= |buffer|
+     * @ensures [this holds the maximal runs of non-separators of
+     *          buffer[0, length), in order]
+     */
+    public TokenScanner(char[] buffer, int length) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert 0 <= length : "Violation of: 0 <= length";
+        assert length <= buffer.length : "Violation of: length <= |buffer|";
+
+        this.buffer = buffer;
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.count = 0;
+        int state = BETWEEN;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            int next = NEXT[state * CLASSES + classOf(buffer[i])];
+            if (next != state) {
+                if (next == IN_TOKEN) {
+                    start = i;
+                } else {
+                    this.addToken(start, i);
+                }
+                state = next;
+            }
+        }
+        if (state == IN_TOKEN) {
+            this.addToken(start, length);
+        }
+    }
+
+    /**
+     * Reads all of {@code in}, each line followed by a line separator, and
+     * scans it.
+     *
+     * @param in
+     *            the input stream
+     * @return the scanner of the whole input
+     * @updates in
+     * @requires in.is_open
+     * @ensures <pre>
+     * [scan holds the tokens of #in.content]  and
+     * in.content = <>
+     * </pre>
+     */
+    public static TokenScanner scan(SimpleReader in) {
+        assert in != null : "Violation of: in is not null";
+        assert in.isOpen() : "Violation of: in.is_open";
+
+        char[] buffer = new char[INITIAL_CAPACITY];
+        int length = 0;
+        while (!in.atEOS()) {
+            String line = in.nextLine();
+            int needed = length + line.length() + 1;
+            if (needed > buffer.length) {
+                char[] bigger = new char[Math.max(needed, 2 * buffer.length)];
+                System.arraycopy(buffer, 0, bigger, 0, length);
+                buffer = bigger;
+            }
+            line.getChars(0, line.length(), buffer, length);
+            length += line.length();
+            buffer[length] = '\n';
+            length++;
+        }
+        return new TokenScanner(buffer, length);
+    }
+
+    /**
+     * Reports the number of tokens.
+     *
+     * @return the number of tokens
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Reports the offset of the first character of token {@code i}.
+     *
+     * @param i
+     *            the token number
+     * @return the start offset
+     * @requires 0 <= i < count()
+     */
+    public int start(int i) {
+        assert 0 <= i && i < this.count : "Violation of: 0 <= i < count()";
+
+        return this.starts[i];
+    }
+
+    /**
+     * Reports the offset just past the last character of token {@code i}.
+     *
+     * @param i
+     *            the token number
+     * @return the end offset
+     * @requires 0 <= i < count()
+     */
+    public int end(int i) {
+        assert 0 <= i && i < this.count : "Violation of: 0 <= i < count()";
+
+        return this.ends[i];
+    }
+
+    /**
+     * Returns token {@code i} as a {@code String}.
+     *
+     * @param i
+     *            the token number
+     * @return the token
+     * @requires 0 <= i < count()
+     */
+    public String token(int i) {
+        assert 0 <= i && i < this.count : "Violation of: 0 <= i < count()";
+
+        return new String(this.buffer, this.starts[i],
+                this.ends[i] - this.starts[i]);
+    }
+
+}
@@ -4,8 +4,6 @@ import static components.utilities.Tokenizer.isKeyword;
 
 import components.queue.Queue;
 import components.queue.Queue1L;
-import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -21,11 +19,6 @@ public final class Tokenizer {
      * Private members --------------------------------------------------------
      */
 
-    /**
-     * Definition of whitespace separators.
-     */
-    private static final String SEPARATORS = " \t\n\r";
-
     /**
      * Private constructor so this utility class cannot be instantiated.
      */
@@ -53,56 +46,6 @@ public final class Tokenizer {
         return kind;
     }
 
-    /**
-     * Returns the first "word" (maximal length string of characters not in
-     * {@code SEPARATORS}) or "separator string" (maximal length string of
-     * characters in {@code SEPARATORS}) in the given {@code text} starting at
-     * the given {@code position}.
-     *
-     * @param text
-     *            the {@code String} from which to get the word or separator
-     *            string
-     * @param position
-     *            the starting index
-     * @return the first word or separator string found in {@code text} starting
-     *         at index {@code position}
-     * @requires 0 <= position < |text|
-     * @ensures <pre>
-     * nextWordOrSeparator =
-     *   text[position, position + |nextWordOrSeparator|)  and
-     * if entries(text[position, position + 1)) intersection entries(SEPARATORS) = {}
-     * then
-     *   entries(nextWordOrSeparator) intersection entries(SEPARATORS) = {}  and
-     *   (position + |nextWordOrSeparator| = |text|  or
-     *    entries(text[position, position + |nextWordOrSeparator| + 1))
-     *      intersection entries(SEPARATORS) /= {})
-     * else
-     *   entries(nextWordOrSeparator) is subset of entries(SEPARATORS)  and
-     *   (position + |nextWordOrSeparator| = |text|  or
-     *    entries(text[position, position + |nextWordOrSeparator| + 1))
-     *      is not subset of entries(SEPARATORS))
-     * </pre>
-     */
-    private static String nextWordOrSeparator(String text, int position) {
-        assert text != null : "Violation of: text is not null";
-        assert 0 <= position : "Violation of: 0 <= position";
-        assert position < text.length() : "Violation of: position < |text|";
-        Set<Character> strSet = new Set1L<Character>();
-        for (int i = 0; i < SEPARATORS.length(); i++) {
-            char c = SEPARATORS.charAt(i);
-            if (!strSet.contains(c)) {
-                strSet.add(c);
-            }
-        }
-        int endIndex = position;
-        boolean ifSep = strSet.contains(text.charAt(position));
-        while (endIndex < text.length()
-                && strSet.contains(text.charAt(endIndex)) == ifSep) {
-            endIndex++;
-        }
-        return text.substring(position, endIndex);
-    }
-
     /*
      * Public members ---------------------------------------------------------
      */
@@ -115,7 +58,9 @@ public final class Tokenizer {
 
     /**
      * Tokenizes the entire input getting rid of all whitespace separators and
-     * returning the non-separator tokens in a {@code Queue<String>}.
+     * returning the non-separator tokens in a {@code Queue<String>}. The input
+     * is scanned by {@code TokenScanner}, which finds every token in one pass
+     * over a character buffer.
      *
      * @param in
      *            the input stream
@@ -132,16 +77,9 @@ public final class Tokenizer {
         assert in.isOpen() : "Violation of: in.is_open";
 
         Queue<String> tokens = new Queue1L<String>();
-        while (!in.atEOS()) {
-            String line = in.nextLine();
-            int position = 0;
-            while (position < line.length()) {
-                String s = nextWordOrSeparator(line, position);
-                if (SEPARATORS.indexOf(s.charAt(0)) < 0) {
-                    tokens.enqueue(s);
-                }
-                position += s.length();
-            }
+        TokenScanner scanner = TokenScanner.scan(in);
+        for (int i = 0; i < scanner.count(); i++) {
+            tokens.enqueue(scanner.token(i));
         }
         tokens.enqueue(END_OF_INPUT);
         return tokens;
@@ -0,0 +1,152 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the running time of
+ * {@code components.utilities.Tokenizer.tokens}, {@code Tokenizer.tokens} and
+ * {@code TokenScanner.scan} on a generated BL program of {@code LINES} lines,
+ * and to check that both {@code tokens} give the same tokens.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class TokenizerTimingMain {
+
+    /**
+     * Number of lines of the generated program.
+     */
+    private static final int LINES = 500_000;
+
+    /**
+     * Seed of the generated program, so runs are comparable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Words the generated program is made of.
+     */
+    private static final String[] WORDS = { "IF", "next-is-empty", "THEN",
+            "move", "ELSE", "turnleft", "END", "WHILE", "true", "DO",
+            "infect", "FindObstacle", "INSTRUCTION", "IS", "turnright" };
+
+    /**
+     * Separators between the words of the generated program.
+     */
+    private static final String[] GAPS = { " ", "  ", "\t", " \t " };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private TokenizerTimingMain() {
+    }
+
+    /**
+     * Writes a random program of {@code LINES} lines to {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @ensures [fileName holds a random program]
+     */
+    private static void generate(String fileName) {
+        final int maxIndent = 12;
+        final int maxWords = 6;
+        Random rnd = new Random(SEED);
+        SimpleWriter file = new SimpleWriter1L(fileName);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            line.setLength(0);
+            int indent = rnd.nextInt(maxIndent);
+            for (int k = 0; k < indent; k++) {
+                line.append(' ');
+            }
+            int words = rnd.nextInt(maxWords);
+            for (int k = 0; k < words; k++) {
+                if (k > 0) {
+                    line.append(GAPS[rnd.nextInt(GAPS.length)]);
+                }
+                line.append(WORDS[rnd.nextInt(WORDS.length)]);
+            }
+            file.println(line.toString());
+        }
+        file.close();
+    }
+
+    /**
+     * Reports the time since {@code start} to {@code out}.
+     *
+     * @param out
+     *            the output stream
+     * @param what
+     *            the name of what was timed
+     * @param start
+     *            the value of {@code System.nanoTime()} at the start
+     * @param tokens
+     *            the number of tokens found
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [timing report]
+     */
+    private static void report(SimpleWriter out, String what, long start,
+            int tokens) {
+        double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        out.println(String.format("  %-36s %9.1f ms  %d tokens", what, millis,
+                tokens));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     * @throws IOException
+     *             if the temporary program file cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        SimpleWriter out = new SimpleWriter1L();
+        File program = File.createTempFile("program", ".bl");
+        program.deleteOnExit();
+        generate(program.getPath());
+        out.println("Program of " + LINES + " lines, " + program.length()
+                + " bytes:");
+
+        SimpleReader file = new SimpleReader1L(program.getPath());
+        long start = System.nanoTime();
+        Queue<String> expected = components.utilities.Tokenizer.tokens(file);
+        report(out, "components.utilities.Tokenizer.tokens", start,
+                expected.length());
+        file.close();
+
+        file = new SimpleReader1L(program.getPath());
+        start = System.nanoTime();
+        Queue<String> actual = Tokenizer.tokens(file);
+        report(out, "Tokenizer.tokens", start, actual.length());
+        file.close();
+
+        file = new SimpleReader1L(program.getPath());
+        start = System.nanoTime();
+        TokenScanner scanner = TokenScanner.scan(file);
+        report(out, "TokenScanner.scan (offsets only)", start,
+                scanner.count());
+        file.close();
+
+        if (actual.equals(expected)) {
+            out.println("Tokens are the same.");
+        } else {
+            out.println("Error: tokens are not the same.");
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,392 @@
+package components.waitingline;
+
+import java.util.Iterator;
+import java.util.function.LongSupplier;
+
+/**
+ * {@code WaitingLine} decorator that forwards every operation to another
+ * {@code WaitingLine} and measures how long entries wait in it.
+ *
+ * <p>
+ * The arrival time of each entry is kept in a ring buffer of {@code long}s in
+ * line order, so {@code add} and {@code removeFirst} add only a clock reading
+ * and an array access to the wrapped operation, and allocate nothing in the
+ * steady state. The clock is {@code System.nanoTime} unless another one is
+ * given to the constructor. The sojourn time (time
+ * from {@code add} to removal) of every entry leaving through
+ * {@code removeFirst} or {@code remove} is recorded in a
+ * {@code LogLinearHistogram}. The measurements are not part of the abstract
+ * value of {@code this}: {@code equals}, {@code clear}, and
+ * {@code transferFrom} concern the entries only.
+ *
+ * @param <T>
+ *            type of {@code WaitingLine} entries
+ * @convention <pre>
+ * $this.count = |$this.line|  and
+ * $this.count <= |$this.arrivals|  and
+ * 0 <= $this.first < |$this.arrivals|
+ * </pre>
+ * @correspondence this = $this.line
+ */
+public class InstrumentedWaitingLine<T> extends WaitingLineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the arrival-time ring buffer.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Percentile reported by {@code p50}.
+     */
+    private static final double P50 = 50.0;
+
+    /**
+     * Percentile reported by {@code p99}.
+     */
+    private static final double P99 = 99.0;
+
+    /**
+     * Percentile reported by {@code p999}.
+     */
+    private static final double P999 = 99.9;
+
+    /**
+     * The wrapped waiting line.
+     */
+    private WaitingLine<T> line;
+
+    /**
+     * Arrival times, in line order, starting at index {@code first} and
+     * wrapping around.
+     */
+    private long[] arrivals;
+
+    /**
+     * Index in {@code arrivals} of the arrival time of the front entry.
+     */
+    private int first;
+
+    /**
+     * Number of arrival times stored.
+     */
+    private int count;
+
+    /**
+     * Source of the current time, in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Sojourn times, in nanoseconds, of the entries removed so far.
+     */
+    private final LogLinearHistogram sojourns;
+
+    /**
+     * Number of entries added since the metrics were last reset.
+     */
+    private long arrivalCount;
+
+    /**
+     * Reading of {@code clock} when the metrics were last reset.
+     */
+    private long metricsStart;
+
+    /**
+     * Returns the index in {@code arrivals} of the arrival time of the entry
+     * at position {@code pos}.
+     *
+     * @param pos
+     *            the position
+     * @return the ring buffer index for {@code pos}
+     * @requires 0 <= pos < |$this.arrivals|
+     */
+    private int slot(int pos) {
+        int i = this.first + pos;
+        if (i >= this.arrivals.length) {
+            i -= this.arrivals.length;
+        }
+        return i;
+    }
+
+    /**
+     * Makes room for one more arrival time, unwrapping the ring buffer into a
+     * larger array if it is full.
+     *
+     * @updates $this.arrivals, $this.first
+     */
+    private void ensureRoom() {
+        if (this.count == this.arrivals.length) {
+            long[] bigger = new long[2 * this.arrivals.length];
+            for (int i = 0; i < this.count; i++) {
+                bigger[i] = this.arrivals[this.slot(i)];
+            }
+            this.arrivals = bigger;
+            this.first = 0;
+        }
+    }
+
+    /**
+     * Removes the arrival time at position {@code pos} and records the sojourn
+     * time of that entry.
+     *
+     * @param pos
+     *            the position of the removed entry
+     * @param now
+     *            the current reading of {@code $this.clock}
+     * @updates $this.arrivals, $this.first, $this.count, $this.sojourns
+     * @requires 0 <= pos < $this.count
+     */
+    private void departed(int pos, long now) {
+        this.sojourns.record(Math.max(0, now - this.arrivals[this.slot(pos)]));
+        if (pos == 0) {
+            this.first = this.slot(1);
+        } else {
+            for (int i = pos; i < this.count - 1; i++) {
+                this.arrivals[this.slot(i)] = this.arrivals[this.slot(i + 1)];
+            }
+        }
+        this.count--;
+    }
+
+    /**
+     * Creator of initial representation of the arrival times.
+     */
+    private void createNewArrivals() {
+        this.arrivals = new long[INITIAL_CAPACITY];
+        this.first = 0;
+        this.count = 0;
+    }
+
+    /*
+     * Constructor ------------------------------------------------------------
+     */
+
+    /**
+     * Constructor from the waiting line to instrument, timed by
+     * {@code System.nanoTime}.
+     *
+     * @param line
+     *            the waiting line to wrap; its current entries are treated as
+     *            having just arrived
+     */
+    public InstrumentedWaitingLine(WaitingLine<T> line) {
+        this(line, System::nanoTime);
+    }
+
+    /**
+     * Constructor from the waiting line to instrument and the clock to time
+     * it by.
+     *
+     * @param line
+     *            the waiting line to wrap; its current entries are treated as
+     *            having just arrived
+     * @param clock
+     *            source of the current time, in nanoseconds; its readings must
+     *            not decrease
+     */
+    public InstrumentedWaitingLine(WaitingLine<T> line, LongSupplier clock) {
+        assert line != null : "Violation of: line is not null";
+        assert clock != null : "Violation of: clock is not null";
+
+        this.line = line;
+        this.clock = clock;
+        this.sojourns = new LogLinearHistogram();
+        this.createNewArrivals();
+        long now = clock.getAsLong();
+        for (int i = 0; i < line.length(); i++) {
+            this.ensureRoom();
+            this.arrivals[this.slot(this.count)] = now;
+            this.count++;
+        }
+        this.arrivalCount = 0;
+        this.metricsStart = now;
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final WaitingLine<T> newInstance() {
+        return new InstrumentedWaitingLine<T>(this.line.newInstance(),
+                this.clock);
+    }
+
+    @Override
+    public final void clear() {
+        this.line.clear();
+        this.createNewArrivals();
+    }
+
+    @Override
+    public final void transferFrom(WaitingLine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof InstrumentedWaitingLine<?> : ""
+                + "Violation of: source is of dynamic type "
+                + "InstrumentedWaitingLine<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * InstrumentedWaitingLine<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        InstrumentedWaitingLine<T> localSource;
+        localSource = (InstrumentedWaitingLine<T>) source;
+        this.line.transferFrom(localSource.line);
+        this.arrivals = localSource.arrivals;
+        this.first = localSource.first;
+        this.count = localSource.count;
+        localSource.createNewArrivals();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        this.line.add(x);
+        this.ensureRoom();
+        this.arrivals[this.slot(this.count)] = this.clock.getAsLong();
+        this.count++;
+        this.arrivalCount++;
+    }
+
+    @Override
+    public final T removeFirst() {
+        T x = this.line.removeFirst();
+        this.departed(0, this.clock.getAsLong());
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.line.length();
+    }
+
+    @Override
+    public final boolean contains(T entry) {
+        return this.line.contains(entry);
+    }
+
+    @Override
+    public final int pos(T entry) {
+        return this.line.pos(entry);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return this.line.iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    @Override
+    public final T front() {
+        return this.line.front();
+    }
+
+    @Override
+    public final void add(T x, int pos) {
+        this.line.add(x, pos);
+        this.ensureRoom();
+        for (int i = this.count; i > pos; i--) {
+            this.arrivals[this.slot(i)] = this.arrivals[this.slot(i - 1)];
+        }
+        this.arrivals[this.slot(pos)] = this.clock.getAsLong();
+        this.count++;
+        this.arrivalCount++;
+    }
+
+    @Override
+    public final T remove(int pos) {
+        T x = this.line.remove(pos);
+        this.departed(pos, this.clock.getAsLong());
+        return x;
+    }
+
+    /**
+     * Reports the median sojourn time, in nanoseconds, of the entries removed
+     * since the metrics were last reset.
+     *
+     * @return the 50th percentile sojourn time
+     */
+    public final long p50() {
+        return this.sojourns.valueAtPercentile(P50);
+    }
+
+    /**
+     * Reports the 99th percentile sojourn time, in nanoseconds, of the entries
+     * removed since the metrics were last reset.
+     *
+     * @return the 99th percentile sojourn time
+     */
+    public final long p99() {
+        return this.sojourns.valueAtPercentile(P99);
+    }
+
+    /**
+     * Reports the 99.9th percentile sojourn time, in nanoseconds, of the
+     * entries removed since the metrics were last reset.
+     *
+     * @return the 99.9th percentile sojourn time
+     */
+    public final long p999() {
+        return this.sojourns.valueAtPercentile(P999);
+    }
+
+    /**
+     * Reports the longest sojourn time, in nanoseconds, of the entries removed
+     * since the metrics were last reset.
+     *
+     * @return the maximum sojourn time
+     */
+    public final long maxSojourn() {
+        return this.sojourns.max();
+    }
+
+    /**
+     * Reports the number of entries added per second since the metrics were
+     * last reset.
+     *
+     * @return the arrival rate, in entries per second
+     */
+    public final double arrivalRate() {
+        return this.arrivalCount * NANOS_PER_SECOND
+                / Math.max(1, this.clock.getAsLong() - this.metricsStart);
+    }
+
+    /**
+     * Reports the number of entries removed per second since the metrics were
+     * last reset.
+     *
+     * @return the departure rate, in entries per second
+     */
+    public final double departureRate() {
+        return this.sojourns.count() * NANOS_PER_SECOND
+                / Math.max(1, this.clock.getAsLong() - this.metricsStart);
+    }
+
+    /**
+     * Discards the sojourn times and rates measured so far; entries still in
+     * {@code this} keep their arrival times.
+     */
+    public final void resetMetrics() {
+        this.sojourns.reset();
+        this.arrivalCount = 0;
+        this.metricsStart = this.clock.getAsLong();
+    }
+
+}
@@ -0,0 +1,177 @@
+package components.waitingline;
+
+/**
+ * Histogram of non-negative {@code long} values with log-linear buckets (in
+ * the style of HdrHistogram): each power-of-two range is split into
+ * {@code 2^(SUB_BUCKET_BITS - 1)} equal sub-buckets, so every recorded value
+ * is kept to within a relative error of {@code 2^-(SUB_BUCKET_BITS - 1)} with
+ * a fixed, allocation-free array of counts.
+ *
+ * <p>
+ * {@code record} is O(1) and allocates nothing; {@code valueAtPercentile} is
+ * O(number of buckets).
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class LogLinearHistogram {
+
+    /**
+     * Number of bits of each value kept exactly.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * Number of sub-buckets per power of two, i.e., 2^(SUB_BUCKET_BITS - 1).
+     */
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+
+    /**
+     * Largest exponent of a bucket.
+     */
+    private static final int MAX_BUCKET = Long.SIZE - SUB_BUCKET_BITS;
+
+    /**
+     * Number of percent in a whole.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Count of recorded values in each bucket.
+     */
+    private final long[] counts;
+
+    /**
+     * Total number of recorded values.
+     */
+    private long total;
+
+    /**
+     * Largest recorded value.
+     */
+    private long max;
+
+    /**
+     * No-argument constructor.
+     */
+    public LogLinearHistogram() {
+        this.counts = new long[(MAX_BUCKET + 2) * HALF_SUB_BUCKETS];
+        this.total = 0;
+        this.max = 0;
+    }
+
+    /**
+     * Returns the index of the count for {@code value}.
+     *
+     * @param value
+     *            the value
+     * @return the index of the bucket containing {@code value}
+     * @requires value >= 0
+     */
+    private static int indexOf(long value) {
+        int bucket = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value))
+                - (SUB_BUCKET_BITS - 1);
+        int index;
+        if (bucket <= 0) {
+            index = (int) value;
+        } else {
+            index = bucket * HALF_SUB_BUCKETS + (int) (value >>> bucket);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the largest value that falls in the bucket at {@code index}.
+     *
+     * @param index
+     *            the index
+     * @return the largest value with {@code indexOf(value) = index}
+     * @requires 0 <= index < |counts|
+     */
+    private static long highestValueAt(int index) {
+        long value;
+        if (index < 2 * HALF_SUB_BUCKETS) {
+            value = index;
+        } else {
+            int bucket = index / HALF_SUB_BUCKETS - 1;
+            long sub = index - (long) bucket * HALF_SUB_BUCKETS;
+            value = ((sub + 1) << bucket) - 1;
+        }
+        return value;
+    }
+
+    /**
+     * Records {@code value}.
+     *
+     * @param value
+     *            the value to record
+     * @requires value >= 0
+     */
+    public void record(long value) {
+        assert value >= 0 : "Violation of: value >= 0";
+
+        this.counts[indexOf(value)]++;
+        this.total++;
+        if (value > this.max) {
+            this.max = value;
+        }
+    }
+
+    /**
+     * Reports the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long count() {
+        return this.total;
+    }
+
+    /**
+     * Reports the largest recorded value, or 0 if none.
+     *
+     * @return the largest recorded value
+     */
+    public long max() {
+        return this.max;
+    }
+
+    /**
+     * Reports the smallest value (up to bucket precision) that is at least as
+     * large as {@code percentile} percent of the recorded values, or 0 if none.
+     *
+     * @param percentile
+     *            the percentile, e.g., 99.9
+     * @return the value at the given percentile
+     * @requires 0 <= percentile <= 100
+     */
+    public long valueAtPercentile(double percentile) {
+        assert 0 <= percentile : "Violation of: 0 <= percentile";
+        assert percentile <= PERCENT : "Violation of: percentile <= 100";
+
+        long result = 0;
+        if (this.total > 0) {
+            long target = Math.max(1,
+                    (long) Math.ceil(percentile / PERCENT * this.total));
+            long seen = 0;
+            int i = 0;
+            while (seen < target) {
+                seen += this.counts[i];
+                i++;
+            }
+            result = Math.min(highestValueAt(i - 1), this.max);
+        }
+        return result;
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+        this.total = 0;
+        this.max = 0;
+    }
+
+}
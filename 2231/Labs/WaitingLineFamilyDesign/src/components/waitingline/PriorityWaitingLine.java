@@ -0,0 +1,50 @@
+package components.waitingline;
+
+/**
+ * {@code PriorityWaitingLineKernel} enhanced with secondary methods.
+ *
+ * @param <T>
+ *            type of {@code PriorityWaitingLine} entries
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public interface PriorityWaitingLine<T> extends PriorityWaitingLineKernel<T> {
+
+    /**
+     * Reports the lane whose front entry {@code removeFirst} would remove next.
+     *
+     * @return the lane chosen by the weighted-fair schedule
+     * @requires length() > 0
+     * @ensures <pre>
+     * [frontLane is the lane chosen by the weighted-fair schedule]
+     * </pre>
+     */
+    int frontLane();
+
+    /**
+     * Reports the entry that {@code removeFirst} would remove next.
+     *
+     * @return the front entry of lane {@code frontLane()}
+     * @aliases reference returned by {@code front}
+     * @requires length() > 0
+     * @ensures <front> is prefix of this[frontLane()].entries
+     */
+    T front();
+
+    /**
+     * Reports the mean time, in nanoseconds, that the entries removed so far
+     * from lane {@code lane} of {@code this} spent waiting.
+     *
+     * @param lane
+     *            the lane
+     * @return the mean wait time of lane {@code lane}, or 0 if none removed
+     * @requires 0 <= lane < lanes()
+     * @ensures <pre>
+     * if this[lane].removed = 0 then averageWaitTime = 0
+     * else averageWaitTime = this[lane].waited / this[lane].removed
+     * </pre>
+     */
+    double averageWaitTime(int lane);
+
+}
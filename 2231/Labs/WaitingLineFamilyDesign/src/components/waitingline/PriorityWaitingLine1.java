@@ -0,0 +1,671 @@
+package components.waitingline;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+
+/**
+ * {@code PriorityWaitingLine} represented as an array of singly linked lanes
+ * and a binary min-heap of the non-empty lanes, keyed by the virtual finish
+ * tag of each lane's front entry, with implementations of primary methods.
+ *
+ * <p>
+ * Each entry is stamped on {@code add} with a virtual finish tag that advances
+ * by {@code STRIDE_ONE / weight} of its lane (stride scheduling), so over any
+ * busy period lane {@code i} is served in proportion to its weight. Adding to
+ * a non-empty lane is O(1); adding to an empty lane, {@code removeFirst}, and
+ * {@code frontLane} are O(log lanes()). Ties between lanes are broken in favor
+ * of the lower-numbered lane, so the schedule is deterministic. Wait times
+ * are measured with {@code System.nanoTime} unless another clock is given to
+ * the constructor.
+ *
+ * @param <T>
+ *            type of {@code PriorityWaitingLine} entries
+ * @convention <pre>
+ * |$this.lanes| > 0  and  |$this.heap| = |$this.lanes|  and
+ * 0 <= $this.heapSize <= |$this.lanes|  and
+ * $this.heap[0, $this.heapSize) holds exactly the indices of the lanes
+ *   of $this.lanes with length > 0, in min-heap order by
+ *   (tag of the lane's front node, lane index)  and
+ * $this.length = [sum of lengths of $this.lanes]  and
+ * for every lane l of $this.lanes:
+ *   l.length = [number of nodes starting at l.head]  and
+ *   (l.length = 0 iff l.head = null iff l.tail = null)  and
+ *   (l.length > 0 implies l.tail is the last node starting at l.head  and
+ *     l.tail.tag = l.lastTag  and
+ *     $this.virtualTime <= l.head.tag)  and
+ *   [the tags of the nodes starting at l.head increase by at least
+ *     l.stride each]  and
+ *   l.stride = STRIDE_ONE / l.weight  and
+ *   l.removed >= 0  and  l.waited >= 0
+ * </pre>
+ * @correspondence <pre>
+ * this = [for each lane i of $this.lanes, (data in the nodes starting at
+ *   $this.lanes[i].head, $this.lanes[i].weight, $this.lanes[i].removed,
+ *   $this.lanes[i].waited)]
+ * </pre>
+ */
+public class PriorityWaitingLine1<T> extends PriorityWaitingLineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Virtual time consumed by one entry of a lane of weight 1; weights may be
+     * at most this large.
+     */
+    private static final long STRIDE_ONE = 1L << 20;
+
+    /**
+     * Node class for singly linked lane nodes.
+     */
+    private final class Node {
+
+        /**
+         * Data in node.
+         */
+        private T data;
+
+        /**
+         * Virtual finish tag of this entry.
+         */
+        private long tag;
+
+        /**
+         * Reading of {@code clock} when this entry was added.
+         */
+        private long arrival;
+
+        /**
+         * Next node in the lane, or null.
+         */
+        private Node next;
+
+    }
+
+    /**
+     * A first-in-first-out lane of entries with its counters.
+     */
+    private final class Lane {
+
+        /**
+         * Front node, or null if the lane is empty.
+         */
+        private Node head;
+
+        /**
+         * Back node, or null if the lane is empty.
+         */
+        private Node tail;
+
+        /**
+         * Number of nodes in the lane.
+         */
+        private int length;
+
+        /**
+         * Weight of the lane.
+         */
+        private int weight;
+
+        /**
+         * Virtual time consumed per entry, i.e., STRIDE_ONE / weight.
+         */
+        private long stride;
+
+        /**
+         * Tag of the most recently added entry.
+         */
+        private long lastTag;
+
+        /**
+         * Number of entries removed from the lane.
+         */
+        private long removed;
+
+        /**
+         * Total nanoseconds waited by the entries removed from the lane.
+         */
+        private long waited;
+
+    }
+
+    /**
+     * Weights the lanes were created with, kept for {@code newInstance} and
+     * {@code clear}.
+     */
+    private final int[] weights;
+
+    /**
+     * Source of the current time, in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The lanes.
+     */
+    private Lane[] lanes;
+
+    /**
+     * Min-heap of the indices of the non-empty lanes.
+     */
+    private int[] heap;
+
+    /**
+     * Number of lanes in {@code $this.heap}.
+     */
+    private int heapSize;
+
+    /**
+     * Tag of the most recently removed entry.
+     */
+    private long virtualTime;
+
+    /**
+     * Total number of entries.
+     */
+    private int length;
+
+    /**
+     * Reports whether lane {@code i} should be served before lane {@code j}.
+     *
+     * @param i
+     *            a non-empty lane
+     * @param j
+     *            another non-empty lane
+     * @return true iff lane {@code i} precedes lane {@code j} in the heap order
+     */
+    private boolean precedes(int i, int j) {
+        long tagI = this.lanes[i].head.tag;
+        long tagJ = this.lanes[j].head.tag;
+        return tagI < tagJ || (tagI == tagJ && i < j);
+    }
+
+    /**
+     * Restores the heap order by moving the lane at {@code pos} up.
+     *
+     * @param pos
+     *            heap position of the lane
+     * @updates $this.heap
+     */
+    private void siftUp(int pos) {
+        int p = pos;
+        int lane = this.heap[p];
+        while (p > 0 && this.precedes(lane, this.heap[(p - 1) / 2])) {
+            this.heap[p] = this.heap[(p - 1) / 2];
+            p = (p - 1) / 2;
+        }
+        this.heap[p] = lane;
+    }
+
+    /**
+     * Restores the heap order by moving the lane at {@code pos} down.
+     *
+     * @param pos
+     *            heap position of the lane
+     * @updates $this.heap
+     */
+    private void siftDown(int pos) {
+        int p = pos;
+        int lane = this.heap[p];
+        int child = 2 * p + 1;
+        while (child < this.heapSize) {
+            if (child + 1 < this.heapSize
+                    && this.precedes(this.heap[child + 1], this.heap[child])) {
+                child++;
+            }
+            if (!this.precedes(this.heap[child], lane)) {
+                break;
+            }
+            this.heap[p] = this.heap[child];
+            p = child;
+            child = 2 * p + 1;
+        }
+        this.heap[p] = lane;
+    }
+
+    /**
+     * Checks, in constant time, that the part of the convention about lane
+     * {@code lane} on its own holds; the number of nodes is checked only at
+     * the two ends of the lane.
+     *
+     * @param lane
+     *            the lane
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * (l.length = 0 iff l.head = null iff l.tail = null)  and
+     * (l.length > 0 implies l.tail.next = null  and
+     *   l.tail.tag = l.lastTag  and  $this.virtualTime <= l.head.tag)  and
+     * (l.length = 1 implies l.head = l.tail)  and
+     * l.stride = STRIDE_ONE / l.weight  and
+     * l.removed >= 0  and  l.waited >= 0
+     *   where l = $this.lanes[lane]
+     * </pre>
+     */
+    private boolean laneHolds(int lane) {
+        Lane l = this.lanes[lane];
+        assert l.length >= 0 : "Violation of: l.length >= 0";
+        assert (l.length == 0) == (l.head == null) : ""
+                + "Violation of: l.length = 0 iff l.head = null";
+        assert (l.head == null) == (l.tail == null) : ""
+                + "Violation of: l.head = null iff l.tail = null";
+        assert l.length == 0 || l.tail.next == null : ""
+                + "Violation of: [l.tail is the last node of l]";
+        assert l.length == 0 || l.tail.tag == l.lastTag : ""
+                + "Violation of: l.tail.tag = l.lastTag";
+        assert l.length == 0 || this.virtualTime <= l.head.tag : ""
+                + "Violation of: $this.virtualTime <= l.head.tag";
+        assert l.length != 1 || l.head == l.tail : ""
+                + "Violation of: [a lane of length 1 has one node]";
+        assert l.stride == STRIDE_ONE / l.weight : ""
+                + "Violation of: l.stride = STRIDE_ONE / l.weight";
+        assert l.removed >= 0 : "Violation of: l.removed >= 0";
+        assert l.waited >= 0 : "Violation of: l.waited >= 0";
+        return true;
+    }
+
+    /**
+     * Checks, in constant time, that the part of the convention repeated below
+     * holds for the current representation. Of the heap order only the root
+     * and its children are checked, and of the lanes only the front one; see
+     * {@code fullConventionHolds} for the check of every lane and node.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * |$this.lanes| > 0  and  |$this.heap| = |$this.lanes|  and
+     * 0 <= $this.heapSize <= |$this.lanes|  and
+     * ($this.heapSize = 0 iff $this.length = 0)  and
+     * ($this.heapSize > 0 implies
+     *   [$this.heap[0] is a non-empty lane that precedes
+     *    $this.heap[1] and $this.heap[2], where those are in the heap]  and
+     *   [the convention holds for lane $this.heap[0]])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.lanes.length > 0 : "Violation of: |$this.lanes| > 0";
+        assert this.heap.length == this.lanes.length : ""
+                + "Violation of: |$this.heap| = |$this.lanes|";
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.lanes.length : ""
+                + "Violation of: $this.heapSize <= |$this.lanes|";
+        assert (this.heapSize == 0) == (this.length == 0) : ""
+                + "Violation of: $this.heapSize = 0 iff $this.length = 0";
+        if (this.heapSize > 0) {
+            int top = this.heap[0];
+            assert 0 <= top && top < this.lanes.length : ""
+                    + "Violation of: [heap holds lane indices]";
+            assert this.lanes[top].length > 0 : ""
+                    + "Violation of: [heap holds only non-empty lanes]";
+            for (int child = 1; child <= 2 && child < this.heapSize; child++) {
+                assert this.precedes(top, this.heap[child]) : ""
+                        + "Violation of: [heap is in min-heap order]";
+            }
+            assert this.laneHolds(top);
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the whole convention holds for the current representation,
+     * walking every heap slot and every node of every lane. Only the methods
+     * that build or hand over a whole set of lanes (the constructor,
+     * {@code clear} and {@code transferFrom}) call it; {@code add} and
+     * {@code removeFirst} change one lane and the heap path above it.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean fullConventionHolds() {
+        assert this.conventionHolds();
+        boolean[] inHeap = new boolean[this.lanes.length];
+        for (int pos = 0; pos < this.heapSize; pos++) {
+            int lane = this.heap[pos];
+            assert 0 <= lane && lane < this.lanes.length : ""
+                    + "Violation of: [heap holds lane indices]";
+            assert !inHeap[lane] : "Violation of: [heap holds each lane once]";
+            inHeap[lane] = true;
+            assert pos == 0
+                    || !this.precedes(lane, this.heap[(pos - 1) / 2]) : ""
+                            + "Violation of: [heap is in min-heap order]";
+        }
+        int total = 0;
+        for (int lane = 0; lane < this.lanes.length; lane++) {
+            Lane l = this.lanes[lane];
+            assert this.laneHolds(lane);
+            assert inHeap[lane] == (l.length > 0) : ""
+                    + "Violation of: [heap holds exactly the non-empty lanes]";
+            int count = 0;
+            Node previous = null;
+            for (Node p = l.head; p != null; p = p.next) {
+                assert previous == null || p.tag >= previous.tag + l.stride : ""
+                        + "Violation of: [tags in a lane increase by stride]";
+                previous = p;
+                count++;
+            }
+            assert previous == l.tail : ""
+                    + "Violation of: [l.tail is the last node of l]";
+            assert count == l.length : ""
+                    + "Violation of: l.length = [number of nodes of l]";
+            total += count;
+        }
+        assert this.length == total : ""
+                + "Violation of: $this.length = [sum of lane lengths]";
+        return true;
+    }
+
+    /**
+     * Checks that the lane index is valid.
+     *
+     * @param lane
+     *            the lane
+     * @return true if {@code lane} is valid (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean isLane(int lane) {
+        assert 0 <= lane : "Violation of: 0 <= lane";
+        assert lane < this.lanes.length : "Violation of: lane < lanes()";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void createNewRep() {
+        /*
+         * An array of the generic inner class Lane cannot be created
+         * directly; the raw array only ever holds Lanes of this T.
+         */
+        this.lanes = new PriorityWaitingLine1.Lane[this.weights.length];
+        for (int i = 0; i < this.weights.length; i++) {
+            Lane l = new Lane();
+            l.weight = this.weights[i];
+            l.stride = STRIDE_ONE / this.weights[i];
+            this.lanes[i] = l;
+        }
+        this.heap = new int[this.weights.length];
+        this.heapSize = 0;
+        this.virtualTime = 0;
+        this.length = 0;
+    }
+
+    /*
+     * Constructor ------------------------------------------------------------
+     */
+
+    /**
+     * Constructor from lane weights, timed by {@code System.nanoTime}.
+     *
+     * @param weights
+     *            the weight of each lane
+     */
+    public PriorityWaitingLine1(int[] weights) {
+        this(weights, System::nanoTime);
+    }
+
+    /**
+     * Constructor from lane weights and the clock to measure wait times by.
+     *
+     * @param weights
+     *            the weight of each lane
+     * @param clock
+     *            source of the current time, in nanoseconds; its readings must
+     *            not decrease
+     */
+    public PriorityWaitingLine1(int[] weights, LongSupplier clock) {
+        assert weights != null : "Violation of: weights is not null";
+        assert clock != null : "Violation of: clock is not null";
+        assert weights.length > 0 : "Violation of: |weights| > 0";
+        for (int w : weights) {
+            assert w > 0 : "Violation of: [every entry of weights is positive]";
+            assert w <= STRIDE_ONE : "Violation of: weight <= STRIDE_ONE";
+        }
+        this.weights = weights.clone();
+        this.clock = clock;
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final PriorityWaitingLine<T> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(int[].class,
+                    LongSupplier.class);
+            return (PriorityWaitingLine<T>) c.newInstance(this.weights,
+                    this.clock);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(PriorityWaitingLine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof PriorityWaitingLine1<?> : ""
+                + "Violation of: source is of dynamic type "
+                + "PriorityWaitingLine1<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * PriorityWaitingLine1<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        PriorityWaitingLine1<T> localSource = (PriorityWaitingLine1<T>) source;
+        assert Arrays.equals(this.weights, localSource.weights) : ""
+                + "Violation of: source has the same lane weights as this";
+        this.lanes = localSource.lanes;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.virtualTime = localSource.virtualTime;
+        this.length = localSource.length;
+        localSource.createNewRep();
+        assert this.fullConventionHolds();
+        assert localSource.fullConventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x, int lane) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isLane(lane);
+
+        Lane l = this.lanes[lane];
+        Node p = new Node();
+        p.data = x;
+        p.tag = Math.max(this.virtualTime, l.lastTag) + l.stride;
+        p.arrival = this.clock.getAsLong();
+        l.lastTag = p.tag;
+        if (l.length == 0) {
+            l.head = p;
+            l.tail = p;
+            this.heap[this.heapSize] = lane;
+            this.heapSize++;
+            this.siftUp(this.heapSize - 1);
+        } else {
+            l.tail.next = p;
+            l.tail = p;
+        }
+        l.length++;
+        this.length++;
+
+        assert this.laneHolds(lane);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert this.length() > 0 : "Violation of: length() > 0";
+
+        int lane = this.heap[0];
+        Lane l = this.lanes[lane];
+        Node p = l.head;
+        l.head = p.next;
+        l.length--;
+        if (l.length == 0) {
+            l.tail = null;
+            this.heapSize--;
+            this.heap[0] = this.heap[this.heapSize];
+        }
+        if (this.heapSize > 0) {
+            this.siftDown(0);
+        }
+        this.virtualTime = p.tag;
+        l.removed++;
+        l.waited += this.clock.getAsLong() - p.arrival;
+        this.length--;
+
+        assert this.laneHolds(lane);
+        assert this.conventionHolds();
+        return p.data;
+    }
+
+    @Override
+    public final int length() {
+        return this.length;
+    }
+
+    @Override
+    public final int lanes() {
+        return this.lanes.length;
+    }
+
+    @Override
+    public final int laneLength(int lane) {
+        assert this.isLane(lane);
+
+        return this.lanes[lane].length;
+    }
+
+    @Override
+    public final int laneWeight(int lane) {
+        assert this.isLane(lane);
+
+        return this.lanes[lane].weight;
+    }
+
+    @Override
+    public final long laneRemoved(int lane) {
+        assert this.isLane(lane);
+
+        return this.lanes[lane].removed;
+    }
+
+    @Override
+    public final long laneWaitTime(int lane) {
+        assert this.isLane(lane);
+
+        return this.lanes[lane].waited;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new PriorityWaitingLine1Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    @Override
+    public final int frontLane() {
+        assert this.length() > 0 : "Violation of: length() > 0";
+
+        return this.heap[0];
+    }
+
+    @Override
+    public final T front() {
+        assert this.length() > 0 : "Violation of: length() > 0";
+
+        return this.lanes[this.heap[0]].head.data;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code PriorityWaitingLine1}: the entries of lane 0 front to back, then
+     * those of lane 1, and so on.
+     */
+    private final class PriorityWaitingLine1Iterator implements Iterator<T> {
+
+        /**
+         * Lane of the current node.
+         */
+        private int lane;
+
+        /**
+         * Current node, or null when all lanes have been seen.
+         */
+        private Node current;
+
+        /**
+         * No-argument constructor.
+         */
+        private PriorityWaitingLine1Iterator() {
+            this.lane = 0;
+            this.current = PriorityWaitingLine1.this.lanes[0].head;
+            this.skipEmptyLanes();
+        }
+
+        /**
+         * Advances to the next non-empty lane while {@code current} is null.
+         */
+        private void skipEmptyLanes() {
+            Lane[] all = PriorityWaitingLine1.this.lanes;
+            while (this.current == null && this.lane + 1 < all.length) {
+                this.lane++;
+                this.current = all[this.lane].head;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.data;
+            this.current = this.current.next;
+            this.skipEmptyLanes();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
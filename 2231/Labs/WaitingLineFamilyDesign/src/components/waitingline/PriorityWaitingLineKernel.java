@@ -0,0 +1,145 @@
+package components.waitingline;
+
+import components.standard.Standard;
+
+/**
+ * Multi-class waiting line kernel component with primary methods: entries wait
+ * in per-class first-in-first-out "lanes", and lanes take turns at the front
+ * in proportion to their weights (weighted fair queueing).
+ *
+ * @param <T>
+ *            type of {@code PriorityWaitingLineKernel} entries
+ * @mathsubtypes <pre>
+ * LANE is (
+ *   entries: string of T,
+ *   weight: integer,
+ *   removed: integer,
+ *   waited: integer
+ *  )
+ *  exemplar l
+ *  constraint
+ *   l.weight > 0  and  l.removed >= 0  and  l.waited >= 0
+ * </pre>
+ * @mathmodel type PriorityWaitingLineKernel is modeled by string of LANE
+ * @initially
+ *
+ *            <pre>
+ * (int[] weights):
+ *  requires
+ *   |weights| > 0  and  [every entry of weights is positive]
+ *  ensures
+ *   |this| = |weights|  and
+ *   for all i: integer where (0 <= i < |this|)
+ *    (this[i].entries = <>  and  this[i].weight = weights[i]  and
+ *     this[i].removed = 0  and  this[i].waited = 0)
+ *            </pre>
+ *
+ * @iterator <pre>
+ * ~this.seen * ~this.unseen =
+ *  this[0].entries * this[1].entries * ... * this[|this|-1].entries
+ * </pre>
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public interface PriorityWaitingLineKernel<T>
+        extends Standard<PriorityWaitingLine<T>>, Iterable<T> {
+
+    /**
+     * Adds {@code x} to the end of lane {@code lane} of {@code this}.
+     *
+     * @param x
+     *            the entry to be added
+     * @param lane
+     *            the lane to which {@code x} is added
+     * @aliases reference {@code x}
+     * @updates this
+     * @requires 0 <= lane < lanes()
+     * @ensures <pre>
+     * this[lane].entries = #this[lane].entries * <x>  and
+     * [the other lanes of this are unchanged]
+     * </pre>
+     */
+    void add(T x, int lane);
+
+    /**
+     * Removes and returns the entry at the front of the lane whose turn it is
+     * under the weighted-fair schedule.
+     *
+     * @return the entry removed
+     * @updates this
+     * @requires length() > 0
+     * @ensures <pre>
+     * [k is the lane chosen by the weighted-fair schedule]  and
+     * #this[k].entries = <removeFirst> * this[k].entries  and
+     * this[k].removed = #this[k].removed + 1  and
+     * this[k].waited = #this[k].waited +
+     *   [nanoseconds removeFirst spent in this]  and
+     * [the other lanes of this are unchanged]
+     * </pre>
+     */
+    T removeFirst();
+
+    /**
+     * Reports the total number of entries in {@code this}.
+     *
+     * @return the number of entries in {@code this}
+     * @ensures length = [sum of |this[i].entries| over all lanes i]
+     */
+    int length();
+
+    /**
+     * Reports the number of lanes of {@code this}.
+     *
+     * @return the number of lanes
+     * @ensures lanes = |this|
+     */
+    int lanes();
+
+    /**
+     * Reports the number of entries in lane {@code lane} of {@code this}.
+     *
+     * @param lane
+     *            the lane
+     * @return the length of lane {@code lane}
+     * @requires 0 <= lane < lanes()
+     * @ensures laneLength = |this[lane].entries|
+     */
+    int laneLength(int lane);
+
+    /**
+     * Reports the weight of lane {@code lane} of {@code this}.
+     *
+     * @param lane
+     *            the lane
+     * @return the weight of lane {@code lane}
+     * @requires 0 <= lane < lanes()
+     * @ensures laneWeight = this[lane].weight
+     */
+    int laneWeight(int lane);
+
+    /**
+     * Reports the number of entries removed so far from lane {@code lane} of
+     * {@code this}.
+     *
+     * @param lane
+     *            the lane
+     * @return the number of entries removed from lane {@code lane}
+     * @requires 0 <= lane < lanes()
+     * @ensures laneRemoved = this[lane].removed
+     */
+    long laneRemoved(int lane);
+
+    /**
+     * Reports the total time, in nanoseconds, that the entries removed so far
+     * from lane {@code lane} of {@code this} spent waiting.
+     *
+     * @param lane
+     *            the lane
+     * @return the total wait time of lane {@code lane}, in nanoseconds
+     * @requires 0 <= lane < lanes()
+     * @ensures laneWaitTime = this[lane].waited
+     */
+    long laneWaitTime(int lane);
+
+}
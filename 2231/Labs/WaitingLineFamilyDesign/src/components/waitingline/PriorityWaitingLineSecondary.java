@@ -0,0 +1,109 @@
+package components.waitingline;
+
+import java.util.Iterator;
+
+/**
+ * Layered implementations of secondary methods for
+ * {@code PriorityWaitingLine}.
+ *
+ * @param <T>
+ *            type of {@code PriorityWaitingLine} entries
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public abstract class PriorityWaitingLineSecondary<T>
+        implements PriorityWaitingLine<T> {
+
+    /*
+     * Common methods (from Object) -------------------------------------------
+     */
+
+    @Override
+    public int hashCode() {
+        final int samples = 2;
+        final int a = 37;
+        final int b = 17;
+        int result = this.lanes();
+        int n = 0;
+        Iterator<T> it = this.iterator();
+        while (n < samples && it.hasNext()) {
+            n++;
+            T x = it.next();
+            result = a * result + b * x.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof PriorityWaitingLine<?>)) {
+            return false;
+        }
+        PriorityWaitingLine<?> w = (PriorityWaitingLine<?>) obj;
+        if (this.lanes() != w.lanes()) {
+            return false;
+        }
+        for (int i = 0; i < this.lanes(); i++) {
+            if (this.laneLength(i) != w.laneLength(i)
+                    || this.laneWeight(i) != w.laneWeight(i)) {
+                return false;
+            }
+        }
+        Iterator<T> it1 = this.iterator();
+        Iterator<?> it2 = w.iterator();
+        while (it1.hasNext()) {
+            T x1 = it1.next();
+            Object x2 = it2.next();
+            if (!x1.equals(x2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("<");
+        Iterator<T> it = this.iterator();
+        for (int i = 0; i < this.lanes(); i++) {
+            result.append("<");
+            for (int j = 0; j < this.laneLength(i); j++) {
+                result.append(it.next());
+                if (j + 1 < this.laneLength(i)) {
+                    result.append(",");
+                }
+            }
+            result.append(">");
+            if (i + 1 < this.lanes()) {
+                result.append(",");
+            }
+        }
+        result.append(">");
+        return result.toString();
+    }
+
+    /*
+     * Other non-kernel methods -----------------------------------------------
+     */
+
+    @Override
+    public double averageWaitTime(int lane) {
+        assert 0 <= lane : "Violation of: 0 <= lane";
+        assert lane < this.lanes() : "Violation of: lane < lanes()";
+
+        double average = 0;
+        long removed = this.laneRemoved(lane);
+        if (removed > 0) {
+            average = (double) this.laneWaitTime(lane) / removed;
+        }
+        return average;
+    }
+
+}
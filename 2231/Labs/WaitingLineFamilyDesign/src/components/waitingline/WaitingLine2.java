@@ -0,0 +1,550 @@
+package components.waitingline;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * {@code WaitingLine} represented as an array of "ticket" slots, a hash index
+ * from each entry to its ticket, and a Fenwick (binary indexed) tree counting
+ * the vacated tickets, with implementations of primary methods.
+ *
+ * <p>
+ * Tickets are handed out in increasing order by {@code add}, so the order of
+ * tickets is the order of the line. An entry's position is its ticket minus the
+ * ticket at the front, less the number of vacated tickets in between, which the
+ * Fenwick tree reports in O(log |this|). Hence {@code contains} is O(1)
+ * expected, {@code pos} and {@code remove} are O(log |this|), {@code add},
+ * {@code removeFirst} and {@code front} are O(1) amortized, and
+ * {@code add(x, pos)} with {@code pos < |this|} is O(|this|).
+ *
+ * @param <T>
+ *            type of {@code WaitingLine} entries
+ * @convention <pre>
+ * 0 <= $this.head <= $this.tail <= |$this.slots|  and
+ * |$this.holes| = |$this.slots| + 1  and
+ * [$this.slots[i] is null for i < $this.head and $this.tail <= i]  and
+ * ($this.head < $this.tail implies
+ *   $this.slots[$this.head] is not null)  and
+ * $this.length = [number of non-null entries of $this.slots]  and
+ * $this.index = {(x, i) : $this.slots[i] = x is not null}  and
+ * [$this.holes is the Fenwick tree of the indicator of
+ *  {i : $this.head <= i < $this.tail and $this.slots[i] is null} plus
+ *  possibly some indices below $this.head]
+ * </pre>
+ * @correspondence <pre>
+ * this = [non-null entries of $this.slots[$this.head, $this.tail), in order]
+ * </pre>
+ */
+public class WaitingLine2<T> extends WaitingLineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial (and minimum) number of ticket slots.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Entries by ticket; vacated tickets hold null.
+     */
+    private Object[] slots;
+
+    /**
+     * Fenwick tree over the ticket slots, 1-based, counting vacated tickets.
+     */
+    private int[] holes;
+
+    /**
+     * Ticket of the front entry, or {@code $this.tail} if {@code this} is
+     * empty.
+     */
+    private int head;
+
+    /**
+     * Next ticket to hand out.
+     */
+    private int tail;
+
+    /**
+     * Number of entries, i.e., length = |this|.
+     */
+    private int length;
+
+    /**
+     * Ticket of each entry.
+     */
+    private Map<T, Integer> index;
+
+    /**
+     * Checks, in constant expected time, that the part of the convention
+     * repeated below holds for the current representation. The clauses over
+     * all of {@code $this.slots} are checked only at the ends of
+     * {@code [$this.head, $this.tail)}; see {@code fullConventionHolds} for
+     * the check of every slot.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.head <= $this.tail <= |$this.slots|  and
+     * |$this.holes| = |$this.slots| + 1  and
+     * ($this.head < $this.tail implies
+     *   $this.slots[$this.head] is not null  and
+     *   $this.index($this.slots[$this.head]) = $this.head)  and
+     * (0 < $this.head implies $this.slots[$this.head - 1] is null)  and
+     * ($this.tail < |$this.slots| implies $this.slots[$this.tail] is null)  and
+     * $this.length <= $this.tail - $this.head  and
+     * |$this.index| = $this.length
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.head : "Violation of: 0 <= $this.head";
+        assert this.head <= this.tail : ""
+                + "Violation of: $this.head <= $this.tail";
+        assert this.tail <= this.slots.length : ""
+                + "Violation of: $this.tail <= |$this.slots|";
+        assert this.holes.length == this.slots.length + 1 : ""
+                + "Violation of: |$this.holes| = |$this.slots| + 1";
+        assert this.head == this.tail || this.slots[this.head] != null : ""
+                + "Violation of: [front slot is not vacated]";
+        assert this.head == this.tail
+                || this.index.get(this.slots[this.head]) == this.head : ""
+                        + "Violation of: [index maps each entry to its slot]";
+        assert this.head == 0 || this.slots[this.head - 1] == null : ""
+                + "Violation of: [slots outside [head, tail) are null]";
+        assert this.tail == this.slots.length
+                || this.slots[this.tail] == null : ""
+                        + "Violation of: [slots outside [head, tail) are null]";
+        assert this.length <= this.tail - this.head : ""
+                + "Violation of: $this.length <= $this.tail - $this.head";
+        assert this.index.size() == this.length : ""
+                + "Violation of: |$this.index| = $this.length";
+        return true;
+    }
+
+    /**
+     * Checks that the whole convention, but for the clause about
+     * {@code $this.holes}, holds for the current representation: every ticket
+     * slot is visited and every entry looked up in {@code $this.index}. Only
+     * the constructor, {@code clear} and {@code transferFrom} call it, since
+     * each of them replaces every slot at once.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.head <= $this.tail <= |$this.slots|  and
+     * |$this.holes| = |$this.slots| + 1  and
+     * [$this.slots[i] is null for i < $this.head and $this.tail <= i]  and
+     * ($this.head < $this.tail implies
+     *   $this.slots[$this.head] is not null)  and
+     * $this.length = [number of non-null entries of $this.slots]  and
+     * $this.index = {(x, i) : $this.slots[i] = x is not null}
+     * </pre>
+     */
+    private boolean fullConventionHolds() {
+        assert this.conventionHolds();
+        int count = 0;
+        for (int i = 0; i < this.slots.length; i++) {
+            if (i < this.head || this.tail <= i) {
+                assert this.slots[i] == null : ""
+                        + "Violation of: [slots outside [head, tail) are null]";
+            } else if (this.slots[i] != null) {
+                count++;
+                assert this.index.get(this.slots[i]) == i : ""
+                        + "Violation of: [index maps each entry to its slot]";
+            }
+        }
+        assert this.length == count : ""
+                + "Violation of: $this.length = [number of entries]";
+        return true;
+    }
+
+    /**
+     * Returns the number of tickets in {@code [0, i)} marked vacated in
+     * {@code $this.holes}.
+     *
+     * @param i
+     *            the end of the ticket range
+     * @return the number of marked tickets below {@code i}
+     * @requires 0 <= i <= |$this.slots|
+     */
+    private int holesBefore(int i) {
+        int sum = 0;
+        int j = i;
+        while (j > 0) {
+            sum += this.holes[j];
+            j -= j & -j;
+        }
+        return sum;
+    }
+
+    /**
+     * Marks ticket {@code i} as vacated in {@code $this.holes}.
+     *
+     * @param i
+     *            the ticket
+     * @updates $this.holes
+     * @requires 0 <= i < |$this.slots|
+     */
+    private void markHole(int i) {
+        int j = i + 1;
+        while (j < this.holes.length) {
+            this.holes[j]++;
+            j += j & -j;
+        }
+    }
+
+    /**
+     * Returns the position in {@code this} of the entry holding ticket
+     * {@code i}.
+     *
+     * @param i
+     *            the ticket
+     * @return the position of the entry holding ticket {@code i}
+     * @requires $this.slots[i] is not null
+     */
+    private int rank(int i) {
+        return (i - this.head) - (this.holesBefore(i)
+                - this.holesBefore(this.head));
+    }
+
+    /**
+     * Returns the ticket of the entry at position {@code pos} in {@code this},
+     * by descending the Fenwick tree.
+     *
+     * @param pos
+     *            the position
+     * @return the ticket of {@code this[pos, pos+1)}
+     * @requires 0 <= pos < |this|
+     */
+    private int ticketAt(int pos) {
+        /*
+         * Find the (remaining + 1)-th unmarked ticket, counting from ticket
+         * 0; unmarked tickets below head are the ones vacated by removeFirst.
+         */
+        int remaining = this.head - this.holesBefore(this.head) + pos;
+        int p = 0;
+        int step = Integer.highestOneBit(this.slots.length);
+        while (step > 0) {
+            int next = p + step;
+            if (next <= this.slots.length) {
+                int unmarked = step - this.holes[next];
+                if (unmarked <= remaining) {
+                    p = next;
+                    remaining -= unmarked;
+                }
+            }
+            step = step / 2;
+        }
+        return p;
+    }
+
+    /**
+     * Advances {@code $this.head} past vacated tickets.
+     *
+     * @updates $this.head
+     * @ensures <pre>
+     * $this.head = [smallest i >= #$this.head such that
+     *               $this.slots[i] is not null, or $this.tail if none]
+     * </pre>
+     */
+    private void skipVacated() {
+        while (this.head < this.tail && this.slots[this.head] == null) {
+            this.head++;
+        }
+    }
+
+    /**
+     * Renumbers the tickets of all entries from 0, into new arrays with room
+     * for at least {@code |this|} more tickets, optionally inserting {@code x}
+     * at position {@code pos}.
+     *
+     * @param x
+     *            the entry to insert, or null for none
+     * @param pos
+     *            the position at which to insert {@code x}
+     * @updates $this
+     * @requires 0 <= pos <= |this|
+     * @ensures <pre>
+     * this = #this[0, pos) * <x> * #this[pos, |#this|)  (x not null)  or
+     * this = #this  (x null)
+     * </pre>
+     */
+    private void rebuild(T x, int pos) {
+        int newLength = this.length;
+        if (x != null) {
+            newLength++;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, 2 * newLength);
+        Object[] newSlots = new Object[capacity];
+        int j = 0;
+        for (int i = this.head; i < this.tail; i++) {
+            if (j == pos && x != null) {
+                newSlots[j] = x;
+                this.index.put(x, j);
+                j++;
+            }
+            if (this.slots[i] != null) {
+                newSlots[j] = this.slots[i];
+                this.index.put(this.entryAt(i), j);
+                j++;
+            }
+        }
+        if (j == pos && x != null) {
+            newSlots[j] = x;
+            this.index.put(x, j);
+            j++;
+        }
+        this.slots = newSlots;
+        this.holes = new int[capacity + 1];
+        this.head = 0;
+        this.tail = j;
+        this.length = j;
+    }
+
+    /**
+     * Returns the entry holding ticket {@code i}.
+     *
+     * @param i
+     *            the ticket
+     * @return the entry at {@code $this.slots[i]}
+     * @requires $this.slots[i] is not null
+     */
+    @SuppressWarnings("unchecked")
+    private T entryAt(int i) {
+        /*
+         * This cast cannot fail since only values of type T are ever stored in
+         * the array.
+         */
+        return (T) this.slots[i];
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.slots = new Object[INITIAL_CAPACITY];
+        this.holes = new int[INITIAL_CAPACITY + 1];
+        this.head = 0;
+        this.tail = 0;
+        this.length = 0;
+        this.index = new HashMap<T, Integer>();
+    }
+
+    /*
+     * Constructor ------------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public WaitingLine2() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final WaitingLine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.fullConventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(WaitingLine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof WaitingLine2<?> : ""
+                + "Violation of: source is of dynamic type WaitingLine2<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * WaitingLine2<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        WaitingLine2<T> localSource = (WaitingLine2<T>) source;
+        this.slots = localSource.slots;
+        this.holes = localSource.holes;
+        this.head = localSource.head;
+        this.tail = localSource.tail;
+        this.length = localSource.length;
+        this.index = localSource.index;
+        localSource.createNewRep();
+        assert this.fullConventionHolds();
+        assert localSource.fullConventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.tail == this.slots.length) {
+            this.rebuild(null, 0);
+        }
+        this.slots[this.tail] = x;
+        this.index.put(x, this.tail);
+        this.tail++;
+        this.length++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        T x = this.entryAt(this.head);
+        this.slots[this.head] = null;
+        this.index.remove(x);
+        this.length--;
+        this.skipVacated();
+
+        assert this.conventionHolds();
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.length;
+    }
+
+    @Override
+    public final boolean contains(T entry) {
+        assert entry != null : "Violation of: entry is not null";
+
+        return this.index.containsKey(entry);
+    }
+
+    @Override
+    public final int pos(T entry) {
+        assert entry != null : "Violation of: entry is not null";
+        assert this.contains(entry) : "Violation of: entry is in this";
+
+        return this.rank(this.index.get(entry));
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new WaitingLine2Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    @Override
+    public final T front() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        return this.entryAt(this.head);
+    }
+
+    @Override
+    public final void add(T x, int pos) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (pos == this.length) {
+            this.add(x);
+        } else {
+            this.rebuild(x, pos);
+            assert this.conventionHolds();
+        }
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        int ticket = this.ticketAt(pos);
+        T x = this.entryAt(ticket);
+        this.slots[ticket] = null;
+        this.index.remove(x);
+        this.length--;
+        if (ticket == this.head) {
+            this.skipVacated();
+        } else {
+            this.markHole(ticket);
+        }
+
+        assert this.conventionHolds();
+        return x;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code WaitingLine2}.
+     */
+    private final class WaitingLine2Iterator implements Iterator<T> {
+
+        /**
+         * Ticket of the next entry to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private WaitingLine2Iterator() {
+            this.current = WaitingLine2.this.head;
+            assert WaitingLine2.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < WaitingLine2.this.tail;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = WaitingLine2.this.entryAt(this.current);
+            this.current++;
+            while (this.current < WaitingLine2.this.tail
+                    && WaitingLine2.this.slots[this.current] == null) {
+                this.current++;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,264 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import components.waitingline.InstrumentedWaitingLine;
+import components.waitingline.WaitingLine;
+import components.waitingline.WaitingLine2;
+
+/**
+ * JUnit test fixture for the sojourn times and rates recorded by
+ * {@code InstrumentedWaitingLine}, timed by a clock the test advances by hand.
+ *
+ * <p>
+ * Sojourn times below 64 nanoseconds are kept exactly by
+ * {@code LogLinearHistogram}, so the tests keep to those where they check
+ * percentiles; {@code maxSojourn} is exact at any size.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class InstrumentedWaitingLineTest {
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * Clock that reads whatever time it was last set to.
+     */
+    private static final class ManualClock implements LongSupplier {
+
+        /**
+         * Current time, in nanoseconds.
+         */
+        private long now;
+
+        /**
+         * Moves the clock forward by {@code nanos}.
+         *
+         * @param nanos
+         *            the number of nanoseconds to advance
+         * @requires nanos >= 0
+         */
+        private void advance(long nanos) {
+            this.now += nanos;
+        }
+
+        @Override
+        public long getAsLong() {
+            return this.now;
+        }
+
+    }
+
+    @Test
+    public void testFifoSojourns() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        q.add("a");
+        clock.advance(10);
+        q.add("b");
+        clock.advance(10);
+        q.add("c");
+        clock.advance(10);
+        assertEquals("a", q.removeFirst());
+        assertEquals(30, q.maxSojourn());
+        clock.advance(5);
+        assertEquals("b", q.removeFirst());
+        clock.advance(5);
+        assertEquals("c", q.removeFirst());
+        /*
+         * Sojourns 30, 25 and 20.
+         */
+        assertEquals(30, q.maxSojourn());
+        assertEquals(25, q.p50());
+        assertEquals(30, q.p99());
+        assertEquals(30, q.p999());
+    }
+
+    @Test
+    public void testRemoveFromMiddleKeepsOtherArrivals() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        q.add("a");
+        clock.advance(10);
+        q.add("b");
+        clock.advance(10);
+        q.add("c");
+        clock.advance(5);
+        assertEquals("b", q.remove(1));
+        assertEquals(15, q.maxSojourn());
+        clock.advance(25);
+        assertEquals("a", q.removeFirst());
+        assertEquals("c", q.remove(0));
+        /*
+         * Sojourns 15, 50 and 30.
+         */
+        assertEquals(50, q.maxSojourn());
+        assertEquals(30, q.p50());
+    }
+
+    @Test
+    public void testAddAtPositionStampsThatEntry() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        q.add("a");
+        clock.advance(10);
+        q.add("b");
+        clock.advance(10);
+        q.add("c", 0);
+        clock.advance(10);
+        assertEquals("c", q.removeFirst());
+        assertEquals(10, q.maxSojourn());
+        assertEquals("a", q.removeFirst());
+        assertEquals("b", q.removeFirst());
+        /*
+         * Sojourns 10, 30 and 20.
+         */
+        assertEquals(30, q.maxSojourn());
+        assertEquals(20, q.p50());
+    }
+
+    @Test
+    public void testConstantDelayThroughWrapAndGrowth() {
+        final int delay = 40;
+        final int rounds = 100;
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<Integer> q;
+        q = new InstrumentedWaitingLine<Integer>(new WaitingLine2<Integer>(),
+                clock);
+        /*
+         * One add per tick and, once the line is delay long, one removal per
+         * tick, so every entry waits exactly delay ticks; the line is longer
+         * than the initial ring buffer, which wraps as the front moves.
+         */
+        int next = 0;
+        for (int t = 0; t < rounds; t++) {
+            q.add(next);
+            next++;
+            clock.advance(1);
+            if (q.length() == delay) {
+                assertEquals(Integer.valueOf(next - delay), q.removeFirst());
+                assertEquals(delay, q.maxSojourn());
+            }
+        }
+        assertEquals(delay, q.p50());
+        assertEquals(delay, q.p999());
+    }
+
+    @Test
+    public void testGrowthWhileWrappedKeepsOrder() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<Integer> q;
+        q = new InstrumentedWaitingLine<Integer>(new WaitingLine2<Integer>(),
+                clock);
+        List<Long> arrivals = new ArrayList<Long>();
+        int next = 0;
+        /*
+         * Move the front of the ring buffer along, then grow it past its
+         * initial capacity while it is wrapped.
+         */
+        for (int i = 0; i < 10; i++) {
+            q.add(next);
+            next++;
+            arrivals.add(clock.getAsLong());
+            clock.advance(1);
+        }
+        long max = 0;
+        for (int i = 0; i < 8; i++) {
+            q.removeFirst();
+            max = Math.max(max, clock.getAsLong() - arrivals.remove(0));
+            clock.advance(1);
+        }
+        for (int i = 0; i < 20; i++) {
+            q.add(next);
+            next++;
+            arrivals.add(clock.getAsLong());
+            clock.advance(2);
+        }
+        while (q.length() > 0) {
+            q.removeFirst();
+            max = Math.max(max, clock.getAsLong() - arrivals.remove(0));
+            assertEquals(max, q.maxSojourn());
+            clock.advance(1);
+        }
+    }
+
+    @Test
+    public void testInitialEntriesArriveAtConstruction() {
+        ManualClock clock = new ManualClock();
+        WaitingLine<String> line = new WaitingLine2<String>();
+        line.add("a");
+        line.add("b");
+        clock.advance(100);
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                line, clock);
+        clock.advance(7);
+        q.removeFirst();
+        clock.advance(2);
+        q.removeFirst();
+        assertEquals(9, q.maxSojourn());
+        assertEquals(7, q.p50());
+    }
+
+    @Test
+    public void testResetMetricsKeepsArrivals() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        q.add("a");
+        q.add("b");
+        clock.advance(3);
+        q.removeFirst();
+        assertEquals(3, q.maxSojourn());
+        clock.advance(2);
+        q.resetMetrics();
+        assertEquals(0, q.maxSojourn());
+        assertEquals(0, q.p50());
+        clock.advance(7);
+        q.removeFirst();
+        assertEquals(12, q.maxSojourn());
+        assertEquals(12, q.p99());
+    }
+
+    @Test
+    public void testRates() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        q.add("a");
+        q.add("b");
+        q.add("c");
+        q.add("d");
+        clock.advance(NANOS_PER_SECOND);
+        q.removeFirst();
+        clock.advance(NANOS_PER_SECOND);
+        assertEquals(2.0, q.arrivalRate(), 0.0);
+        assertEquals(0.5, q.departureRate(), 0.0);
+        assertEquals(NANOS_PER_SECOND, q.maxSojourn());
+    }
+
+    @Test
+    public void testNewInstanceUsesSameClock() {
+        ManualClock clock = new ManualClock();
+        InstrumentedWaitingLine<String> q = new InstrumentedWaitingLine<String>(
+                new WaitingLine2<String>(), clock);
+        InstrumentedWaitingLine<String> r = (InstrumentedWaitingLine<String>) q
+                .newInstance();
+        r.add("a");
+        clock.advance(42);
+        r.removeFirst();
+        assertEquals(42, r.maxSojourn());
+        assertEquals(0, q.maxSojourn());
+    }
+
+}
@@ -0,0 +1,276 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import components.waitingline.PriorityWaitingLine;
+import components.waitingline.PriorityWaitingLine1;
+
+/**
+ * JUnit test fixture for {@code PriorityWaitingLine1}'s weighted-fair
+ * schedule and per-lane counters.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class PriorityWaitingLine1Test {
+
+    /**
+     * Number of entries added to each lane by {@code backlogged}.
+     */
+    private static final int PER_LANE = 6;
+
+    /**
+     * Clock that reads whatever time it was last set to.
+     */
+    private static final class ManualClock implements LongSupplier {
+
+        /**
+         * Current time, in nanoseconds.
+         */
+        private long now;
+
+        /**
+         * Moves the clock forward by {@code nanos}.
+         *
+         * @param nanos
+         *            the number of nanoseconds to advance
+         * @requires nanos >= 0
+         */
+        private void advance(long nanos) {
+            this.now += nanos;
+        }
+
+        @Override
+        public long getAsLong() {
+            return this.now;
+        }
+
+    }
+
+    /**
+     * Returns a {@code PriorityWaitingLine1} with lanes of the given weights
+     * and {@code PER_LANE} entries in each lane, named by lane letter and
+     * arrival order ("a0", "a1", ..., "b0", ...).
+     *
+     * @param weights
+     *            the weight of each lane
+     * @return the waiting line
+     */
+    private static PriorityWaitingLine<String> backlogged(int... weights) {
+        PriorityWaitingLine<String> q = new PriorityWaitingLine1<String>(
+                weights);
+        for (int lane = 0; lane < weights.length; lane++) {
+            for (int i = 0; i < PER_LANE; i++) {
+                q.add((char) ('a' + lane) + Integer.toString(i), lane);
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Removes {@code n} entries from {@code q} and returns the lanes they were
+     * removed from, one digit per entry, checking along the way that
+     * {@code frontLane} and {@code front} predict each removal and that each
+     * lane is served in first-in-first-out order. Relies on the entries of
+     * each lane being numbered from 0 in arrival order.
+     *
+     * @param q
+     *            the waiting line
+     * @param n
+     *            the number of entries to remove
+     * @return the lanes served, in order
+     * @updates q
+     * @requires n <= q.length()
+     */
+    private static String serve(PriorityWaitingLine<String> q, int n) {
+        StringBuilder lanes = new StringBuilder();
+        for (int k = 0; k < n; k++) {
+            int lane = q.frontLane();
+            String front = q.front();
+            long removed = q.laneRemoved(lane);
+            String x = q.removeFirst();
+            assertEquals(front, x);
+            assertEquals((char) ('a' + lane) + Long.toString(removed), x);
+            assertEquals(removed + 1, q.laneRemoved(lane));
+            lanes.append(lane);
+        }
+        return lanes.toString();
+    }
+
+    @Test
+    public void testTwoToOneOrder() {
+        PriorityWaitingLine<String> q = backlogged(2, 1);
+        /*
+         * Lane 0 finishes at 1/2, 1, 3/2, ... and lane 1 at 1, 2, 3, ...; the
+         * tie at each whole number goes to lane 0.
+         */
+        assertEquals("001001001111", serve(q, 2 * PER_LANE));
+        assertEquals(0, q.length());
+    }
+
+    @Test
+    public void testThreeTwoOneShares() {
+        PriorityWaitingLine<String> q = backlogged(3, 2, 1);
+        assertEquals("010012", serve(q, PER_LANE));
+        assertEquals(3, q.laneRemoved(0));
+        assertEquals(2, q.laneRemoved(1));
+        assertEquals(1, q.laneRemoved(2));
+    }
+
+    @Test
+    public void testEqualWeightsAlternate() {
+        PriorityWaitingLine<String> q = backlogged(1, 1, 1);
+        assertEquals("012012012", serve(q, 3 * 3));
+    }
+
+    @Test
+    public void testIdleLaneGetsNoCredit() {
+        PriorityWaitingLine<String> q = new PriorityWaitingLine1<String>(
+                new int[] { 1, 1 });
+        for (int i = 0; i < PER_LANE; i++) {
+            q.add("a" + i, 0);
+        }
+        assertEquals("000", serve(q, 3));
+        /*
+         * Lane 1 was idle while lane 0 was served alone, so once it has an
+         * entry the two lanes alternate rather than lane 1 catching up.
+         */
+        for (int i = 0; i < PER_LANE; i++) {
+            q.add("b" + i, 1);
+        }
+        assertEquals("010101", serve(q, PER_LANE));
+    }
+
+    @Test
+    public void testCountersUpdated() {
+        PriorityWaitingLine<String> q = backlogged(2, 1);
+        assertEquals(2 * PER_LANE, q.length());
+        assertEquals(PER_LANE, q.laneLength(0));
+        assertEquals(PER_LANE, q.laneLength(1));
+        assertEquals(2, q.laneWeight(0));
+        assertEquals(1, q.laneWeight(1));
+        assertEquals(0, q.laneRemoved(0));
+        assertEquals(0, q.laneWaitTime(0));
+        serve(q, 3);
+        assertEquals(2 * PER_LANE - 3, q.length());
+        assertEquals(PER_LANE - 2, q.laneLength(0));
+        assertEquals(PER_LANE - 1, q.laneLength(1));
+        assertEquals(2, q.laneRemoved(0));
+        assertEquals(1, q.laneRemoved(1));
+        long waited0 = q.laneWaitTime(0);
+        long waited1 = q.laneWaitTime(1);
+        assertTrue(waited0 >= 0);
+        assertTrue(waited1 >= 0);
+        serve(q, 1);
+        assertEquals(3, q.laneRemoved(0));
+        assertEquals(1, q.laneRemoved(1));
+        assertTrue(q.laneWaitTime(0) >= waited0);
+        assertEquals(waited1, q.laneWaitTime(1));
+        assertEquals(2, q.laneWeight(0));
+    }
+
+    @Test
+    public void testWaitTimesFromClock() {
+        ManualClock clock = new ManualClock();
+        PriorityWaitingLine<String> q = new PriorityWaitingLine1<String>(
+                new int[] { 2, 1 }, clock);
+        q.add("a0", 0);
+        q.add("b0", 1);
+        clock.advance(10);
+        q.add("a1", 0);
+        clock.advance(10);
+        assertEquals("0", serve(q, 1));
+        assertEquals(20, q.laneWaitTime(0));
+        clock.advance(5);
+        /*
+         * a1 and b0 tie on their finish tags, and the tie goes to lane 0.
+         */
+        assertEquals("0", serve(q, 1));
+        assertEquals(20 + 15, q.laneWaitTime(0));
+        assertEquals(0, q.laneWaitTime(1));
+        clock.advance(5);
+        assertEquals("1", serve(q, 1));
+        assertEquals(30, q.laneWaitTime(1));
+        assertEquals(20 + 15, q.laneWaitTime(0));
+    }
+
+    @Test
+    public void testNewInstanceKeepsWeightsAndClock() {
+        ManualClock clock = new ManualClock();
+        PriorityWaitingLine<String> q = new PriorityWaitingLine1<String>(
+                new int[] { 3, 1 }, clock);
+        PriorityWaitingLine<String> r = q.newInstance();
+        assertEquals(2, r.lanes());
+        assertEquals(3, r.laneWeight(0));
+        assertEquals(1, r.laneWeight(1));
+        r.add("b0", 1);
+        clock.advance(42);
+        r.removeFirst();
+        assertEquals(42, r.laneWaitTime(1));
+    }
+
+    @Test
+    public void testTransferFromMovesLanes() {
+        PriorityWaitingLine<String> q = backlogged(2, 1);
+        serve(q, 3);
+        PriorityWaitingLine<String> r = q.newInstance();
+        r.transferFrom(q);
+        assertEquals(0, q.length());
+        assertEquals(0, q.laneRemoved(0));
+        assertEquals(2 * PER_LANE - 3, r.length());
+        assertEquals(2, r.laneRemoved(0));
+        assertEquals("001001111", serve(r, 2 * PER_LANE - 3));
+    }
+
+    @Test
+    public void testRandomSharesOverBusyPeriod() {
+        final int[] weights = { 5, 3, 1 };
+        final int rounds = 9000;
+        Random random = new Random(1);
+        PriorityWaitingLine<String> q = new PriorityWaitingLine1<String>(
+                weights);
+        int next = 0;
+        for (int lane = 0; lane < weights.length; lane++) {
+            q.add("x" + next, lane);
+            next++;
+        }
+        /*
+         * Keep every lane backlogged, refilling whichever lane was served,
+         * with some extra random arrivals; each lane's share of the removals
+         * is then its share of the total weight, to within one round.
+         */
+        for (int k = 0; k < rounds; k++) {
+            int lane = q.frontLane();
+            q.removeFirst();
+            q.add("x" + next, lane);
+            next++;
+            if (random.nextInt(4) == 0) {
+                q.add("x" + next, random.nextInt(weights.length));
+                next++;
+            }
+        }
+        final int totalWeight = 9;
+        for (int lane = 0; lane < weights.length; lane++) {
+            long expected = (long) rounds * weights[lane] / totalWeight;
+            assertTrue(Math.abs(q.laneRemoved(lane) - expected) <= 1);
+        }
+    }
+
+    @Test
+    public void testClearResetsLanesAndKeepsWeights() {
+        PriorityWaitingLine<String> q = backlogged(2, 1);
+        serve(q, 3);
+        q.clear();
+        assertEquals(0, q.length());
+        assertEquals(0, q.laneLength(0));
+        assertEquals(0, q.laneRemoved(0));
+        assertEquals(0, q.laneWaitTime(1));
+        assertEquals(2, q.laneWeight(0));
+        assertEquals(1, q.laneWeight(1));
+    }
+
+}
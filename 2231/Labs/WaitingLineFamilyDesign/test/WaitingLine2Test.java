@@ -0,0 +1,203 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.waitingline.WaitingLine;
+import components.waitingline.WaitingLine2;
+
+/**
+ * JUnit test fixture for {@code WaitingLine2}'s {@code pos} and
+ * {@code contains}, which are answered from the hash index and Fenwick tree
+ * rather than by walking the line.
+ *
+ * @author Ryan Shaffer
+ *
+ */
+public final class WaitingLine2Test {
+
+    /**
+     * Number of entries, more than the initial capacity so that tickets are
+     * renumbered along the way.
+     */
+    private static final int ENTRIES = 100;
+
+    /**
+     * Number of random operations in {@code testRandomAgainstList}.
+     */
+    private static final int OPERATIONS = 5000;
+
+    /**
+     * Checks that {@code q} has the entries of {@code expected}, in order,
+     * that {@code pos} reports the position of each, and that
+     * {@code contains} reports exactly the entries of {@code expected} among
+     * {@code candidates}.
+     *
+     * @param expected
+     *            the expected entries, in order
+     * @param q
+     *            the waiting line
+     * @param candidates
+     *            entries that may or may not be in {@code q}
+     */
+    private static void assertLine(List<String> expected,
+            WaitingLine<String> q, List<String> candidates) {
+        assertEquals(expected.size(), q.length());
+        List<String> actual = new ArrayList<String>();
+        for (String x : q) {
+            actual.add(x);
+        }
+        assertEquals(expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), i, q.pos(expected.get(i)));
+        }
+        for (String x : candidates) {
+            assertEquals(x, expected.contains(x), q.contains(x));
+        }
+    }
+
+    /**
+     * Returns the entries "e0", "e1", ..., "e{n-1}".
+     *
+     * @param n
+     *            the number of entries
+     * @return the entries
+     */
+    private static List<String> names(int n) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < n; i++) {
+            names.add("e" + i);
+        }
+        return names;
+    }
+
+    @Test
+    public void testPosAfterAdd() {
+        List<String> all = names(ENTRIES);
+        WaitingLine<String> q = new WaitingLine2<String>();
+        List<String> expected = new ArrayList<String>();
+        for (String x : all) {
+            assertFalse(q.contains(x));
+            q.add(x);
+            expected.add(x);
+            assertTrue(q.contains(x));
+            assertEquals(expected.size() - 1, q.pos(x));
+        }
+        assertLine(expected, q, all);
+    }
+
+    @Test
+    public void testPosAfterRemoveFirst() {
+        List<String> all = names(ENTRIES);
+        WaitingLine<String> q = new WaitingLine2<String>();
+        List<String> expected = new ArrayList<String>(all);
+        for (String x : all) {
+            q.add(x);
+        }
+        for (int i = 0; i < ENTRIES / 2; i++) {
+            assertEquals(expected.remove(0), q.removeFirst());
+        }
+        assertLine(expected, q, all);
+        /*
+         * Tickets handed out after the front has moved still rank correctly.
+         */
+        q.add("late");
+        expected.add("late");
+        assertLine(expected, q, all);
+    }
+
+    @Test
+    public void testPosAfterRemoveFromMiddle() {
+        List<String> all = names(ENTRIES);
+        WaitingLine<String> q = new WaitingLine2<String>();
+        List<String> expected = new ArrayList<String>(all);
+        for (String x : all) {
+            q.add(x);
+        }
+        /*
+         * Every third entry, then the new front, so that both vacated tickets
+         * inside the line and ones skipped at the front are exercised.
+         */
+        for (int pos = expected.size() - 1; pos > 0; pos -= 3) {
+            assertEquals(expected.remove(pos), q.remove(pos));
+        }
+        assertLine(expected, q, all);
+        assertEquals(expected.remove(0), q.remove(0));
+        assertEquals(expected.remove(0), q.removeFirst());
+        assertLine(expected, q, all);
+    }
+
+    @Test
+    public void testPosAfterReorderingAdd() {
+        List<String> all = names(ENTRIES);
+        WaitingLine<String> q = new WaitingLine2<String>();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < ENTRIES; i += 2) {
+            q.add(all.get(i));
+            expected.add(all.get(i));
+        }
+        q.remove(2);
+        expected.remove(2);
+        /*
+         * add(x, pos) with pos < |this| renumbers all tickets; the holes left
+         * by the remove above must not survive it.
+         */
+        q.add(all.get(1), 0);
+        expected.add(0, all.get(1));
+        assertLine(expected, q, all);
+        q.add(all.get(3), expected.size() / 2);
+        expected.add(expected.size() / 2, all.get(3));
+        assertLine(expected, q, all);
+        q.add(all.get(5), expected.size());
+        expected.add(all.get(5));
+        assertLine(expected, q, all);
+    }
+
+    @Test
+    public void testContainsAfterRemovedEntryIsAddedAgain() {
+        WaitingLine<String> q = new WaitingLine2<String>();
+        q.add("red");
+        q.add("green");
+        q.add("blue");
+        assertEquals("green", q.remove(1));
+        assertFalse(q.contains("green"));
+        assertEquals(1, q.pos("blue"));
+        q.add("green");
+        assertTrue(q.contains("green"));
+        assertEquals(2, q.pos("green"));
+        assertEquals(1, q.pos("blue"));
+    }
+
+    @Test
+    public void testRandomAgainstList() {
+        List<String> all = names(ENTRIES);
+        Random random = new Random(1);
+        WaitingLine<String> q = new WaitingLine2<String>();
+        List<String> expected = new ArrayList<String>();
+        for (int k = 0; k < OPERATIONS; k++) {
+            String x = all.get(random.nextInt(ENTRIES));
+            if (!expected.contains(x)) {
+                int pos = random.nextInt(expected.size() + 1);
+                q.add(x, pos);
+                expected.add(pos, x);
+            } else if (random.nextBoolean()) {
+                assertEquals(expected.remove(0), q.removeFirst());
+            } else {
+                int pos = random.nextInt(expected.size());
+                assertEquals(expected.remove(pos), q.remove(pos));
+            }
+            assertEquals(expected.size(), q.length());
+            if (!expected.isEmpty()) {
+                String y = expected.get(random.nextInt(expected.size()));
+                assertEquals(expected.indexOf(y), q.pos(y));
+            }
+        }
+        assertLine(expected, q, all);
+    }
+
+}
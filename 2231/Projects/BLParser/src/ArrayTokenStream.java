@@ -0,0 +1,161 @@
+/**
+ * {@code TokenStream} over tokens held in an array, which can be read from any
+ * position and by several streams at once.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class ArrayTokenStream implements TokenStream {
+
+    /**
+     * Initial capacity of the array made by {@code readAll}.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The tokens, shared by every stream made by {@code at}; never changed.
+     */
+    private final Token[] tokens;
+
+    /**
+     * Number of tokens in {@code tokens}.
+     */
+    private final int length;
+
+    /**
+     * Index of the front token.
+     */
+    private int position;
+
+    /**
+     * Constructor over {@code tokens[position, length)}.
+     *
+     * @param tokens
+     *            the tokens
+     * @param length
+     *            the number of tokens
+     * @param position
+     *            the index of the front token
+     */
+    private ArrayTokenStream(Token[] tokens, int length, int position) {
+        this.tokens = tokens;
+        this.length = length;
+        this.position = position;
+    }
+
+    /**
+     * Removes every token of {@code source}, up to and including
+     * {@code Tokenizer.END_OF_INPUT}, and returns a stream of them.
+     *
+     * @param source
+     *            the tokens
+     * @return the stream of the tokens of source
+     * @updates source
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of source]
+     * @ensures <pre>
+     * #source = readAll * source  and
+     *  [<Tokenizer.END_OF_INPUT> is a suffix of readAll, and occurs only there]
+     * </pre>
+     */
+    public static ArrayTokenStream readAll(TokenStream source) {
+        assert source != null : "Violation of: source is not null";
+
+        Token[] tokens = new Token[INITIAL_CAPACITY];
+        int length = 0;
+        Token token;
+        do {
+            token = source.dequeue();
+            if (length == tokens.length) {
+                Token[] bigger = new Token[2 * length];
+                System.arraycopy(tokens, 0, bigger, 0, length);
+                tokens = bigger;
+            }
+            tokens[length] = token;
+            length++;
+        } while (token.code() != Token.END_OF_INPUT);
+        return new ArrayTokenStream(tokens, length, 0);
+    }
+
+    /**
+     * Returns a new stream of the same tokens as {@code this}, whose front is
+     * the token at {@code position}; removing tokens from either stream does
+     * not change the other.
+     *
+     * @param position
+     *            the index of the front token of the new stream
+     * @return the new stream
+     * @requires 0 <= position < length()
+     */
+    public ArrayTokenStream at(int position) {
+        assert 0 <= position && position < this.length : ""
+                + "Violation of: 0 <= position < length()";
+
+        return new ArrayTokenStream(this.tokens, this.length, position);
+    }
+
+    /**
+     * Reports the number of tokens, removed or not.
+     *
+     * @return the number of tokens
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Reports the index of the front token, which is also the number of tokens
+     * removed if {@code this} was made by {@code readAll}.
+     *
+     * @return the index of the front token
+     */
+    public int position() {
+        return this.position;
+    }
+
+    /**
+     * Reports the token at index {@code i}, removed or not.
+     *
+     * @param i
+     *            the index
+     * @return the token
+     * @requires 0 <= i < length()
+     */
+    public Token get(int i) {
+        assert 0 <= i && i < this.length : "Violation of: 0 <= i < length()";
+
+        return this.tokens[i];
+    }
+
+    /**
+     * Removes tokens until the front is the token at index {@code position}.
+     *
+     * @param position
+     *            the index of the new front token
+     * @updates this
+     * @requires this.position() <= position < length()
+     */
+    public void skipTo(int position) {
+        assert this.position <= position : ""
+                + "Violation of: this.position() <= position";
+        assert position < this.length : "Violation of: position < length()";
+
+        this.position = position;
+    }
+
+    @Override
+    public Token front() {
+        assert this.position < this.length : "Violation of: |this| > 0";
+
+        return this.tokens[this.position];
+    }
+
+    @Override
+    public Token dequeue() {
+        assert this.position < this.length : "Violation of: |this| > 0";
+
+        Token token = this.tokens[this.position];
+        this.position++;
+        return token;
+    }
+
+}
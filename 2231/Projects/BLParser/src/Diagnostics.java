@@ -0,0 +1,72 @@
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * The syntax errors found by a recovering parse, in the order found. After an
+ * error, further errors are not kept until the parse next finds a token it
+ * expects, so one mistake is reported once even when the enclosing constructs
+ * trip over it too.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+final class Diagnostics {
+
+    /**
+     * The errors kept.
+     */
+    private final Queue<SyntaxException> errors;
+
+    /**
+     * Whether an error was kept and no expected token found since.
+     */
+    private boolean recovering;
+
+    /**
+     * No-argument constructor, for no errors.
+     */
+    Diagnostics() {
+        this.errors = new Queue1L<SyntaxException>();
+        this.recovering = false;
+    }
+
+    /**
+     * Adds {@code error}, unless no expected token has been found since the
+     * last error kept.
+     *
+     * @param error
+     *            the error
+     * @updates this
+     */
+    void add(SyntaxException error) {
+        if (!this.recovering) {
+            this.errors.enqueue(error);
+            this.recovering = true;
+        }
+    }
+
+    /**
+     * Records that the parse found a token it expected, so the next error is
+     * kept.
+     *
+     * @updates this
+     */
+    void expected() {
+        this.recovering = false;
+    }
+
+    /**
+     * Removes and returns the errors kept.
+     *
+     * @return the errors, in the order found
+     * @updates this
+     * @ensures [this has no errors]
+     */
+    Queue<SyntaxException> takeErrors() {
+        Queue<SyntaxException> taken = this.errors.newInstance();
+        taken.transferFrom(this.errors);
+        this.recovering = false;
+        return taken;
+    }
+
+}
@@ -1,3 +1,7 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import components.map.Map;
 import components.program.Program;
 import components.program.Program1;
@@ -8,83 +12,501 @@ import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
 import components.statement.Statement;
 import components.utilities.Reporter;
-import components.utilities.Tokenizer;
 
 /**
  * Layered implementation of secondary method {@code parse} for {@code Program}.
  *
+ * <p>
+ * {@code parseParallel} parses the same language in two phases: it first
+ * finds where each instruction body starts, then parses the bodies on a
+ * fork-join pool, and finally walks the program in order, as {@code parse}
+ * does, using the parsed bodies. So it reports the same first error as
+ * {@code parse}.
+ *
  * @author Ryan Shaffer.555
  * @author Chris Tuttle.219
  *
  */
 public final class Program1Parse1 extends Program1 {
 
+    /**
+     * Default largest number of instruction bodies parsed by one task of
+     * {@code parseParallel}.
+     */
+    public static final int DEFAULT_THRESHOLD = 16;
+
     /*
      * Private members --------------------------------------------------------
      */
 
+    /**
+     * Instruction bodies parsed ahead of the in-order walk of a program: one
+     * for each {@code INSTRUCTION name IS} in its tokens, parsed from the
+     * token after {@code IS}.
+     */
+    private static final class ParsedBodies {
+
+        /**
+         * The tokens of the program.
+         */
+        private final ArrayTokenStream tokens;
+
+        /**
+         * Empty body, to make the others from.
+         */
+        private final Statement prototype;
+
+        /**
+         * Index of the first token of each body, in increasing order.
+         */
+        private final int[] starts;
+
+        /**
+         * Index of the token just past each body parsed without error.
+         */
+        private final int[] ends;
+
+        /**
+         * Each body parsed without error; null until parsed, or if not.
+         */
+        private final Statement[] bodies;
+
+        /**
+         * Exception thrown parsing each body; null if none.
+         */
+        private final RuntimeException[] errors;
+
+        /**
+         * Constructor, finding where the bodies start.
+         *
+         * @param tokens
+         *            the tokens of the program
+         * @param prototype
+         *            an empty body
+         */
+        ParsedBodies(ArrayTokenStream tokens, Statement prototype) {
+            this.tokens = tokens;
+            this.prototype = prototype;
+            int[] found = new int[tokens.length()];
+            int count = 0;
+            for (int i = 0; i + 2 < tokens.length(); i++) {
+                if (tokens.get(i).code() == Token.INSTRUCTION
+                        && tokens.get(i + 2).code() == Token.IS) {
+                    found[count] = i + 3;
+                    count++;
+                }
+            }
+            this.starts = Arrays.copyOf(found, count);
+            this.ends = new int[count];
+            this.bodies = new Statement[count];
+            this.errors = new RuntimeException[count];
+        }
+
+        /**
+         * Reports the number of bodies.
+         *
+         * @return the number of bodies
+         */
+        int count() {
+            return this.starts.length;
+        }
+
+        /**
+         * Parses body {@code k}, keeping it, or the exception thrown parsing
+         * it, for {@code take}.
+         *
+         * @param k
+         *            the body number
+         * @requires 0 <= k < count()
+         */
+        void parse(int k) {
+            ArrayTokenStream stream = this.tokens.at(this.starts[k]);
+            Statement body = this.prototype.newInstance();
+            try {
+                Statement1Parse1.parseBlockFrom(stream, body, null);
+                this.bodies[k] = body;
+                this.ends[k] = stream.position();
+            } catch (RuntimeException e) {
+                this.errors[k] = e;
+            }
+        }
+
+        /**
+         * If a body was parsed from the front of the program tokens, moves it
+         * into {@code body} and removes its tokens.
+         *
+         * @param body
+         *            the instruction body
+         * @return whether a body was parsed from the front
+         * @throws RuntimeException
+         *             the exception thrown parsing the body at the front, if
+         *             any
+         * @replaces body
+         */
+        boolean take(Statement body) {
+            int k = Arrays.binarySearch(this.starts, this.tokens.position());
+            boolean found = k >= 0;
+            if (found) {
+                if (this.errors[k] != null) {
+                    throw this.errors[k];
+                }
+                body.transferFrom(this.bodies[k]);
+                this.bodies[k] = null;
+                this.tokens.skipTo(this.ends[k]);
+            }
+            return found;
+        }
+
+    }
+
+    /**
+     * Fork-join task parsing a range of the bodies of a {@code ParsedBodies},
+     * splitting it in halves until there are at most {@code threshold}.
+     */
+    private static final class BodiesTask extends RecursiveAction {
+
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The bodies.
+         */
+        private final transient ParsedBodies parsed;
+
+        /**
+         * Number of the first body to parse.
+         */
+        private final int from;
+
+        /**
+         * Number just past the last body to parse.
+         */
+        private final int to;
+
+        /**
+         * Largest number of bodies parsed without splitting.
+         */
+        private final int threshold;
+
+        /**
+         * Constructor.
+         *
+         * @param parsed
+         *            the bodies
+         * @param from
+         *            number of the first body to parse
+         * @param to
+         *            number just past the last body to parse
+         * @param threshold
+         *            largest number of bodies parsed without splitting
+         */
+        BodiesTask(ParsedBodies parsed, int from, int to, int threshold) {
+            this.parsed = parsed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.threshold) {
+                for (int k = this.from; k < this.to; k++) {
+                    this.parsed.parse(k);
+                }
+            } else {
+                int middle = (this.from + this.to) / 2;
+                invokeAll(
+                        new BodiesTask(this.parsed, this.from, middle,
+                                this.threshold),
+                        new BodiesTask(this.parsed, middle, this.to,
+                                this.threshold));
+            }
+        }
+
+    }
+
+    /**
+     * Names of the primitive instructions of the BL language.
+     */
+    private static final String[] PRIMITIVES = { "move", "turnleft",
+            "turnright", "infect", "skip" };
+
+    /**
+     * Reports whether {@code name} is the name of a primitive instruction.
+     *
+     * @param name
+     *            the name
+     * @return whether name is in PRIMITIVES
+     */
+    private static boolean isPrimitive(Token name) {
+        boolean primitive = false;
+        for (String p : PRIMITIVES) {
+            primitive = primitive || p.equals(name.text());
+        }
+        return primitive;
+    }
+
+    /**
+     * Checks that {@code name} can name a new instruction of a program whose
+     * instructions so far are in {@code ctxt}.
+     *
+     * @param name
+     *            the instruction name
+     * @param ctxt
+     *            the instructions so far
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @return whether name is not a keyword, a primitive instruction or the
+     *         name of an instruction in ctxt
+     * @throws SyntaxException
+     *             if name cannot name a new instruction and errors = null
+     * @updates errors
+     */
+    private static boolean isNewName(Token name, Map<String, Statement> ctxt,
+            Diagnostics errors) {
+        return Statement1Parse1.expect(name.kind() != Token.Kind.KEYWORD, name,
+                "Identifier cannot be a keyword of the language.", errors)
+                && Statement1Parse1.expect(!isPrimitive(name), name,
+                        "Identifier cannot be a primitive instruction.",
+                        errors)
+                && Statement1Parse1.expect(!ctxt.hasKey(name.text()), name,
+                        "Duplicate identifier used as instruction name.",
+                        errors);
+    }
+
+    /**
+     * Removes the identifier at the front of {@code tokens} and returns it; if
+     * there is none, reports it to {@code errors}, removes the front token
+     * unless it is a keyword, and returns null.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @return the identifier, or null
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     */
+    private static Token parseName(TokenStream tokens, Diagnostics errors) {
+        Token name = tokens.front();
+        if (Statement1Parse1.expect(name.isIdentifier(), name,
+                "Invalid identifier", errors)) {
+            tokens.dequeue();
+        } else {
+            if (name.kind() != Token.Kind.KEYWORD
+                    && name.kind() != Token.Kind.END_OF_INPUT) {
+                tokens.dequeue();
+            }
+            name = null;
+        }
+        return name;
+    }
+
+    /**
+     * Parses a block from {@code tokens} into {@code body}. When recovering,
+     * a stray {@code ELSE} after the block is reported and skipped, and the
+     * block goes on after it.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param body
+     *            the parsed block
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @replaces body
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     */
+    private static void parseBody(TokenStream tokens, Statement body,
+            Diagnostics errors) {
+        Statement1Parse1.parseBlockFrom(tokens, body, errors);
+        if (errors != null) {
+            Statement more = body.newInstance();
+            Token front = tokens.front();
+            while (front.code() == Token.ELSE) {
+                Statement1Parse1.expect(false, front, "Invalid token", errors);
+                tokens.dequeue();
+                Statement1Parse1.parseBlockFrom(tokens, more, errors);
+                while (more.lengthOfBlock() > 0) {
+                    body.addToBlock(body.lengthOfBlock(),
+                            more.removeFromBlock(0));
+                }
+                front = tokens.front();
+            }
+        }
+    }
+
     /**
      * Parses a single BL instruction from {@code tokens} returning the
-     * instruction name as the value of the function and the body of the
+     * instruction name token as the value of the function and the body of the
      * instruction in {@code body}.
      *
      * @param tokens
      *            the input tokens
      * @param body
      *            the instruction body
-     * @return the instruction name
+     * @param parsed
+     *            bodies parsed ahead, or null
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @return the instruction name token, or null if it is not an identifier
      * @replaces body
-     * @updates tokens
+     * @updates tokens, errors
      * @requires <pre>
      * [<"INSTRUCTION"> is a prefix of tokens]  and
      *  [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
      * </pre>
      * @ensures <pre>
      * if [an instruction string is a proper prefix of #tokens]  and
-     *    [the beginning name of this instruction equals its ending name]  and
-     *    [the name of this instruction does not equal the name of a primitive
-     *     instruction in the BL language] then
-     *  parseInstruction = [name of instruction at start of #tokens]  and
+     *    [the beginning name of this instruction equals its ending name] then
+     *  parseInstruction = [name token of instruction at start of #tokens]  and
      *  body = [Statement corresponding to statement string of body of
      *          instruction at start of #tokens]  and
      *  #tokens = [instruction string at start of #tokens] * tokens
+     * else if errors = null then
+     *  [throws SyntaxException]
      * else
-     *  [report an appropriate error message to the console and terminate client]
+     *  [reports the errors to errors and parses as much as it can]
      * </pre>
      */
-    private static String parseInstruction(Queue<String> tokens,
-            Statement body) {
+    private static Token parseInstruction(TokenStream tokens, Statement body,
+            ParsedBodies parsed, Diagnostics errors) {
         assert tokens != null : "Violation of: tokens is not null";
         assert body != null : "Violation of: body is not null";
-        assert tokens.length() > 0 && tokens.front().equals("INSTRUCTION") : ""
+        assert tokens.front().code() == Token.INSTRUCTION : ""
                 + "Violation of: <\"INSTRUCTION\"> is proper prefix of tokens";
         /*
          * Dequeue the first 3 tokens, and make sure that they are correct
          * tokens and identifier.
          */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("INSTRUCTION"),
-                "Invalid token");
-        String startName = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isIdentifier(startName),
-                "Invalid identifier");
-        Reporter.assertElseFatalError(tokens.dequeue().equals("IS"),
-                "Invalid token");
+        tokens.dequeue();
+        Token startName = parseName(tokens, errors);
+        Statement1Parse1.parseKeyword(tokens, Token.IS, errors);
         /*
-         * Parse the block.
+         * Parse the block, unless it was parsed ahead.
          */
-        body.parseBlock(tokens);
+        if (parsed == null || !parsed.take(body)) {
+            parseBody(tokens, body, errors);
+        }
         /*
          * Dequeue the last 2 tokens and make sure that they are the correct
          * token and identifier. Make sure start and end names are the same.
          */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("END"),
-                "Invalid token");
-        String endName = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isIdentifier(endName),
-                "Invalid identifier");
-        Reporter.assertElseFatalError(startName.equals(endName),
-                "More than one identifier used as instruction name.");
-        return endName;
+        if (Statement1Parse1.parseKeyword(tokens, Token.END, errors)) {
+            Token endName = parseName(tokens, errors);
+            if (startName != null && endName != null) {
+                Statement1Parse1.expect(
+                        startName.text().equals(endName.text()), endName,
+                        "More than one identifier used as instruction name.",
+                        errors);
+            }
+        }
+        return startName;
+    }
+
+    /**
+     * Parses a BL program from {@code tokens} into {@code this}, taking the
+     * instruction bodies in {@code parsed} instead of parsing them again.
+     *
+     * @param tokens
+     *            the input tokens; {@code parsed.tokens} if parsed is not null
+     * @param parsed
+     *            bodies parsed ahead, or null
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @replaces this
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [tokens is a valid BL program] then
+     *  this = [Program corresponding to #tokens]  and
+     *  tokens = <>
+     * else if errors = null then
+     *  [throws SyntaxException]
+     * else
+     *  [reports the errors to errors]  and
+     *  this = [the parts of #tokens that could be parsed]  and
+     *  tokens = <>
+     * </pre>
+     */
+    private void parseProgram(TokenStream tokens, ParsedBodies parsed,
+            Diagnostics errors) {
+        /*
+         * Dequeue start tokens/identifier.
+         */
+        Statement1Parse1.parseKeyword(tokens, Token.PROGRAM, errors);
+        Token startName = parseName(tokens, errors);
+        Statement1Parse1.parseKeyword(tokens, Token.IS, errors);
+        /*
+         * Parse instructions; when recovering, skip anything else up to the
+         * next instruction or the main block.
+         */
+        Map<String, Statement> ctxt = this.newContext();
+        Token front = tokens.front();
+        while (front.code() != Token.BEGIN && (errors == null
+                || front.code() != Token.END_OF_INPUT)) {
+            if (Statement1Parse1.expect(front.code() == Token.INSTRUCTION,
+                    front, "Invalid token", errors)) {
+                Statement body = this.newBody();
+                Token instr = parseInstruction(tokens, body, parsed, errors);
+                if (instr != null && isNewName(instr, ctxt, errors)) {
+                    ctxt.add(instr.text(), body);
+                }
+            } else {
+                do {
+                    tokens.dequeue();
+                } while (tokens.front().code() != Token.INSTRUCTION
+                        && tokens.front().code() != Token.BEGIN
+                        && tokens.front().code() != Token.END_OF_INPUT);
+            }
+            front = tokens.front();
+        }
+        /*
+         * Parse main block.
+         */
+        Statement1Parse1.parseKeyword(tokens, Token.BEGIN, errors);
+        Statement block = this.newBody();
+        parseBody(tokens, block, errors);
+        /*
+         * Dequeue the end, name, and EOI; when recovering, skip anything
+         * before the end, and after the name.
+         */
+        if (!Statement1Parse1.parseKeyword(tokens, Token.END, errors)) {
+            while (tokens.front().code() != Token.END
+                    && tokens.front().code() != Token.END_OF_INPUT) {
+                tokens.dequeue();
+            }
+            if (tokens.front().code() == Token.END) {
+                tokens.dequeue();
+            }
+        }
+        Token endName = parseName(tokens, errors);
+        if (startName != null && endName != null) {
+            Statement1Parse1.expect(startName.text().equals(endName.text()),
+                    endName, "More than one identifier used as program name.",
+                    errors);
+        }
+        Token endOfInput = tokens.front();
+        if (!Statement1Parse1.expect(
+                endOfInput.code() == Token.END_OF_INPUT, endOfInput,
+                "Program does not terminate properly.", errors)) {
+            while (tokens.front().code() != Token.END_OF_INPUT) {
+                tokens.dequeue();
+            }
+        }
+        tokens.dequeue();
+        /*
+         * Swap into this.
+         */
+        if (startName != null) {
+            this.setName(startName.text());
+        } else {
+            this.setName("Unnamed");
+        }
+        this.swapContext(ctxt);
+        this.swapBody(block);
     }
 
     /*
@@ -106,8 +528,7 @@ public final class Program1Parse1 extends Program1 {
     public void parse(SimpleReader in) {
         assert in != null : "Violation of: in is not null";
         assert in.isOpen() : "Violation of: in.is_open";
-        Queue<String> tokens = Tokenizer.tokens(in);
-        this.parse(tokens);
+        this.parse(new ReaderTokenStream(in));
     }
 
     @Override
@@ -115,55 +536,133 @@ public final class Program1Parse1 extends Program1 {
         assert tokens != null : "Violation of: tokens is not null";
         assert tokens.length() > 0 : ""
                 + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
-        /*
-         * Dequeue start tokens/identifier.
-         */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("PROGRAM"),
-                "Invalid token");
-        String startName = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isIdentifier(startName),
-                "Invalid identifier");
-        Reporter.assertElseFatalError(tokens.dequeue().equals("IS"),
-                "Invalid token");
-        /*
-         * Parse instructions.
-         */
-        Map<String, Statement> ctxt = this.newContext();
-        while (!tokens.front().equals("BEGIN")) {
-            Statement body = this.newBody();
-            String instr = parseInstruction(tokens, body);
-            Reporter.assertElseFatalError(!Tokenizer.isKeyword(instr),
-                    "Identifier cannot be a keyword of the language.");
-            Reporter.assertElseFatalError(!ctxt.hasKey(instr),
-                    "Duplicate identifier used as instruction name.");
-            ctxt.add(instr, body);
+
+        this.parse(new QueueTokenStream(tokens));
+    }
+
+    /**
+     * Parses a BL program from {@code tokens} into {@code this}, reading the
+     * tokens only as the parse needs them.
+     *
+     * @param tokens
+     *            the input tokens
+     * @replaces this
+     * @updates tokens
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [tokens is a valid BL program] then
+     *  this = [Program corresponding to #tokens]  and
+     *  tokens = <>
+     * else
+     *  [reports an appropriate error message to the console and terminates client]
+     * </pre>
+     */
+    public void parse(TokenStream tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        try {
+            this.parseProgram(tokens, null, null);
+        } catch (SyntaxException e) {
+            Reporter.fatalErrorToConsole(e.getMessage());
         }
+    }
+
+    /**
+     * Parses a BL program from {@code tokens} into {@code this} like
+     * {@code parse}, but parses the instruction bodies in parallel, at most
+     * {@code threshold} of them per fork-join task. All the tokens are read
+     * before parsing starts.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param threshold
+     *            largest number of instruction bodies parsed by one task
+     * @replaces this
+     * @updates tokens
+     * @requires <pre>
+     * [<Tokenizer.END_OF_INPUT> is a suffix of tokens]  and
+     *  threshold > 0
+     * </pre>
+     * @ensures <pre>
+     * if [tokens is a valid BL program] then
+     *  this = [Program corresponding to #tokens]  and
+     *  tokens = <>
+     * else
+     *  [reports the same error message to the console as parse and
+     *   terminates client]
+     * </pre>
+     */
+    public void parseParallel(TokenStream tokens, int threshold) {
+        assert tokens != null : "Violation of: tokens is not null";
+        assert threshold > 0 : "Violation of: threshold > 0";
         /*
-         * Parse main block.
-         */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("BEGIN"),
-                "Invalid token");
-        Statement block = this.newBody();
-        block.parseBlock(tokens);
-        /*
-         * Dequeue the end, name, and EOI.
-         */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("END"),
-                "Invalid token");
-        String endName = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isIdentifier(endName),
-                "Invalid identifier");
-        Reporter.assertElseFatalError(startName.equals(endName),
-                "More than one identifier used as program name.");
-        String endOfInput = tokens.dequeue();
-        Reporter.assertElseFatalError(endOfInput.equals(Tokenizer.END_OF_INPUT),
-                "Program does not terminate properly.");
-        /*
-         * Swap into this.
+         * Find the instruction bodies and parse them in parallel, then walk
+         * the program in order.
          */
-        this.setName(startName);
-        this.swapContext(ctxt);
-        this.swapBody(block);
+        ArrayTokenStream all = ArrayTokenStream.readAll(tokens);
+        ParsedBodies parsed = new ParsedBodies(all, this.newBody());
+        ForkJoinPool.commonPool().invoke(
+                new BodiesTask(parsed, 0, parsed.count(), threshold));
+        try {
+            this.parseProgram(all, parsed, null);
+        } catch (SyntaxException e) {
+            Reporter.fatalErrorToConsole(e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a BL program from {@code tokens} into {@code this} like
+     * {@code parse}, but parses the instruction bodies in parallel, at most
+     * {@code DEFAULT_THRESHOLD} of them per fork-join task.
+     *
+     * @param tokens
+     *            the input tokens
+     * @replaces this
+     * @updates tokens
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [tokens is a valid BL program] then
+     *  this = [Program corresponding to #tokens]  and
+     *  tokens = <>
+     * else
+     *  [reports the same error message to the console as parse and
+     *   terminates client]
+     * </pre>
+     */
+    public void parseParallel(TokenStream tokens) {
+        this.parseParallel(tokens, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Parses a BL program from {@code tokens} into {@code this}, going on
+     * after each syntax error instead of terminating the client, and returns
+     * the errors found. After an error the parse starts again at the next
+     * {@code END}, {@code ELSE}, {@code INSTRUCTION} or {@code BEGIN}; the
+     * instructions and statements that could be parsed are kept in
+     * {@code this}, except instructions whose names are not allowed.
+     *
+     * @param tokens
+     *            the input tokens
+     * @return the syntax errors, in the order found
+     * @replaces this
+     * @updates tokens
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * tokens = <>  and
+     * if [#tokens is a valid BL program] then
+     *  this = [Program corresponding to #tokens]  and
+     *  parseRecovering = <>
+     * else
+     *  this = [the parts of #tokens that could be parsed]  and
+     *  parseRecovering = [the syntax errors in #tokens]
+     * </pre>
+     */
+    public Queue<SyntaxException> parseRecovering(TokenStream tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        Diagnostics errors = new Diagnostics();
+        this.parseProgram(tokens, null, errors);
+        return errors.takeErrors();
     }
 
     /*
@@ -190,9 +689,8 @@ public final class Program1Parse1 extends Program1 {
         out.println("*** Parsing input file ***");
         Program p = new Program1Parse1();
         SimpleReader file = new SimpleReader1L(fileName);
-        Queue<String> tokens = Tokenizer.tokens(file);
+        p.parse(file);
         file.close();
-        p.parse(tokens);
         /*
          * Pretty print the program
          */
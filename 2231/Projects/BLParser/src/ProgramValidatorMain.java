@@ -0,0 +1,96 @@
+import java.io.File;
+import java.util.Arrays;
+
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to check every BL program ({@code .bl} file) in a directory for
+ * syntax errors in one run, with {@code Program1Parse1.parseRecovering}, and
+ * report every error found with its file and position.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class ProgramValidatorMain {
+
+    /**
+     * Extension of BL program files.
+     */
+    private static final String EXTENSION = ".bl";
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ProgramValidatorMain() {
+    }
+
+    /**
+     * Checks the BL program in {@code file} and reports its errors to
+     * {@code out}.
+     *
+     * @param file
+     *            the BL program file
+     * @param out
+     *            the output stream
+     * @return the number of errors found
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [errors found in file]
+     */
+    private static int validate(File file, SimpleWriter out) {
+        SimpleReader in = new SimpleReader1L(file.getPath());
+        Program1Parse1 p = new Program1Parse1();
+        Queue<SyntaxException> errors = p
+                .parseRecovering(new ReaderTokenStream(in));
+        in.close();
+        int count = errors.length();
+        for (SyntaxException e : errors) {
+            out.println(file.getName() + ": " + e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        /*
+         * Get directory name
+         */
+        out.print("Enter directory of BL programs: ");
+        File directory = new File(in.nextLine());
+        File[] files = directory.listFiles();
+        if (files == null) {
+            out.println("Error: " + directory + " is not a directory.");
+        } else {
+            Arrays.sort(files);
+            int programs = 0;
+            int invalid = 0;
+            int errors = 0;
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(EXTENSION)) {
+                    int found = validate(file, out);
+                    programs++;
+                    errors += found;
+                    if (found > 0) {
+                        invalid++;
+                    }
+                }
+            }
+            out.println(programs + " programs checked, " + invalid
+                    + " with errors, " + errors + " errors in all.");
+        }
+        in.close();
+        out.close();
+    }
+
+}
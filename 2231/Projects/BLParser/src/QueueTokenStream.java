@@ -0,0 +1,56 @@
+import components.queue.Queue;
+
+/**
+ * {@code TokenStream} over a {@code Queue<String>}, removing tokens from the
+ * queue as they are removed from the stream. Positions of its tokens are not
+ * known.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class QueueTokenStream implements TokenStream {
+
+    /**
+     * The tokens left.
+     */
+    private final Queue<String> tokens;
+
+    /**
+     * The front token, once made; null until then.
+     */
+    private Token front;
+
+    /**
+     * Constructor over {@code tokens}, which is not copied: dequeuing from
+     * {@code this} dequeues from {@code tokens}.
+     *
+     * @param tokens
+     *            the tokens
+     * @ensures this = tokens
+     */
+    public QueueTokenStream(Queue<String> tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        this.tokens = tokens;
+        this.front = null;
+    }
+
+    @Override
+    public Token front() {
+        assert this.tokens.length() > 0 : "Violation of: |this| > 0";
+
+        if (this.front == null) {
+            this.front = Token.of(this.tokens.front());
+        }
+        return this.front;
+    }
+
+    @Override
+    public Token dequeue() {
+        Token token = this.front();
+        this.tokens.dequeue();
+        this.front = null;
+        return token;
+    }
+
+}
@@ -0,0 +1,174 @@
+import components.simplereader.SimpleReader;
+import components.utilities.Tokenizer;
+
+/**
+ * {@code TokenStream} that reads its input from a {@code SimpleReader} one
+ * line at a time, only when the tokens already read have all been removed, so
+ * at most one line of tokens is held at once. The tokens are the same as
+ * those of {@code Tokenizer.tokens} on the same input, with the line and
+ * column each was found at.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class ReaderTokenStream implements TokenStream {
+
+    /**
+     * Definition of whitespace separators.
+     */
+    private static final String SEPARATORS = " \t\n\r";
+
+    /**
+     * Number of characters classified by {@code IS_SEPARATOR}.
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * Whether each ASCII character is a separator.
+     */
+    private static final boolean[] IS_SEPARATOR = new boolean[ASCII];
+
+    static {
+        for (int i = 0; i < SEPARATORS.length(); i++) {
+            IS_SEPARATOR[SEPARATORS.charAt(i)] = true;
+        }
+    }
+
+    /**
+     * Initial capacity of the token buffer.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The input stream.
+     */
+    private final SimpleReader in;
+
+    /**
+     * Tokens of the last line read; those at {@code next} and after are left.
+     */
+    private Token[] buffer;
+
+    /**
+     * Index in {@code buffer} of the front token.
+     */
+    private int next;
+
+    /**
+     * Number of tokens in {@code buffer}.
+     */
+    private int count;
+
+    /**
+     * Number of lines read.
+     */
+    private int line;
+
+    /**
+     * Whether {@code Tokenizer.END_OF_INPUT} has been put in {@code buffer}.
+     */
+    private boolean endOfInput;
+
+    /**
+     * Reports whether {@code c} is a separator.
+     *
+     * @param c
+     *            the character
+     * @return whether c is in SEPARATORS
+     */
+    private static boolean isSeparator(char c) {
+        return c < ASCII && IS_SEPARATOR[c];
+    }
+
+    /**
+     * Adds {@code token} at the end of {@code buffer}.
+     *
+     * @param token
+     *            the token
+     * @updates this.buffer, this.count
+     */
+    private void add(Token token) {
+        if (this.count == this.buffer.length) {
+            Token[] bigger = new Token[2 * this.count];
+            System.arraycopy(this.buffer, 0, bigger, 0, this.count);
+            this.buffer = bigger;
+        }
+        this.buffer[this.count] = token;
+        this.count++;
+    }
+
+    /**
+     * Reads lines until one has a token, or the input ends, and puts its
+     * tokens, or {@code Tokenizer.END_OF_INPUT}, in {@code buffer}.
+     *
+     * @updates this
+     * @requires this.next = this.count and not this.endOfInput
+     * @ensures this.next < this.count
+     */
+    private void fill() {
+        this.next = 0;
+        this.count = 0;
+        while (this.count == 0 && !this.in.atEOS()) {
+            String line = this.in.nextLine();
+            this.line++;
+            int length = line.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && isSeparator(line.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < length && !isSeparator(line.charAt(i))) {
+                    i++;
+                }
+                if (start < i) {
+                    this.add(Token.of(line.substring(start, i), this.line,
+                            start + 1));
+                }
+            }
+        }
+        if (this.count == 0) {
+            this.add(Token.of(Tokenizer.END_OF_INPUT, this.line + 1, 1));
+            this.endOfInput = true;
+        }
+    }
+
+    /**
+     * Constructor reading from {@code in}, which must stay open while
+     * {@code this} is used and is not closed by it.
+     *
+     * @param in
+     *            the input stream
+     * @requires in.is_open
+     * @ensures this = [tokens of in.content] * <Tokenizer.END_OF_INPUT>
+     */
+    public ReaderTokenStream(SimpleReader in) {
+        assert in != null : "Violation of: in is not null";
+        assert in.isOpen() : "Violation of: in.is_open";
+
+        this.in = in;
+        this.buffer = new Token[INITIAL_CAPACITY];
+        this.next = 0;
+        this.count = 0;
+        this.line = 0;
+        this.endOfInput = false;
+    }
+
+    @Override
+    public Token front() {
+        if (this.next == this.count) {
+            assert !this.endOfInput : "Violation of: |this| > 0";
+            this.fill();
+        }
+        return this.buffer[this.next];
+    }
+
+    @Override
+    public Token dequeue() {
+        Token token = this.front();
+        this.buffer[this.next] = null;
+        this.next++;
+        return token;
+    }
+
+}
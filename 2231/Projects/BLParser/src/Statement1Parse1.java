@@ -6,7 +6,6 @@ import components.simplewriter.SimpleWriter1L;
 import components.statement.Statement;
 import components.statement.Statement1;
 import components.utilities.Reporter;
-import components.utilities.Tokenizer;
 
 /**
  * Layered implementation of secondary methods {@code parse} and
@@ -23,20 +22,134 @@ public final class Statement1Parse1 extends Statement1 {
      */
 
     /**
-     * Converts {@code c} into the corresponding {@code Condition}.
+     * Checks that {@code isOk}; if not, makes a {@code SyntaxException} with
+     * {@code message} at {@code token} and throws it or, if {@code errors} is
+     * not null, adds it to {@code errors}; if so, tells {@code errors}.
      *
-     * @param c
-     *            the condition to convert
-     * @return the {@code Condition} corresponding to {@code c}
-     * @requires [c is a condition string]
-     * @ensures parseCondition = [Condition corresponding to c]
+     * @param isOk
+     *            whether the token is as expected
+     * @param token
+     *            the token checked
+     * @param message
+     *            the error message
+     * @param errors
+     *            where to add the error, or null to throw it
+     * @return isOk
+     * @throws SyntaxException
+     *             if not isOk and errors = null
+     * @updates errors
      */
-    private static Condition parseCondition(String c) {
-        assert c != null : "Violation of: c is not null";
-        assert Tokenizer
-                .isCondition(c) : "Violation of: c is a condition string";
+    static boolean expect(boolean isOk, Token token, String message,
+            Diagnostics errors) {
+        if (!isOk) {
+            SyntaxException e = new SyntaxException(message, token);
+            if (errors == null) {
+                throw e;
+            }
+            errors.add(e);
+        } else if (errors != null) {
+            errors.expected();
+        }
+        return isOk;
+    }
+
+    /**
+     * Reports whether a recovering parse can start again at {@code token}.
+     *
+     * @param token
+     *            the token
+     * @return whether token is END, ELSE, INSTRUCTION, BEGIN or
+     *         Tokenizer.END_OF_INPUT
+     */
+    static boolean isSynchronizing(Token token) {
+        boolean synchronizing;
+        switch (token.code()) {
+            case Token.END:
+            case Token.ELSE:
+            case Token.INSTRUCTION:
+            case Token.BEGIN:
+            case Token.END_OF_INPUT:
+                synchronizing = true;
+                break;
+            default:
+                synchronizing = false;
+                break;
+        }
+        return synchronizing;
+    }
+
+    /**
+     * Parses the condition at the front of {@code tokens}; if there is none,
+     * reports it to {@code errors} and returns TRUE, removing the front token
+     * if it is not a keyword, as it is likely a misspelt condition.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @return the condition
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     */
+    private static Condition parseCondition(TokenStream tokens,
+            Diagnostics errors) {
+        Condition c = Condition.TRUE;
+        Token condition = tokens.front();
+        if (expect(condition.kind() == Token.Kind.CONDITION, condition,
+                "Invalid condition", errors)) {
+            c = condition.condition();
+            tokens.dequeue();
+        } else if (condition.kind() != Token.Kind.KEYWORD
+                && condition.kind() != Token.Kind.END_OF_INPUT) {
+            tokens.dequeue();
+        }
+        return c;
+    }
 
-        return Condition.valueOf(c.replace('-', '_').toUpperCase());
+    /**
+     * Removes the keyword {@code code} from the front of {@code tokens}; if
+     * it is not there, reports it to {@code errors} and leaves the front.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param code
+     *            the code of the keyword
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @return whether the keyword was there
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     */
+    static boolean parseKeyword(TokenStream tokens, int code,
+            Diagnostics errors) {
+        Token token = tokens.front();
+        boolean found = expect(token.code() == code, token, "Invalid token",
+                errors);
+        if (found) {
+            tokens.dequeue();
+        }
+        return found;
+    }
+
+    /**
+     * Removes {@code END} and the keyword after it from the front of
+     * {@code tokens}, reporting to {@code errors} whichever is not there.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     */
+    private static void parseEnd(TokenStream tokens, Diagnostics errors) {
+        if (parseKeyword(tokens, Token.END, errors)) {
+            Token endKind = tokens.front();
+            if (expect(endKind.kind() == Token.Kind.KEYWORD, endKind,
+                    "Invalid token", errors)) {
+                tokens.dequeue();
+            }
+        }
     }
 
     /**
@@ -46,8 +159,10 @@ public final class Statement1Parse1 extends Statement1 {
      *            the input tokens
      * @param s
      *            the parsed statement
+     * @param errors
+     *            where to report errors, or null to throw them
      * @replaces s
-     * @updates tokens
+     * @updates tokens, errors
      * @requires <pre>
      * [<"IF"> is a prefix of tokens]  and
      *  [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
@@ -56,37 +171,33 @@ public final class Statement1Parse1 extends Statement1 {
      * if [an if string is a proper prefix of #tokens] then
      *  s = [IF or IF_ELSE Statement corresponding to if string at start of #tokens]  and
      *  #tokens = [if string at start of #tokens] * tokens
+     * else if errors = null then
+     *  [throws SyntaxException]
      * else
-     *  [reports an appropriate error message to the console and terminates client]
+     *  [reports the errors to errors and parses as much as it can]
      * </pre>
      */
-    private static void parseIf(Queue<String> tokens, Statement s) {
+    private static void parseIf(TokenStream tokens, Statement s,
+            Diagnostics errors) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0 && tokens.front().equals("IF") : ""
+        assert tokens.front().code() == Token.IF : ""
                 + "Violation of: <\"IF\"> is proper prefix of tokens";
         /*
          * Dequeue kind and condition, check each.
          */
-        String startKind = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isKeyword(startKind),
-                "Invalid token");
-        String condition = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isCondition(condition),
-                "Invalid condition");
-        Condition c = parseCondition(condition);
-        Reporter.assertElseFatalError(tokens.dequeue().equals("THEN"),
-                "Invalid token");
+        tokens.dequeue();
+        Condition c = parseCondition(tokens, errors);
+        parseKeyword(tokens, Token.THEN, errors);
         /*
          * Parse "if" block. Parse "else," if available. Assemble respectively.
          */
         Statement s1 = s.newInstance();
-        s1.parseBlock(tokens);
-        if (tokens.front().equals("ELSE")) {
-            Reporter.assertElseFatalError(tokens.dequeue().equals("ELSE"),
-                    "Invalid token");
+        parseBlockFrom(tokens, s1, errors);
+        if (tokens.front().code() == Token.ELSE) {
+            tokens.dequeue();
             Statement s2 = s.newInstance();
-            s2.parseBlock(tokens);
+            parseBlockFrom(tokens, s2, errors);
             s.assembleIfElse(c, s1, s2);
         } else {
             s.assembleIf(c, s1);
@@ -94,11 +205,7 @@ public final class Statement1Parse1 extends Statement1 {
         /*
          * Dequeue end.
          */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("END"),
-                "Invalid token");
-        String endKind = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isKeyword(endKind),
-                "Invalid token");
+        parseEnd(tokens, errors);
     }
 
     /**
@@ -108,8 +215,10 @@ public final class Statement1Parse1 extends Statement1 {
      *            the input tokens
      * @param s
      *            the parsed statement
+     * @param errors
+     *            where to report errors, or null to throw them
      * @replaces s
-     * @updates tokens
+     * @updates tokens, errors
      * @requires <pre>
      * [<"WHILE"> is a prefix of tokens]  and
      *  [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
@@ -118,42 +227,34 @@ public final class Statement1Parse1 extends Statement1 {
      * if [a while string is a proper prefix of #tokens] then
      *  s = [WHILE Statement corresponding to while string at start of #tokens]  and
      *  #tokens = [while string at start of #tokens] * tokens
+     * else if errors = null then
+     *  [throws SyntaxException]
      * else
-     *  [reports an appropriate error message to the console and terminates client]
+     *  [reports the errors to errors and parses as much as it can]
      * </pre>
      */
-    private static void parseWhile(Queue<String> tokens, Statement s) {
+    private static void parseWhile(TokenStream tokens, Statement s,
+            Diagnostics errors) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0 && tokens.front().equals("WHILE") : ""
+        assert tokens.front().code() == Token.WHILE : ""
                 + "Violation of: <\"WHILE\"> is proper prefix of tokens";
         /*
          * Dequeue kind and condition, check each.
          */
-        String startKind = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isKeyword(startKind),
-                "Invalid token");
-        String condition = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isCondition(condition),
-                "Invalid token");
-        Condition c = parseCondition(condition);
-        Reporter.assertElseFatalError(tokens.dequeue().equals("DO"),
-                "Invalid token");
+        tokens.dequeue();
+        Condition c = parseCondition(tokens, errors);
+        parseKeyword(tokens, Token.DO, errors);
         /*
          * Parse "while" block and assemble.
          */
         Statement s1 = s.newInstance();
-        s1.parseBlock(tokens);
+        parseBlockFrom(tokens, s1, errors);
         s.assembleWhile(c, s1);
         /*
          * Dequeue end.
          */
-        Reporter.assertElseFatalError(tokens.dequeue().equals("END"),
-                "Invalid token");
-        String endKind = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isKeyword(endKind),
-                "Invalid token");
-
+        parseEnd(tokens, errors);
     }
 
     /**
@@ -165,26 +266,131 @@ public final class Statement1Parse1 extends Statement1 {
      *            the parsed statement
      * @replaces s
      * @updates tokens
-     * @requires [identifier string is a proper prefix of tokens]
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
      * @ensures <pre>
-     * s =
+     * if [identifier string is a proper prefix of #tokens] then
+     *  s =
      *   [CALL Statement corresponding to identifier string at start of #tokens]  and
      *  #tokens = [identifier string at start of #tokens] * tokens
+     * else
+     *  [throws SyntaxException]
      * </pre>
      */
-    private static void parseCall(Queue<String> tokens, Statement s) {
+    private static void parseCall(TokenStream tokens, Statement s) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0
-                && Tokenizer.isIdentifier(tokens.front()) : ""
-                        + "Violation of: identifier string is proper prefix of tokens";
         /*
          * Dequeue the name and assemble the call.
          */
-        String name = tokens.dequeue();
-        Reporter.assertElseFatalError(Tokenizer.isIdentifier(name),
-                "Invalid token");
-        s.assembleCall(name);
+        Token name = tokens.front();
+        expect(name.isIdentifier(), name, "Invalid token", null);
+        tokens.dequeue();
+        s.assembleCall(name.text());
+    }
+
+    /**
+     * Parses a single BL statement from {@code tokens} into {@code s}.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param s
+     *            the parsed statement
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @replaces s
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [a statement string is a proper prefix of #tokens] then
+     *  s = [Statement corresponding to statement string at start of #tokens]  and
+     *  #tokens = [statement string at start of #tokens] * tokens
+     * else if errors = null or [the front token cannot start a statement] then
+     *  [throws SyntaxException]
+     * else
+     *  [reports the errors to errors and parses as much as it can]
+     * </pre>
+     */
+    static void parseStatementFrom(TokenStream tokens, Statement s,
+            Diagnostics errors) {
+        assert tokens != null : "Violation of: tokens is not null";
+        assert s != null : "Violation of: s is not null";
+        /*
+         * Parse according to which keyword/identifier is at the front.
+         */
+        Token front = tokens.front();
+        switch (front.code()) {
+            case Token.WHILE:
+                parseWhile(tokens, s, errors);
+                break;
+            case Token.IF:
+                parseIf(tokens, s, errors);
+                break;
+            default:
+                expect(front.kind() != Token.Kind.KEYWORD, front,
+                        "Invalid token", null);
+                parseCall(tokens, s);
+                break;
+        }
+    }
+
+    /**
+     * Parses a maximally long sequence of BL statements from {@code tokens}
+     * into the BLOCK {@code block}. When recovering, a token that cannot
+     * start a statement is reported, and it and the tokens after it are
+     * skipped up to the next {@code END}, {@code ELSE}, {@code INSTRUCTION},
+     * {@code BEGIN} or end of input, where the block ends.
+     *
+     * @param tokens
+     *            the input tokens
+     * @param block
+     *            the parsed block
+     * @param errors
+     *            where to report errors, or null to throw them
+     * @replaces block
+     * @updates tokens, errors
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [there is a block string (possibly empty string) which is a proper
+     *     prefix of #tokens] then
+     *  block = [BLOCK Statement corresponding to block string at start of #tokens]  and
+     *  #tokens = [block string at start of #tokens] * tokens
+     * else if errors = null then
+     *  [throws SyntaxException]
+     * else
+     *  [reports the errors to errors and parses as much as it can]
+     * </pre>
+     */
+    static void parseBlockFrom(TokenStream tokens, Statement block,
+            Diagnostics errors) {
+        assert tokens != null : "Violation of: tokens is not null";
+        assert block != null : "Violation of: block is not null";
+        /*
+         * Parse until it reaches an end, else, or the EOI; when recovering,
+         * also stop at the start of an instruction or of the main block.
+         */
+        Statement s = block.newInstance();
+        Statement statement = block.newInstance();
+        Token front = tokens.front();
+        while (front.code() != Token.END && front.code() != Token.END_OF_INPUT
+                && front.code() != Token.ELSE
+                && (errors == null || !isSynchronizing(front))) {
+            if (errors == null) {
+                parseStatementFrom(tokens, statement, null);
+                s.addToBlock(s.lengthOfBlock(), statement);
+            } else {
+                try {
+                    parseStatementFrom(tokens, statement, errors);
+                    s.addToBlock(s.lengthOfBlock(), statement);
+                } catch (SyntaxException e) {
+                    errors.add(e);
+                    do {
+                        tokens.dequeue();
+                    } while (!isSynchronizing(tokens.front()));
+                }
+            }
+            front = tokens.front();
+        }
+        block.transferFrom(s);
     }
 
     /*
@@ -207,23 +413,8 @@ public final class Statement1Parse1 extends Statement1 {
         assert tokens != null : "Violation of: tokens is not null";
         assert tokens.length() > 0 : ""
                 + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
-        /*
-         * Check that the front is either a keyword or an identifier.
-         */
-        String name = tokens.front();
-        Reporter.assertElseFatalError(
-                Tokenizer.isIdentifier(name) || Tokenizer.isKeyword(name),
-                "Invalid token");
-        /*
-         * Parse according to which keyword/identifier it is.
-         */
-        if (name.equals("WHILE")) {
-            parseWhile(tokens, this);
-        } else if (name.equals("IF")) {
-            parseIf(tokens, this);
-        } else {
-            parseCall(tokens, this);
-        }
+
+        this.parse(new QueueTokenStream(tokens));
     }
 
     @Override
@@ -231,17 +422,64 @@ public final class Statement1Parse1 extends Statement1 {
         assert tokens != null : "Violation of: tokens is not null";
         assert tokens.length() > 0 : ""
                 + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
-        /*
-         * Parse until it reaches an end, else, or the EOI.
-         */
-        Statement s = this.newInstance();
-        while (!tokens.front().equals("END")
-                && !tokens.front().equals(Tokenizer.END_OF_INPUT)
-                && !tokens.front().equals("ELSE")) {
-            this.parse(tokens);
-            s.addToBlock(s.lengthOfBlock(), this);
+
+        this.parseBlock(new QueueTokenStream(tokens));
+    }
+
+    /**
+     * Parses a single BL statement from {@code tokens} into {@code this},
+     * reading only as many tokens as the statement has.
+     *
+     * @param tokens
+     *            the input tokens
+     * @replaces this
+     * @updates tokens
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [a statement string is a proper prefix of #tokens] then
+     *  this = [Statement corresponding to statement string at start of #tokens]  and
+     *  #tokens = [statement string at start of #tokens] * tokens
+     * else
+     *  [reports an appropriate error message to the console and terminates client]
+     * </pre>
+     */
+    public void parse(TokenStream tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        try {
+            parseStatementFrom(tokens, this, null);
+        } catch (SyntaxException e) {
+            Reporter.fatalErrorToConsole(e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a maximally long sequence of BL statements from {@code tokens}
+     * into the BLOCK {@code this}, reading only as many tokens as the
+     * statements have.
+     *
+     * @param tokens
+     *            the input tokens
+     * @replaces this
+     * @updates tokens
+     * @requires [<Tokenizer.END_OF_INPUT> is a suffix of tokens]
+     * @ensures <pre>
+     * if [there is a block string (possibly empty string) which is a proper
+     *     prefix of #tokens] then
+     *  this = [BLOCK Statement corresponding to block string at start of #tokens]  and
+     *  #tokens = [block string at start of #tokens] * tokens
+     * else
+     *  [reports an appropriate error message to the console and terminates client]
+     * </pre>
+     */
+    public void parseBlock(TokenStream tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        try {
+            parseBlockFrom(tokens, this, null);
+        } catch (SyntaxException e) {
+            Reporter.fatalErrorToConsole(e.getMessage());
         }
-        this.transferFrom(s);
     }
 
     /*
@@ -266,11 +504,11 @@ public final class Statement1Parse1 extends Statement1 {
          * Parse input file
          */
         out.println("*** Parsing input file ***");
-        Statement s = new Statement1Parse1();
+        Statement1Parse1 s = new Statement1Parse1();
         SimpleReader file = new SimpleReader1L(fileName);
-        Queue<String> tokens = Tokenizer.tokens(file);
-        file.close();
+        TokenStream tokens = new ReaderTokenStream(file);
         s.parse(tokens); // replace with parseBlock to test other method
+        file.close();
         /*
          * Pretty print the statement(s)
          */
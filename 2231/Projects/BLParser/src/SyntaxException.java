@@ -0,0 +1,47 @@
+/**
+ * Thrown by the BL parsers when the tokens are not a valid BL statement, block
+ * or program, and caught by their public methods, which report it to the
+ * console and terminate the client.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class SyntaxException extends RuntimeException {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The token the error was found at.
+     */
+    private final transient Token token;
+
+    /**
+     * Constructor.
+     *
+     * @param message
+     *            what is wrong
+     * @param token
+     *            the token the error was found at
+     * @ensures <pre>
+     * getMessage() = message * " (found " * [token and its position] * ")"  and
+     *  token() = token
+     * </pre>
+     */
+    public SyntaxException(String message, Token token) {
+        super(message + " (found " + token.describe() + ")");
+        this.token = token;
+    }
+
+    /**
+     * Reports the token the error was found at.
+     *
+     * @return the token
+     */
+    public Token token() {
+        return this.token;
+    }
+
+}
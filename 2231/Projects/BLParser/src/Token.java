@@ -0,0 +1,338 @@
+import java.util.HashMap;
+
+import components.statement.StatementKernel.Condition;
+import components.utilities.Tokenizer;
+
+/**
+ * A BL token: its text, its kind, worked out once when the token is made, and
+ * where it was found in the input.
+ *
+ * <p>
+ * The text of every keyword and condition token is the same {@code String}
+ * object, and the text of other tokens is interned, so equal texts are
+ * {@code ==}. Each keyword, and {@code Tokenizer.END_OF_INPUT}, also has an
+ * {@code int} code, so the parser can {@code switch} on {@code code()} instead
+ * of comparing strings.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public final class Token {
+
+    /**
+     * Kinds of token.
+     */
+    public enum Kind {
+        /**
+         * A keyword of the language.
+         */
+        KEYWORD,
+        /**
+         * A condition.
+         */
+        CONDITION,
+        /**
+         * An identifier that is neither a keyword nor a condition.
+         */
+        IDENTIFIER,
+        /**
+         * {@code Tokenizer.END_OF_INPUT}.
+         */
+        END_OF_INPUT,
+        /**
+         * Anything else.
+         */
+        ERROR
+    }
+
+    /**
+     * Code of tokens that are not keywords or end of input.
+     */
+    public static final int OTHER = 0;
+
+    /**
+     * Code of {@code PROGRAM}.
+     */
+    public static final int PROGRAM = 1;
+
+    /**
+     * Code of {@code IS}.
+     */
+    public static final int IS = 2;
+
+    /**
+     * Code of {@code BEGIN}.
+     */
+    public static final int BEGIN = 3;
+
+    /**
+     * Code of {@code END}.
+     */
+    public static final int END = 4;
+
+    /**
+     * Code of {@code INSTRUCTION}.
+     */
+    public static final int INSTRUCTION = 5;
+
+    /**
+     * Code of {@code WHILE}.
+     */
+    public static final int WHILE = 6;
+
+    /**
+     * Code of {@code DO}.
+     */
+    public static final int DO = 7;
+
+    /**
+     * Code of {@code IF}.
+     */
+    public static final int IF = 8;
+
+    /**
+     * Code of {@code THEN}.
+     */
+    public static final int THEN = 9;
+
+    /**
+     * Code of {@code ELSE}.
+     */
+    public static final int ELSE = 10;
+
+    /**
+     * Code of {@code Tokenizer.END_OF_INPUT}.
+     */
+    public static final int END_OF_INPUT = 11;
+
+    /**
+     * Texts of the keywords, by code.
+     */
+    private static final String[] KEYWORDS = { null, "PROGRAM", "IS", "BEGIN",
+            "END", "INSTRUCTION", "WHILE", "DO", "IF", "THEN", "ELSE" };
+
+    /**
+     * Token, with no position, of each keyword, condition and
+     * {@code Tokenizer.END_OF_INPUT}, by text; only read once built, so it can
+     * be shared by threads.
+     */
+    private static final HashMap<String, Token> RESERVED = new HashMap<>();
+
+    static {
+        for (int code = PROGRAM; code <= ELSE; code++) {
+            String text = KEYWORDS[code];
+            RESERVED.put(text, new Token(text, Kind.KEYWORD, code, null,
+                    Tokenizer.isIdentifier(text), 0, 0));
+        }
+        for (Condition c : Condition.values()) {
+            String text = c.name().replace('_', '-').toLowerCase();
+            RESERVED.put(text, new Token(text, Kind.CONDITION, OTHER, c,
+                    Tokenizer.isIdentifier(text), 0, 0));
+        }
+        RESERVED.put(Tokenizer.END_OF_INPUT,
+                new Token(Tokenizer.END_OF_INPUT, Kind.END_OF_INPUT,
+                        END_OF_INPUT, null, false, 0, 0));
+    }
+
+    /**
+     * The text.
+     */
+    private final String text;
+
+    /**
+     * The kind.
+     */
+    private final Kind kind;
+
+    /**
+     * The code.
+     */
+    private final int code;
+
+    /**
+     * The condition, if this is a condition token.
+     */
+    private final Condition condition;
+
+    /**
+     * Whether {@code Tokenizer.isIdentifier(text)}.
+     */
+    private final boolean identifier;
+
+    /**
+     * Line number, from 1; 0 if not known.
+     */
+    private final int line;
+
+    /**
+     * Column number, from 1; 0 if not known.
+     */
+    private final int column;
+
+    /**
+     * Constructor from every field.
+     *
+     * @param text
+     *            the text
+     * @param kind
+     *            the kind
+     * @param code
+     *            the code
+     * @param condition
+     *            the condition, or null
+     * @param identifier
+     *            whether Tokenizer.isIdentifier(text)
+     * @param line
+     *            the line number
+     * @param column
+     *            the column number
+     */
+    private Token(String text, Kind kind, int code, Condition condition,
+            boolean identifier, int line, int column) {
+        this.text = text;
+        this.kind = kind;
+        this.code = code;
+        this.condition = condition;
+        this.identifier = identifier;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Returns the token {@code text} found at {@code line}, {@code column}.
+     *
+     * @param text
+     *            the text of the token
+     * @param line
+     *            the line number, from 1, or 0 if not known
+     * @param column
+     *            the column number, from 1, or 0 if not known
+     * @return the token
+     * @requires [text is a token of Tokenizer.tokens] and 0 <= line and
+     *           0 <= column
+     * @ensures <pre>
+     * of.text = text  and  of.line = line  and  of.column = column  and
+     *  of.kind = [kind of text]
+     * </pre>
+     */
+    public static Token of(String text, int line, int column) {
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= line : "Violation of: 0 <= line";
+        assert 0 <= column : "Violation of: 0 <= column";
+
+        Token token;
+        Token reserved = RESERVED.get(text);
+        if (reserved != null) {
+            token = new Token(reserved.text, reserved.kind, reserved.code,
+                    reserved.condition, reserved.identifier, line, column);
+        } else if (Tokenizer.isIdentifier(text)) {
+            token = new Token(text.intern(), Kind.IDENTIFIER, OTHER, null, true,
+                    line, column);
+        } else {
+            token = new Token(text.intern(), Kind.ERROR, OTHER, null, false,
+                    line, column);
+        }
+        return token;
+    }
+
+    /**
+     * Returns the token {@code text}, found at an unknown position.
+     *
+     * @param text
+     *            the text of the token
+     * @return the token
+     * @requires [text is a token of Tokenizer.tokens]
+     * @ensures of = of(text, 0, 0)
+     */
+    public static Token of(String text) {
+        return of(text, 0, 0);
+    }
+
+    /**
+     * Reports the text of {@code this}.
+     *
+     * @return the text
+     */
+    public String text() {
+        return this.text;
+    }
+
+    /**
+     * Reports the kind of {@code this}.
+     *
+     * @return the kind
+     */
+    public Kind kind() {
+        return this.kind;
+    }
+
+    /**
+     * Reports the code of {@code this}.
+     *
+     * @return the keyword code, END_OF_INPUT, or OTHER
+     */
+    public int code() {
+        return this.code;
+    }
+
+    /**
+     * Reports whether {@code Tokenizer.isIdentifier(this.text())}, which also
+     * holds of some keywords and conditions.
+     *
+     * @return whether the text is an identifier
+     */
+    public boolean isIdentifier() {
+        return this.identifier;
+    }
+
+    /**
+     * Reports the {@code Condition} of condition token {@code this}.
+     *
+     * @return the condition
+     * @requires this.kind = CONDITION
+     */
+    public Condition condition() {
+        assert this.kind == Kind.CONDITION : ""
+                + "Violation of: this.kind = CONDITION";
+
+        return this.condition;
+    }
+
+    /**
+     * Reports the line {@code this} was found on.
+     *
+     * @return the line number, from 1, or 0 if not known
+     */
+    public int line() {
+        return this.line;
+    }
+
+    /**
+     * Reports the column {@code this} was found at.
+     *
+     * @return the column number, from 1, or 0 if not known
+     */
+    public int column() {
+        return this.column;
+    }
+
+    /**
+     * Returns a description of {@code this} for error messages: its text and,
+     * if known, its position.
+     *
+     * @return the description
+     */
+    public String describe() {
+        String description = "\"" + this.text + "\"";
+        if (this.line > 0) {
+            description += " at line " + this.line + ", column " + this.column;
+        }
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+}
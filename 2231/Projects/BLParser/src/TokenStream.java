@@ -0,0 +1,35 @@
+/**
+ * Source of BL tokens read one at a time, front to back, with the same
+ * {@code front}/{@code dequeue} meaning as the {@code Queue<String>} returned
+ * by {@code Tokenizer.tokens}: the tokens of the input followed by
+ * {@code Tokenizer.END_OF_INPUT}, each as a {@code Token}.
+ *
+ * <p>
+ * Unlike the queue, an implementation need not hold every token at once, so
+ * parsing can start before the whole input has been read.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public interface TokenStream {
+
+    /**
+     * Reports the token at the front of {@code this}, without removing it.
+     *
+     * @return the front token
+     * @requires |this| > 0
+     * @ensures <front> is prefix of this
+     */
+    Token front();
+
+    /**
+     * Removes and returns the token at the front of {@code this}.
+     *
+     * @return the removed token
+     * @updates this
+     * @requires |this| > 0
+     * @ensures #this = <dequeue> * this
+     */
+    Token dequeue();
+
+}
@@ -1,11 +1,29 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
 import components.program.Program;
 import components.program.Program1;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.statement.Statement;
+import components.utilities.Tokenizer;
 
 /**
  * Customized JUnit test fixture for {@code Program1Parse1}.
  */
 public class Program1Parse1Test extends ProgramTest {
 
+    /**
+     * The names of a files containing a (possibly invalid) BL programs.
+     */
+    private static final String FILE_NAME_1 = "test/program1.bl",
+            FILE_NAME_2 = "test/program2.bl";
+
     @Override
     protected final Program constructorTest() {
         return new Program1Parse1();
@@ -16,4 +34,256 @@ public class Program1Parse1Test extends ProgramTest {
         return new Program1();
     }
 
+    /**
+     * Test of parse from a {@code TokenStream} on syntactically valid input.
+     */
+    @Test
+    public final void testParseTokenStreamValidExample() {
+        /*
+         * Setup
+         */
+        Program pRef = this.constructorRef();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_1);
+        pRef.parse(file);
+        file.close();
+        Program1Parse1 pTest = new Program1Parse1();
+        file = new SimpleReader1L(FILE_NAME_1);
+        TokenStream tokens = new ReaderTokenStream(file);
+        /*
+         * The call
+         */
+        pTest.parse(tokens);
+        file.close();
+        /*
+         * Evaluation
+         */
+        assertEquals(pRef, pTest);
+    }
+
+    /**
+     * Test of parse from a {@code TokenStream} on syntactically invalid input.
+     */
+    @Test(expected = RuntimeException.class)
+    public final void testParseTokenStreamErrorExample() {
+        /*
+         * Setup
+         */
+        Program1Parse1 pTest = new Program1Parse1();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_2);
+        TokenStream tokens = new ReaderTokenStream(file);
+        /*
+         * The call--should result in a syntax error being found
+         */
+        pTest.parse(tokens);
+    }
+
+    /**
+     * Returns the tokens of {@code text}, separated by spaces, followed by
+     * {@code Tokenizer.END_OF_INPUT}.
+     *
+     * @param text
+     *            the tokens
+     * @return the token stream
+     */
+    private static TokenStream tokensOf(String text) {
+        Queue<String> tokens = new Queue1L<String>();
+        for (String token : text.split(" ")) {
+            tokens.enqueue(token);
+        }
+        tokens.enqueue(Tokenizer.END_OF_INPUT);
+        return new QueueTokenStream(tokens);
+    }
+
+    /**
+     * Returns the message of the error reported by {@code parse} or, if
+     * {@code parallel}, by {@code parseParallel} with one instruction per
+     * task, on the tokens of {@code text}.
+     *
+     * @param text
+     *            the tokens
+     * @param parallel
+     *            whether to call parseParallel
+     * @return the error message, or null if there was no error
+     */
+    private static String errorOf(String text, boolean parallel) {
+        Program1Parse1 p = new Program1Parse1();
+        String message = null;
+        try {
+            if (parallel) {
+                p.parseParallel(tokensOf(text), 1);
+            } else {
+                p.parse(tokensOf(text));
+            }
+        } catch (RuntimeException e) {
+            message = e.getMessage();
+        }
+        return message;
+    }
+
+    /**
+     * Test of parseParallel on syntactically valid input.
+     */
+    @Test
+    public final void testParseParallelValidExample() {
+        /*
+         * Setup
+         */
+        Program pRef = this.constructorRef();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_1);
+        pRef.parse(file);
+        file.close();
+        Program1Parse1 pTest = new Program1Parse1();
+        file = new SimpleReader1L(FILE_NAME_1);
+        TokenStream tokens = new ReaderTokenStream(file);
+        /*
+         * The call
+         */
+        pTest.parseParallel(tokens, 1);
+        file.close();
+        /*
+         * Evaluation
+         */
+        assertEquals(pRef, pTest);
+    }
+
+    /**
+     * Test of parseParallel on syntactically invalid input.
+     */
+    @Test(expected = RuntimeException.class)
+    public final void testParseParallelErrorExample() {
+        /*
+         * Setup
+         */
+        Program1Parse1 pTest = new Program1Parse1();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_2);
+        TokenStream tokens = new ReaderTokenStream(file);
+        /*
+         * The call--should result in a syntax error being found
+         */
+        pTest.parseParallel(tokens);
+    }
+
+    /**
+     * Test that parseParallel reports a duplicate instruction name as parse
+     * does, and not a later error.
+     */
+    @Test
+    public final void testParseParallelDuplicateName() {
+        String text = "PROGRAM P IS INSTRUCTION a IS move END a"
+                + " INSTRUCTION a IS turnleft END a"
+                + " INSTRUCTION b IS IF bad THEN END IF END b"
+                + " BEGIN a END P";
+        String expected = errorOf(text, false);
+        assertTrue(expected != null);
+        assertEquals(expected, errorOf(text, true));
+    }
+
+    /**
+     * Test that parseParallel reports an instruction named by a keyword as
+     * parse does.
+     */
+    @Test
+    public final void testParseParallelKeywordName() {
+        String text = "PROGRAM P IS INSTRUCTION a IS move END a"
+                + " INSTRUCTION IF IS move END IF BEGIN a END P";
+        assertEquals(errorOf(text, false), errorOf(text, true));
+    }
+
+    /**
+     * Test that parseParallel reports an error in an instruction body before
+     * a duplicate name after it, as parse does.
+     */
+    @Test
+    public final void testParseParallelBodyErrorFirst() {
+        String text = "PROGRAM P IS INSTRUCTION a IS WHILE bad DO END WHILE"
+                + " END a INSTRUCTION b IS move END b"
+                + " INSTRUCTION b IS move END b BEGIN b END P";
+        String expected = errorOf(text, false);
+        assertTrue(expected.contains("Invalid condition"));
+        assertEquals(expected, errorOf(text, true));
+    }
+
+    /**
+     * Test of parseRecovering on syntactically valid input.
+     */
+    @Test
+    public final void testParseRecoveringValidExample() {
+        /*
+         * Setup
+         */
+        Program pRef = this.constructorRef();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_1);
+        pRef.parse(file);
+        file.close();
+        Program1Parse1 pTest = new Program1Parse1();
+        file = new SimpleReader1L(FILE_NAME_1);
+        /*
+         * The call
+         */
+        Queue<SyntaxException> errors = pTest
+                .parseRecovering(new ReaderTokenStream(file));
+        file.close();
+        /*
+         * Evaluation
+         */
+        assertEquals(0, errors.length());
+        assertEquals(pRef, pTest);
+    }
+
+    /**
+     * Test that parseRecovering reports every error, with its position, and
+     * keeps the parts of the program that could be parsed.
+     */
+    @Test
+    public final void testParseRecoveringSeveralErrors() {
+        /*
+         * Setup
+         */
+        String text = "PROGRAM P IS"
+                + " INSTRUCTION a IS WHILE bad DO move END WHILE END a"
+                + " INSTRUCTION b IS turnleft 2x move END b"
+                + " INSTRUCTION c IS move END c"
+                + " INSTRUCTION c IS skip END c BEGIN a b c END P";
+        Program1Parse1 pTest = new Program1Parse1();
+        /*
+         * The call
+         */
+        Queue<SyntaxException> errors = pTest
+                .parseRecovering(tokensOf(text));
+        /*
+         * Evaluation
+         */
+        assertEquals(3, errors.length());
+        SyntaxException e = errors.dequeue();
+        assertTrue(e.getMessage().startsWith("Invalid condition"));
+        assertEquals("bad", e.token().text());
+        assertEquals("2x", errors.dequeue().token().text());
+        e = errors.dequeue();
+        assertTrue(e.getMessage().startsWith("Duplicate identifier"));
+        assertEquals("P", pTest.name());
+        Map<String, Statement> context = pTest.newContext();
+        pTest.swapContext(context);
+        assertEquals(3, context.size());
+        Statement body = pTest.newBody();
+        pTest.swapBody(body);
+        assertEquals(3, body.lengthOfBlock());
+    }
+
+    /**
+     * Test that parseRecovering reports a missing END and goes on with the
+     * next instruction.
+     */
+    @Test
+    public final void testParseRecoveringMissingEnd() {
+        String text = "PROGRAM P IS INSTRUCTION a IS IF true THEN move END a"
+                + " INSTRUCTION b IS move END b BEGIN b END P";
+        Program1Parse1 pTest = new Program1Parse1();
+        Queue<SyntaxException> errors = pTest
+                .parseRecovering(tokensOf(text));
+        assertEquals(1, errors.length());
+        Map<String, Statement> context = pTest.newContext();
+        pTest.swapContext(context);
+        assertTrue(context.hasKey("b"));
+    }
+
 }
@@ -0,0 +1,122 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.statement.StatementKernel.Condition;
+import components.utilities.Tokenizer;
+
+/**
+ * JUnit test fixture for {@code ReaderTokenStream}.
+ *
+ * @author Ryan Shaffer.555
+ *
+ */
+public class ReaderTokenStreamTest {
+
+    /**
+     * Checks that {@code ReaderTokenStream} gives the same tokens as
+     * {@code Tokenizer.tokens} on file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file
+     */
+    private static void checkSameTokens(String fileName) {
+        SimpleReader file = new SimpleReader1L(fileName);
+        Queue<String> expected = Tokenizer.tokens(file);
+        file.close();
+        file = new SimpleReader1L(fileName);
+        TokenStream tokens = new ReaderTokenStream(file);
+        while (expected.length() > 0) {
+            assertEquals(expected.front(), tokens.front().text());
+            assertEquals(expected.dequeue(), tokens.dequeue().text());
+        }
+        file.close();
+    }
+
+    /**
+     * Test of the tokens of a program.
+     */
+    @Test
+    public final void testProgramTokens() {
+        checkSameTokens("test/program1.bl");
+    }
+
+    /**
+     * Test of the tokens of a program with text after its end.
+     */
+    @Test
+    public final void testProgramTokensAfterEnd() {
+        checkSameTokens("test/program2.bl");
+    }
+
+    /**
+     * Test of the tokens of a sequence of statements.
+     */
+    @Test
+    public final void testStatementTokens() {
+        checkSameTokens("test/statement1.bl");
+    }
+
+    /**
+     * Test of the kinds, codes and positions of tokens.
+     */
+    @Test
+    public final void testTokenKindsAndPositions() {
+        SimpleReader file = new SimpleReader1L("test/program1.bl");
+        TokenStream tokens = new ReaderTokenStream(file);
+        Token program = tokens.dequeue();
+        Token name = tokens.dequeue();
+        Token is = tokens.dequeue();
+        Token instruction = tokens.dequeue();
+        file.close();
+        assertEquals(Token.Kind.KEYWORD, program.kind());
+        assertEquals(Token.PROGRAM, program.code());
+        assertEquals(1, program.line());
+        assertEquals(1, program.column());
+        assertEquals(Token.Kind.IDENTIFIER, name.kind());
+        assertEquals(Token.OTHER, name.code());
+        assertEquals(1, name.line());
+        assertEquals(9, name.column());
+        assertEquals(Token.IS, is.code());
+        assertEquals(14, is.column());
+        assertEquals(Token.INSTRUCTION, instruction.code());
+        assertEquals(3, instruction.line());
+        assertEquals(3, instruction.column());
+    }
+
+    /**
+     * Test that equal texts give the same {@code String} and that conditions
+     * know their {@code Condition}.
+     */
+    @Test
+    public final void testTokenInterning() {
+        Token a = Token.of(new String("move"), 1, 1);
+        Token b = Token.of(new String("move"), 2, 5);
+        Token c = Token.of(new String("next-is-empty"));
+        assertTrue(a.text() == b.text());
+        assertEquals(Token.Kind.CONDITION, c.kind());
+        assertEquals(Condition.NEXT_IS_EMPTY, c.condition());
+        assertEquals(Token.Kind.END_OF_INPUT,
+                Token.of(Tokenizer.END_OF_INPUT).kind());
+    }
+
+    /**
+     * Test that {@code QueueTokenStream} dequeues from its queue.
+     */
+    @Test
+    public final void testQueueTokenStream() {
+        SimpleReader file = new SimpleReader1L("test/statement1.bl");
+        Queue<String> queue = Tokenizer.tokens(file);
+        file.close();
+        int length = queue.length();
+        TokenStream tokens = new QueueTokenStream(queue);
+        assertEquals("WHILE", tokens.dequeue().text());
+        assertEquals("true", tokens.front().text());
+        assertEquals(length - 1, queue.length());
+    }
+
+}
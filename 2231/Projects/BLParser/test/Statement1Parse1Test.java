@@ -1,11 +1,24 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
 import components.statement.Statement;
 import components.statement.Statement1;
+import components.utilities.Tokenizer;
 
 /**
  * Customized JUnit test fixture for {@code Statement1Parse1}.
  */
 public class Statement1Parse1Test extends StatementTest {
 
+    /**
+     * The name of a file containing a sequence of BL statements.
+     */
+    private static final String FILE_NAME_1 = "test/statement1.bl";
+
     @Override
     protected final Statement constructorTest() {
         return new Statement1Parse1();
@@ -16,4 +29,33 @@ public class Statement1Parse1Test extends StatementTest {
         return new Statement1();
     }
 
+    /**
+     * Test of parseBlock from a {@code TokenStream} on syntactically valid
+     * input, which must be read up to the end of the block only.
+     */
+    @Test
+    public final void testParseBlockTokenStreamValidExample() {
+        /*
+         * Setup
+         */
+        Statement sRef = this.constructorRef();
+        SimpleReader file = new SimpleReader1L(FILE_NAME_1);
+        Queue<String> tokens = Tokenizer.tokens(file);
+        sRef.parseBlock(tokens);
+        file.close();
+        Statement1Parse1 sTest = new Statement1Parse1();
+        file = new SimpleReader1L(FILE_NAME_1);
+        TokenStream stream = new ReaderTokenStream(file);
+        /*
+         * The call
+         */
+        sTest.parseBlock(stream);
+        /*
+         * Evaluation
+         */
+        assertEquals(sRef, sTest);
+        assertEquals(Tokenizer.END_OF_INPUT, stream.dequeue().text());
+        file.close();
+    }
+
 }
@@ -0,0 +1,1430 @@
+import java.util.Arrays;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumberSecondary;
+
+/**
+ * {@code NaturalNumber} represented as an array of "limbs" in base 10^9, least
+ * significant limb first, with implementations of primary methods and of the
+ * arithmetic secondary methods.
+ *
+ * <p>
+ * {@code NaturalNumber3} and the layered secondary methods do all arithmetic
+ * one decimal digit at a time through {@code multiplyBy10} and
+ * {@code divideBy10}, each of which copies the whole {@code String}, so
+ * arithmetic on numbers with d digits costs O(d^2) time and allocation per
+ * operation even for {@code add}. Here {@code add}, {@code subtract},
+ * {@code increment}, {@code decrement}, and {@code compareTo} are O(d),
+ * {@code multiply} switches from the schoolbook method to Karatsuba's method
+ * (O(d^1.585)) and then to the Toom-3 method (O(d^1.465)) as the factors grow,
+ * {@code divide} (Knuth's Algorithm D) works on nine digits per step,
+ * {@code power} uses repeated squaring, and {@code root} uses Newton's
+ * iteration. Base 10^9 keeps {@code toString} and
+ * {@code setFromString} linear.
+ *
+ * @convention <pre>
+ * 0 <= $this.length <= |$this.limbs|  and
+ * [0 <= $this.limbs[i] < BASE for all i]  and
+ * [$this.limbs[i] = 0 for $this.length <= i < |$this.limbs|]  and
+ * ($this.length = 0 or $this.limbs[$this.length - 1] /= 0)
+ * </pre>
+ * @correspondence <pre>
+ * this = [sum of $this.limbs[i] * BASE^i for 0 <= i < $this.length]
+ * </pre>
+ */
+public class NaturalNumber4 extends NaturalNumberSecondary {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Base of the limbs.
+     */
+    private static final int BASE = 1_000_000_000;
+
+    /**
+     * Number of decimal digits per limb.
+     */
+    private static final int DIGITS_PER_LIMB = 9;
+
+    /**
+     * Upper bound on log2(BASE), used to estimate bit lengths.
+     */
+    private static final int BITS_PER_LIMB = 30;
+
+    /**
+     * Initial capacity of the limb array.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Length, in limbs, of the shorter factor from which {@code multiply}
+     * uses Karatsuba's method instead of the schoolbook method; calibrated
+     * with {@code NaturalNumberMultiplyTimingMain}.
+     */
+    private static final int KARATSUBA_THRESHOLD = 48;
+
+    /**
+     * Length, in limbs, of the shorter factor from which {@code multiply}
+     * uses the Toom-3 method instead of Karatsuba's method; calibrated with
+     * {@code NaturalNumberMultiplyTimingMain}.
+     */
+    private static final int TOOM3_THRESHOLD = 256;
+
+    /**
+     * Limbs of {@code this}, least significant first.
+     */
+    private int[] limbs;
+
+    /**
+     * Number of significant limbs.
+     */
+    private int length;
+
+    /**
+     * Returns the number of significant limbs of {@code a[0, n)}.
+     *
+     * @param a
+     *            the limbs
+     * @param n
+     *            the number of limbs to consider
+     * @return the largest k <= n with k = 0 or a[k - 1] /= 0
+     */
+    private static int trim(int[] a, int n) {
+        int k = n;
+        while (k > 0 && a[k - 1] == 0) {
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * Compares {@code a[0, an)} with {@code b[0, bn)}.
+     *
+     * @param a
+     *            the first limbs
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second limbs
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @return negative, zero, or positive as a is less than, equal to, or
+     *         greater than b
+     */
+    private static int compare(int[] a, int an, int[] b, int bn) {
+        int result = Integer.compare(an, bn);
+        int i = an - 1;
+        while (result == 0 && i >= 0) {
+            result = Integer.compare(a[i], b[i]);
+            i--;
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code b[0, bn)} to {@code r[0, rn)} in place.
+     *
+     * @param r
+     *            the limbs updated
+     * @param rn
+     *            the number of significant limbs of {@code r}
+     * @param b
+     *            the limbs added
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @return the number of significant limbs of the sum
+     * @requires |r| > max(rn, bn) and [r[rn, |r|) are 0]
+     */
+    private static int addInPlace(int[] r, int rn, int[] b, int bn) {
+        int n = Math.max(rn, bn);
+        int carry = 0;
+        int i = 0;
+        while (i < n || carry != 0) {
+            int s = r[i] + carry;
+            if (i < bn) {
+                s += b[i];
+            }
+            if (s >= BASE) {
+                s -= BASE;
+                carry = 1;
+            } else {
+                carry = 0;
+            }
+            r[i] = s;
+            i++;
+        }
+        return Math.max(n, i);
+    }
+
+    /**
+     * Subtracts {@code b[0, bn)} from {@code r[0, rn)} in place.
+     *
+     * @param r
+     *            the limbs updated
+     * @param rn
+     *            the number of significant limbs of {@code r}
+     * @param b
+     *            the limbs subtracted
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @return the number of significant limbs of the difference
+     * @requires r[0, rn) >= b[0, bn)
+     */
+    private static int subtractInPlace(int[] r, int rn, int[] b, int bn) {
+        int borrow = 0;
+        int i = 0;
+        while (i < bn || borrow != 0) {
+            int s = r[i] - borrow;
+            if (i < bn) {
+                s -= b[i];
+            }
+            if (s < 0) {
+                s += BASE;
+                borrow = 1;
+            } else {
+                borrow = 0;
+            }
+            r[i] = s;
+            i++;
+        }
+        return trim(r, rn);
+    }
+
+    /**
+     * Multiplies {@code r[0, rn)} by {@code m} and adds {@code k}, in place.
+     *
+     * @param r
+     *            the limbs updated
+     * @param rn
+     *            the number of significant limbs of {@code r}
+     * @param m
+     *            the multiplier
+     * @param k
+     *            the addend
+     * @return the number of significant limbs of the result
+     * @requires <pre>
+     * 0 <= m < BASE  and  0 <= k < BASE  and
+     * |r| > rn  and  r[rn] = 0
+     * </pre>
+     */
+    private static int multiplySmallInPlace(int[] r, int rn, int m, int k) {
+        long carry = k;
+        for (int i = 0; i < rn; i++) {
+            long p = (long) r[i] * m + carry;
+            r[i] = (int) (p % BASE);
+            carry = p / BASE;
+        }
+        r[rn] = (int) carry;
+        return trim(r, rn + 1);
+    }
+
+    /**
+     * Divides {@code r[0, rn)} by {@code d} in place.
+     *
+     * @param r
+     *            the limbs updated
+     * @param rn
+     *            the number of significant limbs of {@code r}
+     * @param d
+     *            the divisor
+     * @return the remainder
+     * @requires 0 < d < BASE
+     */
+    private static int divideSmallInPlace(int[] r, int rn, int d) {
+        long rem = 0;
+        for (int i = rn - 1; i >= 0; i--) {
+            long cur = rem * BASE + r[i];
+            r[i] = (int) (cur / d);
+            rem = cur % d;
+        }
+        return (int) rem;
+    }
+
+    /**
+     * Returns the product of {@code a[0, an)} and {@code b[0, bn)} by the
+     * schoolbook method.
+     *
+     * @param a
+     *            the first factor
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second factor
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @return the limbs of the product, of length an + bn
+     */
+    private static int[] schoolbookMultiply(int[] a, int an, int[] b,
+            int bn) {
+        int[] r = new int[an + bn];
+        for (int i = 0; i < an; i++) {
+            long ai = a[i];
+            if (ai != 0) {
+                long carry = 0;
+                for (int j = 0; j < bn; j++) {
+                    long p = ai * b[j] + r[i + j] + carry;
+                    r[i + j] = (int) (p % BASE);
+                    carry = p / BASE;
+                }
+                int k = i + bn;
+                while (carry != 0) {
+                    long s = r[k] + carry;
+                    r[k] = (int) (s % BASE);
+                    carry = s / BASE;
+                    k++;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the product of {@code a[0, an)} and {@code b[0, bn)}, choosing
+     * the schoolbook, Karatsuba, or Toom-3 method by the size of the shorter
+     * factor.
+     *
+     * @param a
+     *            the first factor
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second factor
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @return the limbs of the product, of length an + bn
+     * @requires 2 <= karatsuba  and  3 <= toom3
+     */
+    private static int[] multiplyLimbs(int[] a, int an, int[] b, int bn,
+            int karatsuba, int toom3) {
+        int shorter = Math.min(an, bn);
+        int longer = Math.max(an, bn);
+        int[] r;
+        if (shorter < karatsuba) {
+            r = schoolbookMultiply(a, an, b, bn);
+        } else if (longer >= 2 * shorter) {
+            r = unbalancedMultiply(a, an, b, bn, karatsuba, toom3);
+        } else if (shorter < toom3) {
+            r = karatsubaMultiply(a, an, b, bn, karatsuba, toom3);
+        } else {
+            r = toom3Multiply(a, an, b, bn, karatsuba, toom3);
+        }
+        return r;
+    }
+
+    /**
+     * Returns the product of {@code a[0, an)} and {@code b[0, bn)} when one
+     * factor is at least twice as long as the other, by multiplying the
+     * shorter factor by pieces of the longer one of the same length.
+     *
+     * @param a
+     *            the first factor
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second factor
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @return the limbs of the product, of length an + bn
+     * @requires <pre>
+     * max(an, bn) >= 2 * min(an, bn) > 0  and
+     * 2 <= karatsuba  and  3 <= toom3
+     * </pre>
+     */
+    private static int[] unbalancedMultiply(int[] a, int an, int[] b, int bn,
+            int karatsuba, int toom3) {
+        int[] longFactor = a;
+        int longLength = an;
+        int[] shortFactor = b;
+        int shortLength = bn;
+        if (an < bn) {
+            longFactor = b;
+            longLength = bn;
+            shortFactor = a;
+            shortLength = an;
+        }
+        int[] r = new int[an + bn];
+        for (int from = 0; from < longLength; from += shortLength) {
+            int[] piece = slice(longFactor, longLength, from,
+                    from + shortLength);
+            int[] p = multiplyLimbs(piece, piece.length, shortFactor,
+                    shortLength, karatsuba, toom3);
+            addAt(r, from, p, trim(p, p.length));
+        }
+        return r;
+    }
+
+    /**
+     * Returns the product of {@code a[0, an)} and {@code b[0, bn)} by one
+     * level of Karatsuba's method: with a = a1 * BASE^h + a0 and
+     * b = b1 * BASE^h + b0, the three products a0 * b0, a1 * b1, and
+     * (a0 + a1) * (b0 + b1) give all of a * b.
+     *
+     * @param a
+     *            the first factor
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second factor
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @return the limbs of the product, of length an + bn
+     * @requires 2 <= karatsuba  and  3 <= toom3
+     */
+    private static int[] karatsubaMultiply(int[] a, int an, int[] b, int bn,
+            int karatsuba, int toom3) {
+        int h = (Math.max(an, bn) + 1) / 2;
+        int[] a0 = slice(a, an, 0, h);
+        int[] a1 = slice(a, an, h, an);
+        int[] b0 = slice(b, bn, 0, h);
+        int[] b1 = slice(b, bn, h, bn);
+        int[] z0 = exactProduct(a0, b0, karatsuba, toom3);
+        int[] z2 = exactProduct(a1, b1, karatsuba, toom3);
+        int[] z1 = exactProduct(sum(a0, a1), sum(b0, b1), karatsuba, toom3);
+        z1 = difference(difference(z1, z0), z2);
+        int[] r = new int[an + bn];
+        addAt(r, 0, z0, z0.length);
+        addAt(r, h, z1, z1.length);
+        addAt(r, 2 * h, z2, z2.length);
+        return r;
+    }
+
+    /**
+     * Returns the product of {@code a[0, an)} and {@code b[0, bn)} by one
+     * level of the Toom-3 method: both factors are split into three pieces,
+     * taken as polynomials in BASE^k, evaluated at 0, 1, -1, -2, and
+     * infinity, multiplied pointwise, and interpolated back (using Bodrato's
+     * sequence), so five products of a third of the size replace the nine of
+     * the schoolbook method.
+     *
+     * @param a
+     *            the first factor
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param b
+     *            the second factor
+     * @param bn
+     *            the number of significant limbs of {@code b}
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @return the limbs of the product, of length an + bn
+     * @requires 2 <= karatsuba  and  3 <= toom3
+     */
+    private static int[] toom3Multiply(int[] a, int an, int[] b, int bn,
+            int karatsuba, int toom3) {
+        int k = (Math.max(an, bn) + 2) / 3;
+        SignedLimbs[] p = toom3Evaluate(a, an, k);
+        SignedLimbs[] q = toom3Evaluate(b, bn, k);
+        SignedLimbs r0 = p[0].times(q[0], karatsuba, toom3);
+        SignedLimbs r1 = p[1].times(q[1], karatsuba, toom3);
+        SignedLimbs rm1 = p[2].times(q[2], karatsuba, toom3);
+        SignedLimbs rm2 = p[3].times(q[3], karatsuba, toom3);
+        SignedLimbs rInf = p[4].times(q[4], karatsuba, toom3);
+        /*
+         * Interpolation: solve for the coefficients r0, r1, r2, r3, rInf of
+         * the product polynomial.
+         */
+        SignedLimbs r3 = rm2.minus(r1).dividedBy(3);
+        r1 = r1.minus(rm1).dividedBy(2);
+        SignedLimbs r2 = rm1.minus(r0);
+        r3 = r2.minus(r3).dividedBy(2).plus(rInf).plus(rInf);
+        r2 = r2.plus(r1).minus(rInf);
+        r1 = r1.minus(r3);
+        assert !r1.negative && !r2.negative && !r3.negative : ""
+                + "Violation of: product coefficients are natural numbers";
+        int[] r = new int[an + bn];
+        addAt(r, 0, r0.mag, r0.mag.length);
+        addAt(r, k, r1.mag, r1.mag.length);
+        addAt(r, 2 * k, r2.mag, r2.mag.length);
+        addAt(r, 3 * k, r3.mag, r3.mag.length);
+        addAt(r, 4 * k, rInf.mag, rInf.mag.length);
+        return r;
+    }
+
+    /**
+     * Splits {@code a[0, an)} into pieces a2 * BASE^(2k) + a1 * BASE^k + a0
+     * and evaluates a2 * x^2 + a1 * x + a0 at 0, 1, -1, -2, and infinity.
+     *
+     * @param a
+     *            the limbs
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param k
+     *            the number of limbs per piece
+     * @return the values at 0, 1, -1, -2, and infinity, in that order
+     */
+    private static SignedLimbs[] toom3Evaluate(int[] a, int an, int k) {
+        SignedLimbs a0 = new SignedLimbs(slice(a, an, 0, k), false);
+        SignedLimbs a1 = new SignedLimbs(slice(a, an, k, 2 * k), false);
+        SignedLimbs a2 = new SignedLimbs(slice(a, an, 2 * k, an), false);
+        SignedLimbs t = a0.plus(a2);
+        SignedLimbs atMinusOne = t.minus(a1);
+        SignedLimbs atMinusTwo = atMinusOne.plus(a2);
+        atMinusTwo = atMinusTwo.plus(atMinusTwo).minus(a0);
+        return new SignedLimbs[] { a0, t.plus(a1), atMinusOne, atMinusTwo,
+            a2 };
+    }
+
+    /**
+     * Returns the significant limbs of {@code a[from, min(to, an))} as a new
+     * array of exactly that length.
+     *
+     * @param a
+     *            the limbs
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @param from
+     *            the first index
+     * @param to
+     *            the index past the last
+     * @return the trimmed piece
+     */
+    private static int[] slice(int[] a, int an, int from, int to) {
+        int end = Math.min(to, an);
+        int start = Math.min(from, end);
+        return Arrays.copyOfRange(a, start, Math.max(start, trim(a, end)));
+    }
+
+    /**
+     * Adds {@code p[0, pn)} * BASE^offset to {@code r} in place.
+     *
+     * @param r
+     *            the limbs updated
+     * @param offset
+     *            the limb position at which {@code p} is added
+     * @param p
+     *            the limbs added
+     * @param pn
+     *            the number of significant limbs of {@code p}
+     * @requires the sum fits in |r| limbs
+     */
+    private static void addAt(int[] r, int offset, int[] p, int pn) {
+        int carry = 0;
+        int i = 0;
+        while (i < pn || carry != 0) {
+            int s = r[offset + i] + carry;
+            if (i < pn) {
+                s += p[i];
+            }
+            if (s >= BASE) {
+                s -= BASE;
+                carry = 1;
+            } else {
+                carry = 0;
+            }
+            r[offset + i] = s;
+            i++;
+        }
+    }
+
+    /**
+     * Returns the product of two trimmed limb arrays, trimmed, switching
+     * methods at the given thresholds.
+     *
+     * @param a
+     *            the first factor, without leading zero limbs
+     * @param b
+     *            the second factor, without leading zero limbs
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @return the product, without leading zero limbs
+     * @requires 2 <= karatsuba  and  3 <= toom3
+     */
+    private static int[] exactProduct(int[] a, int[] b, int karatsuba,
+            int toom3) {
+        int[] r = multiplyLimbs(a, a.length, b, b.length, karatsuba, toom3);
+        return Arrays.copyOf(r, trim(r, r.length));
+    }
+
+    /**
+     * Returns the product of two trimmed limb arrays, trimmed.
+     *
+     * @param a
+     *            the first factor, without leading zero limbs
+     * @param b
+     *            the second factor, without leading zero limbs
+     * @return the product, without leading zero limbs
+     */
+    private static int[] exactProduct(int[] a, int[] b) {
+        return exactProduct(a, b, KARATSUBA_THRESHOLD, TOOM3_THRESHOLD);
+    }
+
+    /**
+     * Returns the sum of two trimmed limb arrays, trimmed.
+     *
+     * @param a
+     *            the first addend, without leading zero limbs
+     * @param b
+     *            the second addend, without leading zero limbs
+     * @return the sum, without leading zero limbs
+     */
+    private static int[] sum(int[] a, int[] b) {
+        int[] r = Arrays.copyOf(a, Math.max(a.length, b.length) + 1);
+        return Arrays.copyOf(r, addInPlace(r, a.length, b, b.length));
+    }
+
+    /**
+     * Returns the difference of two trimmed limb arrays, trimmed.
+     *
+     * @param a
+     *            the minuend, without leading zero limbs
+     * @param b
+     *            the subtrahend, without leading zero limbs
+     * @return the difference, without leading zero limbs
+     * @requires a >= b
+     */
+    private static int[] difference(int[] a, int[] b) {
+        int[] r = a.clone();
+        return Arrays.copyOf(r, subtractInPlace(r, a.length, b, b.length));
+    }
+
+    /**
+     * Divides {@code u[0, un)} by {@code v[0, vn)} using Knuth's Algorithm D
+     * in base 10^9, returning the quotient and leaving the remainder in
+     * {@code u}.
+     *
+     * @param u
+     *            the dividend, replaced by the remainder
+     * @param un
+     *            the number of significant limbs of {@code u}
+     * @param v
+     *            the divisor
+     * @param vn
+     *            the number of significant limbs of {@code v}
+     * @return the limbs of the quotient, of length max(un - vn + 1, 0)
+     * @updates u
+     * @requires <pre>
+     * vn >= 2  and  |u| >= un + 1  and  u[un] = 0  and
+     * [v is not changed]
+     * </pre>
+     */
+    private static int[] divideLimbs(int[] u, int un, int[] v, int vn) {
+        int[] q = new int[Math.max(un - vn + 1, 0)];
+        if (un >= vn) {
+            /*
+             * Normalize so the divisor's top limb is at least BASE / 2.
+             */
+            int d = BASE / (v[vn - 1] + 1);
+            int[] w = new int[vn + 1];
+            System.arraycopy(v, 0, w, 0, vn);
+            multiplySmallInPlace(w, vn, d, 0);
+            multiplySmallInPlace(u, un, d, 0);
+            long top = w[vn - 1];
+            long second = w[vn - 2];
+            for (int j = un - vn; j >= 0; j--) {
+                long num = (long) u[j + vn] * BASE + u[j + vn - 1];
+                long qhat = num / top;
+                long rhat = num % top;
+                while (qhat >= BASE
+                        || qhat * second > rhat * BASE + u[j + vn - 2]) {
+                    qhat--;
+                    rhat += top;
+                    if (rhat >= BASE) {
+                        break;
+                    }
+                }
+                /*
+                 * Multiply and subtract qhat * w from u[j, j + vn].
+                 */
+                long carry = 0;
+                long borrow = 0;
+                for (int i = 0; i < vn; i++) {
+                    long p = qhat * w[i] + carry;
+                    carry = p / BASE;
+                    long s = u[i + j] - (p % BASE) - borrow;
+                    if (s < 0) {
+                        s += BASE;
+                        borrow = 1;
+                    } else {
+                        borrow = 0;
+                    }
+                    u[i + j] = (int) s;
+                }
+                long s = u[j + vn] - carry - borrow;
+                if (s < 0) {
+                    /*
+                     * qhat was one too large: add w back.
+                     */
+                    qhat--;
+                    long c = 0;
+                    for (int i = 0; i < vn; i++) {
+                        long t = u[i + j] + w[i] + c;
+                        if (t >= BASE) {
+                            t -= BASE;
+                            c = 1;
+                        } else {
+                            c = 0;
+                        }
+                        u[i + j] = (int) t;
+                    }
+                    s += c;
+                }
+                u[j + vn] = (int) s;
+                q[j] = (int) qhat;
+            }
+            /*
+             * Undo the normalization of the remainder.
+             */
+            divideSmallInPlace(u, vn, d);
+        }
+        return q;
+    }
+
+    /**
+     * Returns the binary digits of {@code a[0, an)}, least significant first.
+     *
+     * @param a
+     *            the limbs
+     * @param an
+     *            the number of significant limbs of {@code a}
+     * @return the bits of a, with no leading false entries
+     */
+    private static boolean[] bitsOf(int[] a, int an) {
+        int[] q = Arrays.copyOf(a, an);
+        int qn = an;
+        boolean[] bits = new boolean[an * BITS_PER_LIMB];
+        int count = 0;
+        while (qn > 0) {
+            bits[count] = divideSmallInPlace(q, qn, 2) == 1;
+            qn = trim(q, qn);
+            count++;
+        }
+        return Arrays.copyOf(bits, count);
+    }
+
+    /**
+     * Returns floor(BASE^(2k) / m), the Barrett reduction constant for
+     * modulus {@code m}.
+     *
+     * @param m
+     *            the modulus, without leading zero limbs
+     * @return the reduction constant, without leading zero limbs
+     * @requires |m| = k > 0
+     */
+    private static int[] barrettConstant(int[] m) {
+        int k = m.length;
+        int[] u = new int[2 * k + 2];
+        u[2 * k] = 1;
+        int[] q;
+        if (k == 1) {
+            divideSmallInPlace(u, 2 * k + 1, m[0]);
+            q = u;
+        } else {
+            q = divideLimbs(u, 2 * k + 1, m, k);
+        }
+        return Arrays.copyOf(q, trim(q, q.length));
+    }
+
+    /**
+     * Returns {@code x mod m} by Barrett reduction.
+     *
+     * @param x
+     *            the number to reduce, without leading zero limbs
+     * @param m
+     *            the modulus, without leading zero limbs
+     * @param mu
+     *            {@code barrettConstant(m)}
+     * @return x mod m, without leading zero limbs
+     * @requires x < BASE^(2 * |m|)
+     */
+    private static int[] barrettReduce(int[] x, int[] m, int[] mu) {
+        int k = m.length;
+        /*
+         * q = floor(floor(x / BASE^(k - 1)) * mu / BASE^(k + 1)) is at most
+         * two less than floor(x / m).
+         */
+        int[] q = exactProduct(slice(x, x.length, k - 1, x.length), mu);
+        q = slice(q, q.length, k + 1, q.length);
+        int[] r = difference(x, exactProduct(q, m));
+        while (compare(r, r.length, m, k) >= 0) {
+            r = difference(r, m);
+        }
+        return r;
+    }
+
+    /**
+     * Replaces {@code this} by {@code this} raised to the power whose binary
+     * digits, least significant first, are {@code bits[0, count)}, by
+     * left-to-right binary exponentiation.
+     *
+     * @param bits
+     *            the binary digits of the exponent
+     * @param count
+     *            the number of binary digits
+     * @updates this
+     * @requires count = 0 or bits[count - 1]
+     * @ensures this = #this ^ [value of bits[0, count)]
+     */
+    private void powerBits(boolean[] bits, int count) {
+        if (count == 0) {
+            this.setFromInt(1);
+        } else if (this.length > 1 || (this.length == 1
+                && this.limbs[0] > 1)) {
+            /*
+             * Each step squares the partial power and then multiplies by the
+             * base, which stays small, rather than squaring the base as the
+             * right-to-left method does.
+             */
+            int[] base = Arrays.copyOf(this.limbs, this.length);
+            int[] r = base;
+            for (int i = count - 2; i >= 0; i--) {
+                r = exactProduct(r, r);
+                if (bits[i]) {
+                    r = exactProduct(r, base);
+                }
+            }
+            this.setLimbs(r, r.length);
+        }
+    }
+
+    /**
+     * Makes sure {@code $this.limbs} has at least {@code capacity} limbs.
+     *
+     * @param capacity
+     *            the needed capacity
+     * @updates $this.limbs
+     * @ensures |$this.limbs| >= capacity
+     */
+    private void ensureCapacity(int capacity) {
+        if (this.limbs.length < capacity) {
+            int[] bigger = new int[Math.max(capacity, 2 * this.limbs.length)];
+            System.arraycopy(this.limbs, 0, bigger, 0, this.length);
+            this.limbs = bigger;
+        }
+    }
+
+    /**
+     * Replaces the representation of {@code this} with {@code a[0, n)}.
+     *
+     * @param a
+     *            the new limbs, which {@code this} takes ownership of
+     * @param n
+     *            the number of limbs of {@code a} to consider
+     * @updates this
+     * @ensures this = [value of a[0, n)]
+     */
+    private void setLimbs(int[] a, int n) {
+        this.length = trim(a, n);
+        if (a.length == 0) {
+            this.limbs = new int[INITIAL_CAPACITY];
+        } else {
+            this.limbs = a;
+        }
+    }
+
+    /**
+     * Returns {@code n} as a {@code NaturalNumber4}, converting only if needed.
+     *
+     * @param n
+     *            the number
+     * @return {@code n} itself if it is a {@code NaturalNumber4} other than
+     *         {@code this}; otherwise a new {@code NaturalNumber4} equal to
+     *         {@code n}
+     */
+    private NaturalNumber4 asLimbs(NaturalNumber n) {
+        NaturalNumber4 result;
+        if (n instanceof NaturalNumber4 && n != this) {
+            result = (NaturalNumber4) n;
+        } else {
+            result = new NaturalNumber4(n);
+        }
+        return result;
+    }
+
+    /**
+     * Parses {@code s} into the representation.
+     *
+     * @param s
+     *            the decimal depiction of a natural number
+     * @updates this
+     * @requires there exists n: NATURAL (s = TO_STRING(n))
+     * @ensures s = TO_STRING(this)
+     */
+    private void parse(String s) {
+        int n = (s.length() + DIGITS_PER_LIMB - 1) / DIGITS_PER_LIMB;
+        int[] a = new int[Math.max(n, INITIAL_CAPACITY)];
+        int end = s.length();
+        for (int i = 0; i < n; i++) {
+            int start = Math.max(0, end - DIGITS_PER_LIMB);
+            a[i] = Integer.parseInt(s.substring(start, end));
+            end = start;
+        }
+        this.setLimbs(a, n);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.limbs = new int[INITIAL_CAPACITY];
+        this.length = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public NaturalNumber4() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor from {@code int}.
+     *
+     * @param i
+     *            {@code int} to initialize from
+     */
+    public NaturalNumber4(int i) {
+        assert i >= 0 : "Violation of: i >= 0";
+
+        this.createNewRep();
+        this.setFromInt(i);
+    }
+
+    /**
+     * Constructor from {@code String}.
+     *
+     * @param s
+     *            {@code String} to initialize from
+     */
+    public NaturalNumber4(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert s.matches("0|[1-9]\\d*") : ""
+                + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+
+        this.parse(s);
+    }
+
+    /**
+     * Constructor from {@code NaturalNumber}.
+     *
+     * @param n
+     *            {@code NaturalNumber} to initialize from
+     */
+    public NaturalNumber4(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        if (n instanceof NaturalNumber4) {
+            NaturalNumber4 m = (NaturalNumber4) n;
+            this.limbs = new int[Math.max(m.length, INITIAL_CAPACITY)];
+            System.arraycopy(m.limbs, 0, this.limbs, 0, m.length);
+            this.length = m.length;
+        } else {
+            this.parse(n.toString());
+        }
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final NaturalNumber newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(NaturalNumber source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof NaturalNumber4 : ""
+                + "Violation of: source is of dynamic type NaturalNumber4";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        NaturalNumber4 localSource = (NaturalNumber4) source;
+        this.limbs = localSource.limbs;
+        this.length = localSource.length;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void multiplyBy10(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < RADIX : "Violation of: k < 10";
+
+        this.ensureCapacity(this.length + 1);
+        this.length = multiplySmallInPlace(this.limbs, this.length, RADIX, k);
+    }
+
+    @Override
+    public final int divideBy10() {
+        int rem = divideSmallInPlace(this.limbs, this.length, RADIX);
+        this.length = trim(this.limbs, this.length);
+        return rem;
+    }
+
+    @Override
+    public final boolean isZero() {
+        return this.length == 0;
+    }
+
+    /*
+     * Secondary methods overridden for efficiency ----------------------------
+     */
+
+    @Override
+    public final void setFromInt(int i) {
+        assert i >= 0 : "Violation of: i >= 0";
+
+        this.createNewRep();
+        this.limbs[0] = i % BASE;
+        this.limbs[1] = i / BASE;
+        this.length = trim(this.limbs, 2);
+    }
+
+    @Override
+    public final boolean canConvertToInt() {
+        return this.length <= 1
+                || (this.length == 2 && (long) this.limbs[1] * BASE
+                        + this.limbs[0] <= Integer.MAX_VALUE);
+    }
+
+    @Override
+    public final int toInt() {
+        assert this.canConvertToInt() : ""
+                + "Violation of: this <= Integer.MAX_VALUE";
+
+        long value = 0;
+        for (int i = this.length - 1; i >= 0; i--) {
+            value = value * BASE + this.limbs[i];
+        }
+        return (int) value;
+    }
+
+    @Override
+    public final void setFromString(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert this.canSetFromString(s) : ""
+                + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+
+        this.parse(s);
+    }
+
+    @Override
+    public final void copyFrom(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        if (n != this) {
+            NaturalNumber4 m = this.asLimbs(n);
+            this.ensureCapacity(m.length);
+            System.arraycopy(m.limbs, 0, this.limbs, 0, m.length);
+            for (int i = m.length; i < this.length; i++) {
+                this.limbs[i] = 0;
+            }
+            this.length = m.length;
+        }
+    }
+
+    @Override
+    public final int compareTo(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        NaturalNumber4 m = this.asLimbs(n);
+        return compare(this.limbs, this.length, m.limbs, m.length);
+    }
+
+    @Override
+    public final void increment() {
+        this.ensureCapacity(this.length + 1);
+        int i = 0;
+        while (this.limbs[i] == BASE - 1) {
+            this.limbs[i] = 0;
+            i++;
+        }
+        this.limbs[i]++;
+        this.length = Math.max(this.length, i + 1);
+    }
+
+    @Override
+    public final void decrement() {
+        assert !this.isZero() : "Violation of: this > 0";
+
+        int i = 0;
+        while (this.limbs[i] == 0) {
+            this.limbs[i] = BASE - 1;
+            i++;
+        }
+        this.limbs[i]--;
+        this.length = trim(this.limbs, this.length);
+    }
+
+    @Override
+    public final void add(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        NaturalNumber4 m = this.asLimbs(n);
+        this.ensureCapacity(Math.max(this.length, m.length) + 1);
+        this.length = addInPlace(this.limbs, this.length, m.limbs, m.length);
+    }
+
+    @Override
+    public final void subtract(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        assert this.compareTo(n) >= 0 : "Violation of: this >= n";
+
+        NaturalNumber4 m = this.asLimbs(n);
+        this.length = subtractInPlace(this.limbs, this.length, m.limbs,
+                m.length);
+    }
+
+    @Override
+    public final void multiply(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        this.multiply(n, KARATSUBA_THRESHOLD, TOOM3_THRESHOLD);
+    }
+
+    @Override
+    public final NaturalNumber divide(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        assert !n.isZero() : "Violation of: n > 0";
+
+        NaturalNumber4 m = this.asLimbs(n);
+        NaturalNumber4 remainder = new NaturalNumber4();
+        if (m.length == 1) {
+            remainder.setFromInt(
+                    divideSmallInPlace(this.limbs, this.length, m.limbs[0]));
+            this.length = trim(this.limbs, this.length);
+        } else if (compare(this.limbs, this.length, m.limbs, m.length) < 0) {
+            remainder.transferFrom(this);
+        } else {
+            this.ensureCapacity(this.length + 1);
+            int[] q = divideLimbs(this.limbs, this.length, m.limbs, m.length);
+            remainder.setLimbs(this.limbs, m.length);
+            this.limbs = new int[0];
+            this.setLimbs(q, q.length);
+        }
+        return remainder;
+    }
+
+    @Override
+    public final void power(int p) {
+        assert p >= 0 : "Violation of: p >= 0";
+
+        boolean[] bits = new boolean[Integer.SIZE];
+        int count = 0;
+        for (int e = p; e > 0; e = e / 2) {
+            bits[count] = e % 2 == 1;
+            count++;
+        }
+        this.powerBits(bits, count);
+    }
+
+    @Override
+    public final void root(int r) {
+        assert r >= 2 : "Violation of: r >= 2";
+
+        if (this.length > 0 && compare(this.limbs, this.length,
+                new int[] { 1 }, 1) > 0) {
+            /*
+             * Newton's iteration x := ((r - 1) * x + n / x^(r - 1)) / r,
+             * started from a power of two no smaller than the root, decreases
+             * monotonically to floor(n^(1/r)).
+             */
+            int bits = this.length * BITS_PER_LIMB;
+            NaturalNumber4 x = new NaturalNumber4(2);
+            x.power((bits + r - 1) / r);
+            NaturalNumber4 rMinusOne = new NaturalNumber4(r - 1);
+            NaturalNumber4 rootR = new NaturalNumber4(r);
+            NaturalNumber4 next = new NaturalNumber4();
+            NaturalNumber4 quotient = new NaturalNumber4();
+            boolean decreasing = true;
+            while (decreasing) {
+                quotient.copyFrom(this);
+                next.copyFrom(x);
+                next.power(r - 1);
+                quotient.divide(next);
+                next.copyFrom(x);
+                next.multiply(rMinusOne);
+                next.add(quotient);
+                next.divide(rootR);
+                decreasing = next.compareTo(x) < 0;
+                if (decreasing) {
+                    x.copyFrom(next);
+                }
+            }
+            this.transferFrom(x);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        String result;
+        if (this.length == 0) {
+            result = "0";
+        } else {
+            StringBuilder sb = new StringBuilder(
+                    this.length * DIGITS_PER_LIMB);
+            sb.append(this.limbs[this.length - 1]);
+            for (int i = this.length - 2; i >= 0; i--) {
+                String chunk = Integer.toString(this.limbs[i]);
+                for (int k = chunk.length(); k < DIGITS_PER_LIMB; k++) {
+                    sb.append('0');
+                }
+                sb.append(chunk);
+            }
+            result = sb.toString();
+        }
+        return result;
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Raises {@code this} to the power {@code p}, which may exceed
+     * {@code Integer.MAX_VALUE}.
+     *
+     * @param p
+     *            the exponent
+     * @updates this
+     * @ensures this = #this ^ (p)
+     */
+    public final void power(NaturalNumber p) {
+        assert p != null : "Violation of: p is not null";
+
+        NaturalNumber4 e = this.asLimbs(p);
+        boolean[] bits = bitsOf(e.limbs, e.length);
+        this.powerBits(bits, bits.length);
+    }
+
+    /**
+     * Replaces {@code this} by {@code this} raised to the power
+     * {@code exponent}, modulo {@code modulus}, without forming the full
+     * power: every intermediate result is reduced, by Barrett reduction, to
+     * fewer limbs than {@code modulus} squared.
+     *
+     * @param exponent
+     *            the exponent
+     * @param modulus
+     *            the modulus
+     * @updates this
+     * @requires modulus > 0
+     * @ensures this = (#this ^ (exponent)) mod modulus
+     */
+    public final void modPow(NaturalNumber exponent, NaturalNumber modulus) {
+        assert exponent != null : "Violation of: exponent is not null";
+        assert modulus != null : "Violation of: modulus is not null";
+        assert !modulus.isZero() : "Violation of: modulus > 0";
+
+        NaturalNumber4 e = this.asLimbs(exponent);
+        NaturalNumber4 m = this.asLimbs(modulus);
+        int[] mod = Arrays.copyOf(m.limbs, m.length);
+        boolean[] bits = bitsOf(e.limbs, e.length);
+
+        NaturalNumber4 reduced = new NaturalNumber4(this);
+        NaturalNumber rem = reduced.divide(m);
+        NaturalNumber4 b = this.asLimbs(rem);
+        int[] base = Arrays.copyOf(b.limbs, b.length);
+
+        int[] r = { 1 };
+        if (bits.length > 0) {
+            int[] mu = barrettConstant(mod);
+            r = base;
+            for (int i = bits.length - 2; i >= 0; i--) {
+                r = barrettReduce(exactProduct(r, r), mod, mu);
+                if (bits[i]) {
+                    r = barrettReduce(exactProduct(r, base), mod, mu);
+                }
+            }
+        }
+        if (compare(r, r.length, mod, mod.length) >= 0) {
+            /*
+             * Only possible when the exponent is 0 and the modulus is 1.
+             */
+            r = new int[0];
+        }
+        this.setLimbs(r, r.length);
+    }
+
+    /**
+     * Multiplies {@code this} by {@code n}, switching from the schoolbook
+     * method to Karatsuba's method and to the Toom-3 method at the given
+     * lengths, in limbs, of the shorter factor rather than at the calibrated
+     * ones. Meant for calibrating those and for testing each method; a
+     * threshold of {@code Integer.MAX_VALUE} disables a method.
+     *
+     * @param n
+     *            {@code NaturalNumber} to multiply by
+     * @param karatsuba
+     *            the length of the shorter factor from which Karatsuba's
+     *            method is used
+     * @param toom3
+     *            the length of the shorter factor from which the Toom-3
+     *            method is used
+     * @updates this
+     * @requires 2 <= karatsuba  and  3 <= toom3
+     * @ensures this = #this * n
+     */
+    final void multiply(NaturalNumber n, int karatsuba, int toom3) {
+        assert n != null : "Violation of: n is not null";
+        assert karatsuba >= 2 : "Violation of: 2 <= karatsuba";
+        assert toom3 >= 3 : "Violation of: 3 <= toom3";
+
+        NaturalNumber4 m = this.asLimbs(n);
+        if (this.length == 0 || m.length == 0) {
+            this.createNewRep();
+        } else {
+            int[] r = multiplyLimbs(this.limbs, this.length, m.limbs,
+                    m.length, karatsuba, toom3);
+            this.setLimbs(r, r.length);
+        }
+    }
+
+    /**
+     * Signed number of limbs, used for the intermediate values of the Toom-3
+     * method.
+     *
+     * @convention <pre>
+     * [$this.mag has no leading zero limbs]  and
+     * ($this.negative implies |$this.mag| > 0)
+     * </pre>
+     * @correspondence <pre>
+     * this = [-1 if $this.negative, else 1] * [value of $this.mag]
+     * </pre>
+     */
+    private static final class SignedLimbs {
+
+        /**
+         * Magnitude, least significant limb first.
+         */
+        private final int[] mag;
+
+        /**
+         * Whether the number is negative.
+         */
+        private final boolean negative;
+
+        /**
+         * Constructor from magnitude and sign.
+         *
+         * @param mag
+         *            the magnitude, without leading zero limbs
+         * @param negative
+         *            whether the number is negative; ignored if it is zero
+         */
+        private SignedLimbs(int[] mag, boolean negative) {
+            this.mag = mag;
+            this.negative = negative && mag.length > 0;
+        }
+
+        /**
+         * Returns {@code this + x}.
+         *
+         * @param x
+         *            the addend
+         * @return the sum
+         */
+        private SignedLimbs plus(SignedLimbs x) {
+            SignedLimbs result;
+            if (this.negative == x.negative) {
+                result = new SignedLimbs(sum(this.mag, x.mag), this.negative);
+            } else if (compare(this.mag, this.mag.length, x.mag,
+                    x.mag.length) >= 0) {
+                result = new SignedLimbs(difference(this.mag, x.mag),
+                        this.negative);
+            } else {
+                result = new SignedLimbs(difference(x.mag, this.mag),
+                        x.negative);
+            }
+            return result;
+        }
+
+        /**
+         * Returns {@code this - x}.
+         *
+         * @param x
+         *            the subtrahend
+         * @return the difference
+         */
+        private SignedLimbs minus(SignedLimbs x) {
+            return this.plus(new SignedLimbs(x.mag, !x.negative));
+        }
+
+        /**
+         * Returns {@code this * x}, switching multiplication methods at the
+         * given thresholds.
+         *
+         * @param x
+         *            the factor
+         * @param karatsuba
+         *            the length of the shorter factor from which Karatsuba's
+         *            method is used
+         * @param toom3
+         *            the length of the shorter factor from which the Toom-3
+         *            method is used
+         * @return the product
+         * @requires 2 <= karatsuba  and  3 <= toom3
+         */
+        private SignedLimbs times(SignedLimbs x, int karatsuba, int toom3) {
+            return new SignedLimbs(
+                    exactProduct(this.mag, x.mag, karatsuba, toom3),
+                    this.negative != x.negative);
+        }
+
+        /**
+         * Returns {@code this / d}, which must be exact.
+         *
+         * @param d
+         *            the divisor
+         * @return the quotient
+         * @requires 0 < d < BASE  and  [d divides this]
+         */
+        private SignedLimbs dividedBy(int d) {
+            int[] q = this.mag.clone();
+            int rem = divideSmallInPlace(q, q.length, d);
+            assert rem == 0 : "Violation of: d divides this";
+            return new SignedLimbs(Arrays.copyOf(q, trim(q, q.length)),
+                    this.negative);
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+import java.util.Random;
+
+import components.naturalnumber.NaturalNumber;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to calibrate the thresholds at which {@code NaturalNumber4} switches
+ * from schoolbook to Karatsuba multiplication and from Karatsuba to Toom-3
+ * multiplication.
+ *
+ * <p>
+ * For each size, one level of the faster method (with the slower method below
+ * it) is timed against the slower method alone; the threshold is the smallest
+ * size from which the faster method wins. The suggested values belong in
+ * {@code NaturalNumber4.KARATSUBA_THRESHOLD} and
+ * {@code NaturalNumber4.TOOM3_THRESHOLD}.
+ */
+public final class NaturalNumberMultiplyTimingMain {
+
+    /**
+     * Sizes, in base 10^9 limbs, of the factors timed.
+     */
+    private static final int[] SIZES = { 8, 12, 16, 24, 32, 48, 64, 96, 128,
+        192, 256, 384, 512 };
+
+    /**
+     * Decimal digits per limb of {@code NaturalNumber4}.
+     */
+    private static final int DIGITS_PER_LIMB = 9;
+
+    /**
+     * Minimum time, in nanoseconds, spent timing each measurement.
+     */
+    private static final long MIN_NANOS = 200_000_000L;
+
+    /**
+     * Number of untimed multiplications to let the JIT compiler settle.
+     */
+    private static final int WARMUP = 200;
+
+    /**
+     * Seed of the random factors, so runs are comparable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private NaturalNumberMultiplyTimingMain() {
+        // no code needed here
+    }
+
+    /**
+     * Returns a random number with exactly {@code digits} decimal digits.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param digits
+     *            the number of digits
+     * @return the random number
+     * @requires digits > 0
+     */
+    private static NaturalNumber4 randomNumber(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char) ('1' + rnd.nextInt(NaturalNumber.RADIX - 1)));
+        for (int i = 1; i < digits; i++) {
+            sb.append((char) ('0' + rnd.nextInt(NaturalNumber.RADIX)));
+        }
+        return new NaturalNumber4(sb.toString());
+    }
+
+    /**
+     * Reports the average time, in nanoseconds, to multiply {@code x} by
+     * {@code y} with the given thresholds.
+     *
+     * @param x
+     *            the first factor
+     * @param y
+     *            the second factor
+     * @param karatsuba
+     *            the Karatsuba threshold
+     * @param toom3
+     *            the Toom-3 threshold
+     * @return nanoseconds per multiplication
+     */
+    private static double time(NaturalNumber4 x, NaturalNumber4 y,
+            int karatsuba, int toom3) {
+        NaturalNumber4 product = new NaturalNumber4();
+        for (int i = 0; i < WARMUP; i++) {
+            product.copyFrom(x);
+            product.multiply(y, karatsuba, toom3);
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        long elapsed = 0;
+        while (elapsed < MIN_NANOS) {
+            product.copyFrom(x);
+            product.multiply(y, karatsuba, toom3);
+            count++;
+            elapsed = System.nanoTime() - start;
+        }
+        return (double) elapsed / count;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        Random rnd = new Random(SEED);
+        NaturalNumber4[] xs = new NaturalNumber4[SIZES.length];
+        NaturalNumber4[] ys = new NaturalNumber4[SIZES.length];
+        for (int i = 0; i < SIZES.length; i++) {
+            xs[i] = randomNumber(rnd, SIZES[i] * DIGITS_PER_LIMB);
+            ys[i] = randomNumber(rnd, SIZES[i] * DIGITS_PER_LIMB);
+        }
+
+        out.println("Schoolbook vs. one level of Karatsuba "
+                + "(run without -ea for meaningful numbers)");
+        out.println("limbs  schoolbook(us)  karatsuba(us)");
+        int karatsuba = Integer.MAX_VALUE;
+        for (int i = 0; i < SIZES.length; i++) {
+            double school = time(xs[i], ys[i], Integer.MAX_VALUE,
+                    Integer.MAX_VALUE);
+            double kara = time(xs[i], ys[i], SIZES[i], Integer.MAX_VALUE);
+            out.println(String.format("%5d  %14.1f  %13.1f", SIZES[i],
+                    school / 1000, kara / 1000));
+            if (karatsuba == Integer.MAX_VALUE && kara < school) {
+                karatsuba = SIZES[i];
+            }
+        }
+
+        out.println();
+        out.println("Karatsuba vs. one level of Toom-3");
+        out.println("limbs  karatsuba(us)  toom-3(us)");
+        int k = Math.min(karatsuba, SIZES[SIZES.length - 1]);
+        int toom3 = Integer.MAX_VALUE;
+        for (int i = 0; i < SIZES.length; i++) {
+            if (SIZES[i] >= k) {
+                double kara = time(xs[i], ys[i], k, Integer.MAX_VALUE);
+                double toom = time(xs[i], ys[i], k, SIZES[i]);
+                out.println(String.format("%5d  %13.1f  %10.1f", SIZES[i],
+                        kara / 1000, toom / 1000));
+                if (toom3 == Integer.MAX_VALUE && toom < kara) {
+                    toom3 = SIZES[i];
+                }
+            }
+        }
+
+        out.println();
+        out.println("Suggested KARATSUBA_THRESHOLD = " + karatsuba);
+        out.println("Suggested TOOM3_THRESHOLD = " + toom3);
+
+        out.close();
+    }
+
+}
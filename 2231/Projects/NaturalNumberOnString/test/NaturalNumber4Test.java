@@ -0,0 +1,388 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber1L;
+
+/**
+ * Customized JUnit test fixture for {@code NaturalNumber4}.
+ */
+public class NaturalNumber4Test extends NaturalNumberTest {
+
+    @Override
+    protected final NaturalNumber constructorTest() {
+
+        return new NaturalNumber4();
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(int i) {
+
+        return new NaturalNumber4(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(String s) {
+
+        return new NaturalNumber4(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(NaturalNumber n) {
+
+        return new NaturalNumber4(n);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef() {
+
+        return new NaturalNumber1L();
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(int i) {
+
+        return new NaturalNumber1L(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(String s) {
+
+        return new NaturalNumber1L(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(NaturalNumber n) {
+
+        return new NaturalNumber1L(n);
+    }
+
+    /**
+     * A number spanning several base 10^9 limbs.
+     */
+    private static final String BIG = "123456789012345678901234567890123456789";
+
+    /**
+     * Another number spanning several base 10^9 limbs.
+     */
+    private static final String OTHER = "98765432109876543210987";
+
+    /**
+     * Threshold that disables a multiplication method.
+     */
+    private static final int NEVER = Integer.MAX_VALUE;
+
+    /**
+     * Returns a random number with exactly {@code digits} decimal digits.
+     *
+     * @param rnd
+     *            the source of randomness
+     * @param digits
+     *            the number of digits
+     * @return the random number
+     * @requires digits > 0
+     */
+    private static NaturalNumber4 randomNumber(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char) ('1' + rnd.nextInt(NaturalNumber.RADIX - 1)));
+        for (int i = 1; i < digits; i++) {
+            sb.append((char) ('0' + rnd.nextInt(NaturalNumber.RADIX)));
+        }
+        return new NaturalNumber4(sb.toString());
+    }
+
+    /**
+     * Checks that multiplying random numbers of the given lengths with the
+     * given thresholds gives the schoolbook product, and leaves the second
+     * factor unchanged.
+     *
+     * @param seed
+     *            the seed of the random factors
+     * @param digits1
+     *            the number of digits of the first factor
+     * @param digits2
+     *            the number of digits of the second factor
+     * @param karatsuba
+     *            the Karatsuba threshold
+     * @param toom3
+     *            the Toom-3 threshold
+     */
+    private static void assertMatchesSchoolbook(long seed, int digits1,
+            int digits2, int karatsuba, int toom3) {
+        Random rnd = new Random(seed);
+        NaturalNumber4 n = randomNumber(rnd, digits1);
+        NaturalNumber4 m = randomNumber(rnd, digits2);
+        NaturalNumber4 mExpected = new NaturalNumber4(m);
+        NaturalNumber4 nExpected = new NaturalNumber4(n);
+        nExpected.multiply(m, NEVER, NEVER);
+        n.multiply(m, karatsuba, toom3);
+        assertEquals(nExpected.toString(), n.toString());
+        assertEquals(mExpected.toString(), m.toString());
+    }
+
+    /**
+     * Tests add with a carry out of every limb.
+     */
+    @Test
+    public final void testAddCarry() {
+        NaturalNumber n = this.constructorTest("999999999999999999999999999");
+        NaturalNumber m = this.constructorTest(1);
+        NaturalNumber nExpected = this
+                .constructorRef("1000000000000000000000000000");
+        NaturalNumber mExpected = this.constructorRef(1);
+        n.add(m);
+        assertEquals(nExpected, n);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests subtract with a borrow across several limbs.
+     */
+    @Test
+    public final void testSubtractBorrow() {
+        NaturalNumber n = this.constructorTest("1000000000000000000000000000");
+        NaturalNumber m = this.constructorTest(1);
+        NaturalNumber nExpected = this
+                .constructorRef("999999999999999999999999999");
+        n.subtract(m);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Tests multiply of two multi-limb numbers.
+     */
+    @Test
+    public final void testMultiply() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber m = this.constructorTest(OTHER);
+        NaturalNumber nExpected = this.constructorRef(BIG);
+        nExpected.multiply(this.constructorRef(OTHER));
+        n.multiply(m);
+        assertEquals(nExpected, n);
+        assertEquals(this.constructorRef(OTHER), m);
+    }
+
+    /**
+     * Tests multiply of a number by itself.
+     */
+    @Test
+    public final void testMultiplySelf() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber nExpected = this.constructorRef(BIG);
+        nExpected.multiply(this.constructorRef(BIG));
+        n.multiply(n);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Tests that the schoolbook method, used alone, agrees with the
+     * reference on numbers of a thousand digits.
+     */
+    @Test
+    public final void testMultiplySchoolbookLarge() {
+        Random rnd = new Random(1);
+        NaturalNumber4 n = randomNumber(rnd, 1000);
+        NaturalNumber4 m = randomNumber(rnd, 1100);
+        NaturalNumber nExpected = this.constructorRef(n.toString());
+        nExpected.multiply(this.constructorRef(m.toString()));
+        n.multiply(m, NEVER, NEVER);
+        assertEquals(nExpected.toString(), n.toString());
+    }
+
+    /**
+     * Tests Karatsuba's method at the calibrated thresholds, and recursing
+     * all the way down, against the schoolbook method.
+     */
+    @Test
+    public final void testMultiplyKaratsuba() {
+        assertMatchesSchoolbook(2, 1000, 1000, 48, NEVER);
+        assertMatchesSchoolbook(3, 1000, 700, 48, NEVER);
+        assertMatchesSchoolbook(4, 800, 797, 2, NEVER);
+        assertMatchesSchoolbook(5, 1500, 1234, 2, NEVER);
+    }
+
+    /**
+     * Tests the Toom-3 method at the calibrated thresholds, and recursing
+     * all the way down, against the schoolbook method.
+     */
+    @Test
+    public final void testMultiplyToom3() {
+        assertMatchesSchoolbook(6, 3000, 2500, 48, 256);
+        assertMatchesSchoolbook(7, 900, 900, 2, 3);
+        assertMatchesSchoolbook(8, 1000, 700, 20, 20);
+        assertMatchesSchoolbook(9, 1234, 999, 3, 4);
+    }
+
+    /**
+     * Tests factors of very different lengths, split into pieces of the
+     * shorter one's length, against the schoolbook method.
+     */
+    @Test
+    public final void testMultiplyUnbalanced() {
+        assertMatchesSchoolbook(10, 450, 5000, 48, 256);
+        assertMatchesSchoolbook(11, 5000, 500, 48, 256);
+        assertMatchesSchoolbook(12, 3000, 2400, 2, 3);
+        assertMatchesSchoolbook(13, 200, 4321, 2, NEVER);
+        assertMatchesSchoolbook(14, 2300, 4700, 48, 256);
+    }
+
+    /**
+     * Tests multiply by the calibrated thresholds of numbers of thousands of
+     * digits against the schoolbook method.
+     */
+    @Test
+    public final void testMultiplyLargeDefault() {
+        Random rnd = new Random(15);
+        NaturalNumber4 n = randomNumber(rnd, 4000);
+        NaturalNumber4 m = randomNumber(rnd, 3000);
+        NaturalNumber4 nExpected = new NaturalNumber4(n);
+        nExpected.multiply(m, NEVER, NEVER);
+        n.multiply(m);
+        assertEquals(nExpected.toString(), n.toString());
+    }
+
+    /**
+     * Tests divide by a multi-limb divisor.
+     */
+    @Test
+    public final void testDivideMultiLimb() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber m = this.constructorTest(OTHER);
+        NaturalNumber nExpected = this.constructorRef(BIG);
+        NaturalNumber rExpected = nExpected.divide(this.constructorRef(OTHER));
+        NaturalNumber r = n.divide(m);
+        assertEquals(nExpected, n);
+        assertEquals(rExpected, r);
+        assertEquals(this.constructorRef(OTHER), m);
+    }
+
+    /**
+     * Tests divide by a single-limb divisor.
+     */
+    @Test
+    public final void testDivideSingleLimb() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber m = this.constructorTest(7);
+        NaturalNumber nExpected = this.constructorRef(BIG);
+        NaturalNumber rExpected = nExpected.divide(this.constructorRef(7));
+        NaturalNumber r = n.divide(m);
+        assertEquals(nExpected, n);
+        assertEquals(rExpected, r);
+    }
+
+    /**
+     * Tests power with a multi-limb result.
+     */
+    @Test
+    public final void testPower() {
+        NaturalNumber n = this.constructorTest(OTHER);
+        NaturalNumber nExpected = this.constructorRef(OTHER);
+        final int p = 5;
+        n.power(p);
+        nExpected.power(p);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Tests root of a multi-limb number.
+     */
+    @Test
+    public final void testRoot() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber nExpected = this.constructorRef(BIG);
+        final int r = 3;
+        n.root(r);
+        nExpected.root(r);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Tests compareTo across different limb counts.
+     */
+    @Test
+    public final void testCompareTo() {
+        NaturalNumber n = this.constructorTest(BIG);
+        NaturalNumber m = this.constructorTest(OTHER);
+        assertTrue(n.compareTo(m) > 0);
+        assertTrue(m.compareTo(n) < 0);
+        assertEquals(0, n.compareTo(this.constructorTest(BIG)));
+    }
+
+    /**
+     * Tests power with an exponent larger than {@code Integer.MAX_VALUE} on
+     * a base of 1.
+     */
+    @Test
+    public final void testPowerHugeExponentOne() {
+        NaturalNumber4 n = new NaturalNumber4(1);
+        NaturalNumber p = this.constructorTest("100000000000000000000");
+        n.power(p);
+        assertEquals(this.constructorRef(1), n);
+        assertEquals(this.constructorRef("100000000000000000000"), p);
+    }
+
+    /**
+     * Tests power with a {@code NaturalNumber} exponent of 0.
+     */
+    @Test
+    public final void testPowerNaturalNumberZero() {
+        NaturalNumber4 n = new NaturalNumber4(BIG);
+        n.power(this.constructorTest());
+        assertEquals(this.constructorRef(1), n);
+    }
+
+    /**
+     * Tests modPow with a single-limb modulus.
+     */
+    @Test
+    public final void testModPowSmall() {
+        NaturalNumber4 n = new NaturalNumber4(4);
+        final int exponent = 13;
+        final int modulus = 497;
+        final int expected = 445;
+        n.modPow(this.constructorTest(exponent),
+                this.constructorTest(modulus));
+        assertEquals(this.constructorRef(expected), n);
+    }
+
+    /**
+     * Tests modPow with an exponent larger than {@code Integer.MAX_VALUE}.
+     */
+    @Test
+    public final void testModPowHugeExponent() {
+        NaturalNumber4 n = new NaturalNumber4(2);
+        n.modPow(this.constructorTest("100000000000000000000"),
+                this.constructorTest("1000000007"));
+        assertEquals(this.constructorRef("855473248"), n);
+    }
+
+    /**
+     * Tests modPow with multi-limb base, exponent, and modulus.
+     */
+    @Test
+    public final void testModPowMultiLimb() {
+        NaturalNumber4 n = new NaturalNumber4(BIG);
+        NaturalNumber m = this
+                .constructorTest("1000000000000000000000000000057");
+        n.modPow(this.constructorTest(OTHER), m);
+        assertEquals(this.constructorRef("670819028303053794862367216625"),
+                n);
+        assertEquals(this.constructorRef("1000000000000000000000000000057"),
+                m);
+    }
+
+    /**
+     * Tests modPow with exponent 0 and modulus 1.
+     */
+    @Test
+    public final void testModPowZeroExponentModulusOne() {
+        NaturalNumber4 n = new NaturalNumber4(BIG);
+        n.modPow(this.constructorTest(), this.constructorTest(1));
+        assertEquals(this.constructorRef(), n);
+    }
+
+}